@@ -336,6 +336,14 @@ public abstract class Builder extends Job {
     if(value >= limit) throw new BuildException(message, parser.detailedInfo(), limit);
   }
 
+  /**
+   * Returns the statistics of the element that will contain the next text node.
+   * @return statistics, or {@code null} if the text will be added to the root level
+   */
+  final Stats textStats() {
+    return level > 1 ? elemNames.stats(elemStack.get(level - 1)) : null;
+  }
+
   /**
    * Adds a simple text, comment or processing instruction to the database.
    * @param value the value to be added
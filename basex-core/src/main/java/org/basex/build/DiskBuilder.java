@@ -8,12 +8,14 @@ import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.data.*;
 import org.basex.index.name.*;
+import org.basex.index.stats.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * This class creates a database instance on disk.
@@ -23,6 +25,9 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public final class DiskBuilder extends Builder {
+  /** Maximum number of dictionary values. */
+  private static final int MAXDICT = 1 << 16;
+
   /** Database table. */
   private DataOutput tout;
   /** Database texts. */
@@ -31,6 +36,8 @@ public final class DiskBuilder extends Builder {
   private DataOutput vout;
   /** Output stream for temporary values. */
   private DataOutput sout;
+  /** Dictionary with frequent texts and attribute values. */
+  private final TokenSet dictionary = new TokenSet();
 
   /** Static options. */
   private final StaticOptions sopts;
@@ -93,9 +100,16 @@ public final class DiskBuilder extends Builder {
       }
       tmpFile.delete();
 
+      // compress node table, texts and attribute values
+      if(meta.compression) {
+        for(final String file : new String[] { DATATBL, DATATXT, DATAATV }) {
+          CompressedFile.compress(meta.dbFile(file));
+        }
+      }
+
       // return database instance. build will be finalized when this instance is closed
       meta.dirty = true;
-      return new DiskData(meta, elemNames, attrNames, path, nspaces);
+      return new DiskData(meta, elemNames, attrNames, path, nspaces, dictionary);
 
     } catch(final Throwable th) {
       DropDB.drop(meta.name, sopts);
@@ -107,7 +121,7 @@ public final class DiskBuilder extends Builder {
   protected void addDoc(final byte[] value) throws IOException {
     tout.write1(Data.DOC);
     tout.write2(0);
-    tout.write5(textRef(value, true));
+    tout.write5(textRef(value, true, null));
     tout.write4(0);
     tout.write4(meta.size++);
   }
@@ -132,7 +146,7 @@ public final class DiskBuilder extends Builder {
 
     tout.write1(dist << 3 | Data.ATTR);
     tout.write2(nameId);
-    tout.write5(textRef(value, false));
+    tout.write5(textRef(value, false, attrNames.stats(nameId)));
     tout.write4(uriId);
     tout.write4(meta.size++);
   }
@@ -141,7 +155,7 @@ public final class DiskBuilder extends Builder {
   protected void addText(final byte[] value, final int dist, final byte kind) throws IOException {
     tout.write1(kind);
     tout.write2(0);
-    tout.write5(textRef(value, true));
+    tout.write5(textRef(value, true, kind == Data.TEXT ? textStats() : null));
     tout.write4(dist);
     tout.write4(meta.size++);
   }
@@ -155,15 +169,28 @@ public final class DiskBuilder extends Builder {
 
   /**
    * Calculates the text offset and writes the text value.
+   * Values with few distinct occurrences are stored in a dictionary.
    * @param value value to be inlined
    * @param text text/attribute flag
-   * @return inline value or text position
+   * @param stats statistics of the element or attribute name (can be {@code null})
+   * @return inline value, dictionary id or text position
    * @throws IOException I/O exception
    */
-  private long textRef(final byte[] value, final boolean text) throws IOException {
+  private long textRef(final byte[] value, final boolean text, final Stats stats)
+      throws IOException {
     // try to inline value
     final long inlined = Inline.pack(value);
-    if(inlined != 0) return inlined;
+    if(inlined != 0) {
+      if(Inline.typed(inlined)) meta.typed = true;
+      return inlined;
+    }
+
+    // reference dictionary value if name still has a limited number of distinct values
+    if(meta.dictionary && stats != null && stats.values != null &&
+        value.length <= meta.dictmaxlen) {
+      final int id = dictionary.size() < MAXDICT ? dictionary.put(value) : dictionary.id(value);
+      if(id != 0) return Inline.packId(id);
+    }
 
     // store text to heap file
     final byte[] packed = Compress.pack(value);
@@ -121,7 +121,7 @@ public final class Context {
   public Context(final StaticOptions soptions) {
     this.soptions = soptions;
     options = new MainOptions();
-    datas = new Datas();
+    datas = new Datas(soptions);
     sessions = new Sessions();
     blocker = new ClientBlocker();
     databases = new Databases(soptions);
@@ -133,6 +133,9 @@ public final class Context {
     jobs = new JobPool(soptions);
     external = new HashSet<>();
     client = null;
+    // assign global budgets
+    PageCache.get().budget((long) soptions.get(StaticOptions.PAGECACHE) << 20);
+    FileHandles.get().budget(soptions.get(StaticOptions.FILEHANDLES));
   }
 
   /**
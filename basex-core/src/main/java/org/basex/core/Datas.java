@@ -4,6 +4,7 @@ import java.util.*;
 import java.util.Map.Entry;
 
 import org.basex.data.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 
 /**
@@ -15,6 +16,18 @@ import org.basex.util.*;
 public final class Datas {
   /** Pinned databases (data instance, number of pins). */
   private final IdentityHashMap<Data, Integer> list = new IdentityHashMap<>();
+  /** Databases that are not pinned anymore, but kept open (least recently used first). */
+  private final ArrayList<Data> cache = new ArrayList<>();
+  /** Maximum number of cached databases. */
+  private final int max;
+
+  /**
+   * Constructor.
+   * @param soptions static options
+   */
+  public Datas(final StaticOptions soptions) {
+    max = soptions.get(StaticOptions.DBCACHE);
+  }
 
   /**
    * Pins and returns a database with the specified name.
@@ -23,7 +36,14 @@ public final class Datas {
    */
   public synchronized Data pin(final String name) {
     final Entry<Data, Integer> entry = get(name);
-    if(entry == null) return null;
+    if(entry == null) {
+      // reuse a cached database
+      final int c = cached(name);
+      if(c == -1) return null;
+      final Data data = cache.remove(c);
+      list.put(data, 1);
+      return data;
+    }
 
     final Data data = entry.getKey();
     list.put(data, entry.getValue() + 1);
@@ -39,7 +59,8 @@ public final class Datas {
   }
 
   /**
-   * Unpins a data reference and closes the database if no references exist anymore.
+   * Unpins a data reference. If no references exist anymore, the database is either cached
+   * (see {@link StaticOptions#DBCACHE}) or closed.
    * @param data data reference
    */
   public synchronized void unpin(final Data data) {
@@ -49,22 +70,67 @@ public final class Datas {
 
     final int p = pins;
     if(p == 1) {
-      data.close();
       list.remove(data);
+      // databases with write-ahead logs are closed, as their logs are deleted when closing
+      if(max > 0 && !data.inMemory() && !data.closed() && data.meta.wal == null) {
+        data.flush(true);
+        cache.add(data);
+        evict(max);
+      } else {
+        data.close();
+      }
     } else {
       list.put(data, p - 1);
     }
   }
 
+  /**
+   * Pins a database that is opened with a write-ahead log and returns a snapshot of its last
+   * committed state (see {@link StaticOptions#MVCC}).
+   * @param name name of the database
+   * @return snapshot, or {@code null} if the database is not opened, does not support snapshots,
+   *   or if snapshots are currently blocked
+   */
+  public synchronized Snapshot snapshot(final String name) {
+    final Entry<Data, Integer> entry = get(name);
+    if(entry == null) return null;
+
+    final Data data = entry.getKey();
+    if(data.meta.wal == null || !data.meta.mvcc) return null;
+    final Snapshot snapshot = Snapshot.pin(data);
+    if(snapshot != null) list.put(data, entry.getValue() + 1);
+    return snapshot;
+  }
+
+  /**
+   * Releases a snapshot and unpins its database.
+   * @param snapshot snapshot
+   */
+  public synchronized void release(final Snapshot snapshot) {
+    snapshot.release();
+    unpin(snapshot.data);
+  }
+
   /**
    * Checks if the database with the specified name is pinned.
+   * A cached instance of the database will be closed.
    * @param name name of the database
    * @return result of check
    */
   synchronized boolean pinned(final String name) {
+    final int c = cached(name);
+    if(c != -1) cache.remove(c).close();
     return get(name) != null;
   }
 
+  /**
+   * Returns the number of cached databases.
+   * @return number of cached databases
+   */
+  public synchronized int cached() {
+    return cache.size();
+  }
+
   /**
    * Returns the number of pins for the database with the specified name,
    * or {@code 0} if the database is not opened.
@@ -82,6 +148,33 @@ public final class Datas {
   synchronized void close() {
     for(final Data data : list.keySet()) data.close();
     list.clear();
+    evict(0);
+  }
+
+  /**
+   * Closes least recently used databases until the number of cached databases does not exceed
+   * the specified limit and enough memory is available.
+   * @param limit maximum number of cached databases
+   */
+  private void evict(final int limit) {
+    final long mem = (long) (Runtime.getRuntime().maxMemory() * 0.8);
+    while(!cache.isEmpty() && (cache.size() > limit || Performance.memory() > mem)) {
+      cache.remove(0).close();
+    }
+  }
+
+  /**
+   * Returns the index of a cached database with the specified name.
+   * @param name name of the database
+   * @return index, or {@code -1} if the database is not cached
+   */
+  private int cached(final String name) {
+    final int cs = cache.size();
+    for(int c = 0; c < cs; c++) {
+      final String db = cache.get(c).meta.name;
+      if(Prop.CASE ? db.equals(name) : db.equalsIgnoreCase(name)) return c;
+    }
+    return -1;
   }
 
   /**
@@ -81,6 +81,10 @@ public final class MainOptions extends Options {
   public static final BooleanOption TOKENINDEX = new BooleanOption("TOKENINDEX", false);
   /** Flag for creating a full-text index. */
   public static final BooleanOption FTINDEX = new BooleanOption("FTINDEX", false);
+  /** Flag for creating a typed range index. */
+  public static final BooleanOption RANGEINDEX = new BooleanOption("RANGEINDEX", false);
+  /** Flag for creating a trigram index. */
+  public static final BooleanOption TRIGRAMINDEX = new BooleanOption("TRIGRAMINDEX", false);
 
   /** Text index: names to include. */
   public static final StringOption TEXTINCLUDE = new StringOption("TEXTINCLUDE", "");
@@ -90,6 +94,10 @@ public final class MainOptions extends Options {
   public static final StringOption TOKENINCLUDE = new StringOption("TOKENINCLUDE", "");
   /** Full-text index: names to include. */
   public static final StringOption FTINCLUDE = new StringOption("FTINCLUDE", "");
+  /** Range index: names to include. */
+  public static final StringOption RANGEINCLUDE = new StringOption("RANGEINCLUDE", "");
+  /** Trigram index: names to include. */
+  public static final StringOption TRIGRAMINCLUDE = new StringOption("TRIGRAMINCLUDE", "");
 
   /** Maximum length of index entries. */
   public static final NumberOption MAXLEN = new NumberOption("MAXLEN", 96);
@@ -97,10 +105,24 @@ public final class MainOptions extends Options {
   public static final NumberOption MAXCATS = new NumberOption("MAXCATS", 100);
   /** Flag for activating incremental index structures. */
   public static final BooleanOption UPDINDEX = new BooleanOption("UPDINDEX", false);
+  /** Number of cached index updates (0: incremental indexes will be updated in place). */
+  public static final NumberOption INDEXDELTA = new NumberOption("INDEXDELTA", 0);
+  /** Flag for creating Bloom filters for the keys of value indexes. */
+  public static final BooleanOption BLOOMFILTER = new BooleanOption("BLOOMFILTER", false);
   /** Flag for automatic index updates. */
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
+  /** Number of threads for creating indexes (0: number of available processors). */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 0);
+  /** Fill factor of table pages (percentage). */
+  public static final NumberOption FILLFACTOR = new NumberOption("FILLFACTOR", 100);
+  /** Flag for compressing the node table, texts and attribute values. */
+  public static final BooleanOption COMPRESSION = new BooleanOption("COMPRESSION", false);
+  /** Flag for storing frequent texts and attribute values in a dictionary. */
+  public static final BooleanOption DICTIONARY = new BooleanOption("DICTIONARY", false);
+  /** Maximum length of dictionary values. */
+  public static final NumberOption DICTMAXLEN = new NumberOption("DICTMAXLEN", 64);
 
   // Full-Text
 
@@ -139,6 +161,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption CHECKSTRINGS = new BooleanOption("CHECKSTRINGS", true);
   /** Levenshtein default error. */
   public static final NumberOption LSERROR = new NumberOption("LSERROR", 0);
+  /** Flag for scoring full-text index results with BM25. */
+  public static final BooleanOption BM25 = new BooleanOption("BM25", false);
   /** Runs the query results, or only parses it. */
   public static final BooleanOption RUNQUERY = new BooleanOption("RUNQUERY", true);
   /** Number of query executions. */
@@ -31,8 +31,26 @@ public final class StaticOptions extends Options {
   public static final BooleanOption LANGKEYS = new BooleanOption("LANGKEYS", false);
   /** Locking strategy. */
   public static final BooleanOption FAIRLOCK = new BooleanOption("FAIRLOCK", false);
+  /** Lock single documents for db:add and db:replace. */
+  public static final BooleanOption DOCLOCK = new BooleanOption("DOCLOCK", false);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption CACHETIMEOUT = new NumberOption("CACHETIMEOUT", 3600);
+  /** Memory-mapped read access to database files. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Size of the global page cache (MB); deactivated if set to 0. */
+  public static final NumberOption PAGECACHE = new NumberOption("PAGECACHE", 16);
+  /** Maximum number of cached entries per index; deactivated if set to 0. */
+  public static final NumberOption INDEXCACHE = new NumberOption("INDEXCACHE", 50000);
+  /** Maximum number of open database files; deactivated if set to 0. */
+  public static final NumberOption FILEHANDLES = new NumberOption("FILEHANDLES", 0);
+  /** Maximum number of databases that are kept open after they have been closed;
+   * deactivated if set to 0. */
+  public static final NumberOption DBCACHE = new NumberOption("DBCACHE", 0);
+  /** Size of the write-ahead log of a database (MB), after which a checkpoint is performed;
+   * deactivated if set to 0. */
+  public static final NumberOption WALSIZE = new NumberOption("WALSIZE", 0);
+  /** Read-only queries read snapshots of databases that are updated (requires {@link #WALSIZE}). */
+  public static final BooleanOption MVCC = new BooleanOption("MVCC", false);
 
   /** Comment: written to options file. */
   public static final Comment C_CLIENT = new Comment("Client/Server Architecture");
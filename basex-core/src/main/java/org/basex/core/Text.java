@@ -208,6 +208,37 @@ public interface Text {
   String LI_SIZE = LI + "Size: ";
   /** Index info. */
   String LI_ENTRIES = LI + "Entries: ";
+  /** Index info. */
+  String LI_RUNS = LI + "Sorted Runs: ";
+  /** Index info. */
+  String LI_DELTA = LI + "Cached Updates: ";
+  /** Index info. */
+  String LI_CACHE = LI + "Cache: ";
+  /** Index info. */
+  String LI_BLOOM = LI + "Bloom Filter: ";
+
+  /** Storage info. */
+  String STORAGE_INFO = "Storage";
+  /** Storage info. */
+  String LI_TABLE = LI + "Table: ";
+  /** Storage info. */
+  String LI_TEXTS = LI + "Texts: ";
+  /** Storage info. */
+  String LI_VALUES = LI + "Attribute Values: ";
+  /** Storage info. */
+  String LI_DICTIONARY = LI + "Dictionary Values: ";
+  /** Storage info. */
+  String LI_WAL = LI + "Write-Ahead Log: ";
+  /** Storage info. */
+  String LI_FILE_HANDLES = LI + "File Handles: ";
+  /** Storage info. */
+  String PAGES = "pages";
+  /** Storage info. */
+  String PAGE_CACHE = "page cache";
+  /** Storage info. */
+  String FRAGMENTATION = "fragmentation";
+  /** Storage info. */
+  String HEAPS_COMPACTED_X = "Texts and attribute values were compacted: % reclaimed.";
 
   /** Index info. */
   String HASH = "Hash";
@@ -318,7 +349,8 @@ public interface Text {
     LI + CmdCreate.DATABASE + " [" + S_NAME + "] ([" + S_INPUT + "]):"  + NL +
     "  " + lang("c_create21", S_NAME, S_INPUT) + NL +
     LI + CmdCreate.INDEX + " [" + CmdIndex.TEXT + '|' + CmdIndex.ATTRIBUTE + '|' +
-      CmdIndex.TOKEN + '|' + CmdIndex.FULLTEXT + "]:" + NL +
+      CmdIndex.TOKEN + '|' + CmdIndex.FULLTEXT + '|' + CmdIndex.RANGE + '|' +
+      CmdIndex.TRIGRAM + "]:" + NL +
     "  " + lang("c_create23") + NL +
     LI + CmdCreate.USER + " [" + S_NAME + "] ([" + S_PW + "]):" + NL +
     "  " + lang("c_create24")
@@ -385,7 +417,8 @@ public interface Text {
     LI + CmdDrop.DATABASE + " [" + S_NAME + "]:" + NL +
     "  " + lang("c_drop21") + NL +
     LI + CmdDrop.INDEX + " [" + CmdIndex.TEXT + '|' + CmdIndex.ATTRIBUTE + '|' +
-      CmdIndex.TOKEN + '|' + CmdIndex.FULLTEXT + "]:" + NL +
+      CmdIndex.TOKEN + '|' + CmdIndex.FULLTEXT + '|' + CmdIndex.RANGE + '|' +
+      CmdIndex.TRIGRAM + "]:" + NL +
     "  " + lang("c_drop22") + NL +
     LI + CmdDrop.USER + " [" + S_NAME + "] (" + ON + " [pattern]): " + NL +
       "  " + lang("c_drop23")
@@ -568,6 +601,10 @@ public interface Text {
   String INDEX_TOKENS_D = lang("index_tokens") + DOTS;
   /** Create full-text index. */
   String INDEX_FULLTEXT_D = lang("index_fulltext") + DOTS;
+  /** Create range index. */
+  String INDEX_RANGES_D = lang("index_ranges") + DOTS;
+  /** Create trigram index. */
+  String INDEX_TRIGRAMS_D = lang("index_trigrams") + DOTS;
 
   /** Database created. */
   String DB_CREATED_X_X = lang("db_created_%_%");
@@ -703,6 +740,10 @@ public interface Text {
   String EVALUATING_CC = lang("evaluating") + COLS;
   /** "Printing: ". */
   String PRINTING_CC = lang("printing") + COLS;
+  /** "Opening: ". */
+  String OPENING_CC = lang("opening") + COLS;
+  /** "Closing: ". */
+  String CLOSING_CC = lang("closing") + COLS;
   /** "Total time: ". */
   String TOTAL_TIME_CC = lang("total_time") + COLS;
   /** "Read locking: ". */
@@ -870,6 +911,10 @@ public interface Text {
   String ATTRIBUTE_INDEX = lang("attribute_index");
   /** Info on full-text index. */
   String FULLTEXT_INDEX = lang("fulltext_index");
+  /** Info on range index. */
+  String RANGE_INDEX = lang("range_index");
+  /** Info on trigram index. */
+  String TRIGRAM_INDEX = lang("trigram_index");
   /** Info on path index. */
   String PATH_INDEX = lang("path_index");
   /** Info on token index. */
@@ -238,6 +238,12 @@ public abstract class AQuery extends Command {
     }
   }
 
+  @Override
+  public boolean snapshots() {
+    // cached results may be accessed after the query has been closed
+    return maxResults < 0;
+  }
+
   @Override
   public void build(final CmdBuilder cb) {
     cb.init().add(0);
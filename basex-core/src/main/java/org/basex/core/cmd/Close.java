@@ -42,7 +42,9 @@ public final class Close extends Command {
    * @param ctx database context
    */
   public static void close(final Data data, final Context ctx) {
-    synchronized(ctx.datas) { ctx.datas.unpin(data); }
+    // snapshots are not pinned
+    if(data.meta.snapshot != null) data.close();
+    else synchronized(ctx.datas) { ctx.datas.unpin(data); }
   }
 
   /**
@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -37,14 +38,17 @@ public final class CreateIndex extends ACreate {
       case TEXT:
         type = IndexType.TEXT;
         data.meta.createtext = true;
+        data.meta.bloomfilter = options.get(MainOptions.BLOOMFILTER);
         break;
       case ATTRIBUTE:
         type = IndexType.ATTRIBUTE;
         data.meta.createattr = true;
+        data.meta.bloomfilter = options.get(MainOptions.BLOOMFILTER);
         break;
       case TOKEN:
         type = IndexType.TOKEN;
         data.meta.createtoken = true;
+        data.meta.bloomfilter = options.get(MainOptions.BLOOMFILTER);
         break;
       case FULLTEXT:
         type = IndexType.FULLTEXT;
@@ -55,16 +59,25 @@ public final class CreateIndex extends ACreate {
         data.meta.language = Language.get(options);
         data.meta.stopwords = options.get(MainOptions.STOPWORDS);
         break;
+      case RANGE:
+        type = IndexType.RANGE;
+        data.meta.createrange = true;
+        break;
+      case TRIGRAM:
+        type = IndexType.TRIGRAM;
+        data.meta.createtrigram = true;
+        break;
       default:
         return error(UNKNOWN_CMD_X, this);
     }
     data.meta.names(type, options);
     data.meta.splitsize = options.get(MainOptions.SPLITSIZE);
+    data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
 
     return update(data, new Code() {
       @Override
       boolean run() throws IOException {
-        create(type, data, CreateIndex.this);
+        create(data, CreateIndex.this, type);
         return info(INDEX_CREATED_X_X, type, jc().performance);
       }
     });
@@ -82,22 +95,29 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+    final MetaData meta = data.meta;
+    final ArrayList<IndexType> types = new ArrayList<>(5);
+    if(meta.createtext) types.add(IndexType.TEXT);
+    if(meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(meta.createtoken) types.add(IndexType.TOKEN);
+    if(meta.createft) types.add(IndexType.FULLTEXT);
+    if(meta.createrange) types.add(IndexType.RANGE);
+    if(meta.createtrigram) types.add(IndexType.TRIGRAM);
+    create(data, cmd, types.toArray(new IndexType[0]));
   }
 
   /**
-   * Builds the specified index.
-   * @param type index to be built
+   * Builds the specified indexes. Multiple indexes will be built in parallel.
    * @param data data reference
    * @param cmd calling command
+   * @param types indexes to be built
    * @throws IOException I/O exception
    */
-  static void create(final IndexType type, final Data data, final ACreate cmd) throws IOException {
-    DropIndex.drop(type, data);
-    data.createIndex(type, cmd);
-    data.meta.index(type, true);
+  static void create(final Data data, final ACreate cmd, final IndexType... types)
+      throws IOException {
+    if(types.length == 0) return;
+    for(final IndexType type : types) DropIndex.drop(type, data);
+    data.createIndex(cmd, types);
+    for(final IndexType type : types) data.meta.index(type, true);
   }
 }
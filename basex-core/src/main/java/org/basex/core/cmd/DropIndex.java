@@ -43,6 +43,12 @@ public final class DropIndex extends ACreate {
     } else if(ci == CmdIndex.FULLTEXT) {
       type = IndexType.FULLTEXT;
       data.meta.createft = false;
+    } else if(ci == CmdIndex.RANGE) {
+      type = IndexType.RANGE;
+      data.meta.createrange = false;
+    } else if(ci == CmdIndex.TRIGRAM) {
+      type = IndexType.TRIGRAM;
+      data.meta.createtrigram = false;
     } else {
       return error(UNKNOWN_CMD_X, this);
     }
@@ -49,6 +49,7 @@ public final class InfoDB extends AInfo {
     tb.addExt(header, DB_PROPS);
     info(tb, MetaProp.NAME, meta);
     info(tb, MetaProp.SIZE.name(), Performance.format(meta.dbSize()));
+    if(meta.compression) info(tb, MetaProp.COMPRESSIONRATIO.name(), meta.compressionRatio() + "%");
     info(tb, MetaProp.NODES, meta);
 
     // count number of raw files
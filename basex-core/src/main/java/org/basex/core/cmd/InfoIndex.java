@@ -55,6 +55,8 @@ public final class InfoIndex extends AInfo {
     tb.add(info(CmdIndexInfo.ATTRIBUTE, data, options));
     tb.add(info(CmdIndexInfo.TOKEN, data, options));
     tb.add(info(CmdIndexInfo.FULLTEXT, data, options));
+    tb.add(info(CmdIndexInfo.RANGE, data, options));
+    tb.add(info(CmdIndexInfo.TRIGRAM, data, options));
     tb.add(info(CmdIndexInfo.PATH, data, options));
     out.print(tb.finish());
     return true;
@@ -88,6 +90,10 @@ public final class InfoIndex extends AInfo {
         return info(TOKEN_INDEX, IndexType.TOKEN, data, options, data.meta.tokenindex);
       case FULLTEXT:
         return info(FULLTEXT_INDEX, IndexType.FULLTEXT, data, options, data.meta.ftindex);
+      case RANGE:
+        return info(RANGE_INDEX, IndexType.RANGE, data, options, data.meta.rangeindex);
+      case TRIGRAM:
+        return info(TRIGRAM_INDEX, IndexType.TRIGRAM, data, options, data.meta.trigramindex);
       default:
         return Token.token(LI + NOT_AVAILABLE);
     }
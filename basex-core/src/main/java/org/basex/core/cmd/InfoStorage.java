@@ -1,5 +1,6 @@
 package org.basex.core.cmd;
 
+import static org.basex.core.Text.*;
 import static org.basex.util.Strings.*;
 
 import java.io.*;
@@ -39,6 +40,13 @@ public final class InfoStorage extends AInfo {
     }
     dp.add(start, end);
     out.print(dp.finish());
+
+    // print storage information if no node range has been specified
+    final byte[] info = data.info();
+    if(first.isEmpty() && info.length != 0) {
+      out.println(NL + STORAGE_INFO);
+      out.print(info);
+    }
     return true;
   }
 
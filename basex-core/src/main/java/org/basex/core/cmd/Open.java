@@ -8,6 +8,7 @@ import org.basex.core.*;
 import org.basex.core.locks.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
+import org.basex.io.random.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
 
@@ -71,6 +72,25 @@ public final class Open extends Command {
     return Close.close(ctx);
   }
 
+  /**
+   * Opens a snapshot of a database that is updated by another job (see {@link StaticOptions#MVCC}).
+   * The returned instance is not pinned and must be closed via {@link Close#close(Data, Context)}.
+   * @param snapshot snapshot
+   * @param context database context
+   * @param options main options
+   * @return data reference
+   * @throws IOException I/O exception
+   */
+  public static Data open(final Snapshot snapshot, final Context context,
+      final MainOptions options) throws IOException {
+    final String name = snapshot.data.meta.name;
+    if(!context.perm(Perm.READ, name)) throw new BaseXException(PERM_REQUIRED_X, Perm.READ);
+
+    final MetaData meta = new MetaData(name, options, context.soptions);
+    meta.snapshot = snapshot;
+    return new DiskData(meta);
+  }
+
   /**
    * Opens the specified database.
    * @param name name of database
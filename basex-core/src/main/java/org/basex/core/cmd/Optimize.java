@@ -3,12 +3,14 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.stats.*;
+import org.basex.util.*;
 import org.basex.util.list.*;
 
 /**
@@ -24,6 +26,8 @@ public final class Optimize extends ACreate {
   private int pre;
   /** Data size. */
   private int size;
+  /** Number of reclaimed bytes ({@code -1} while heaps are being compacted). */
+  private long reclaimed;
 
   /**
    * Default constructor.
@@ -38,7 +42,7 @@ public final class Optimize extends ACreate {
     final MetaData meta = data.meta;
     size = meta.size;
 
-    return update(data, new Code() {
+    final boolean ok = update(data, new Code() {
       @Override
       boolean run() throws IOException {
         // reassign autooptimize flag
@@ -48,9 +52,26 @@ public final class Optimize extends ACreate {
           data.meta.dirty = true;
         }
         optimize(data, Optimize.this);
-        return info(DB_OPTIMIZED_X, meta.name, jc().performance);
+        return true;
       }
     });
+    if(!ok) return false;
+
+    // compact heaps in batches; other jobs can access the database between two batches
+    reclaimed = -1;
+    while(reclaimed == -1) {
+      final boolean compacted = update(data, new Code() {
+        @Override
+        boolean run() throws IOException {
+          reclaimed = data.compact(Data.COMPACT);
+          return true;
+        }
+      });
+      if(!compacted) return false;
+      if(reclaimed == -1) context.locking.pause();
+    }
+    info(HEAPS_COMPACTED_X, Performance.format(reclaimed));
+    return info(DB_OPTIMIZED_X, meta.name, jc().performance);
   }
 
   @Override
@@ -89,7 +110,7 @@ public final class Optimize extends ACreate {
    * @throws IOException I/O Exception during index rebuild
    */
   public static void optimize(final Data data, final Optimize cmd) throws IOException {
-    optimize(data, false, false, false, false, cmd);
+    optimize(data, false, false, false, false, false, false, cmd);
   }
 
   /**
@@ -99,11 +120,14 @@ public final class Optimize extends ACreate {
    * @param enforceAttr enforce creation or deletion of attribute index
    * @param enforceToken enforce creation or deletion of token index
    * @param enforceFt enforce creation or deletion of full-text index
+   * @param enforceRange enforce creation or deletion of range index
+   * @param enforceTrigram enforce creation or deletion of trigram index
    * @param cmd calling command instance (may be {@code null})
    * @throws IOException I/O Exception during index rebuild
    */
   public static void optimize(final Data data, final boolean enforceText, final boolean enforceAttr,
-      final boolean enforceToken, final boolean enforceFt, final Optimize cmd) throws IOException {
+      final boolean enforceToken, final boolean enforceFt, final boolean enforceRange,
+      final boolean enforceTrigram, final Optimize cmd) throws IOException {
 
     // initialize structural indexes
     final MetaData meta = data.meta;
@@ -157,28 +181,33 @@ public final class Optimize extends ACreate {
     }
 
     // rebuild value indexes
-    optimize(IndexType.TEXT, data, meta.createtext, enforceText, cmd);
-    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, cmd);
-    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, cmd);
-    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>(4);
+    optimize(IndexType.TEXT, data, meta.createtext, enforceText, types);
+    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, types);
+    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, types);
+    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, types);
+    optimize(IndexType.RANGE, data, meta.createrange, enforceRange, types);
+    optimize(IndexType.TRIGRAM, data, meta.createtrigram, enforceTrigram, types);
+    CreateIndex.create(data, cmd, types.toArray(new IndexType[0]));
   }
 
   /**
-   * Creates or deletes the specified index if the old and new state is different.
+   * Deletes the specified index, or schedules it for creation, if the old and new state is
+   * different.
    * @param type index type
    * @param data data reference
    * @param create new flag
    * @param enforce enforce operation
-   * @param cmd calling command instance
+   * @param types indexes to be created
    * @throws IOException I/O exception
    */
   private static void optimize(final IndexType type, final Data data, final boolean create,
-      final boolean enforce, final Optimize cmd) throws IOException {
+      final boolean enforce, final ArrayList<IndexType> types) throws IOException {
 
     // check if flags have changed
     if(create == data.meta.index(type) && !enforce) return;
     // create or drop index
-    if(create) CreateIndex.create(type, data, cmd);
+    if(create) types.add(type);
     else DropIndex.drop(type, data);
   }
 
@@ -86,19 +86,26 @@ public final class OptimizeAll extends ACreate {
     final DiskData odata = (DiskData) data;
     final MetaData ometa = odata.meta;
 
-    // check if database is also pinned by other users
+    // check if database is also pinned by other users, prevent new snapshots
     final String name = ometa.name;
-    if(context.datas.pins(name) > 1) throw new BaseXException(DB_PINNED_X, name);
+    synchronized(context.datas) {
+      if(context.datas.pins(name) > 1) throw new BaseXException(DB_PINNED_X, name);
+      ometa.mvcc = false;
+    }
 
     // adopt original index options
     options.set(MainOptions.TEXTINDEX, ometa.textindex);
     options.set(MainOptions.ATTRINDEX, ometa.attrindex);
     options.set(MainOptions.TOKENINDEX, ometa.tokenindex);
     options.set(MainOptions.FTINDEX, ometa.ftindex);
+    options.set(MainOptions.RANGEINDEX, ometa.rangeindex);
+    options.set(MainOptions.TRIGRAMINDEX, ometa.trigramindex);
     options.set(MainOptions.TEXTINCLUDE, ometa.textinclude);
     options.set(MainOptions.ATTRINCLUDE, ometa.attrinclude);
     options.set(MainOptions.TOKENINCLUDE, ometa.tokeninclude);
     options.set(MainOptions.FTINCLUDE, ometa.ftinclude);
+    options.set(MainOptions.RANGEINCLUDE, ometa.rangeinclude);
+    options.set(MainOptions.TRIGRAMINCLUDE, ometa.trigraminclude);
     // adopt original full-text index options
     options.set(MainOptions.STEMMING, ometa.stemming);
     options.set(MainOptions.CASESENS, ometa.casesens);
@@ -131,6 +138,8 @@ public final class OptimizeAll extends ACreate {
     nmeta.createattr = ometa.createattr;
     nmeta.createtoken = ometa.createtoken;
     nmeta.createft = ometa.createft;
+    nmeta.createrange = ometa.createrange;
+    nmeta.createtrigram = ometa.createtrigram;
     nmeta.original = ometa.original;
     nmeta.inputsize = ometa.inputsize;
     nmeta.time = ometa.time;
@@ -58,6 +58,7 @@ public abstract class Job {
   public final void unregister(final Context ctx) {
     stopTimeout();
     ctx.locking.release();
+    jc.locks.release(ctx);
     ctx.jobs.unregister(this);
   }
 
@@ -145,6 +146,15 @@ public abstract class Job {
     jc.locks.writes.addGlobal();
   }
 
+  /**
+   * Indicates if the job accesses databases via the query resources only, and if it can read
+   * snapshots of databases that are updated by other jobs (see {@link StaticOptions#MVCC}).
+   * @return result of check
+   */
+  public boolean snapshots() {
+    return false;
+  }
+
   /**
    * Returns short progress information.
    * Can be overwritten to give more specific feedback.
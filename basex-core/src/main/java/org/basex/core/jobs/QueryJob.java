@@ -253,6 +253,11 @@ public final class QueryJob extends Job implements Runnable {
     qp.addLocks();
   }
 
+  @Override
+  public boolean snapshots() {
+    return true;
+  }
+
   @Override
   public String toString() {
     return job.simple ? job.query : job.options.get(JobsOptions.BASE_URI);
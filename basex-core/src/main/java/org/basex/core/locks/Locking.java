@@ -46,6 +46,10 @@ public final class Locking {
   public static final String BACKUP = INTERNAL_PREFIX + "backup";
   /** Special lock identifier for repository commands. */
   public static final String REPO = INTERNAL_PREFIX + "repo";
+  /** Separator of database names and paths in document locks. */
+  private static final char DOCUMENT = '/';
+  /** Maximum time (ms) for waiting jobs to acquire released locks (see {@link #pause}). */
+  private static final int PAUSE = 100;
 
   /** Fair ordering policy; prevents starvation, but reduces parallelism. */
   private final boolean fair;
@@ -61,6 +65,8 @@ public final class Locking {
   private final Map<String, LocalReadWriteLock> localLocks = new HashMap<>();
   /** Lock object for queuing local writes and global reads. */
   private final Object globalLock = new Object();
+  /** Document locks of running jobs. */
+  private final StringList documentLocks = new StringList();
 
   /** Number of running local writers. */
   private int localWriters;
@@ -90,6 +96,9 @@ public final class Locking {
     // prepare lock strings and acquire locks
     final Locks locks = job.jc().locks;
     locks.finish(ctx);
+    // read-only jobs: replace read locks of updated databases with snapshots
+    if(!locks.writes.locking() && !locks.documents.local() && !locks.reads.global() &&
+        job.snapshots()) locks.snapshots(ctx);
     try {
       acquire(locks);
     } catch(final InterruptedException ex) {
@@ -110,16 +119,25 @@ public final class Locking {
     locked.put(id, locks);
 
     // queue job if the job limit has been reached
-    final LockList reads = locks.reads, writes = locks.writes;
-    final boolean write = writes.locking(), read = reads.locking(), lock = read || write;
+    final LockList reads = locks.reads, writes = locks.writes, documents = locks.documents;
+    final boolean write = writes.locking() || documents.local(), read = reads.locking();
+    final boolean lock = read || write;
     queue.acquire(id, read, write);
 
+    // document locks: wait until the documents are not locked by other jobs anymore
+    if(documents.local()) {
+      synchronized(documentLocks) {
+        while(locked(documents)) documentLocks.wait();
+        for(final String document : documents) documentLocks.add(document);
+      }
+    }
+
     // apply exclusive lock (global write), or shared lock otherwise
     if(lock) (writes.global() ? globalLocks.writeLock() : globalLocks.readLock()).lock();
 
     synchronized(globalLock) {
       // local write locks: wait for completion of global readers
-      if(writes.local()) {
+      if(writes.local() || documents.local()) {
         while(globalReaders > 0) globalLock.wait();
         localWriters++;
       }
@@ -142,13 +160,73 @@ public final class Locking {
     }
   }
 
+  /**
+   * Upgrades the locks of a job that updates single documents (see {@link Locks#documents}).
+   * All read locks are released, and the databases of the documents are locked for writing.
+   * Called before the updates of the job are applied. As the document locks are kept, and as
+   * they are always acquired before all other locks, no deadlocks can occur.
+   * As read locks cannot be upgraded, other jobs may update the databases before the write locks
+   * are acquired. The caller must check if the updated databases are still available.
+   * @return {@code true} if the locks have been upgraded
+   */
+  public boolean upgrade() {
+    final Locks locks = locked.get(Thread.currentThread().getId());
+    if(locks == null || !locks.documents.local() || locks.writes.local()) return false;
+
+    final LockList reads = locks.reads, writes = locks.writes;
+    for(final String string : reads) unpin(string).readLock().unlock();
+    reads.reset();
+    for(final String document : locks.documents) writes.add(database(document));
+    writes.finish(null);
+    for(final String string : writes) pin(string).writeLock().lock();
+    return true;
+  }
+
+  /**
+   * Temporarily releases the locks of the current job if other jobs are waiting for its write
+   * locks, and reacquires them after the waiting jobs have been given the chance to proceed.
+   * Called by long-running updates between two self-contained steps.
+   */
+  public void pause() {
+    final Locks locks = locked.get(Thread.currentThread().getId());
+    if(locks == null) return;
+
+    final ArrayList<LocalReadWriteLock> waiting = new ArrayList<>();
+    synchronized(localLocks) {
+      for(final String string : locks.writes) {
+        final LocalReadWriteLock lock = localLocks.get(string);
+        if(lock != null && lock.hasQueuedThreads()) waiting.add(lock);
+      }
+    }
+    if(waiting.isEmpty()) return;
+
+    release();
+    boolean interrupted = false;
+    try {
+      // wait until the waiting jobs have acquired the locks (bounded)
+      for(int w = 0; w < PAUSE; w++) {
+        if(waiting.stream().noneMatch(LocalReadWriteLock::hasQueuedThreads)) break;
+        Thread.sleep(1);
+      }
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+      interrupted = true;
+    }
+    try {
+      acquire(locks);
+    } catch(final InterruptedException ex) {
+      throw Util.notExpected("Thread was interrupted: %", ex);
+    }
+    if(interrupted) Thread.currentThread().interrupt();
+  }
+
   /**
    * Removes locks for the specified job, all in reverse order.
    */
   public void release() {
     final Long id = Thread.currentThread().getId();
     final Locks locks = locked.remove(id);
-    final LockList reads = locks.reads, writes = locks.writes;
+    final LockList reads = locks.reads, writes = locks.writes, documents = locks.documents;
     final boolean lock = reads.locking() || writes.locking();
 
     // release all local locks
@@ -165,7 +243,7 @@ public final class Locking {
 
     // allow next local writer to resume
     synchronized(globalLock) {
-      if(writes.local()) {
+      if(writes.local() || documents.local()) {
         localWriters--;
         globalLock.notifyAll();
       }
@@ -174,6 +252,14 @@ public final class Locking {
     // release exclusive lock (global write), or shared lock otherwise
     if(lock) (writes.global() ? globalLocks.writeLock() : globalLocks.readLock()).unlock();
 
+    // allow jobs to resume that wait for the same documents
+    if(documents.local()) {
+      synchronized(documentLocks) {
+        for(final String document : documents) documentLocks.removeAll(document);
+        documentLocks.notifyAll();
+      }
+    }
+
     // allow next queued job to resume
     queue.release();
   }
@@ -205,6 +291,63 @@ public final class Locking {
     }
   }
 
+  /**
+   * Checks if one of the specified documents is locked by another job.
+   * @param documents document locks
+   * @return result of check
+   */
+  private boolean locked(final LockList documents) {
+    for(final String held : documentLocks) {
+      for(final String document : documents) {
+        if(overlaps(held, document)) return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a document lock key.
+   * @param db name of database
+   * @param path normalized path to the documents (an empty path addresses all documents)
+   * @return lock key
+   */
+  public static String document(final String db, final String path) {
+    return db + DOCUMENT + (CASE ? path : path.toLowerCase(Locale.ENGLISH));
+  }
+
+  /**
+   * Returns the name of the database of a document lock key.
+   * @param document document lock key
+   * @return name of database
+   */
+  public static String database(final String document) {
+    return document.substring(0, document.indexOf(DOCUMENT));
+  }
+
+  /**
+   * Checks if two document lock keys address the same documents. This is the case if the paths
+   * are equal, or if one path is a directory of the other path.
+   * @param document1 first lock key
+   * @param document2 second lock key
+   * @return result of check
+   */
+  static boolean overlaps(final String document1, final String document2) {
+    return prefix(document1, document2) || prefix(document2, document1);
+  }
+
+  /**
+   * Checks if the first document lock key is equal to the second key or one of its directories.
+   * @param dir first lock key
+   * @param document second lock key
+   * @return result of check
+   */
+  private static boolean prefix(final String dir, final String document) {
+    if(!document.startsWith(dir)) return false;
+    final int dl = dir.length();
+    return document.length() == dl || dir.charAt(dl - 1) == DOCUMENT ||
+        document.charAt(dl) == DOCUMENT;
+  }
+
   /**
    * Returns query lock keys.
    * @param string string with lock keys
@@ -1,7 +1,11 @@
 package org.basex.core.locks;
 
+import java.util.*;
+
 import org.basex.core.*;
 import org.basex.data.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
 
 /**
  * Read and write locks of a single job.
@@ -14,6 +18,15 @@ public final class Locks {
   public final LockList reads = new LockList();
   /** Write locks. */
   public final LockList writes = new LockList();
+  /**
+   * Document locks, which are created for updates of single documents
+   * (see {@link Locking#document(String, String)}). The databases of the documents will be
+   * locked for reading, and upgraded to write locks before the updates are applied
+   * (see {@link Locking#upgrade()}).
+   */
+  public final LockList documents = new LockList();
+  /** Snapshots of databases that are read without locks. */
+  private final ArrayList<Snapshot> snapshots = new ArrayList<>(0);
 
   /**
    * Finalizes locks. Replaces context references with current database, sorts entries,
@@ -21,6 +34,12 @@ public final class Locks {
    * @param ctx database context
    */
   public void finish(final Context ctx) {
+    // document locks are only used if no other database is updated
+    final boolean docs = !writes.locking() && !reads.global();
+    for(final String document : documents) (docs ? reads : writes).add(Locking.database(document));
+    if(docs) documents.finish(null);
+    else documents.reset();
+
     // global write lock: no read locks required
     if(writes.global()) reads.reset();
 
@@ -34,8 +53,65 @@ public final class Locks {
     reads.remove(writes);
   }
 
+  /**
+   * Checks if the documents of the specified database are locked instead of the database.
+   * @param name name of the database
+   * @return result of check
+   */
+  public boolean documents(final String name) {
+    for(final String document : documents) {
+      final String db = Locking.database(document);
+      if(Prop.CASE ? db.equals(name) : db.equalsIgnoreCase(name)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Replaces the read locks of databases that support snapshots with snapshots
+   * (see {@link StaticOptions#MVCC}). The database of the current context will always be locked.
+   * @param ctx database context
+   */
+  public void snapshots(final Context ctx) {
+    final Data data = ctx.data();
+    final LockList names = new LockList();
+    for(final String name : reads) {
+      if(name.startsWith(Locking.INTERNAL_PREFIX) || name.startsWith(Locking.BASEX_PREFIX) ||
+          data != null && name.equals(data.meta.name)) continue;
+      final Snapshot snapshot = ctx.datas.snapshot(name);
+      if(snapshot != null) {
+        snapshots.add(snapshot);
+        names.add(name);
+      }
+    }
+    reads.remove(names);
+  }
+
+  /**
+   * Returns the snapshot of the specified database.
+   * @param name name of the database
+   * @return snapshot, or {@code null} if the database is not read from a snapshot
+   */
+  public Snapshot snapshot(final String name) {
+    for(final Snapshot snapshot : snapshots) {
+      final String db = snapshot.data.meta.name;
+      if(Prop.CASE ? db.equals(name) : db.equalsIgnoreCase(name)) return snapshot;
+    }
+    return null;
+  }
+
+  /**
+   * Releases all snapshots.
+   * @param ctx database context
+   */
+  public void release(final Context ctx) {
+    for(final Snapshot snapshot : snapshots) ctx.datas.release(snapshot);
+    snapshots.clear();
+  }
+
   @Override
   public String toString() {
-    return "Reads: " + reads + ", Writes: " + writes;
+    return "Reads: " + reads + ", Writes: " + writes +
+        (documents.local() ? ", Documents: " + documents : "") +
+        (snapshots.isEmpty() ? "" : ", Snapshots: " + snapshots);
   }
 }
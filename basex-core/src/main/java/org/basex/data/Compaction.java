@@ -0,0 +1,172 @@
+package org.basex.data;
+
+import static org.basex.data.Data.*;
+
+import java.io.*;
+
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Compaction of a heap file with texts or attribute values.
+ *
+ * Gaps left by deleted and replaced values are removed by moving all referenced entries towards
+ * the start of the file, in the order of their offsets. Entries are moved in batches. The entries
+ * of a batch are first copied to a scratch area behind the end of the original file and
+ * referenced from there, and then copied to their final offsets. In both steps, the heap is
+ * flushed before the updated references, so the flushed table never references overwritten bytes.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+final class Compaction {
+  /** Data reference. */
+  private final DiskData data;
+  /** Heap file. */
+  private final DataAccess store;
+  /** Original file length (start of the scratch area). */
+  private final long length;
+  /** Offsets of all referenced entries, sorted in ascending order. */
+  private final long[] offs;
+  /** Pre values of the referenced entries. */
+  private final int[] pres;
+
+  /** Texts or attribute values. */
+  final boolean text;
+  /** Number of updates at the time of the last batch. */
+  long updates;
+  /** Index of the next entry to be processed. */
+  private int next;
+  /** Target offset of the next entry. */
+  private long free;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @param store heap file
+   * @param text texts or attribute values
+   */
+  Compaction(final DiskData data, final DataAccess store, final boolean text) {
+    this.data = data;
+    this.store = store;
+    this.text = text;
+    length = store.length();
+
+    // collect offsets of all external entries
+    final LongList offsets = new LongList();
+    final IntList list = new IntList();
+    final int size = data.meta.size;
+    for(int pre = 0; pre < size; pre++) {
+      final int kind = data.kind(pre);
+      if(kind == ELEM || (kind == ATTR) == text) continue;
+      final long ref = data.textRef(pre);
+      if(Inline.inlined(ref)) continue;
+      offsets.add(ref & Compress.COMPRESS - 1);
+      list.add(pre);
+    }
+    offs = offsets.finish();
+    list.sort(offs, true);
+    pres = list.finish();
+  }
+
+  /**
+   * Moves the next batch of entries.
+   * @param max maximum number of bytes to be moved
+   * @return {@code true} if compaction is finished
+   * @throws IOException I/O exception
+   */
+  boolean next(final long max) throws IOException {
+    // choose entries to be moved: indexes of the first pre values, target offsets, contents
+    final IntList starts = new IntList(), lengths = new IntList();
+    final LongList targets = new LongList();
+    final ByteList bytes = new ByteList();
+    final int os = offs.length;
+    while(next < os) {
+      final long off = offs[next];
+      final int len = store.readNum(off), total = Num.length(len) + len;
+      if(off != free) {
+        if(!starts.isEmpty() && bytes.size() + total > max) break;
+        starts.add(next);
+        lengths.add(total);
+        targets.add(free);
+        bytes.add(store.readBytes(off, total));
+      }
+      free += total;
+      // skip pre values that reference the same entry
+      while(++next < os && offs[next] == off);
+    }
+
+    final int ss = starts.size();
+    if(ss != 0) {
+      // copy entries to the scratch area and reference them from there
+      final long[] scratch = new long[ss];
+      long pos = length;
+      for(int s = 0; s < ss; s++) {
+        scratch[s] = pos;
+        pos += lengths.get(s);
+      }
+      final byte[] array = bytes.finish();
+      move(starts, lengths, array, scratch);
+      // copy entries to their final offsets
+      move(starts, lengths, array, targets.finish());
+    }
+
+    if(next < os) return false;
+    store.truncate(free);
+    flush();
+    return true;
+  }
+
+  /**
+   * Returns the number of reclaimed bytes.
+   * @return number of bytes
+   */
+  long reclaimed() {
+    return length - free;
+  }
+
+  /**
+   * Writes entries to the specified offsets and updates their references.
+   * The heap is flushed before the table.
+   * @param starts indexes of the first pre values of the entries
+   * @param lengths lengths of the entries
+   * @param bytes contents of the entries
+   * @param targets new offsets
+   * @throws IOException I/O exception
+   */
+  private void move(final IntList starts, final IntList lengths, final byte[] bytes,
+      final long[] targets) throws IOException {
+
+    final int ss = starts.size();
+    for(int s = 0, b = 0; s < ss; s++) {
+      final int total = lengths.get(s);
+      store.cursor(targets[s]);
+      store.writeBytes(bytes, b, total);
+      b += total;
+    }
+    store.flush();
+
+    final int os = offs.length;
+    for(int s = 0; s < ss; s++) {
+      final int start = starts.get(s);
+      final long off = offs[start];
+      for(int o = start; o < os && offs[o] == off; o++) {
+        final int pre = pres[o];
+        final long ref = data.textRef(pre);
+        data.textRef(pre, ref - (ref & Compress.COMPRESS - 1) + targets[s]);
+      }
+    }
+    flush();
+  }
+
+  /**
+   * Flushes the table and the write-ahead log.
+   * @throws IOException I/O exception
+   */
+  private void flush() throws IOException {
+    data.table.flush(false);
+    final WriteAheadLog wal = data.meta.wal;
+    if(wal != null) wal.commit();
+  }
+}
@@ -80,7 +80,13 @@ public abstract class Data {
   public static final byte COMM = 0x04;
   /** Node kind: processing instruction (code: {@code 5}). */
   public static final byte PI = 0x05;
+  /** Maximum number of bytes moved by a single compaction step. */
+  public static final int COMPACT = 1 << 22;
 
+  /** Value indexes that can be incrementally updated. */
+  private static final IndexType[] UPDINDEXES = {
+    IndexType.TEXT, IndexType.ATTRIBUTE, IndexType.TOKEN
+  };
   /** Static node counter. */
   private static final AtomicInteger ID = new AtomicInteger();
   /** Unique id. ID can get negative, as subtraction of ids is used for all comparisons. */
@@ -100,13 +106,17 @@ public abstract class Data {
   /** Path index. */
   public PathIndex paths;
   /** Text index. */
-  public ValueIndex textIndex;
+  public volatile ValueIndex textIndex;
   /** Attribute value index. */
-  public ValueIndex attrIndex;
+  public volatile ValueIndex attrIndex;
   /** Token index. */
-  public ValueIndex tokenIndex;
+  public volatile ValueIndex tokenIndex;
   /** Full-text index. */
-  public ValueIndex ftIndex;
+  public volatile ValueIndex ftIndex;
+  /** Range index. */
+  public volatile ValueIndex rangeIndex;
+  /** Trigram index. */
+  public volatile ValueIndex trigramIndex;
 
   /** Indicates if distances are to be updated. */
   public boolean updateDists = true;
@@ -142,12 +152,12 @@ public abstract class Data {
   }
 
   /**
-   * Drops the specified index.
-   * @param type index to be dropped
-   * @param cmd calling command
+   * Creates the specified indexes.
+   * @param cmd calling command (can be {@code null})
+   * @param types indexes to be created
    * @throws IOException I/O exception
    */
-  public abstract void createIndex(IndexType type, Command cmd) throws IOException;
+  public abstract void createIndex(Command cmd, IndexType... types) throws IOException;
 
   /**
    * Drops the specified index.
@@ -192,33 +202,80 @@ public abstract class Data {
    * @return cost estimation, or {@code null} if index access is not possible
    */
   public final IndexCosts costs(final IndexSearch search) {
-    return index(search.type()).costs(search);
+    final Index index = index(search.type());
+    return index != null ? index.costs(search) : null;
   }
 
   /**
    * Returns info on the specified index structure.
    * @param type index type
    * @param options main options
-   * @return info
+   * @return info (empty if the index is not available)
    */
   public final byte[] info(final IndexType type, final MainOptions options) {
-    return index(type).info(options);
+    final Index index = index(type);
+    return index != null ? index.info(options) : EMPTY;
+  }
+
+  /**
+   * Returns info on the storage of the database.
+   * @return info (empty if no information is available)
+   */
+  public byte[] info() {
+    final TokenBuilder tb = new TokenBuilder();
+    table.info(tb);
+    return tb.finish();
+  }
+
+  /**
+   * Compacts the storage of texts and attribute values.
+   * @return number of reclaimed bytes
+   * @throws IOException I/O exception
+   */
+  public final long compact() throws IOException {
+    long reclaimed;
+    do reclaimed = compact(COMPACT); while(reclaimed == -1);
+    return reclaimed;
+  }
+
+  /**
+   * Compacts the next batch of texts and attribute values.
+   * @param max maximum number of bytes to be moved
+   * @return number of reclaimed bytes, or {@code -1} if compaction is not finished yet
+   * @throws IOException I/O exception
+   */
+  @SuppressWarnings("unused")
+  public long compact(final int max) throws IOException {
+    return 0;
   }
 
   /**
    * Returns an index for the specified index type.
    * @param type index type
-   * @return index
+   * @return index, or {@code null} if the index does not exist or is not available
    */
   public final Index index(final IndexType type) {
     switch(type) {
       case ELEMNAME:  return elemNames;
       case ATTRNAME:  return attrNames;
+      case PATH:      return paths;
+      default:        return valueIndex(type);
+    }
+  }
+
+  /**
+   * Returns a value index for the specified index type.
+   * @param type index type
+   * @return index, or {@code null} if the index does not exist or is not available
+   */
+  public ValueIndex valueIndex(final IndexType type) {
+    switch(type) {
       case TEXT:      return textIndex;
       case ATTRIBUTE: return attrIndex;
       case TOKEN:     return tokenIndex;
       case FULLTEXT:  return ftIndex;
-      case PATH:      return paths;
+      case RANGE:     return rangeIndex;
+      case TRIGRAM:   return trigramIndex;
       default:        throw Util.notExpected();
     }
   }
@@ -467,6 +524,16 @@ public abstract class Data {
     return table.read5(pre, 3);
   }
 
+  /**
+   * Returns the inlined representation of a text or attribute value (see {@link Inline}).
+   * @param pre pre value
+   * @param text text/attribute flag
+   * @return inlined value, or {@code 0} if the value is not inlined
+   */
+  public long inlined(final int pre, final boolean text) {
+    return 0;
+  }
+
   /**
    * Returns a text (text, comment, pi, document) or attribute value.
    * @param pre pre value
@@ -529,16 +596,24 @@ public abstract class Data {
       if(kind == ATTR) {
         // delete old values from attribute indexes
         if(meta.updindex) {
-          if(meta.attrindex) attrIndex.delete(new ValueCache(pre, IndexType.ATTRIBUTE, this));
-          if(meta.tokenindex) tokenIndex.delete(new ValueCache(pre, IndexType.TOKEN, this));
+          if(meta.attrindex) {
+            valueIndex(IndexType.ATTRIBUTE).delete(new ValueCache(pre, IndexType.ATTRIBUTE, this));
+          }
+          if(meta.tokenindex) {
+            valueIndex(IndexType.TOKEN).delete(new ValueCache(pre, IndexType.TOKEN, this));
+          }
         }
         table.write1(pre, 11, uriId);
         table.write2(pre, 1, attrNames.put(name));
         if(nsFlag) table.write2(nsPre, 1, 1 << 15 | nameId(nsPre));
         // add new values to attribute indexes
         if(meta.updindex) {
-          if(meta.attrindex) attrIndex.add(new ValueCache(pre, IndexType.ATTRIBUTE, this));
-          if(meta.tokenindex) tokenIndex.add(new ValueCache(pre, IndexType.TOKEN, this));
+          if(meta.attrindex) {
+            valueIndex(IndexType.ATTRIBUTE).add(new ValueCache(pre, IndexType.ATTRIBUTE, this));
+          }
+          if(meta.tokenindex) {
+            valueIndex(IndexType.TOKEN).add(new ValueCache(pre, IndexType.TOKEN, this));
+          }
         }
 
       } else {
@@ -550,12 +625,14 @@ public abstract class Data {
           for(int curr = pre + attSize(pre, kind); curr < last; curr += size(curr, kind(curr))) {
             if(kind(curr) == TEXT) pres.add(curr);
           }
-          textIndex.delete(new ValueCache(pres, IndexType.TEXT, this));
+          valueIndex(IndexType.TEXT).delete(new ValueCache(pres, IndexType.TEXT, this));
         }
         table.write1(pre, 3, uriId);
         final int nameId = elemNames.put(name);
         table.write2(nsPre, 1, (nsFlag || nsFlag(nsPre) ? 1 << 15 : 0) | nameId);
-        if(!pres.isEmpty()) textIndex.add(new ValueCache(pres, IndexType.TEXT, this));
+        if(!pres.isEmpty()) {
+          valueIndex(IndexType.TEXT).add(new ValueCache(pres, IndexType.TEXT, this));
+        }
       }
     }
   }
@@ -1077,9 +1154,9 @@ public abstract class Data {
   protected final void indexDelete(final int pre, final int id, final int size) {
     if(id != -1) resources.delete(pre, size);
     if(meta.updindex) {
-      if(meta.textindex) textIndex.delete(new ValueCache(pre, size, IndexType.TEXT, this));
-      if(meta.attrindex) attrIndex.delete(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
-      if(meta.tokenindex) tokenIndex.delete(new ValueCache(pre, size, IndexType.TOKEN, this));
+      for(final IndexType type : UPDINDEXES) {
+        if(meta.index(type)) valueIndex(type).delete(new ValueCache(pre, size, type, this));
+      }
       if(id != -1) idmap.delete(pre, id, -size);
     }
   }
@@ -1095,9 +1172,9 @@ public abstract class Data {
     if(id != -1) resources.insert(pre, clip);
     if(meta.updindex) {
       if(id != -1) idmap.insert(pre, id, size);
-      if(meta.textindex) textIndex.add(new ValueCache(pre, size, IndexType.TEXT, this));
-      if(meta.attrindex) attrIndex.add(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
-      if(meta.tokenindex) tokenIndex.add(new ValueCache(pre, size, IndexType.TOKEN, this));
+      for(final IndexType type : UPDINDEXES) {
+        if(meta.index(type)) valueIndex(type).add(new ValueCache(pre, size, type, this));
+      }
     }
   }
 
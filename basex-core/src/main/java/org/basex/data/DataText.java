@@ -13,8 +13,16 @@ public interface DataText {
 
   /** Database version; older version cannot open these instances. */
   String STORAGE = "9.0.1";
+  /** Database version of instances with dictionary values; older version cannot open them. */
+  String DICTSTORAGE = "9.5.3";
+  /** Database version of instances with inlined typed values; older version cannot open them. */
+  String TYPEDSTORAGE = "9.5.3";
+  /** Database version of compressed instances; older version cannot open them. */
+  String COMPRSTORAGE = "9.5.3";
   /** Index version; older version cannot open indexes of these instances. */
-  String ISTORAGE = "8.6";
+  String ISTORAGE = "9.5.3";
+  /** Version of the full-text index format; older full-text indexes cannot be opened. */
+  String FTSTORAGE = "9.5.3";
 
   /** Database version. */
   String DBSTR = "STORAGE";
@@ -32,6 +40,16 @@ public interface DataText {
   String DBNDOCS = "NDOCS";
   /** Automatic index update. */
   String DBUPDIDX = "UPDINDEX";
+  /** Number of cached index updates. */
+  String DBIDXDELTA = "IDXDELTA";
+  /** Bloom filters for value indexes. */
+  String DBBLOOM = "BLOOM";
+  /** Dictionary for frequent values. */
+  String DBDICTVAL = "DICTVAL";
+  /** Maximum length of dictionary values. */
+  String DBDICTLEN = "DICTLEN";
+  /** Inlined typed values. */
+  String DBTYPED = "TYPED";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
   /** Text index. */
@@ -42,6 +60,10 @@ public interface DataText {
   String DBTOKIDX = "TOKINDEX";
   /** Full-text index. */
   String DBFTXIDX = "FTXINDEX";
+  /** Range index. */
+  String DBRNGIDX = "RNGINDEX";
+  /** Trigram index. */
+  String DBTRIIDX = "TRIINDEX";
   /** Text index: names. */
   String DBTXTINC = "TXTINC";
   /** Attribute index: names. */
@@ -50,6 +72,10 @@ public interface DataText {
   String DBTOKINC = "TOKINC";
   /** Full-text index: names. */
   String DBFTXINC = "FTXINC";
+  /** Range index: names. */
+  String DBRNGINC = "RNGINC";
+  /** Trigram index: names. */
+  String DBTRIINC = "TRIINC";
   /** Full-text stemming. */
   String DBFTST = "FTSTEM";
   /** Full-text language. */
@@ -66,6 +92,12 @@ public interface DataText {
   String DBMAXCATS = "MAXCATS";
   /** Index split size. */
   String DBSPLITS = "SPLITS";
+  /** Number of index threads. */
+  String DBTHREADS = "THREADS";
+  /** Fill factor of table pages. */
+  String DBFILLF = "FILLF";
+  /** Compression flag. */
+  String DBCOMPR = "COMPR";
   /** Up-to-date flag. */
   String DBUPTODATE = "UPTODATE";
   /** Last (highest) id. */
@@ -80,6 +112,10 @@ public interface DataText {
   String DBCRTTOK = "CRTTOK";
   /** Recreate full-text index. */
   String DBCRTFTX = "CRTFTX";
+  /** Recreate range index. */
+  String DBCRTRNG = "CRTRNG";
+  /** Recreate trigram index. */
+  String DBCRTTRI = "CRTTRI";
 
   /** Tags. */
   String DBTAGS = "TAGS";
@@ -89,6 +125,8 @@ public interface DataText {
   String DBPATH = "PATH";
   /** Namespace. */
   String DBNS = "NS";
+  /** Dictionary. */
+  String DBDICT = "DICT";
 
   // DATABASE FILES ===============================================================================
 
@@ -96,6 +134,8 @@ public interface DataText {
   String DATAINF = "inf";
   /** Database - Tokens. */
   String DATATBL = "tbl";
+  /** Database - Block directory of compressed files. */
+  String DATABLK = "blk";
   /** Database - Temporary Size References. */
   String DATATMP = "tmp";
   /** Database - Text index. */
@@ -106,13 +146,21 @@ public interface DataText {
   String DATATOK = "tok";
   /** Database - Full-text index. */
   String DATAFTX = "ftx";
+  /** Database - Range index. */
+  String DATARNG = "rng";
+  /** Database - Trigram index. */
+  String DATATRI = "tri";
   /** Database - Stopword list. */
   String DATASWL = "swl";
   /** Database - Updating flag. */
   String DATAUPD = "upd";
+  /** Database - Write-ahead log. */
+  String DATAWAL = "wal";
   /** Database - Document path index. */
   String DATAPTH = "pth";
-  /** Database - ID-PRE mapping. */
+  /** Database - ID-PRE mapping (runs of IDs). */
+  String DATAIDR = "idr";
+  /** Database - ID-PRE mapping (legacy format, will be replaced with {@link #DATAIDR}). */
   String DATAIDP = "idp";
 
   // XML SERIALIZATION ============================================================================
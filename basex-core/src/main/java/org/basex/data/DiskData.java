@@ -13,12 +13,16 @@ import org.basex.index.*;
 import org.basex.index.ft.*;
 import org.basex.index.name.*;
 import org.basex.index.path.*;
+import org.basex.index.range.*;
+import org.basex.index.trigram.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * This class stores and organizes the database table and the index structures
@@ -32,15 +36,20 @@ import org.basex.util.*;
  * Bit 0 [INLINED]    indicates if value is inlined in table or stored externally
  * Bit 1 [COMPRESSED] indicates if value is compressed
  * Bit 2 [STRING]     indicates if an inlined value is a string
+ * Bit 3 [TYPED]      indicates if an inlined value is a decimal, date or dateTime
  *
  * - INLINED (text is inlined):
+ *   - TYPED (see {@link Inline}):
+ *     - Bits 1-2 contain the type
+ *     - 36 remaining bits contain the value
  *   - STRING (value is string):
  *     - Bits 4-7 contain string length
  *     - 32 remaining bits contain inlined string
  *     - COMPRESSED: unpack and return inlined text
  *     - NOT COMPRESSED: return text unchanged
- *   - NOT STRING (value is integer):
- *     - return 32 bits of remaining 4 bytes as integer
+ *   - NOT STRING:
+ *     - COMPRESSED: 32 bits of remaining 4 bytes contain the id of a dictionary value
+ *     - NOT COMPRESSED: return 32 bits of remaining 4 bytes as integer
  * - NOT INLINED (text is stored externally):
  *   - 38 remaining bits contain text reference
  *   - COMPRESSED: unpack and return external text
@@ -56,6 +65,14 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Dictionary with frequent texts and attribute values. */
+  private TokenSet dictionary = new TokenSet();
+  /** Current compaction (can be {@code null}). */
+  private Compaction compaction;
+  /** Number of bytes reclaimed by the current compaction. */
+  private long reclaimed;
+  /** Number of updates. */
+  private long updates;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -65,7 +82,9 @@ public final class DiskData extends Data {
   public DiskData(final MetaData meta) throws IOException {
     super(meta);
 
-    try(DataInput in = new DataInput(meta.dbFile(DATAINF))) {
+    // replay changes that have not been written to the database files
+    if(meta.snapshot == null) WriteAheadLog.recover(meta);
+    try(DataInput in = new DataInput(meta.input(DATAINF))) {
       meta.read(in);
       while(true) {
         final String k = string(in.readToken());
@@ -76,23 +95,18 @@ public final class DiskData extends Data {
           case DBPATH: paths = new PathIndex(this, in); break;
           case DBNS:   nspaces = new Namespaces(in); break;
           case DBDOCS: resources.read(in); break;
+          case DBDICT: dictionary = new TokenSet(in); break;
         }
       }
     }
 
-    // open data and indexes
+    // open data; indexes will be opened on first access
     init();
     if(meta.updindex) {
-      idmap = new IdPreMap(meta.dbFile(DATAIDP));
-      if(meta.textindex) textIndex = new UpdatableDiskValues(this, IndexType.TEXT);
-      if(meta.attrindex) attrIndex = new UpdatableDiskValues(this, IndexType.ATTRIBUTE);
-      if(meta.tokenindex) tokenIndex = new UpdatableDiskValues(this, IndexType.TOKEN);
-    } else {
-      if(meta.textindex) textIndex = new DiskValues(this, IndexType.TEXT);
-      if(meta.attrindex) attrIndex = new DiskValues(this, IndexType.ATTRIBUTE);
-      if(meta.tokenindex) tokenIndex = new DiskValues(this, IndexType.TOKEN);
+      // mapping in legacy format: build mapping from the table
+      final IO file = meta.input(DATAIDR);
+      idmap = file.exists() ? new IdPreMap(file) : new IdPreMap(this);
     }
-    if(meta.ftindex) ftIndex = new FTIndex(this);
   }
 
   /**
@@ -102,16 +116,19 @@ public final class DiskData extends Data {
    * @param attrNames attribute names
    * @param paths path index
    * @param nspaces namespaces
+   * @param dictionary dictionary values
    * @throws IOException I/O Exception
    */
   public DiskData(final MetaData meta, final Names elemNames, final Names attrNames,
-      final PathIndex paths, final Namespaces nspaces) throws IOException {
+      final PathIndex paths, final Namespaces nspaces, final TokenSet dictionary)
+      throws IOException {
 
     super(meta);
     this.elemNames = elemNames;
     this.attrNames = attrNames;
     this.paths = paths;
     this.nspaces = nspaces;
+    this.dictionary = dictionary;
     paths.data(this);
     if(meta.updindex) idmap = new IdPreMap(meta.lastid);
     init();
@@ -122,9 +139,36 @@ public final class DiskData extends Data {
    * @throws IOException I/O exception
    */
   private void init() throws IOException {
+    // incremental indexes with cached updates are not covered by the log
+    if(meta.walsize > 0 && meta.snapshot == null && !(meta.updindex && meta.indexdelta > 0)) {
+      meta.wal = new WriteAheadLog(meta);
+    }
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbFile(DATATXT));
-    values = new DataAccess(meta.dbFile(DATAATV));
+    texts = new DataAccess(meta.dbFile(DATATXT), meta);
+    values = new DataAccess(meta.dbFile(DATAATV), meta);
+    map(meta.mmap);
+  }
+
+  /**
+   * Writes all changes of the write-ahead log to the database files.
+   * @throws IOException I/O exception
+   */
+  private void checkpoint() throws IOException {
+    final WriteAheadLog wal = meta.wal;
+    if(wal != null) {
+      flush(true);
+      wal.checkpoint();
+    }
+  }
+
+  /**
+   * Enables or disables memory-mapped read access to the heap files.
+   * @param map enable or disable mapping
+   * @throws IOException I/O exception
+   */
+  private void map(final boolean map) throws IOException {
+    texts.map(map);
+    values.map(map);
   }
 
   /**
@@ -134,8 +178,8 @@ public final class DiskData extends Data {
   private void write() throws IOException {
     if(!meta.dirty) return;
 
-    try(DataOutput out = new DataOutput(meta.dbFile(DATAINF))) {
-      meta.write(out);
+    try(DataOutput out = meta.output(DATAINF)) {
+      meta.write(out, !dictionary.isEmpty());
       out.writeToken(token(DBTAGS));
       elemNames.write(out);
       out.writeToken(token(DBATTS));
@@ -146,9 +190,18 @@ public final class DiskData extends Data {
       nspaces.write(out);
       out.writeToken(token(DBDOCS));
       resources.write(out);
+      if(!dictionary.isEmpty()) {
+        out.writeToken(token(DBDICT));
+        dictionary.write(out);
+      }
       out.write(0);
     }
-    if(meta.updindex) idmap.write(meta.dbFile(DATAIDP));
+    if(meta.updindex) {
+      try(DataOutput out = meta.output(DATAIDR)) {
+        idmap.write(out);
+      }
+      meta.dbFile(DATAIDP).delete();
+    }
     meta.dirty = false;
   }
 
@@ -158,6 +211,7 @@ public final class DiskData extends Data {
     super.close();
     try {
       write();
+      checkpoint();
       table.close();
       texts.close();
       values.close();
@@ -165,18 +219,81 @@ public final class DiskData extends Data {
       close(IndexType.ATTRIBUTE);
       close(IndexType.TOKEN);
       close(IndexType.FULLTEXT);
+      close(IndexType.RANGE);
+      close(IndexType.TRIGRAM);
+      final WriteAheadLog wal = meta.wal;
+      if(wal != null) {
+        wal.close();
+        meta.wal = null;
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
   }
 
+  @Override
+  public ValueIndex valueIndex(final IndexType type) {
+    // skip synchronization if the index has already been opened
+    final ValueIndex index = super.valueIndex(type);
+    if(index != null) return index;
+    try {
+      return openIndex(type);
+    } catch(final IOException ex) {
+      // mark indexes as out-dated (reported by OPEN and INFO DB), evaluate queries without index
+      Util.debug(ex);
+      meta.oldindex = true;
+      return null;
+    }
+  }
+
+  /**
+   * Returns the specified value index and opens it on first access.
+   * @param type index type
+   * @return index, or {@code null} if the index does not exist
+   * @throws IOException I/O exception
+   */
+  private synchronized ValueIndex openIndex(final IndexType type) throws IOException {
+    ValueIndex index = super.valueIndex(type);
+    if(index == null && !closed && meta.index(type)) {
+      index = open(type);
+      switch(type) {
+        case TEXT:      textIndex = index; break;
+        case ATTRIBUTE: attrIndex = index; break;
+        case TOKEN:     tokenIndex = index; break;
+        case FULLTEXT:  ftIndex = index; break;
+        case RANGE:     rangeIndex = index; break;
+        case TRIGRAM:   trigramIndex = index; break;
+        default:        break;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Opens the specified index.
+   * @param type index type
+   * @return index
+   * @throws IOException I/O exception
+   */
+  private ValueIndex open(final IndexType type) throws IOException {
+    switch(type) {
+      case TEXT: case ATTRIBUTE: case TOKEN:
+        return !meta.updindex ? new DiskValues(this, type) :
+          meta.indexdelta > 0 ? new LsmDiskValues(this, type) : new UpdatableDiskValues(this, type);
+      case FULLTEXT: return new FTIndex(this);
+      case RANGE:    return new RangeIndex(this);
+      case TRIGRAM:  return new TrigramIndex(this);
+      default:       throw Util.notExpected();
+    }
+  }
+
   /**
    * Closes the specified index.
    * @param type index to be closed
    */
   private synchronized void close(final IndexType type) {
-    // close index and invalidate reference
-    final Index index = index(type);
+    // close index and invalidate reference (indexes that have not been opened are skipped)
+    final Index index = super.valueIndex(type);
     if(index != null) {
       index.close();
       set(type, null);
@@ -184,28 +301,59 @@ public final class DiskData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
-    // close existing index
-    close(type);
-    final IndexBuilder ib;
-    switch(type) {
-      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type); break;
-      case FULLTEXT: ib = new FTBuilder(this); break;
-      default: throw Util.notExpected();
-    }
+  public void createIndex(final Command cmd, final IndexType... types) throws IOException {
+    // index structures are written to disk by the builders: block snapshots
+    final WriteAheadLog wal = meta.wal;
+    if(wal != null) wal.block(true);
     try {
-      if(cmd != null) cmd.pushJob(ib);
-      set(type, ib.build());
+      checkpoint();
+      final int tl = types.length;
+      final IndexBuilder[] builders = new IndexBuilder[tl];
+      for(int t = 0; t < tl; t++) {
+        // close existing index
+        final IndexType type = types[t];
+        close(type);
+        switch(type) {
+          case TEXT: case ATTRIBUTE: case TOKEN:
+            builders[t] = new DiskValuesBuilder(this, type);
+            break;
+          case FULLTEXT: builders[t] = new FTBuilder(this); break;
+          case RANGE: builders[t] = new RangeBuilder(this); break;
+          case TRIGRAM: builders[t] = new TrigramBuilder(this); break;
+          default: throw Util.notExpected();
+        }
+      }
+      // build independent indexes in parallel
+      final ParallelBuilder pb = new ParallelBuilder(meta.indexthreads, builders);
+      try {
+        if(cmd != null) cmd.pushJob(pb);
+        final ValueIndex[] indexes = pb.build();
+        for(int t = 0; t < tl; t++) set(types[t], indexes[t]);
+      } finally {
+        if(cmd != null) cmd.popJob();
+      }
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(wal != null) wal.block(false);
     }
   }
 
   @Override
   public void dropIndex(final IndexType type) throws BaseXException {
-    close(type);
-    final Index index = index(type);
-    if(index != null && !index.drop()) throw new BaseXException(INDEX_NOT_DROPPED_X, type);
+    // index files are deleted outside the log: block snapshots
+    final WriteAheadLog wal = meta.wal;
+    if(wal != null) wal.block(true);
+    try {
+      try {
+        checkpoint();
+      } catch(final IOException ex) {
+        throw new BaseXException(ex);
+      }
+      close(type);
+      final Index index = super.valueIndex(type);
+      if(index != null && !index.drop()) throw new BaseXException(INDEX_NOT_DROPPED_X, type);
+    } finally {
+      if(wal != null) wal.block(false);
+    }
   }
 
   /**
@@ -220,14 +368,27 @@ public final class DiskData extends Data {
       case ATTRIBUTE: attrIndex = index; break;
       case TOKEN:     tokenIndex = index; break;
       case FULLTEXT:  ftIndex = index; break;
+      case RANGE:     rangeIndex = index; break;
+      case TRIGRAM:   trigramIndex = index; break;
       default:        break;
     }
   }
 
   @Override
   public void startUpdate(final MainOptions opts) throws BaseXException {
+    // open indexes that will be updated
+    if(meta.updindex) {
+      try {
+        openIndex(IndexType.TEXT);
+        openIndex(IndexType.ATTRIBUTE);
+        openIndex(IndexType.TOKEN);
+      } catch(final IOException ex) {
+        throw new BaseXException(ex);
+      }
+    }
     if(!table.lock(true)) throw new BaseXException(DB_PINNED_X, meta.name);
-    if(opts.get(MainOptions.AUTOFLUSH)) {
+    updates++;
+    if(opts.get(MainOptions.AUTOFLUSH) && meta.wal == null) {
       final IOFile upd = meta.updateFile();
       if(upd.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
       if(!upd.touch()) throw Util.notExpected("%: could not create lock file.", meta.name);
@@ -241,13 +402,18 @@ public final class DiskData extends Data {
 
     // remove updating file
     final boolean auto = opts.get(MainOptions.AUTOFLUSH);
-    if(auto) {
+    if(auto && meta.wal == null) {
       final IOFile upd = meta.updateFile();
       if(!upd.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
       if(!upd.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
     }
 
     flush(auto);
+    try {
+      map(meta.mmap);
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
     if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
   }
 
@@ -261,6 +427,12 @@ public final class DiskData extends Data {
         values.flush();
         if(textIndex != null) textIndex.flush();
         if(attrIndex != null) attrIndex.flush();
+        if(tokenIndex != null) tokenIndex.flush();
+        final WriteAheadLog wal = meta.wal;
+        if(wal != null) {
+          wal.commit();
+          wal.checkpointIfFull();
+        }
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -270,30 +442,50 @@ public final class DiskData extends Data {
   @Override
   public byte[] text(final int pre, final boolean text) {
     final long value = textRef(pre);
-    return Inline.inlined(value) ? Inline.unpack(value) : txt(value, text);
+    return Inline.inlined(value) ? inlined(value) : txt(value, text);
   }
 
   @Override
   public long textItr(final int pre, final boolean text) {
     final long value = textRef(pre);
-    return Inline.inlined(value) ? Inline.unpackLong(value) : toLong(txt(value, text));
+    return !Inline.inlined(value) ? toLong(txt(value, text)) :
+      Inline.id(value) ? toLong(inlined(value)) : Inline.unpackLong(value);
   }
 
   @Override
   public double textDbl(final int pre, final boolean text) {
     final long value = textRef(pre);
-    return Inline.inlined(value) ? Inline.unpackDouble(value) : toDouble(txt(value, text));
+    return !Inline.inlined(value) ? toDouble(txt(value, text)) :
+      Inline.id(value) ? toDouble(inlined(value)) : Inline.unpackDouble(value);
   }
 
   @Override
   public int textLen(final int pre, final boolean text) {
     final long value = textRef(pre);
-    if(Inline.inlined(value)) return Inline.unpackLength(value);
+    if(Inline.inlined(value)) {
+      return Inline.id(value) ? inlined(value).length : Inline.unpackLength(value);
+    }
 
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final long pos = value & Compress.COMPRESS - 1;
+    final int l = da.readNum(pos);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? da.readNum(pos + Num.length(l)) : l;
+  }
+
+  @Override
+  public long inlined(final int pre, final boolean text) {
+    final long value = textRef(pre);
+    return Inline.inlined(value) ? value : 0;
+  }
+
+  /**
+   * Returns an inlined text or a dictionary value.
+   * @param value inlined value
+   * @return text
+   */
+  private byte[] inlined(final long value) {
+    return Inline.id(value) ? dictionary.key(Inline.unpackId(value)) : Inline.unpack(value);
   }
 
   /**
@@ -307,11 +499,64 @@ public final class DiskData extends Data {
     return Compress.compressed(offset) ? Compress.unpack(txt) : txt;
   }
 
+  @Override
+  public byte[] info() {
+    final TokenBuilder tb = new TokenBuilder();
+    table.info(tb);
+    info(tb, LI_TEXTS, texts);
+    info(tb, LI_VALUES, values);
+    if(!dictionary.isEmpty()) tb.add(LI_DICTIONARY).addInt(dictionary.size() - 1).add(NL);
+    final WriteAheadLog wal = meta.wal;
+    if(wal != null) tb.add(LI_WAL).add(wal.info()).add(NL);
+    final FileHandles handles = FileHandles.get();
+    if(handles.budget() > 0) tb.add(LI_FILE_HANDLES).add(handles.info()).add(NL);
+    return tb.finish();
+  }
+
+  /**
+   * Adds information on a heap file.
+   * @param tb token builder
+   * @param key key
+   * @param da heap file
+   */
+  private static void info(final TokenBuilder tb, final String key, final DataAccess da) {
+    tb.add(key).add(Performance.format(da.length())).add(", ").add(PAGE_CACHE).add(COLS);
+    tb.add(da.info()).add(NL);
+  }
+
   @Override
   public boolean inMemory() {
     return false;
   }
 
+  /**
+   * Compacts the text and attribute value heaps in batches (see {@link Compaction}).
+   * Compaction is restarted if the database has been updated by another job between two batches
+   * (i.e., if more than one update has been started since the last batch).
+   * @param max maximum number of bytes to be moved
+   * @return number of reclaimed bytes, or {@code -1} if compaction is not finished yet
+   * @throws IOException I/O exception
+   */
+  @Override
+  public synchronized long compact(final int max) throws IOException {
+    if(compaction == null || updates - compaction.updates > 1) {
+      compaction = new Compaction(this, texts, true);
+      reclaimed = 0;
+    }
+    compaction.updates = updates;
+    if(!compaction.next(max)) return -1;
+
+    reclaimed += compaction.reclaimed();
+    if(compaction.text) {
+      compaction = new Compaction(this, values, false);
+      compaction.updates = updates;
+      return -1;
+    }
+    compaction = null;
+    map(meta.mmap);
+    return reclaimed;
+  }
+
   // UPDATE OPERATIONS ============================================================================
 
   @Override
@@ -332,12 +577,16 @@ public final class DiskData extends Data {
     // old entry (offset or value)
     final long oldRef = textRef(pre);
 
-    // check if new entry can be inlined
-    final long v = Inline.packInt(value);
+    // check if new entry can be inlined, or if it exists in the dictionary
+    long v = Inline.packInt(value);
+    if(v == -1) {
+      final int id = dictionary.id(value);
+      if(id != 0) v = Inline.packId(id);
+    }
     if(v != -1) {
       // invalidate old entry if it was not inlined
       if(!Inline.inlined(oldRef)) store.free(oldRef & Compress.COMPRESS - 1, 0);
-      // inline integer value
+      // inline integer value or dictionary id
       textRef(pre, v);
     } else {
       // otherwise, try to compress new value
@@ -366,7 +615,13 @@ public final class DiskData extends Data {
   protected long textRef(final byte[] value, final boolean text) {
     // try to inline value
     final long inlined = Inline.pack(value);
-    if(inlined != 0) return inlined;
+    if(inlined != 0) {
+      if(Inline.typed(inlined)) meta.typed = true;
+      return inlined;
+    }
+    // reference existing dictionary value
+    final int id = dictionary.id(value);
+    if(id != 0) return Inline.packId(id);
 
     // store text in heap file
     final byte[] packed = Compress.pack(value);
@@ -71,21 +71,23 @@ public final class MemData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
-    final IndexBuilder ib;
-    switch(type) {
-      case TEXT: case ATTRIBUTE: case TOKEN:
-        ib = new MemValuesBuilder(this, type); break;
-      case FULLTEXT:
-        throw new BaseXException(NO_MAINMEM);
-      default:
-        throw Util.notExpected();
-    }
-    try {
-      if(cmd != null) cmd.pushJob(ib);
-      set(type, ib.build());
-    } finally {
-      if(cmd != null) cmd.popJob();
+  public void createIndex(final Command cmd, final IndexType... types) throws IOException {
+    for(final IndexType type : types) {
+      final IndexBuilder ib;
+      switch(type) {
+        case TEXT: case ATTRIBUTE: case TOKEN:
+          ib = new MemValuesBuilder(this, type); break;
+        case FULLTEXT: case RANGE: case TRIGRAM:
+          throw new BaseXException(NO_MAINMEM);
+        default:
+          throw Util.notExpected();
+      }
+      try {
+        if(cmd != null) cmd.pushJob(ib);
+        set(type, ib.build());
+      } finally {
+        if(cmd != null) cmd.popJob();
+      }
     }
   }
 
@@ -95,7 +97,9 @@ public final class MemData extends Data {
       case TEXT:
       case ATTRIBUTE:
       case TOKEN:     break;
-      case FULLTEXT:  throw new BaseXException(NO_MAINMEM);
+      case FULLTEXT:
+      case RANGE:
+      case TRIGRAM:   throw new BaseXException(NO_MAINMEM);
       default:        throw Util.notExpected();
     }
     set(type, null);
@@ -113,6 +117,8 @@ public final class MemData extends Data {
       case ATTRIBUTE: attrIndex = index; break;
       case TOKEN:     tokenIndex = index; break;
       case FULLTEXT:  ftIndex = index; break;
+      case RANGE:     rangeIndex = index; break;
+      case TRIGRAM:   trigramIndex = index; break;
       default:        break;
     }
   }
@@ -13,6 +13,7 @@ import org.basex.index.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.ft.*;
 import org.basex.util.list.*;
@@ -47,9 +48,17 @@ public final class MetaData {
   public boolean tokenindex;
   /** Indicates if a full-text index exists. */
   public boolean ftindex;
+  /** Indicates if a range index exists. */
+  public boolean rangeindex;
+  /** Indicates if a trigram index exists. */
+  public boolean trigramindex;
 
   /** Flag for activated automatic index update. */
   public boolean updindex;
+  /** Number of cached index updates (0: incremental indexes are updated in place). */
+  public int indexdelta;
+  /** Flag for creating Bloom filters for value indexes. */
+  public boolean bloomfilter;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
 
@@ -61,6 +70,10 @@ public final class MetaData {
   public boolean createtoken;
   /** Indicates if the full-text index is to be recreated. */
   public boolean createft;
+  /** Indicates if the range index is to be recreated. */
+  public boolean createrange;
+  /** Indicates if the trigram index is to be recreated. */
+  public boolean createtrigram;
   /** Text index: names to include. */
   public String textinclude;
   /** Attribute index: names to include. */
@@ -69,6 +82,10 @@ public final class MetaData {
   public String tokeninclude;
   /** Full-text index: names to include. */
   public String ftinclude;
+  /** Range index: names to include. */
+  public String rangeinclude;
+  /** Trigram index: names to include. */
+  public String trigraminclude;
 
   /** Flag for full-text stemming. */
   public boolean stemming;
@@ -85,6 +102,18 @@ public final class MetaData {
   public int maxlen;
   /** Split size for creating indexes. */
   public int splitsize;
+  /** Number of threads for creating indexes. */
+  public int indexthreads;
+  /** Fill factor of table pages (percentage). */
+  public int fillfactor;
+  /** Flag for compressing the node table, texts and attribute values. */
+  public boolean compression;
+  /** Flag for storing frequent texts and attribute values in a dictionary. */
+  public boolean dictionary;
+  /** Maximum length of dictionary values. */
+  public int dictmaxlen;
+  /** Flag for inlined decimals, dates and dateTimes (see {@link Inline}). */
+  public boolean typed;
 
   /** Language of full-text search index. */
   public Language language;
@@ -96,13 +125,26 @@ public final class MetaData {
   /** Dirty flag. */
   public boolean dirty;
 
+  /** Flag for memory-mapped read access (see {@link StaticOptions#MMAP}). */
+  public boolean mmap;
+  /** Maximum number of cached index entries (see {@link StaticOptions#INDEXCACHE}). */
+  public int indexcache;
+  /** Size limit of the write-ahead log (see {@link StaticOptions#WALSIZE}). */
+  public int walsize;
+  /** Write-ahead log (can be {@code null}). */
+  public WriteAheadLog wal;
+  /** Flag for storing versions for snapshots (see {@link StaticOptions#MVCC}). */
+  public boolean mvcc;
+  /** Snapshot of an updated database (can be {@code null}). */
+  public Snapshot snapshot;
+
   /** Number of nodes. */
   public int size;
   /** Last (highest) id assigned to a node. Can be {@code -1} if database is empty. */
   public int lastid = -1;
 
-  /** Flag for out-of-date indexes. */
-  private boolean oldindex;
+  /** Flag for out-of-date indexes, or indexes that could not be opened. */
+  boolean oldindex;
 
   /**
    * Constructor for a main-memory database instance.
@@ -120,6 +162,10 @@ public final class MetaData {
    */
   public MetaData(final String name, final MainOptions options, final StaticOptions sopts) {
     this(name, sopts.dbPath(name), options);
+    mmap = sopts.get(StaticOptions.MMAP);
+    indexcache = sopts.get(StaticOptions.INDEXCACHE);
+    walsize = sopts.get(StaticOptions.WALSIZE);
+    mvcc = sopts.get(StaticOptions.MVCC);
   }
 
   /**
@@ -135,10 +181,14 @@ public final class MetaData {
     createattr = options.get(MainOptions.ATTRINDEX);
     createtoken = options.get(MainOptions.TOKENINDEX);
     createft = options.get(MainOptions.FTINDEX);
+    createrange = options.get(MainOptions.RANGEINDEX);
+    createtrigram = options.get(MainOptions.TRIGRAMINDEX);
     diacritics = options.get(MainOptions.DIACRITICS);
     stemming = options.get(MainOptions.STEMMING);
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
+    indexdelta = options.get(MainOptions.INDEXDELTA);
+    bloomfilter = options.get(MainOptions.BLOOMFILTER);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
@@ -148,7 +198,14 @@ public final class MetaData {
     attrinclude = options.get(MainOptions.ATTRINCLUDE);
     tokeninclude = options.get(MainOptions.TOKENINCLUDE);
     ftinclude = options.get(MainOptions.FTINCLUDE);
+    rangeinclude = options.get(MainOptions.RANGEINCLUDE);
+    trigraminclude = options.get(MainOptions.TRIGRAMINCLUDE);
     splitsize = options.get(MainOptions.SPLITSIZE);
+    indexthreads = options.get(MainOptions.INDEXTHREADS);
+    fillfactor = options.get(MainOptions.FILLFACTOR);
+    compression = options.get(MainOptions.COMPRESSION);
+    dictionary = options.get(MainOptions.DICTIONARY);
+    dictmaxlen = options.get(MainOptions.DICTMAXLEN);
   }
 
   // STATIC METHODS ===============================================================================
@@ -247,6 +304,23 @@ public final class MetaData {
     return dir != null ? dbSize(dir) : 0;
   }
 
+  /**
+   * Returns the disk size of the node table, texts and attribute values
+   * in percent of their uncompressed size.
+   * @return percentage
+   */
+  public int compressionRatio() {
+    long size = 0, stored = 0;
+    if(dir != null) {
+      for(final String name : new String[] { DATATBL, DATATXT, DATAATV }) {
+        final IOFile file = dbFile(name);
+        size += CompressedFile.length(file);
+        stored += file.length() + CompressedFile.directory(file).length();
+      }
+    }
+    return size == 0 ? 100 : (int) (stored * 100 / size);
+  }
+
   /**
    * Returns the disk timestamp of the database.
    * @return database size
@@ -265,6 +339,30 @@ public final class MetaData {
     return file(dir, filename);
   }
 
+  /**
+   * Returns an output stream for a database file that is written at once.
+   * If the write-ahead log is enabled, the file will be written at the next checkpoint.
+   * @param filename filename
+   * @return output stream
+   * @throws IOException I/O exception
+   */
+  public DataOutput output(final String filename) throws IOException {
+    final IOFile file = dbFile(filename);
+    return wal != null ? wal.output(file) : new DataOutput(file);
+  }
+
+  /**
+   * Returns the input for a database file that is written at once.
+   * If the write-ahead log is enabled, changes that have not been written to disk yet will be
+   * considered. If this instance is a snapshot, the committed version of the file will be returned.
+   * @param filename filename
+   * @return input
+   */
+  public IO input(final String filename) {
+    final IOFile file = dbFile(filename);
+    return snapshot != null ? snapshot.input(file) : wal != null ? wal.input(file) : file;
+  }
+
   /**
    * Returns the binary directory.
    * @return binary directory, or {@code null} if this is a main-memory database
@@ -325,6 +423,8 @@ public final class MetaData {
       case ATTRIBUTE: return attrindex;
       case TOKEN:     return tokenindex;
       case FULLTEXT:  return ftindex;
+      case RANGE:     return rangeindex;
+      case TRIGRAM:   return trigramindex;
       default:        throw Util.notExpected();
     }
   }
@@ -340,6 +440,8 @@ public final class MetaData {
       case ATTRIBUTE: attrindex = exists; break;
       case TOKEN:     tokenindex = exists; break;
       case FULLTEXT:  ftindex = exists; break;
+      case RANGE:     rangeindex = exists; break;
+      case TRIGRAM:   trigramindex = exists; break;
       default:        throw Util.notExpected();
     }
   }
@@ -355,6 +457,8 @@ public final class MetaData {
       case ATTRIBUTE: return attrinclude;
       case TOKEN:     return tokeninclude;
       case FULLTEXT:  return ftinclude;
+      case RANGE:     return rangeinclude;
+      case TRIGRAM:   return trigraminclude;
       default:        throw Util.notExpected();
     }
   }
@@ -370,6 +474,8 @@ public final class MetaData {
       case ATTRIBUTE: attrinclude = options.get(MainOptions.ATTRINCLUDE); break;
       case TOKEN:     tokeninclude = options.get(MainOptions.TOKENINCLUDE); break;
       case FULLTEXT:  ftinclude = options.get(MainOptions.FTINCLUDE); break;
+      case RANGE:     rangeinclude = options.get(MainOptions.RANGEINCLUDE); break;
+      case TRIGRAM:   trigraminclude = options.get(MainOptions.TRIGRAMINCLUDE); break;
       default:        throw Util.notExpected();
     }
   }
@@ -402,20 +508,34 @@ public final class MetaData {
         case DBFSIZE:    inputsize = toLong(v); break;
         case DBFTDC:     diacritics = toBoolean(v); break;
         case DBUPDIDX:   updindex = toBoolean(v); break;
+        case DBIDXDELTA: indexdelta = toInt(v); break;
+        case DBBLOOM:    bloomfilter = toBoolean(v); break;
         case DBAUTOOPT:  autooptimize = toBoolean(v); break;
         case DBTXTIDX:   textindex = toBoolean(v); break;
         case DBATVIDX:   attrindex = toBoolean(v); break;
         case DBTOKIDX:   tokenindex = toBoolean(v); break;
         case DBFTXIDX:   ftindex = toBoolean(v); break;
+        case DBRNGIDX:   rangeindex = toBoolean(v); break;
+        case DBTRIIDX:   trigramindex = toBoolean(v); break;
         case DBTXTINC:   textinclude = v; break;
         case DBATVINC:   attrinclude = v; break;
         case DBTOKINC:   tokeninclude = v; break;
         case DBFTXINC:   ftinclude = v; break;
+        case DBRNGINC:   rangeinclude = v; break;
+        case DBTRIINC:   trigraminclude = v; break;
         case DBSPLITS:   splitsize = toInt(v); break;
+        case DBTHREADS:  indexthreads = toInt(v); break;
+        case DBFILLF:    fillfactor = toInt(v); break;
+        case DBCOMPR:    compression = toBoolean(v); break;
+        case DBDICTVAL:  dictionary = toBoolean(v); break;
+        case DBDICTLEN:  dictmaxlen = toInt(v); break;
+        case DBTYPED:    typed = toBoolean(v); break;
         case DBCRTTXT:   createtext = toBoolean(v); break;
         case DBCRTATV:   createattr = toBoolean(v); break;
         case DBCRTTOK:   createtoken = toBoolean(v); break;
         case DBCRTFTX:   createft = toBoolean(v); break;
+        case DBCRTRNG:   createrange = toBoolean(v); break;
+        case DBCRTTRI:   createtrigram = toBoolean(v); break;
         case DBFTST:     stemming = toBoolean(v); break;
         case DBFTCS:     casesens = toBoolean(v); break;
         case DBUPTODATE: uptodate = toBoolean(v); break;
@@ -423,21 +543,34 @@ public final class MetaData {
     }
 
     // check version of database storage
-    if(!storage.equals(STORAGE) && new Version(storage).compareTo(new Version(
-        STORAGE)) > 0) throw new BuildException(H_DB_FORMAT, storage);
+    final String latest = newer(newer(DICTSTORAGE, TYPEDSTORAGE), COMPRSTORAGE);
+    if(!storage.equals(latest) && new Version(storage).compareTo(new Version(latest)) > 0)
+      throw new BuildException(H_DB_FORMAT, storage);
     // check version of database indexes
     oldindex = !istorage.equals(ISTORAGE) &&
         new Version(istorage).compareTo(new Version(ISTORAGE)) > 0;
+    // full-text index with outdated format: index must be rebuilt
+    if(ftindex && !istorage.equals(FTSTORAGE) &&
+        new Version(istorage).compareTo(new Version(FTSTORAGE)) < 0) {
+      ftindex = false;
+      oldindex = true;
+    }
     corrupt = dbFile(DATAUPD).exists();
   }
 
   /**
    * Writes the meta data to the specified output stream.
    * @param out output stream
+   * @param dict indicates if dictionary values are stored
    * @throws IOException I/O Exception
    */
-  void write(final DataOutput out) throws IOException {
-    writeInfo(out, DBSTR,      STORAGE);
+  void write(final DataOutput out, final boolean dict) throws IOException {
+    // raise storage version only if the database cannot be read by older versions
+    String storage = STORAGE;
+    if(dict) storage = newer(storage, DICTSTORAGE);
+    if(typed) storage = newer(storage, TYPEDSTORAGE);
+    if(compression) storage = newer(storage, COMPRSTORAGE);
+    writeInfo(out, DBSTR,      storage);
     writeInfo(out, DBFNAME,    original);
     writeInfo(out, DBTIME,     time);
     writeInfo(out, IDBSTR,     ISTORAGE);
@@ -445,20 +578,34 @@ public final class MetaData {
     writeInfo(out, DBNDOCS,    ndocs);
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBUPDIDX,   updindex);
+    writeInfo(out, DBIDXDELTA, indexdelta);
+    writeInfo(out, DBBLOOM,    bloomfilter);
     writeInfo(out, DBAUTOOPT,  autooptimize);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
     writeInfo(out, DBFTXIDX,   ftindex);
+    writeInfo(out, DBRNGIDX,   rangeindex);
+    writeInfo(out, DBTRIIDX,   trigramindex);
     writeInfo(out, DBTXTINC,   textinclude);
     writeInfo(out, DBATVINC,   attrinclude);
     writeInfo(out, DBTOKINC,   tokeninclude);
     writeInfo(out, DBFTXINC,   ftinclude);
+    writeInfo(out, DBRNGINC,   rangeinclude);
+    writeInfo(out, DBTRIINC,   trigraminclude);
     writeInfo(out, DBSPLITS,   splitsize);
+    writeInfo(out, DBTHREADS,  indexthreads);
+    writeInfo(out, DBFILLF,    fillfactor);
+    writeInfo(out, DBCOMPR,    compression);
+    writeInfo(out, DBDICTVAL,  dictionary);
+    writeInfo(out, DBDICTLEN,  dictmaxlen);
+    writeInfo(out, DBTYPED,    typed);
     writeInfo(out, DBCRTTXT,   createtext);
     writeInfo(out, DBCRTATV,   createattr);
     writeInfo(out, DBCRTTOK,   createtoken);
     writeInfo(out, DBCRTFTX,   createft);
+    writeInfo(out, DBCRTRNG,   createrange);
+    writeInfo(out, DBCRTTRI,   createtrigram);
     writeInfo(out, DBFTST,     stemming);
     writeInfo(out, DBFTCS,     casesens);
     writeInfo(out, DBFTDC,     diacritics);
@@ -485,6 +632,8 @@ public final class MetaData {
       tokenindex = false;
     }
     ftindex = false;
+    rangeindex = false;
+    trigramindex = false;
   }
 
   /**
@@ -500,6 +649,16 @@ public final class MetaData {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Returns the newer of two storage versions.
+   * @param version1 first version
+   * @param version2 second version
+   * @return newer version
+   */
+  private static String newer(final String version1, final String version2) {
+    return new Version(version1).compareTo(new Version(version2)) < 0 ? version2 : version1;
+  }
+
   /**
    * Writes a boolean option to the specified output.
    * @param out output stream
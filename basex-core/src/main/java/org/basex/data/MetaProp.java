@@ -22,6 +22,11 @@ public enum MetaProp {
     public Long value(final MetaData meta) { return meta.dbSize(); }
   },
   /** Property. */
+  COMPRESSIONRATIO(false) {
+    @Override
+    public Integer value(final MetaData meta) { return meta.compressionRatio(); }
+  },
+  /** Property. */
   NODES(false) {
     @Override
     public Integer value(final MetaData meta) { return meta.size; }
@@ -85,6 +90,16 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.ftindex; }
   },
   /** Property. */
+  RANGEINDEX(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.rangeindex; }
+  },
+  /** Property. */
+  TRIGRAMINDEX(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.trigramindex; }
+  },
+  /** Property. */
   TEXTINCLUDE(true) {
     @Override
     public String value(final MetaData meta) { return meta.textinclude; }
@@ -105,6 +120,16 @@ public enum MetaProp {
     public String value(final MetaData meta) { return meta.ftinclude; }
   },
   /** Property. */
+  RANGEINCLUDE(true) {
+    @Override
+    public String value(final MetaData meta) { return meta.rangeinclude; }
+  },
+  /** Property. */
+  TRIGRAMINCLUDE(true) {
+    @Override
+    public String value(final MetaData meta) { return meta.trigraminclude; }
+  },
+  /** Property. */
   LANGUAGE(true) {
     @Override
     public String value(final MetaData meta) { return meta.language.toString(); }
@@ -135,6 +160,16 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.updindex; }
   },
   /** Property. */
+  INDEXDELTA(true) {
+    @Override
+    public Integer value(final MetaData meta) { return meta.indexdelta; }
+  },
+  /** Property. */
+  BLOOMFILTER(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.bloomfilter; }
+  },
+  /** Property. */
   AUTOOPTIMIZE(true) {
     @Override
     public Boolean value(final MetaData meta) { return meta.autooptimize; }
@@ -153,6 +188,21 @@ public enum MetaProp {
   SPLITSIZE(true) {
     @Override
     public Integer value(final MetaData meta) { return meta.splitsize; }
+  },
+  /** Property. */
+  INDEXTHREADS(true) {
+    @Override
+    public Integer value(final MetaData meta) { return meta.indexthreads; }
+  },
+  /** Property. */
+  FILLFACTOR(true) {
+    @Override
+    public Integer value(final MetaData meta) { return meta.fillfactor; }
+  },
+  /** Property. */
+  COMPRESSION(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.compression; }
   };
 
   /** Index property. */
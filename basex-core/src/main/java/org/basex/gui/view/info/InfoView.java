@@ -203,6 +203,7 @@ public final class InfoView extends View implements LinkListener, QueryTracer {
       final String line = split[s];
       if(line.startsWith(PARSING_CC) || line.startsWith(COMPILING_CC) ||
           line.startsWith(EVALUATING_CC) || line.startsWith(PRINTING_CC) ||
+          line.startsWith(OPENING_CC) || line.startsWith(CLOSING_CC) ||
           line.startsWith(TOTAL_TIME_CC)) {
         final int t = line.indexOf(" ms");
         final int d = line.indexOf(':');
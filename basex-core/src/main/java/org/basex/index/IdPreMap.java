@@ -2,7 +2,9 @@ package org.basex.index;
 
 import java.io.*;
 import java.util.*;
+import java.util.Map.*;
 
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
@@ -12,55 +14,81 @@ import org.basex.util.list.*;
 /**
  * Updatable ID-PRE mapping.
  *
+ * The table is represented as a sequence of runs. Each run contains consecutive IDs that are
+ * stored at consecutive PRE values. The runs are organized in an implicit treap: the position
+ * of a run is defined by the number of IDs in all preceding runs. A second, sorted map references
+ * the runs by their first ID. Lookups and updates take logarithmic time, independently of the
+ * number of performed updates.
+ *
  * @author BaseX Team 2005-21, BSD License
  * @author Dimitar Popov
  */
 public class IdPreMap {
-  /** Invalid id-value. */
-  private static final int INV = -1;
-  /** Base ID value. */
-  private int baseid;
-  /** PRE values of the inserted/deleted IDs. */
-  private int[] pres;
-  /** Inserted first ID values. */
-  private int[] fids;
-  /** Inserted last ID values. */
-  private int[] nids;
-  /** Increments showing how the PRE values have been modified. */
-  private int[] incs;
-  /** ID values for the PRE, before inserting/deleting a record. */
-  private int[] oids;
-
-  /** Number of records in the table. */
-  private int rows;
+  /** Runs, indexed by their first ID. */
+  private final TreeMap<Integer, Integer> ids = new TreeMap<>();
+  /** Released nodes. */
+  private final IntList free = new IntList();
+
+  /** Left children (0: no child). */
+  private int[] lefts = new int[2];
+  /** Right children (0: no child). */
+  private int[] rights = new int[2];
+  /** Parents (0: root). */
+  private int[] parents = new int[2];
+  /** Priorities. */
+  private int[] prios = new int[2];
+  /** Number of IDs in the subtrees. */
+  private int[] sizes = new int[2];
+  /** First IDs of the runs. */
+  private int[] fids = new int[2];
+  /** Number of IDs of the runs. */
+  private int[] counts = new int[2];
+  /** Number of assigned nodes (the node with index 0 is a placeholder). */
+  private int nodes = 1;
+  /** Root node. */
+  private int root;
+  /** Seed for generating priorities. */
+  private int seed = 0x2545F491;
+
+  /** Left result of the last split. */
+  private int splitLeft;
+  /** Right result of the last split. */
+  private int splitRight;
 
   /**
    * Constructor.
    * @param id last inserted ID
    */
   public IdPreMap(final int id) {
-    baseid = id;
-    pres = new int[1];
-    fids = new int[1];
-    nids = new int[1];
-    incs = new int[1];
-    oids = new int[1];
+    finish(id);
   }
 
   /**
    * Constructs a map by reading it from a file.
-   * @param f file to read from
+   * @param file file to read from
    * @throws IOException I/O error while reading from the file
    */
-  public IdPreMap(final IOFile f) throws IOException {
-    try(DataInput in = new DataInput(f)) {
-      baseid = in.readNum();
-      rows = in.readNum();
-      pres = in.readNums();
-      fids = in.readNums();
-      nids = in.readNums();
-      incs = in.readNums();
-      oids = in.readNums();
+  public IdPreMap(final IO file) throws IOException {
+    try(DataInput in = new DataInput(file)) {
+      final int runs = in.readNum();
+      for(int r = 0; r < runs; r++) {
+        final int fid = in.readNum(), count = in.readNum();
+        append(fid, count);
+      }
+    }
+  }
+
+  /**
+   * Constructs a map from the IDs stored in the table of a database.
+   * @param data data reference
+   */
+  public IdPreMap(final Data data) {
+    final int size = data.meta.size;
+    for(int pre = 0, count; pre < size; pre += count) {
+      final int fid = data.id(pre);
+      count = 1;
+      while(pre + count < size && data.id(pre + count) == fid + count) count++;
+      append(fid, count);
     }
   }
 
@@ -71,13 +99,23 @@ public class IdPreMap {
    */
   public final void write(final IOFile file) throws IOException {
     try(DataOutput out = new DataOutput(file)) {
-      out.writeNum(baseid);
-      out.writeNum(rows);
-      out.writeNums(pres);
-      out.writeNums(fids);
-      out.writeNums(nids);
-      out.writeNums(incs);
-      out.writeNums(oids);
+      write(out);
+    }
+  }
+
+  /**
+   * Write the map to the specified output stream.
+   * @param out output stream
+   * @throws IOException I/O error while writing to the stream
+   */
+  public final void write(final DataOutput out) throws IOException {
+    out.writeNum(ids.size());
+    final IntList stack = new IntList();
+    for(int n = root; n != 0 || !stack.isEmpty(); n = rights[n]) {
+      for(; n != 0; n = lefts[n]) stack.add(n);
+      n = stack.pop();
+      out.writeNum(fids[n]);
+      out.writeNum(counts[n]);
     }
   }
 
@@ -86,7 +124,11 @@ public class IdPreMap {
    * @param base last id
    */
   public final void finish(final int base) {
-    baseid = base;
+    ids.clear();
+    free.reset();
+    nodes = 1;
+    root = 0;
+    if(base >= 0) append(0, base + 1);
   }
 
   /**
@@ -95,77 +137,55 @@ public class IdPreMap {
    * @return PRE or -1 if the ID is already deleted
    */
   public int pre(final int id) {
-    // no updates or id is not affected by updates
-    if(rows == 0 || id < pres[0]) return id;
+    final Entry<Integer, Integer> entry = ids.floorEntry(id);
+    if(entry == null) return -1;
+    final int n = entry.getValue(), offset = id - fids[n];
+    return offset < counts[n] ? position(n) + offset : -1;
+  }
 
-    if(id > baseid) {
-      // id was inserted by update
-      for(int i = 0; i < rows; ++i) {
-        if(fids[i] <= id && id <= nids[i]) return pres[i] + id - fids[i];
+  /**
+   * Finds the ID of a given PRE value.
+   * @param pre PRE value
+   * @return ID or -1 if the PRE value is out of range
+   */
+  public int id(final int pre) {
+    int n = root, pos = pre;
+    while(n != 0) {
+      final int ls = sizes[lefts[n]];
+      if(pos < ls) {
+        n = lefts[n];
+      } else if(pos < ls + counts[n]) {
+        return fids[n] + pos - ls;
+      } else {
+        pos -= ls + counts[n];
+        n = rights[n];
       }
-    } else {
-      // id is affected by updates
-      final int i = sortedLastIndexOf(oids, id);
-      return id + incs[i < 0 ? -i - 2 : i];
     }
     return -1;
   }
 
   /**
-   * Inserts a new record.
+   * Inserts new records.
    * @param pre record PRE
    * @param id record ID
    * @param c number of inserted records
    */
   public void insert(final int pre, final int id, final int c) {
-    if(rows == 0 && pre == id && id == baseid + 1) {
-      // no mapping and we append at the end => nothing to do
-      baseid += c;
-      return;
-    }
-
-    int pos = 0;
-    int inc = c;
-    int oid = pre;
-
-    if(rows > 0) {
-      pos = Arrays.binarySearch(pres, 0, rows, pre);
-      if(pos < 0) {
-        pos = -pos - 1;
-        if(pos != 0) {
-          // check if inserting into an existing id interval
-          final int prev = pos - 1;
-          final int prevcnt = nids[prev] - fids[prev] + 1;
-          final int prevpre = pres[prev];
-
-          if(pre < prevpre + prevcnt) {
-            // split the id interval
-            final int split = pre - prevpre;
-            final int fid = fids[prev] + split;
-
-            // add a new next interval
-            add(pos, pre, fid, nids[prev], incs[prev], oids[prev]);
-
-            // shrink the previous interval
-            nids[prev] = fid - 1;
-            incs[prev] -= prevcnt - split;
-
-            oid = oids[prev];
-          } else {
-            oid = pre - incs[prev];
-          }
-          inc += incs[prev];
-        }
-      } else if(pos > 0) {
-        oid = oids[pos];
-        inc += incs[pos - 1];
-      }
-
-      increment(pos, c);
+    cut(pre);
+    split(root, pre);
+    final int left = splitLeft, right = splitRight;
+
+    // extend the preceding run if the IDs are consecutive
+    int last = left;
+    while(last != 0 && rights[last] != 0) last = rights[last];
+    if(last != 0 && fids[last] + counts[last] == id) {
+      counts[last] += c;
+      for(int n = last; n != 0; n = parents[n]) sizes[n] += c;
+      root = merge(left, right);
+    } else {
+      root = merge(merge(left, node(id, c)), right);
     }
-
-    // add the new interval
-    add(pos, pre, id, id + c - 1, inc, oid);
+    parents[root] = 0;
   }
 
   /**
@@ -175,213 +195,204 @@ public class IdPreMap {
    * @param c number of deleted records (negative)
    */
   public void delete(final int pre, final int id, final int c) {
-    if(rows == 0 && pre == id && id - c == baseid + 1) {
-      // no mapping and we delete at the end => nothing to do
-      baseid += c;
-      return;
-    }
-
-    if(rows == 0) {
-      // no previous updates: add a new record
-      add(0, pre, INV, INV, c, id);
-      return;
-    }
-
-    final int end = pre - c - 1;
-    final int startIndex = findPre(pre);
-
-    // remove all updates which has affected records which now have to be deleted
-    final int removeStart = startIndex < rows && pres[startIndex] < pre ?
-         startIndex + 1 : startIndex;
-    int removeEnd = -1;
-    for(int i = startIndex; i < rows; ++i) {
-      if(end < pres[i] + nids[i] - fids[i]) break;
-      removeEnd = i;
-    }
-
-    final int inc;
-    final int oid;
-    int endIndex;
-    if(removeEnd >= 0) {
-      inc = incs[removeEnd];
-      oid = oids[removeEnd];
-      endIndex = removeStart;
-      remove(removeStart, removeEnd);
-    } else {
-      inc = startIndex > 0 ? incs[startIndex - 1] : 0;
-      oid = id;
-      endIndex = startIndex;
-    }
-
-    if(rows <= startIndex) {
-      // the delete does not affect previous updates
-      add(startIndex, pre, INV, INV, inc + c, oid);
-      return;
-    }
-
-    final int min = pres[startIndex];
-    if(startIndex < endIndex) {
-      if(endIndex < rows && pres[endIndex] <= end) {
-        shrinkFromStart(endIndex, pre, c);
-      } else {
-        --endIndex;     // endIndex is not processed, so we let the increment do that
-      }
-      shrinkFromEnd(startIndex, pre, inc + c);
-    } else if(min < pre) {
-      add(++endIndex, pres[startIndex], fids[startIndex], nids[startIndex],
-          incs[startIndex], oids[startIndex]);
-      shrinkFromStart(endIndex, pre, c);
-      shrinkFromEnd(startIndex, pre, inc + c);
-    } else if(end < min) {
-      add(endIndex, pre, INV, INV, inc + c, oid);
-    } else {
-      shrinkFromStart(startIndex, pre, c);
+    final int end = pre - c;
+    cut(pre);
+    cut(end);
+    split(root, end);
+    final int right = splitRight;
+    split(splitLeft, pre);
+    final int left = splitLeft;
+
+    // release all runs of the deleted records
+    final IntList stack = new IntList();
+    if(splitRight != 0) stack.add(splitRight);
+    while(!stack.isEmpty()) {
+      final int n = stack.pop();
+      if(lefts[n] != 0) stack.add(lefts[n]);
+      if(rights[n] != 0) stack.add(rights[n]);
+      ids.remove(fids[n]);
+      free.add(n);
     }
-
-    increment(endIndex + 1, c);
+    root = merge(left, right);
+    parents[root] = 0;
   }
 
   /**
-   * Shrinks the given tuple from the start.
-   * @param i index of the tuple
-   * @param pre pre-value
-   * @param c number of deleted records (negative number)
+   * Returns the size of the map.
+   * @return number of stored runs
    */
-  private void shrinkFromStart(final int i, final int pre, final int c) {
-    incs[i] += c;
-    fids[i] += pre - c - pres[i];
-    pres[i] = pre;
+  public int size() {
+    return ids.size();
   }
 
+  // PRIVATE METHODS ==============================================================================
+
   /**
-   * Shrinks the given tuple from the end.
-   * @param i index of the tuple
-   * @param pre pre-value
-   * @param inc new inc-value
+   * Appends a run.
+   * @param fid first ID
+   * @param count number of IDs
    */
-  private void shrinkFromEnd(final int i, final int pre, final int inc) {
-    nids[i] = fids[i] + pre - pres[i] - 1;
-    incs[i] = inc;
+  private void append(final int fid, final int count) {
+    root = merge(root, node(fid, count));
+    parents[root] = 0;
   }
 
   /**
-   * Increments the pre- and inc-values of all tuples starting from the given index.
-   * @param from start index
-   * @param with increment value
+   * Creates a new node.
+   * @param fid first ID
+   * @param count number of IDs
+   * @return node
    */
-  private void increment(final int from, final int with) {
-    for(int i = from; i < rows; ++i) {
-      pres[i] += with;
-      incs[i] += with;
+  private int node(final int fid, final int count) {
+    final int n;
+    if(free.isEmpty()) {
+      n = nodes++;
+      if(n == fids.length) {
+        final int s = Array.newCapacity(n);
+        lefts = Arrays.copyOf(lefts, s);
+        rights = Arrays.copyOf(rights, s);
+        parents = Arrays.copyOf(parents, s);
+        prios = Arrays.copyOf(prios, s);
+        sizes = Arrays.copyOf(sizes, s);
+        fids = Arrays.copyOf(fids, s);
+        counts = Arrays.copyOf(counts, s);
+      }
+    } else {
+      n = free.pop();
     }
+    // xorshift generator
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    prios[n] = seed;
+    lefts[n] = 0;
+    rights[n] = 0;
+    parents[n] = 0;
+    sizes[n] = count;
+    fids[n] = fid;
+    counts[n] = count;
+    ids.put(fid, n);
+    return n;
   }
 
   /**
-   * Returns the size of the map.
-   * @return number of stored tuples
+   * Returns the PRE value of the first ID of a run.
+   * @param node node
+   * @return PRE value
    */
-  public int size() {
-    return rows;
+  private int position(final int node) {
+    int pos = sizes[lefts[node]];
+    for(int n = node, p = parents[n]; p != 0; n = p, p = parents[p]) {
+      if(rights[p] == n) pos += sizes[lefts[p]] + counts[p];
+    }
+    return pos;
   }
 
   /**
-   * Searches for a given pre value.
-   * @param pre pre value
-   * @return index of the record where the pre is found, or the insertion point if not found
+   * Ensures that a run starts at the specified PRE value. A run will be split in two
+   * if it contains the PRE value.
+   * @param pre PRE value
    */
-  private int findPre(final int pre) {
-    int low = 0;
-    int high = rows - 1;
-    while(low <= high) {
-      final int mid = low + high >>> 1;
-      final int midValMin = pres[mid];
-      final int midValMax = midValMin + nids[mid] - fids[mid];
-      if(midValMax < pre) low = mid + 1;
-      else if(midValMin > pre) high = mid - 1;
-      else return mid; // key found
+  private void cut(final int pre) {
+    // find run containing the PRE value
+    int n = root, pos = pre;
+    while(n != 0) {
+      final int ls = sizes[lefts[n]];
+      if(pos < ls) {
+        n = lefts[n];
+      } else if(pos < ls + counts[n]) {
+        break;
+      } else {
+        pos -= ls + counts[n];
+        n = rights[n];
+      }
     }
-    return low; // key not found.
+    final int offset = n == 0 ? 0 : pos - sizes[lefts[n]];
+    if(offset == 0) return;
+
+    // shrink run, insert remaining IDs as new run
+    final int count = counts[n] - offset;
+    counts[n] = offset;
+    for(int p = n; p != 0; p = parents[p]) sizes[p] -= count;
+    split(root, pre);
+    final int right = splitRight;
+    root = merge(merge(splitLeft, node(fids[n] + offset, count)), right);
+    parents[root] = 0;
   }
 
   /**
-   * Binary search of a key in a list. If there are several hits the last one is returned.
-   * @param a array to search into
-   * @param e key to search for
-   * @return index of the found hit or where the key ought to be inserted
+   * Splits a tree at the specified position, which must be the start of a run.
+   * The resulting trees are assigned to {@link #splitLeft} and {@link #splitRight}.
+   * @param tree root of the tree
+   * @param pos position
    */
-  private int sortedLastIndexOf(final int[] a, final int e) {
-    int i = Arrays.binarySearch(a, 0, rows, e);
-    if(i >= 0) {
-      while(++i < rows && a[i] == e);
-      return i - 1;
+  private void split(final int tree, final int pos) {
+    if(tree == 0) {
+      splitLeft = 0;
+      splitRight = 0;
+      return;
     }
-    return i;
+    final int ls = sizes[lefts[tree]];
+    if(pos <= ls) {
+      split(lefts[tree], pos);
+      lefts[tree] = splitRight;
+      if(splitRight != 0) parents[splitRight] = tree;
+      splitRight = tree;
+    } else {
+      split(rights[tree], pos - ls - counts[tree]);
+      rights[tree] = splitLeft;
+      if(splitLeft != 0) parents[splitLeft] = tree;
+      splitLeft = tree;
+    }
+    update(tree);
+    parents[splitLeft] = 0;
+    parents[splitRight] = 0;
   }
 
   /**
-   * Adds a record to the table and the ID index.
-   * @param i index in the table where the record should be inserted
-   * @param pre pre value
-   * @param fid first ID value
-   * @param nid last ID value
-   * @param inc increment value
-   * @param oid original ID value
+   * Merges two trees.
+   * @param left root of the left tree
+   * @param right root of the right tree
+   * @return root of the merged tree
    */
-  private void add(final int i, final int pre, final int fid, final int nid,
-      final int inc, final int oid) {
-    if(rows == pres.length) {
-      final int s = Array.newCapacity(rows);
-      pres = Arrays.copyOf(pres, s);
-      fids = Arrays.copyOf(fids, s);
-      nids = Arrays.copyOf(nids, s);
-      incs = Arrays.copyOf(incs, s);
-      oids = Arrays.copyOf(oids, s);
+  private int merge(final int left, final int right) {
+    if(left == 0) return right;
+    if(right == 0) return left;
+    if(prios[left] > prios[right]) {
+      final int r = merge(rights[left], right);
+      rights[left] = r;
+      parents[r] = left;
+      update(left);
+      return left;
     }
-    if(i < rows) {
-      final int destPos = i + 1;
-      final int length = rows - i;
-      Array.copy(pres, i, length, pres, destPos);
-      Array.copy(fids, i, length, fids, destPos);
-      Array.copy(nids, i, length, nids, destPos);
-      Array.copy(incs, i, length, incs, destPos);
-      Array.copy(oids, i, length, oids, destPos);
-    }
-    pres[i] = pre;
-    fids[i] = fid;
-    nids[i] = nid;
-    incs[i] = inc;
-    oids[i] = oid;
-    ++rows;
+    final int l = merge(left, lefts[right]);
+    lefts[right] = l;
+    parents[l] = right;
+    update(right);
+    return right;
   }
 
   /**
-   * Removes a records from the table and the ID index.
-   * @param s start index of records in the table (inclusive)
-   * @param e end index of records in the table (inclusive)
+   * Updates the size of a subtree.
+   * @param node root of the subtree
    */
-  private void remove(final int s, final int e) {
-    if(s <= e) {
-      final int last = e + 1;
-      final int length = rows - last;
-      Array.copy(pres, last, length, pres, s);
-      Array.copy(fids, last, length, fids, s);
-      Array.copy(nids, last, length, nids, s);
-      Array.copy(incs, last, length, incs, s);
-      Array.copy(oids, last, length, oids, s);
-      rows -= last - s;
-    }
+  private void update(final int node) {
+    sizes[node] = sizes[lefts[node]] + sizes[rights[node]] + counts[node];
   }
 
   @Override
   public String toString() {
     final Table t = new Table();
-    t.header.add("PRE").add("FID").add("NID").add("INC").add("OID");
-    for(int i = 0; i < 5; ++i) t.align.add(true);
-    for(int i = 0; i < rows; i++) {
-      final TokenList tl = new TokenList();
-      tl.add(pres[i]).add(fids[i]).add(nids[i]).add(incs[i]).add(oids[i]);
-      t.contents.add(tl);
+    t.header.add("PRE").add("FID").add("COUNT");
+    for(int i = 0; i < 3; ++i) t.align.add(true);
+    final IntList stack = new IntList();
+    int pre = 0;
+    for(int n = root; n != 0 || !stack.isEmpty(); n = rights[n]) {
+      for(; n != 0; n = lefts[n]) stack.add(n);
+      n = stack.pop();
+      t.contents.add(new TokenList().add(pre).add(fids[n]).add(counts[n]));
+      pre += counts[n];
     }
-    return t + "\n- BaseID: " + baseid + '\n';
+    return t + "\n- Runs: " + ids.size() + '\n';
   }
 }
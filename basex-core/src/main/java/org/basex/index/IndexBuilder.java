@@ -23,12 +23,16 @@ public abstract class IndexBuilder extends Job {
 
   /** Data reference. */
   protected final Data data;
-  /** Total parsing value. */
+  /** First pre value to be indexed. */
+  protected final int start;
+  /** Total parsing value (pre value after the last value to be indexed). */
   protected final int size;
   /** Index type. */
   protected final IndexType type;
   /** Text node flag. */
   protected final boolean text;
+  /** Partition flag (only a part of the database will be indexed). */
+  protected final boolean partition;
 
   /** Number of index operations to perform before writing a partial index to disk. */
   private final int splitSize;
@@ -44,6 +48,8 @@ public abstract class IndexBuilder extends Job {
   protected long count;
   /** Number of partial index structures. */
   protected int splits;
+  /** Number of threads that can be used for building the index. */
+  protected int threads = 1;
   /** Threshold for freeing memory when estimating main memory consumption. */
   private int gcCount;
 
@@ -53,10 +59,23 @@ public abstract class IndexBuilder extends Job {
    * @param type index type
    */
   protected IndexBuilder(final Data data, final IndexType type) {
+    this(data, type, 0, data.meta.size);
+  }
+
+  /**
+   * Constructor for indexing a partition of the database.
+   * @param data reference
+   * @param type index type
+   * @param start first pre value to be indexed
+   * @param end pre value after the last value to be indexed
+   */
+  protected IndexBuilder(final Data data, final IndexType type, final int start, final int end) {
     this.data = data;
     this.type = type;
+    this.start = start;
     splitSize = (int) Math.min(Integer.MAX_VALUE, (long) data.meta.splitsize * splitFactor());
-    size = data.meta.size;
+    size = end;
+    partition = start > 0 || end < data.meta.size;
     includeNames = new IndexNames(type, data);
     text = type == IndexType.TEXT || type == IndexType.FULLTEXT;
 
@@ -106,7 +125,8 @@ public abstract class IndexBuilder extends Job {
       // stop operation if index splitting degenerates
       int gc = gcCount;
       if(split) {
-        if(gc >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
+        // partitions are built in parallel: memory is only released if all partitions are split
+        if(gc >= 0 && !partition) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
         gc = 30;
       } else {
         gc = Math.max(-1, gc - 1);
@@ -160,7 +180,11 @@ public abstract class IndexBuilder extends Job {
 
   @Override
   public final double progressInfo() {
-    return pre / (size + (splits > 0 ? size / 50.0d : 0.0d));
+    // return progress of partitions that are built in parallel
+    final Job job = active();
+    if(job != this) return job.progressInfo();
+    final double total = size - start;
+    return (pre - start) / (total + (splits > 0 ? total / 50.0d : 0.0d));
   }
 
   @Override
@@ -170,6 +194,8 @@ public abstract class IndexBuilder extends Job {
       case ATTRIBUTE: return INDEX_ATTRIBUTES_D;
       case TOKEN: return INDEX_TOKENS_D;
       case FULLTEXT: return INDEX_FULLTEXT_D;
+      case RANGE: return INDEX_RANGES_D;
+      case TRIGRAM: return INDEX_TRIGRAMS_D;
       default: throw Util.notExpected();
     }
   }
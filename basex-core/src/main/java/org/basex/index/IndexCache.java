@@ -2,48 +2,55 @@ package org.basex.index;
 
 import static org.basex.util.Token.*;
 
-import java.lang.ref.*;
-import java.util.concurrent.locks.*;
+import java.util.*;
+import java.util.Map.*;
 
+import org.basex.core.*;
 import org.basex.util.*;
 
 /**
  * This class caches sizes and offsets from index results.
  *
+ * The number of cached entries is bounded (see {@link StaticOptions#INDEXCACHE}). To reduce lock
+ * contention, the cache is split into segments, which are selected by the hash of the key and
+ * locked independently. Each segment evicts its least recently used entries.
+ *
  * @author BaseX Team 2005-21, BSD License
  * @author Dimitar Popov
  */
 public final class IndexCache {
-  /** Queue used to collect unused keys. */
-  private final ReferenceQueue<IndexEntry> queue = new ReferenceQueue<>();
-  /** Read-write lock. */
-  private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock(true);
-  /** Hash table buckets. */
-  private BucketEntry[] buckets = new BucketEntry[Array.INITIAL_CAPACITY];
-  /** Number of entries in the cache. */
-  private int size;
+  /** Number of segments (must be a power of two). */
+  private static final int SEGMENTS = 16;
+
+  /** Segments. */
+  private final Segment[] segments = new Segment[SEGMENTS];
+  /** Maximum number of cached entries. */
+  private final int capacity;
+
+  /**
+   * Constructor.
+   * @param capacity maximum number of cached entries ({@code 0}: disable caching)
+   */
+  public IndexCache(final int capacity) {
+    this.capacity = Math.max(0, capacity);
+    final int max = (this.capacity + SEGMENTS - 1) / SEGMENTS;
+    for(int s = 0; s < SEGMENTS; s++) segments[s] = new Segment(max);
+  }
 
   /**
    * Gets cached entry for the specified key.
    * @param key key
-   * @return cached entry or {@code null} if the entry is stale
+   * @return cached entry or {@code null} if the entry is not cached
    */
   public IndexEntry get(final byte[] key) {
-    final int hash = hash(key);
-    rwl.readLock().lock();
-
-    try {
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i];
-      while(e != null) {
-        final IndexEntry entry = e.get();
-        if(entry != null && e.hash == hash && eq(entry.key, key)) return entry;
-        e = e.next;
-      }
-    } finally {
-      rwl.readLock().unlock();
+    final Key k = new Key(key);
+    final Segment segment = segment(k);
+    synchronized(segment) {
+      final IndexEntry entry = segment.get(k);
+      if(entry != null) segment.hits++;
+      else segment.misses++;
+      return entry;
     }
-    return null;
   }
 
   /**
@@ -55,31 +62,18 @@ public final class IndexCache {
    * @return cache entry
    */
   public IndexEntry add(final byte[] key, final int count, final long offset) {
-    final int hash = hash(key);
-    rwl.writeLock().lock();
-
-    try {
-      purge();
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry current = buckets[i], prev = current;
-      while(current != null) {
-        final BucketEntry next = current.next;
-        final IndexEntry entry = current.get();
-        if(entry == null) {
-          delete(i, current, prev, next);
-        } else if(current.hash == hash && eq(entry.key, key)) {
-          update(entry, count, offset);
-          return entry;
-        }
-        prev = current;
-        current = next;
+    final Key k = new Key(key);
+    final Segment segment = segment(k);
+    synchronized(segment) {
+      IndexEntry entry = segment.get(k);
+      if(entry != null) {
+        entry.size = count;
+        entry.offset = offset;
+      } else {
+        entry = new IndexEntry(key, count, offset);
+        if(capacity != 0) segment.put(k, entry);
       }
-
-      final IndexEntry entry = new IndexEntry(key, count, offset);
-      add(i, hash, entry);
       return entry;
-    } finally {
-      rwl.writeLock().unlock();
     }
   }
 
@@ -88,143 +82,98 @@ public final class IndexCache {
    * @param key key
    */
   public void delete(final byte[] key) {
-    final int hash = hash(key);
-    rwl.writeLock().lock();
-
-    try {
-      purge();
-      final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i], prev = e;
-      while(e != null) {
-        final BucketEntry next = e.next;
-        final IndexEntry entry = e.get();
-        if(entry == null) {
-          delete(i, e, prev, next);
-        } else if(e.hash == hash && eq(entry.key, key)) {
-          delete(i, e, prev, next);
-          break;
-        }
-        prev = e;
-        e = next;
-      }
-    } finally {
-      rwl.writeLock().unlock();
+    final Key k = new Key(key);
+    final Segment segment = segment(k);
+    synchronized(segment) {
+      segment.remove(k);
     }
   }
 
   /**
-   * Purges stale entries from the cache.
+   * Returns information on the cache.
+   * @return info string
    */
-  private void purge() {
-    for(Object x; (x = queue.poll()) != null;) {
-      final BucketEntry e = (BucketEntry) x;
-      final int i = indexFor(e.hash, buckets.length);
-      BucketEntry prev = buckets[i], p = prev;
-      while(p != null) {
-        final BucketEntry next = p.next;
-        if(p == e) {
-          delete(i, e, prev, next);
-          break;
-        }
-        prev = p;
-        p = next;
+  public String info() {
+    long size = 0, hits = 0, misses = 0, evictions = 0;
+    for(final Segment segment : segments) {
+      synchronized(segment) {
+        size += segment.size();
+        hits += segment.hits;
+        misses += segment.misses;
+        evictions += segment.evictions;
       }
     }
+    return size + "/" + capacity + " entries, " + hits + " hits, " + misses + " misses, " +
+        evictions + " evictions";
   }
 
   /**
-   * Add a new index entry to the bucket with the specified index.
-   * @param i bucket index
-   * @param hash hash of the new index key
-   * @param entry index entry
+   * Returns the segment for the specified key.
+   * @param key key
+   * @return segment
    */
-  private void add(final int i, final int hash, final IndexEntry entry) {
-    buckets[i] = new BucketEntry(hash, buckets[i], entry, queue);
-    if(++size == buckets.length) rehash();
+  private Segment segment(final Key key) {
+    final int h = key.hash;
+    return segments[(h ^ h >>> 16) & SEGMENTS - 1];
   }
 
-  /**
-   * Update an existing index entry.
-   * @param entry index entry to update
-   * @param size new size
-   * @param offset new offset
-   */
-  private static void update(final IndexEntry entry, final int size, final long offset) {
-    entry.size = size;
-    entry.offset = offset;
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + info() + ']';
   }
 
-  /**
-   * Deletes a cached entry from the buckets with the specified index.
-   * @param i buckets index
-   * @param e cached entry to delete
-   * @param p previous cache entry
-   * @param n next cache entry
-   */
-  private void delete(final int i, final BucketEntry e, final BucketEntry p, final BucketEntry n) {
-    if(p == e) buckets[i] = n;
-    else p.next = n;
-    e.next = null;
-    --size;
-  }
+  /** Segment of the cache: entries in access order. */
+  private static final class Segment extends LinkedHashMap<Key, IndexEntry> {
+    /** Maximum number of entries. */
+    private final int max;
+    /** Number of cache hits. */
+    long hits;
+    /** Number of cache misses. */
+    long misses;
+    /** Number of evicted entries. */
+    long evictions;
 
-  /**
-   * Resizes the hash table.
-   */
-  private void rehash() {
-    purge();
-
-    final int newSize = size << 1;
-    final BucketEntry[] tmp = new BucketEntry[newSize];
-
-    final int l = buckets.length;
-    for(int i = 0; i < l; ++i) {
-      BucketEntry e = buckets[i];
-      buckets[i] = null;
-      while(e != null) {
-        final BucketEntry next = e.next;
-        final int p = indexFor(e.hash, tmp.length);
-        e.next = tmp[p];
-        tmp[p] = e;
-        e = next;
-      }
+    /**
+     * Constructor.
+     * @param max maximum number of entries
+     */
+    Segment(final int max) {
+      super(16, 0.75f, true);
+      this.max = max;
     }
-    buckets = tmp;
-  }
 
-  /**
-   * Returns buckets index for a hash code.
-   * @param h hash code
-   * @param n number of available buckets
-   * @return index of a buckets
-   */
-  private static int indexFor(final int h, final int n) {
-    return h & n - 1;
+    @Override
+    protected boolean removeEldestEntry(final Entry<Key, IndexEntry> eldest) {
+      if(size() <= max) return false;
+      evictions++;
+      return true;
+    }
   }
 
-  /**
-   * Cache buckets entry. Used to implement a linked list of cache entries for
-   * each buckets. It also stores the hash of the current entry for better
-   * performance.
-   */
-  private static class BucketEntry extends SoftReference<IndexEntry> {
-    /** Hash code of the stored cache entry key. */
-    final int hash;
-    /** Next buckets entry or {@code null} if the last one for this buckets. */
-    BucketEntry next;
+  /** Cache key. */
+  private static final class Key {
+    /** Token. */
+    private final byte[] token;
+    /** Hash code. */
+    private final int hash;
 
     /**
      * Constructor.
-     * @param h hash code of the cache entry key
-     * @param n next buckets entry or {@code null} if the last one
-     * @param v stored cache entry
-     * @param rq reference queue
+     * @param token token
      */
-    BucketEntry(final int h, final BucketEntry n, final IndexEntry v,
-        final ReferenceQueue<IndexEntry> rq) {
-      super(v, rq);
-      hash = h;
-      next = n;
+    Key(final byte[] token) {
+      this.token = token;
+      hash = hash(token);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof Key && eq(token, ((Key) obj).token);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
     }
   }
 }
@@ -28,7 +28,11 @@ public enum IndexType {
   /** Token index. */
   TOKEN,
   /** Full-text index. */
-  FULLTEXT;
+  FULLTEXT,
+  /** Range index. */
+  RANGE,
+  /** Trigram index. */
+  TRIGRAM;
 
   @Override
   public String toString() {
@@ -36,12 +40,14 @@ public enum IndexType {
   }
 
   /**
-   * Checks if the specified database has this index.
+   * Checks if the specified database has this index, and if it is available.
    * @param data data reference
    * @param ii input info
    * @throws QueryException query exception
    */
   public void check(final Data data, final InputInfo ii) throws QueryException {
-    if(!data.meta.index(this)) throw DB_NOINDEX_X_X.get(ii, data.meta.name, this);
+    if(!data.meta.index(this) || data.index(this) == null) {
+      throw DB_NOINDEX_X_X.get(ii, data.meta.name, this);
+    }
   }
 }
@@ -0,0 +1,115 @@
+package org.basex.index;
+
+import static org.basex.core.Text.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.jobs.*;
+import org.basex.index.value.*;
+
+/**
+ * This class runs several index builders in parallel. Progress information is computed from
+ * all builders, and state changes are passed on to all builders.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelBuilder extends Job {
+  /** Index builders. */
+  private final IndexBuilder[] builders;
+  /** Number of threads. */
+  private final int threads;
+
+  /**
+   * Constructor.
+   * @param threads number of threads (0: number of available processors)
+   * @param builders index builders
+   */
+  public ParallelBuilder(final int threads, final IndexBuilder... builders) {
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.builders = builders;
+    // distribute remaining threads among the builders
+    for(final IndexBuilder builder : builders) {
+      builder.threads = Math.max(1, this.threads / builders.length);
+    }
+  }
+
+  /**
+   * Runs all builders and returns the resulting index instances.
+   * @return index instances (entries will be {@code null} if builders return no index)
+   * @throws IOException I/O exception
+   */
+  public ValueIndex[] build() throws IOException {
+    final int bl = builders.length;
+    final ValueIndex[] indexes = new ValueIndex[bl];
+    try {
+      if(bl == 1 || threads == 1) {
+        for(int b = 0; b < bl; b++) indexes[b] = builders[b].build();
+      } else {
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, bl));
+        try {
+          final ArrayList<Future<ValueIndex>> futures = new ArrayList<>(bl);
+          for(final IndexBuilder builder : builders) futures.add(pool.submit(builder::build));
+          Throwable error = null;
+          for(int b = 0; b < bl; b++) {
+            try {
+              indexes[b] = futures.get(b).get();
+            } catch(final ExecutionException | InterruptedException ex) {
+              // stop remaining builders, remember first error
+              if(error == null) {
+                error = ex instanceof ExecutionException ? ex.getCause() : ex;
+                for(final IndexBuilder builder : builders) builder.stop();
+              }
+            }
+          }
+          if(error instanceof IOException) throw (IOException) error;
+          if(error instanceof RuntimeException) throw (RuntimeException) error;
+          if(error instanceof Error) throw (Error) error;
+          if(error != null) throw new IOException(error);
+        } finally {
+          pool.shutdown();
+        }
+      }
+      return indexes;
+    } catch(final Throwable th) {
+      // discard successfully built indexes
+      for(final ValueIndex index : indexes) {
+        if(index != null) {
+          index.close();
+          index.drop();
+        }
+      }
+      throw th;
+    }
+  }
+
+  @Override
+  public void state(final JobState js) {
+    for(final IndexBuilder builder : builders) builder.state(js);
+    super.state(js);
+  }
+
+  @Override
+  public String shortInfo() {
+    return CREATING_INDEXES;
+  }
+
+  @Override
+  public double progressInfo() {
+    double progress = 0;
+    for(final IndexBuilder builder : builders) progress += builder.progressInfo();
+    return progress / builders.length;
+  }
+
+  @Override
+  public String detailedInfo() {
+    // return specific information if all builders create the same index
+    final String info = builders[0].detailedInfo();
+    for(final IndexBuilder builder : builders) {
+      if(!builder.detailedInfo().equals(info)) return CREATING_INDEXES;
+    }
+    return info;
+  }
+}
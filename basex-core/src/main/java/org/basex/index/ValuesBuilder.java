@@ -18,7 +18,19 @@ public abstract class ValuesBuilder extends IndexBuilder {
    * @param type index type
    */
   protected ValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+    this(data, type, 0, data.meta.size);
+  }
+
+  /**
+   * Constructor for indexing a partition of the database.
+   * @param data reference
+   * @param type index type
+   * @param start first pre value to be indexed
+   * @param end pre value after the last value to be indexed
+   */
+  protected ValuesBuilder(final Data data, final IndexType type, final int start,
+      final int end) {
+    super(data, type, start, end);
     tokenize = type == IndexType.TOKEN;
   }
 }
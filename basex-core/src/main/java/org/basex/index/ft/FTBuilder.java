@@ -27,6 +27,10 @@ public final class FTBuilder extends IndexBuilder {
   private final FTLexer lexer;
   /** Number of indexed tokens. */
   private long ntok;
+  /** Number of indexed texts. */
+  private int texts;
+  /** Total length of indexed texts. */
+  private long length;
 
   /**
    * Constructor.
@@ -64,7 +68,10 @@ public final class FTBuilder extends IndexBuilder {
 
         // current lexer position
         final StopWords sw = lexer.ftOpt().sw;
-        lexer.init(data.text(pre, true));
+        final byte[] text = data.text(pre, true);
+        lexer.init(text);
+        texts++;
+        length += text.length;
         int pos = -1;
         while(lexer.hasNext()) {
           final byte[] token = lexer.nextToken();
@@ -84,6 +91,7 @@ public final class FTBuilder extends IndexBuilder {
 
       // finalize partial or all index structures
       write(splits > 0);
+      FTTrigrams.build(data);
 
       finishIndex();
       return new FTIndex(data);
@@ -151,14 +159,14 @@ public final class FTBuilder extends IndexBuilder {
   }
 
   /**
-   * Writes the token length index to disk.
+   * Writes the token length index and the text statistics to disk.
    * @param outX output
    * @param il token length and offsets
    * @param ls last token length
    * @param lp last offset
    * @throws IOException I/O exception
    */
-  private static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
+  private void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
       throws IOException {
 
     final int is = il.size();
@@ -169,6 +177,8 @@ public final class FTBuilder extends IndexBuilder {
     }
     outX.writeNum(ls);
     outX.write4(lp);
+    outX.writeNum(texts);
+    outX.write5(length);
   }
 
   /**
@@ -202,8 +212,12 @@ public final class FTBuilder extends IndexBuilder {
         outY.write5(dr);
         // write full-text data size (number of pre values)
         outY.write4(t.nextNumPre());
-        // write compressed pre and pos arrays
-        writeFTData(outZ, t.nextPres(), t.nextPoss());
+        // write compressed pre and pos arrays (final index: block-based postings)
+        if(partial) {
+          writeFTData(outZ, t.nextPres(), t.nextPoss());
+        } else {
+          FTPostings.write(outZ, ints(t.nextPres()), ints(t.nextPoss()));
+        }
 
         dr = outZ.size();
         tr = (int) outY.size();
@@ -227,30 +241,36 @@ public final class FTBuilder extends IndexBuilder {
   private static int merge(final DataOutput out, final IntList il, final FTList[] list)
       throws IOException {
 
-    final ByteList tbp = new ByteList().add(new byte[4]), tbo = new ByteList().add(new byte[4]);
+    final IntList pr = new IntList(), po = new IntList();
     // merge full-text data of all sorted lists with the same token
     int s = 0;
     final int is = il.size();
     for(int j = 0; j < is; ++j) {
       final int m = il.get(j);
-      for(final int p : list[m].prv) tbp.add(Num.num(p));
-      for(final int p : list[m].pov) tbo.add(Num.num(p));
+      pr.add(list[m].prv);
+      po.add(list[m].pov);
       s += list[m].size;
       list[m].next();
     }
-    // write compressed pre and pos arrays
-    final byte[] pr = tbp.finish();
-    Num.size(pr, pr.length);
-    final byte[] po = tbo.finish();
-    Num.size(po, po.length);
-
     // write full-text data
-    writeFTData(out, pr, po);
+    FTPostings.write(out, pr, po);
     return s;
   }
 
   /**
-   * Writes full-text data for a single token to disk.
+   * Decompresses the specified numbers.
+   * @param nums compressed numbers, preceded by their size
+   * @return numbers
+   */
+  private static IntList ints(final byte[] nums) {
+    final IntList list = new IntList();
+    final int ns = Num.size(nums);
+    for(int n = 4; n < ns; n += Num.length(nums, n)) list.add(Num.get(nums, n));
+    return list;
+  }
+
+  /**
+   * Writes full-text data for a single token to a temporary file.
    * Format: {@code score? pre1 pos1 pre2 pos2 ... (0 score)? pre...}
    * @param out DataOutput for disk access
    * @param vpre compressed pre values
@@ -36,6 +36,7 @@ import org.basex.util.similarity.*;
  * Structure: {@code [l, p] ...}.
  * {@code l} is the length of a token [byte].
  * {@code p} is the pointer of the first token with length {@code l} [int].
+ * The entries are followed by the number of indexed texts [num] and their total length [long].
  * </li>
  * <li>File <b>y</b> contains the tokens and references.
  * Structure: {@code [t0, t1, ... tl, z, s]}
@@ -43,17 +44,23 @@ import org.basex.util.similarity.*;
  * {@code z} is the pointer on the data entries of the token [long]
  * {@code s} is the number of pre values, saved in data [int]
  * </li>
- * <li>File <b>z</b> contains the {@code id/pos} references.
- *   The values are ordered, but not distinct:
- *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
+ * <li>File <b>g</b> contains a trigram index over all tokens, which is used to find candidates
+ *   for wildcard and fuzzy searches (see {@link FTTrigrams}).</li>
+ * <li>File <b>z</b> contains the {@code pre/pos} references of each token.
+ *   The values are ordered, but not distinct. They are stored in blocks with skip pointers
+ *   and preceded by the number of distinct pre values (see {@link FTPostings}).</li>
  * </ul>
  *
+ * <p>Lookups are synchronized. The postings are read block by block when the returned
+ * iterators are consumed: only the read operations of single blocks are synchronized,
+ * and iterators can skip blocks that do not contain requested pre values.</p>
+ *
  * @author BaseX Team 2005-21, BSD License
  * @author Christian Gruen
  */
 public final class FTIndex extends ValueIndex {
   /** Minimum fixed size for each token entry. */
-  private static final int ENTRY = 9;
+  static final int ENTRY = 9;
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
   private final IntObjMap<byte[]> ctext = new IntObjMap<>();
@@ -68,10 +75,16 @@ public final class FTIndex extends ValueIndex {
   /** Storing pre and pos values for each token. */
   private final DataAccess dataZ;
 
+  /** Trigram index for wildcard and fuzzy searches (can be {@code null}). */
+  private final FTTrigrams trigrams;
   /** Cache for number of hits and data reference per token. */
-  private final IndexCache cache = new IndexCache();
+  private final IndexCache cache;
   /** Token positions. */
   private final int[] positions;
+  /** Number of indexed texts. */
+  private final int texts;
+  /** Average length of indexed texts. */
+  private final double avg;
 
   /**
    * Constructor, initializing the index structure.
@@ -92,6 +105,14 @@ public final class FTIndex extends ValueIndex {
       positions[p] = dataX.read4();
     }
     positions[pl - 1] = (int) dataY.length();
+    // skip last token length and pointer, read text statistics
+    dataX.readNum();
+    dataX.read4();
+    texts = dataX.readNum();
+    final long length = dataX.read5();
+    avg = texts == 0 ? 0 : (double) length / texts;
+    trigrams = FTTrigrams.open(data);
+    cache = new IndexCache(data.meta.indexcache);
   }
 
   @Override
@@ -127,7 +148,7 @@ public final class FTIndex extends ValueIndex {
     // return cached or new result
     final IndexEntry entry = entry(token);
     if(entry.size > 0) {
-      return iter(entry.offset, entry.size, dataZ, token);
+      return iter(entry.offset, entry.size, token);
     }
 
     // no results
@@ -237,6 +258,7 @@ public final class FTIndex extends ValueIndex {
     final long l = dataX.length() + dataY.length() + dataZ.length();
     tb.add(LI_NAMES).add(data.meta.ftinclude).add(NL);
     tb.add(LI_SIZE).add(Performance.format(l)).add(NL);
+    tb.add(LI_CACHE).add(cache.info()).add(NL);
 
     final IndexStats stats = new IndexStats(options.get(MainOptions.MAXSTAT));
     addOccs(stats);
@@ -254,6 +276,7 @@ public final class FTIndex extends ValueIndex {
     dataX.close();
     dataY.close();
     dataZ.close();
+    if(trigrams != null) trigrams.close();
   }
 
   @Override
@@ -350,16 +373,28 @@ public final class FTIndex extends ValueIndex {
     final int tokl = token.length, pl = positions.length, e = Math.min(pl - 1, tokl + k);
     int s = Math.max(1, tokl - k) - 1;
     final ArrayList<FTIndexIterator> iters = new ArrayList<>();
-    while(++s <= e) {
-      int p = positions[s];
-      if(p == -1) continue;
-      int t = s + 1, r = -1;
-      while(t < pl && r == -1) r = positions[t++];
-      while(p < r) {
-        if(ls.similar(dataY.readBytes(p, s), token, k)) {
-          iters.add(iter(pointer(p, s), size(p, s), dataZ, token));
+
+    // find candidates via trigram index
+    final IntList candidates = trigrams != null && ascii(token) ? trigrams.fuzzy(token, k) : null;
+    if(candidates != null) {
+      for(final int p : candidates.finish()) {
+        final int tl = length(p);
+        if(tl > s && tl <= e && ls.similar(dataY.readBytes(p, tl), token, k)) {
+          iters.add(iter(pointer(p, tl), size(p, tl), token));
+        }
+      }
+    } else {
+      while(++s <= e) {
+        int p = positions[s];
+        if(p == -1) continue;
+        int t = s + 1, r = -1;
+        while(t < pl && r == -1) r = positions[t++];
+        while(p < r) {
+          if(ls.similar(dataY.readBytes(p, s), token, k)) {
+            iters.add(iter(pointer(p, s), size(p, s), token));
+          }
+          p += s + ENTRY;
         }
-        p += s + ENTRY;
       }
     }
     return iters.isEmpty() ? FTIndexIterator.FTEMPTY :
@@ -377,6 +412,19 @@ public final class FTIndex extends ValueIndex {
     final IntList pr = new IntList(), ps = new IntList();
     final byte[] prefix = wc.prefix();
     final int pl = positions.length, l = Math.min(pl - 1, wc.max(full));
+
+    // short prefix: find candidates via trigram index
+    final int[][] literals = wc.literals(3);
+    if(trigrams != null && literals.length != 0 && prefix.length < 3) {
+      for(final int p : trigrams.all(literals).finish()) {
+        final int tl = length(p);
+        if(tl > l) continue;
+        final byte[] t = dataY.readBytes(p, tl);
+        if(wc.match(t)) postings(pointer(p, tl), size(p, tl), pr, ps);
+      }
+      return iter(new FTCache(pr, ps), token);
+    }
+
     for(int p = prefix.length; p <= l; p++) {
       int start = positions[p];
       if(start == -1) continue;
@@ -387,14 +435,7 @@ public final class FTIndex extends ValueIndex {
       while(start < end) {
         final byte[] t = dataY.readBytes(start, p);
         if(!startsWith(t, prefix)) break;
-        if(wc.match(t)) {
-          dataZ.cursor(pointer(start, p));
-          final int s = size(start, p);
-          for(int d = 0; d < s; d++) {
-            pr.add(dataZ.readNum());
-            ps.add(dataZ.readNum());
-          }
-        }
+        if(wc.match(t)) postings(pointer(start, p), size(start, p), pr, ps);
         start += p + ENTRY;
       }
     }
@@ -402,22 +443,162 @@ public final class FTIndex extends ValueIndex {
   }
 
   /**
-   * Returns an iterator for an index entry.
+   * Returns the length of the token at the specified position.
+   * @param pos position of the token
+   * @return token length
+   */
+  private int length(final int pos) {
+    int l = positions.length - 1;
+    while(positions[--l] == -1 || positions[l] > pos);
+    return l;
+  }
+
+  /**
+   * Adds all postings of an index entry to the specified lists.
+   * @param off offset on entries
+   * @param size number of pre/pos entries
+   * @param pr pre values
+   * @param ps pos values
+   */
+  private void postings(final long off, final int size, final IntList pr, final IntList ps) {
+    final int nb = FTPostings.blocks(size), hs = FTPostings.header(size);
+    final int[] pres = new int[FTPostings.BLOCK], poss = new int[FTPostings.BLOCK];
+    for(int b = 0; b < nb; b++) {
+      final long skip = off + 4 + ((long) b << 3);
+      final int o = dataZ.read4(skip + 4), e = dataZ.read4(skip + (b + 1 < nb ? 12 : 8));
+      final int n = Math.min(FTPostings.BLOCK, size - b * FTPostings.BLOCK);
+      FTPostings.decode(dataZ.readBytes(off + hs + o, e - o), dataZ.read4(skip), n, pres, poss);
+      for(int i = 0; i < n; i++) {
+        pr.add(pres[i]);
+        ps.add(poss[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns an iterator for an index entry. The skip table is read immediately, and the blocks
+   * are read and decoded when they are requested.
    * @param off offset on entries
-   * @param size number of id/pos entries
-   * @param da data source
+   * @param size number of pre/pos entries
    * @param token index token
    * @return iterator
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
-    final IntList pr = new IntList(size), ps = new IntList(size);
-    for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+  private FTIndexIterator iter(final long off, final int size, final byte[] token) {
+    // read number of distinct pre values and skip table
+    final int nb = FTPostings.blocks(size), hs = FTPostings.header(size);
+    final int[] firsts = new int[nb], offsets = new int[nb + 1];
+    dataZ.cursor(off);
+    final double idf = Scoring.idf(dataZ.read4(), texts);
+    for(int b = 0; b < nb; b++) {
+      firsts[b] = dataZ.read4();
+      offsets[b] = dataZ.read4();
     }
-    return iter(new FTCache(pr, ps), token);
+    offsets[nb] = dataZ.read4();
+
+    return new FTIndexIterator() {
+      final FTMatches all = new FTMatches();
+      final int[] pres = new int[FTPostings.BLOCK], poss = new int[FTPostings.BLOCK];
+      int block = -1, entries, entry, pos, pre, tf;
+
+      @Override
+      public boolean more() {
+        if(!entry()) return false;
+        all.reset(pos);
+        pre = pres[entry];
+        all.or(poss[entry++]);
+        tf = 1;
+        while(entry() && pre == pres[entry]) {
+          all.or(poss[entry++]);
+          tf++;
+        }
+        return true;
+      }
+
+      @Override
+      public boolean more(final int target) {
+        // find last block with a smaller first pre value (values may span multiple blocks)
+        int l = block + 1, h = nb - 1;
+        while(l <= h) {
+          final int m = l + h >>> 1;
+          if(firsts[m] < target) l = m + 1;
+          else h = m - 1;
+        }
+        if(h > block) read(h);
+        while(entry() && pres[entry] < target) entry++;
+        return more();
+      }
+
+      /**
+       * Checks if another entry exists, and reads the next block if required.
+       * @return result of check
+       */
+      private boolean entry() {
+        if(entry < entries) return true;
+        if(block + 1 == nb) return false;
+        read(block + 1);
+        return true;
+      }
+
+      /**
+       * Reads and decodes a block.
+       * @param b block
+       */
+      private void read(final int b) {
+        final byte[] bytes;
+        synchronized(FTIndex.this) {
+          bytes = dataZ.readBytes(off + hs + offsets[b], offsets[b + 1] - offsets[b]);
+        }
+        block = b;
+        entries = Math.min(FTPostings.BLOCK, size - b * FTPostings.BLOCK);
+        entry = 0;
+        FTPostings.decode(bytes, firsts[b], entries, pres, poss);
+      }
+
+      @Override
+      public FTMatches matches() {
+        return all;
+      }
+
+      @Override
+      public int pre() {
+        return pre;
+      }
+
+      @Override
+      public void pos(final int p) {
+        pos = p;
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public int terms() {
+        return 1;
+      }
+
+      @Override
+      public double max() {
+        return idf;
+      }
+
+      @Override
+      public void weights(final DoubleList list) {
+        list.add(idf).add(tf);
+      }
+
+      @Override
+      public double avg() {
+        return avg;
+      }
+
+      @Override
+      public String toString() {
+        return Strings.concat(token, '(', size, "x)");
+      }
+    };
   }
 
   /**
@@ -426,12 +607,13 @@ public final class FTIndex extends ValueIndex {
    * @param token index token
    * @return iterator
    */
-  private static FTIndexIterator iter(final FTCache ftc, final byte[] token) {
+  private FTIndexIterator iter(final FTCache ftc, final byte[] token) {
     final int size = ftc.pre.size();
+    final double idf = Scoring.idf(ftc.distinct, texts);
 
     return new FTIndexIterator() {
       final FTMatches all = new FTMatches();
-      int pos, pre, c;
+      int pos, pre, c, tf;
 
       @Override
       public boolean more() {
@@ -439,8 +621,10 @@ public final class FTIndex extends ValueIndex {
         all.reset(pos);
         pre = ftc.pre.get(ftc.order[c]);
         all.or(ftc.pos.get(ftc.order[c++]));
+        tf = 1;
         while(c < size && pre == ftc.pre.get(ftc.order[c])) {
           all.or(ftc.pos.get(ftc.order[c++]));
+          tf++;
         }
         return true;
       }
@@ -465,6 +649,26 @@ public final class FTIndex extends ValueIndex {
         return size;
       }
 
+      @Override
+      public int terms() {
+        return 1;
+      }
+
+      @Override
+      public double max() {
+        return idf;
+      }
+
+      @Override
+      public void weights(final DoubleList list) {
+        list.add(idf).add(tf);
+      }
+
+      @Override
+      public double avg() {
+        return avg;
+      }
+
       @Override
       public String toString() {
         return Strings.concat(token, '(', size, "x)");
@@ -482,6 +686,8 @@ public final class FTIndex extends ValueIndex {
     private final IntList pre;
     /** Pos values. */
     private final IntList pos;
+    /** Number of distinct pre values. */
+    private int distinct;
 
     /**
      * Constructor.
@@ -495,6 +701,9 @@ public final class FTIndex extends ValueIndex {
       order = Array.createOrder(v, true);
       pre = pr;
       pos = ps;
+      for(int i = 0; i < s; i++) {
+        if(i == 0 || pr.get(order[i]) != pr.get(order[i - 1])) distinct++;
+      }
     }
   }
 
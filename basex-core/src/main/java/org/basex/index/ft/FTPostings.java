@@ -0,0 +1,175 @@
+package org.basex.index.ft;
+
+import java.io.*;
+
+import org.basex.io.out.DataOutput;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class compresses and decompresses the postings of a full-text index entry.</p>
+ *
+ * <p>The pre and pos values are stored in blocks of {@link #BLOCK} entries. The entries
+ * are preceded by the number of distinct pre values and a skip table, which allows iterators
+ * to jump over blocks that cannot contain a requested pre value.
+ * Structure: {@code d [p, o] ... e b ...}.</p>
+ * <ul>
+ *   <li>{@code d} is the number of distinct pre values (used for scoring) [int]</li>
+ *   <li>{@code p} is the first pre value of a block [int]</li>
+ *   <li>{@code o} is the offset of a block, relative to the first block [int]</li>
+ *   <li>{@code e} is the offset after the last block [int]</li>
+ *   <li>{@code b} is a block: the number of bits of the pre value gaps [byte],
+ *     the number of bits of the pos values [byte], and the bit-packed gaps and pos values.
+ *   </li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+final class FTPostings {
+  /** Maximum number of entries in a block (must be 1 << n). */
+  static final int BLOCK = 1 << 7;
+
+  /** Private constructor. */
+  private FTPostings() { }
+
+  /**
+   * Returns the number of blocks for the specified number of entries.
+   * @param size number of entries
+   * @return number of blocks
+   */
+  static int blocks(final int size) {
+    return size + BLOCK - 1 >>> 7;
+  }
+
+  /**
+   * Returns the size of the header (number of distinct pre values and skip table).
+   * @param size number of entries
+   * @return size in bytes
+   */
+  static int header(final int size) {
+    return (blocks(size) << 3) + 8;
+  }
+
+  /**
+   * Writes the postings of an index entry. Pre values must be sorted.
+   * @param out output stream
+   * @param pres pre values
+   * @param poss pos values
+   * @throws IOException I/O exception
+   */
+  static void write(final DataOutput out, final IntList pres, final IntList poss)
+      throws IOException {
+
+    final int size = pres.size(), nb = blocks(size);
+    final byte[][] blocks = new byte[nb][];
+    for(int b = 0; b < nb; b++) {
+      final int s = b * BLOCK, e = Math.min(s + BLOCK, size);
+      int bp = 0, bq = 0;
+      for(int i = s; i < e; i++) {
+        if(i > s) bp = Math.max(bp, bits(pres.get(i) - pres.get(i - 1)));
+        bq = Math.max(bq, bits(poss.get(i)));
+      }
+      final Packer packer = new Packer(2 + ((e - s - 1) * bp + (e - s) * bq + 7 >>> 3));
+      packer.bytes[0] = (byte) bp;
+      packer.bytes[1] = (byte) bq;
+      for(int i = s + 1; i < e; i++) packer.add(pres.get(i) - pres.get(i - 1), bp);
+      for(int i = s; i < e; i++) packer.add(poss.get(i), bq);
+      blocks[b] = packer.bytes;
+    }
+
+    // write number of distinct pre values, skip table and blocks
+    int distinct = 0;
+    for(int i = 0; i < size; i++) {
+      if(i == 0 || pres.get(i) != pres.get(i - 1)) distinct++;
+    }
+    out.write4(distinct);
+    int off = 0;
+    for(int b = 0; b < nb; b++) {
+      out.write4(pres.get(b * BLOCK));
+      out.write4(off);
+      off += blocks[b].length;
+    }
+    out.write4(off);
+    for(final byte[] block : blocks) out.write(block);
+  }
+
+  /**
+   * Decodes a block.
+   * @param block block
+   * @param first first pre value
+   * @param size number of entries
+   * @param pres array for pre values
+   * @param poss array for pos values
+   */
+  static void decode(final byte[] block, final int first, final int size, final int[] pres,
+      final int[] poss) {
+    final int bp = block[0], bq = block[1];
+    long pos = 16;
+    int pre = first;
+    pres[0] = pre;
+    for(int i = 1; i < size; i++) {
+      pre += get(block, pos, bp);
+      pres[i] = pre;
+      pos += bp;
+    }
+    for(int i = 0; i < size; i++) {
+      poss[i] = get(block, pos, bq);
+      pos += bq;
+    }
+  }
+
+  /**
+   * Returns the number of bits required to store a non-negative value.
+   * @param value value
+   * @return number of bits
+   */
+  private static int bits(final int value) {
+    return 32 - Integer.numberOfLeadingZeros(value);
+  }
+
+  /**
+   * Reads a bit-packed value.
+   * @param bytes bytes
+   * @param pos bit position
+   * @param bits number of bits
+   * @return value
+   */
+  private static int get(final byte[] bytes, final long pos, final int bits) {
+    if(bits == 0) return 0;
+    int b = (int) (pos >>> 3), sh = (int) (pos & 7);
+    long v = 0;
+    int read = 0;
+    while(read < bits + sh) {
+      v |= (long) (bytes[b++] & 0xFF) << read;
+      read += 8;
+    }
+    return (int) (v >>> sh & (1L << bits) - 1);
+  }
+
+  /** Bit packer. */
+  private static final class Packer {
+    /** Bytes. */
+    private final byte[] bytes;
+    /** Current bit position. */
+    private long pos = 16;
+
+    /**
+     * Constructor.
+     * @param size size in bytes
+     */
+    Packer(final int size) {
+      bytes = new byte[size];
+    }
+
+    /**
+     * Adds a value.
+     * @param value value
+     * @param bits number of bits
+     */
+    void add(final int value, final int bits) {
+      for(int i = 0; i < bits; i++, pos++) {
+        if((value >>> i & 1) != 0) bytes[(int) (pos >>> 3)] |= 1 << (pos & 7);
+      }
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package org.basex.index.ft;
+
+import static org.basex.data.DataText.*;
+import static org.basex.util.FTToken.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.trigram.*;
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class provides access to a trigram index over the tokens of the full-text index.
+ * It is used to find the candidates of wildcard and fuzzy searches without scanning all tokens.
+ * Trigrams are built from normalized codepoints (lower case, no diacritics), and the start and
+ * end of each token are marked with padding characters. Tokens are referenced by their offsets
+ * in the token file of the full-text index.</p>
+ *
+ * <p>File <b>g</b> has the following format: {@code n [k, s, o] ... r ...}</p>
+ * <ul>
+ *   <li>{@code n} is the number of trigrams [num]</li>
+ *   <li>{@code k} is the hashed key of a trigram [int], {@code s} is the number of tokens [int],
+ *     and {@code o} is the offset of the token references [long]</li>
+ *   <li>{@code r} are the token references, stored as differences [num]</li>
+ * </ul>
+ *
+ * <p>An additional list references all tokens with non-ASCII characters. These tokens are
+ * always considered as fuzzy candidates, as they may be compared differently.</p>
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+final class FTTrigrams {
+  /** Key of the tokens with non-ASCII characters. */
+  private static final int NONASCII = -1;
+  /** Padding character. */
+  private static final int PAD = 1;
+
+  /** Token references. */
+  private final DataAccess da;
+  /** Sorted trigram keys. */
+  private final int[] keys;
+  /** Number of tokens per trigram. */
+  private final int[] sizes;
+  /** Offsets of the token references. */
+  private final long[] offsets;
+  /** Offset of the first token reference. */
+  private final long base;
+
+  /**
+   * Constructor.
+   * @param file index file
+   * @throws IOException I/O exception
+   */
+  private FTTrigrams(final IOFile file) throws IOException {
+    da = new DataAccess(file);
+    final int n = da.readNum();
+    keys = new int[n];
+    sizes = new int[n];
+    offsets = new long[n];
+    for(int i = 0; i < n; i++) {
+      keys[i] = da.read4();
+      sizes[i] = da.read4();
+      offsets[i] = da.read5();
+    }
+    base = da.cursor();
+  }
+
+  /**
+   * Opens the trigram index of a database.
+   * @param data data reference
+   * @return index or {@code null} if it does not exist
+   * @throws IOException I/O exception
+   */
+  static FTTrigrams open(final Data data) throws IOException {
+    final IOFile file = data.meta.dbFile(DATAFTX + 'g');
+    return file.exists() ? new FTTrigrams(file) : null;
+  }
+
+  /**
+   * Builds the trigram index from the token files of the full-text index.
+   * @param data data reference
+   * @throws IOException I/O exception
+   */
+  static void build(final Data data) throws IOException {
+    final IntObjMap<IntList> map = new IntObjMap<>();
+    try(DataAccess dataX = new DataAccess(data.meta.dbFile(DATAFTX + 'x'));
+        DataAccess dataY = new DataAccess(data.meta.dbFile(DATAFTX + 'y'))) {
+      final IntList lengths = new IntList(), starts = new IntList();
+      for(int is = dataX.readNum(); --is >= 0;) {
+        lengths.add(dataX.readNum());
+        starts.add(dataX.read4());
+      }
+      starts.add((int) dataY.length());
+
+      final int ls = lengths.size();
+      for(int l = 0; l < ls; l++) {
+        final int tl = lengths.get(l), end = starts.get(l + 1);
+        for(int p = starts.get(l); p < end; p += tl + FTIndex.ENTRY) {
+          final byte[] token = dataY.readBytes(p, tl);
+          final IntSet set = keys(cps(token), true);
+          if(!ascii(token)) set.add(NONASCII);
+          final int sl = set.size();
+          for(int s = 1; s <= sl; s++) map.computeIfAbsent(set.key(s), IntList::new).add(p);
+        }
+      }
+    }
+
+    // write sorted keys and token references
+    final int n = map.size();
+    final int[] ks = new int[n];
+    for(int i = 0; i < n; i++) ks[i] = map.key(i + 1);
+    Arrays.sort(ks);
+    try(DataOutput out = new DataOutput(data.meta.dbFile(DATAFTX + 'g'))) {
+      out.writeNum(n);
+      long off = 0;
+      final byte[][] refs = new byte[n][];
+      for(int i = 0; i < n; i++) {
+        final IntList list = map.get(ks[i]);
+        final int size = list.size();
+        final ByteList bl = new ByteList();
+        int prev = 0;
+        for(final int p : list.finish()) {
+          bl.add(Num.num(p - prev));
+          prev = p;
+        }
+        refs[i] = bl.finish();
+        out.write4(ks[i]);
+        out.write4(size);
+        out.write5(off);
+        off += refs[i].length;
+      }
+      for(final byte[] ref : refs) out.write(ref);
+    }
+  }
+
+  /**
+   * Returns the offsets of all tokens that contain all trigrams of the specified codepoint
+   * sequences. Trigrams at the start and end of the tokens are ignored.
+   * @param seqs codepoint sequences (each sequence must have at least 3 codepoints)
+   * @return sorted token offsets
+   */
+  synchronized IntList all(final int[][] seqs) {
+    final IntSet set = new IntSet();
+    for(final int[] seq : seqs) {
+      final IntSet ks = keys(seq, false);
+      final int kl = ks.size();
+      for(int k = 1; k <= kl; k++) set.add(ks.key(k));
+    }
+    return count(set, set.size(), false);
+  }
+
+  /**
+   * Returns the offsets of all tokens that are candidates for a fuzzy search.
+   * @param token ASCII query token
+   * @param errors maximum number of errors
+   * @return sorted token offsets, or {@code null} if all tokens are candidates
+   */
+  synchronized IntList fuzzy(final byte[] token, final int errors) {
+    // each error (including transpositions) affects at most four trigrams
+    final IntSet set = keys(cps(token), true);
+    final int min = set.size() - 4 * Math.max(1, errors);
+    return min < 1 ? null : count(set, min, true);
+  }
+
+  /**
+   * Returns the offsets of all tokens that contain the minimum number of specified trigrams.
+   * @param set trigram keys
+   * @param min minimum number of trigrams
+   * @param nonascii include tokens with non-ASCII characters
+   * @return sorted token offsets
+   */
+  private IntList count(final IntSet set, final int min, final boolean nonascii) {
+    final IntList all = new IntList(), result = new IntList();
+    final int sl = set.size();
+    for(int s = 1; s <= sl; s++) {
+      final int key = set.key(s);
+      // a required trigram does not exist: no results
+      if(!refs(key, all) && min == sl) return result;
+    }
+    all.sort();
+    final int al = all.size();
+    for(int a = 0; a < al;) {
+      final int p = all.get(a);
+      int c = 0;
+      while(a < al && all.get(a) == p) {
+        a++;
+        c++;
+      }
+      if(c >= min) result.add(p);
+    }
+    if(!nonascii || !refs(NONASCII, result)) return result;
+
+    // merge tokens with non-ASCII characters
+    final int[] sorted = result.sort().finish();
+    final IntList merged = new IntList(sorted.length);
+    for(final int p : sorted) {
+      if(merged.isEmpty() || merged.peek() != p) merged.add(p);
+    }
+    return merged;
+  }
+
+  /**
+   * Adds the token references of a trigram.
+   * @param key trigram key
+   * @param list list to add the references to
+   * @return {@code true} if the trigram exists
+   */
+  private boolean refs(final int key, final IntList list) {
+    int l = 0, h = keys.length - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1, c = Integer.compare(keys[m], key);
+      if(c == 0) {
+        da.cursor(base + offsets[m]);
+        int p = 0;
+        for(int s = sizes[m]; s > 0; s--) {
+          p += da.readNum();
+          list.add(p);
+        }
+        return true;
+      }
+      if(c < 0) l = m + 1;
+      else h = m - 1;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the trigram keys of a codepoint sequence.
+   * @param cps codepoints
+   * @param pad add padding characters
+   * @return keys
+   */
+  private static IntSet keys(final int[] cps, final boolean pad) {
+    final IntList list = new IntList();
+    if(pad) list.add(PAD).add(PAD);
+    for(final int cp : cps) list.add(noDiacritics(lc(cp)));
+    if(pad) list.add(PAD).add(PAD);
+
+    final IntSet set = new IntSet();
+    final int ll = list.size();
+    for(int l = 2; l < ll; l++) set.add(key(list.get(l - 2), list.get(l - 1), list.get(l)));
+    return set;
+  }
+
+  /**
+   * Returns the key of a trigram.
+   * @param a first codepoint
+   * @param b second codepoint
+   * @param c third codepoint
+   * @return key
+   */
+  private static int key(final int a, final int b, final int c) {
+    return TrigramIndex.key(a, b, c);
+  }
+
+  /**
+   * Closes the index file.
+   */
+  synchronized void close() {
+    da.close();
+  }
+}
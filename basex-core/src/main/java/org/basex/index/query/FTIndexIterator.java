@@ -24,6 +24,60 @@ public abstract class FTIndexIterator implements IndexIterator {
     public void pos(final int p) { }
   };
 
+  /**
+   * Moves to the next entry with a pre value that is equal to or greater than the specified
+   * value. Overwritten by iterators that can skip entries without reading them.
+   * @param pre pre value
+   * @return result of check
+   */
+  public boolean more(final int pre) {
+    while(more()) {
+      if(pre() >= pre) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves to the next entry whose score may exceed the specified minimum score.
+   * Overwritten by iterators that can skip entries with lower scores.
+   * @param min minimum score (sum of the weighted term scores, see {@link #max()})
+   * @return {@code false} if no such entry exists
+   */
+  public boolean moreAbove(final double min) {
+    return (terms() == 0 || max() > min) && more();
+  }
+
+  /**
+   * Returns the number of query terms for which term statistics are available.
+   * @return number of terms ({@code 0} if entries cannot be scored with term statistics)
+   */
+  public int terms() {
+    return 0;
+  }
+
+  /**
+   * Returns an upper bound for the score of all entries (sum of the inverse document
+   * frequencies of all terms).
+   * @return maximum score
+   */
+  public double max() {
+    return 0;
+  }
+
+  /**
+   * Adds the inverse document frequencies and term frequencies of the current entry.
+   * @param list list of weights
+   */
+  public void weights(@SuppressWarnings("unused") final DoubleList list) { }
+
+  /**
+   * Returns the average length of the indexed texts.
+   * @return average length
+   */
+  public double avg() {
+    return 0;
+  }
+
   /**
    * Returns the next match.
    * @return next match (can be {@code null})
@@ -48,6 +102,41 @@ public abstract class FTIndexIterator implements IndexIterator {
 
       @Override
       public boolean more() {
+        advance();
+        return current();
+      }
+
+      @Override
+      public boolean moreAbove(final double min) {
+        if(terms() == 0) return more();
+        advance();
+        while(true) {
+          // sort iterators by their pre values; find first pre value that may exceed the score
+          final int[] order = order();
+          double sum = 0;
+          int pivot = -1;
+          for(final int i : order) {
+            sum += ir[i].max();
+            if(sum > min) {
+              pivot = ir[i].pre();
+              break;
+            }
+          }
+          if(pivot == -1) return false;
+          if(ir[order[0]].pre() == pivot) return current();
+
+          // skip entries that cannot exceed the score
+          for(final int i : order) {
+            if(ir[i].pre() >= pivot) break;
+            if(!ir[i].more(pivot)) ir[i] = null;
+          }
+        }
+      }
+
+      /**
+       * Initializes the iterators, or advances the iterators of the current entry.
+       */
+      private void advance() {
         final int il = iters.length;
         if(ir == null) {
           ir = new FTIndexIterator[il];
@@ -60,7 +149,16 @@ public abstract class FTIndexIterator implements IndexIterator {
             final int i = curr.get(c);
             if(!ir[i].more()) ir[i] = null;
           }
+          curr.reset();
         }
+      }
+
+      /**
+       * Assigns the iterators with the smallest pre value to the current entry.
+       * @return {@code true} if an entry was found
+       */
+      private boolean current() {
+        final int il = iters.length;
         int pre = Integer.MAX_VALUE;
         for(int i = 0; i < il; i++) {
           if(ir[i] == null) continue;
@@ -75,6 +173,24 @@ public abstract class FTIndexIterator implements IndexIterator {
         return pre < Integer.MAX_VALUE;
       }
 
+      /**
+       * Returns the indexes of the remaining iterators, sorted by their pre values.
+       * @return indexes
+       */
+      private int[] order() {
+        final IntList list = new IntList();
+        final int il = iters.length;
+        for(int i = 0; i < il; i++) {
+          if(ir[i] == null) continue;
+          final int p = ir[i].pre();
+          int l = list.size();
+          list.add(i);
+          for(; l > 0 && ir[list.get(l - 1)].pre() > p; l--) list.set(l, list.get(l - 1));
+          list.set(l, i);
+        }
+        return list.finish();
+      }
+
       @Override
       public FTMatches matches() {
         final FTMatches all = ir[curr.peek()].matches();
@@ -99,6 +215,35 @@ public abstract class FTIndexIterator implements IndexIterator {
         return c;
       }
 
+      @Override
+      public int terms() {
+        int t = 0;
+        for(final FTIndexIterator iter : iters) {
+          final int it = iter.terms();
+          if(it == 0) return 0;
+          t += it;
+        }
+        return t;
+      }
+
+      @Override
+      public double max() {
+        double m = 0;
+        for(final FTIndexIterator iter : iters) m += iter.max();
+        return m;
+      }
+
+      @Override
+      public void weights(final DoubleList list) {
+        final int cs = curr.size();
+        for(int c = 0; c < cs; c++) ir[curr.get(c)].weights(list);
+      }
+
+      @Override
+      public double avg() {
+        return iters[0].avg();
+      }
+
       @Override
       public String toString() {
         final StringBuilder sb = new StringBuilder().append('(');
@@ -129,8 +274,15 @@ public abstract class FTIndexIterator implements IndexIterator {
       public boolean more() {
         int d = 0;
         while(true) {
-          if(d <= 0) ii1 = i1.more() ? i1 : null;
-          if(d >= 0) ii2 = i2.more() ? i2 : null;
+          // advance both iterators, or skip entries of the iterator with the smaller pre value
+          if(d == 0) {
+            ii1 = i1.more() ? i1 : null;
+            ii2 = i2.more() ? i2 : null;
+          } else if(d < 0) {
+            ii1 = i1.more(ii2.pre()) ? i1 : null;
+          } else {
+            ii2 = i2.more(ii1.pre()) ? i2 : null;
+          }
           if(ii1 == null || ii2 == null) return false;
           d = ii1.pre() - ii2.pre();
           if(d != 0) continue;
@@ -168,6 +320,28 @@ public abstract class FTIndexIterator implements IndexIterator {
         return Math.min(i1.size(), i2.size());
       }
 
+      @Override
+      public int terms() {
+        final int t1 = i1.terms(), t2 = i2.terms();
+        return t1 == 0 || t2 == 0 ? 0 : t1 + t2;
+      }
+
+      @Override
+      public double max() {
+        return i1.max() + i2.max();
+      }
+
+      @Override
+      public void weights(final DoubleList list) {
+        i1.weights(list);
+        i2.weights(list);
+      }
+
+      @Override
+      public double avg() {
+        return i1.avg();
+      }
+
       @Override
       public String toString() {
         return "(" + i1 + " & " + i2 + ')';
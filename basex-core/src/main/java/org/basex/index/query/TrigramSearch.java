@@ -0,0 +1,75 @@
+package org.basex.index.query;
+
+import static org.basex.util.Token.*;
+
+import java.util.regex.*;
+
+import org.basex.index.*;
+import org.basex.util.*;
+
+/**
+ * This class stores a substring or regular expression search for accessing the trigram index.
+ * The index returns all nodes that contain the trigrams of the literal codepoint sequences,
+ * and the results are verified with the original search.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramSearch implements IndexSearch {
+  /** Text flag (element or attribute values). */
+  public final boolean text;
+  /** Codepoint sequences that occur in all results (each with at least three codepoints). */
+  public final int[][] literals;
+  /** Substring or regular expression. */
+  private final byte[] token;
+  /** Regular expression pattern ({@code null} for substring searches). */
+  private final Pattern pattern;
+
+  /**
+   * Constructor.
+   * @param text text flag
+   * @param token substring or regular expression
+   * @param pattern regular expression pattern ({@code null} for substring searches)
+   * @param literals codepoint sequences that occur in all results
+   */
+  public TrigramSearch(final boolean text, final byte[] token, final Pattern pattern,
+      final int[][] literals) {
+    this.text = text;
+    this.token = token;
+    this.pattern = pattern;
+    this.literals = literals;
+  }
+
+  /**
+   * Checks if the specified value is a result of this search.
+   * @param value value
+   * @return result of check
+   */
+  public boolean matches(final byte[] value) {
+    return pattern == null ? contains(value, token) : pattern.matcher(string(value)).find();
+  }
+
+  /**
+   * Indicates if this is a regular expression search.
+   * @return result of check
+   */
+  public boolean regex() {
+    return pattern != null;
+  }
+
+  @Override
+  public IndexType type() {
+    return IndexType.TRIGRAM;
+  }
+
+  @Override
+  public byte[] token() {
+    return token;
+  }
+
+  @Override
+  public String toString() {
+    final TokenBuilder tb = new TokenBuilder().add(text ? "text()" : "@*");
+    return tb.add(pattern == null ? " contains " : " matches ").add(token).toString();
+  }
+}
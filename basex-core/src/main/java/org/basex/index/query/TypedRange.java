@@ -0,0 +1,63 @@
+package org.basex.index.query;
+
+import org.basex.index.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * This class stores a typed range for accessing the range index. Bounds can be numbers, dates,
+ * dateTimes, or strings that will be compared lexically.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class TypedRange implements IndexSearch {
+  /** Text flag (element or attribute values). */
+  public final boolean text;
+  /** Local name of the element or attribute. */
+  public final byte[] name;
+  /** Minimum value (can be {@code null}). */
+  public final Item min;
+  /** Include minimum value. */
+  public final boolean mni;
+  /** Maximum value (can be {@code null}). */
+  public final Item max;
+  /** Include maximum value. */
+  public final boolean mxi;
+
+  /**
+   * Constructor.
+   * @param text text flag
+   * @param name local name of the element or attribute
+   * @param min minimum value (can be {@code null})
+   * @param mni include minimum value
+   * @param max maximum value (can be {@code null})
+   * @param mxi include maximum value
+   */
+  public TypedRange(final boolean text, final byte[] name, final Item min, final boolean mni,
+      final Item max, final boolean mxi) {
+    this.text = text;
+    this.name = name;
+    this.min = min;
+    this.mni = mni;
+    this.max = max;
+    this.mxi = mxi;
+  }
+
+  @Override
+  public IndexType type() {
+    return IndexType.RANGE;
+  }
+
+  @Override
+  public byte[] token() {
+    return Token.EMPTY;
+  }
+
+  @Override
+  public String toString() {
+    final TokenBuilder tb = new TokenBuilder().add(text ? "" : "@").add(name);
+    tb.add(mni ? '[' : '(').add(min == null ? "" : min.toString()).add(',');
+    return tb.add(max == null ? "" : max.toString()).add(mxi ? ']' : ')').toString();
+  }
+}
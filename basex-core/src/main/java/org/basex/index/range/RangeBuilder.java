@@ -0,0 +1,251 @@
+package org.basex.index.range;
+
+import static org.basex.data.DataText.*;
+import static org.basex.index.range.RangeIndex.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.io.out.DataOutput;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class builds a typed range index. The values of all included element and attribute
+ * names are parsed and cached in main memory. The values of names that cannot be converted to
+ * the same type are indexed as strings.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class RangeBuilder extends IndexBuilder {
+  /** Names of elements and attributes to include. */
+  private final IndexNames names;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  public RangeBuilder(final Data data) {
+    super(data, IndexType.RANGE);
+    names = new IndexNames(IndexType.RANGE, data);
+  }
+
+  @Override
+  public RangeIndex build() throws IOException {
+    final IntObjMap<Values> elems = new IntObjMap<>(), attrs = new IntObjMap<>();
+    for(pre = start; pre < size; ++pre) {
+      if((pre & 0x0FFF) == 0) check();
+      final int kind = data.kind(pre);
+      final boolean text = kind == Data.TEXT;
+      if(!text && kind != Data.ATTR) continue;
+
+      final int par = text ? data.parent(pre, kind) : pre;
+      if(text && data.kind(par) != Data.ELEM || !names.contains(pre, text)) continue;
+      final int id = data.nameId(par);
+      final IntObjMap<Values> map = text ? elems : attrs;
+      Values values = map.get(id);
+      if(values == null) {
+        values = new Values(data, text);
+        map.put(id, values);
+      }
+      values.add(pre);
+      count++;
+    }
+
+    try(DataOutput outD = new DataOutput(data.meta.dbFile(DATARNG + 'd'));
+        DataOutput outL = new DataOutput(data.meta.dbFile(DATARNG + 'l'))) {
+      outD.writeNum(valid(elems) + valid(attrs));
+      int entries = 0;
+      for(final boolean text : new boolean[] { true, false }) {
+        final IntObjMap<Values> map = text ? elems : attrs;
+        final int ml = map.size();
+        for(int m = 1; m <= ml; m++) {
+          final int id = map.key(m);
+          final Values values = map.get(id);
+          if(!values.valid()) continue;
+
+          outD.writeBool(text);
+          outD.writeToken((text ? data.elemNames : data.attrNames).key(id));
+          entries += values.write(outD, outL, entries);
+        }
+      }
+    }
+    finishIndex();
+    return new RangeIndex(data);
+  }
+
+  /**
+   * Returns the number of names with valid values.
+   * @param map values of names
+   * @return number of names
+   */
+  private static int valid(final IntObjMap<Values> map) {
+    int n = 0;
+    for(final Values values : map.values()) {
+      if(values.valid()) n++;
+    }
+    return n;
+  }
+
+  /** Cached values of a single name. */
+  private static final class Values {
+    /** Keys. */
+    private final LongList keys = new LongList();
+    /** Pre values. */
+    private final IntList pres = new IntList();
+    /** Pre values of NaN numbers (not included in {@link #pres}). */
+    private final IntList nans = new IntList();
+    /** Data reference. */
+    private final Data data;
+    /** Text flag. */
+    private final boolean text;
+    /** Value type ({@code 0}: not assigned yet). */
+    private byte type;
+    /** Indicates if the values have timezones. */
+    private boolean zoned;
+    /** Timezone of the first value. */
+    private short zone;
+    /** Shape of all values ({@code null} if values cannot be compared lexically). */
+    private byte[] template;
+
+    /**
+     * Constructor.
+     * @param data data reference
+     * @param text text flag
+     */
+    Values(final Data data, final boolean text) {
+      this.data = data;
+      this.text = text;
+    }
+
+    /**
+     * Adds a value.
+     * @param pre pre value
+     */
+    void add(final int pre) {
+      final byte[] value = data.text(pre, text);
+      if(type == STRING) {
+        keys.add(RangeIndex.key(value));
+        pres.add(pre);
+        return;
+      }
+
+      // choose type of the first value
+      final boolean first = type == 0;
+      if(first) {
+        type = parse(value, NUMBER) != null ? NUMBER : contains(value, 'T') ? DATETIME : DATE;
+      }
+      final Item item = parse(value, type);
+      if(item == null) {
+        strings(pre);
+        return;
+      }
+
+      final byte[] tmpl = template(value);
+      if(type == NUMBER) {
+        final double d = ((Dbl) item).dbl();
+        // NaN values will never be part of a range
+        if(Double.isNaN(d)) {
+          nans.add(pre);
+        } else {
+          keys.add(RangeIndex.key(d));
+          pres.add(pre);
+        }
+        if(first) template = lexical(tmpl) ? tmpl : null;
+      } else {
+        final ADate date = (ADate) item;
+        final Long key = RangeIndex.key(date);
+        if(key == null || !first && date.hasTz() != zoned) {
+          strings(pre);
+          return;
+        }
+        keys.add(key);
+        pres.add(pre);
+        if(first) {
+          zoned = date.hasTz();
+          zone = (short) date.tz();
+          template = tmpl;
+        }
+        // values with different timezones or with a 24:00:00 time cannot be compared lexically
+        if(template != null && (date.tz() != zone || tmpl.length != 0 && tmpl[0] == '-' ||
+            type == DATETIME && contains(value, token("T24")))) template = null;
+      }
+      if(template != null && !eq(template, tmpl)) template = null;
+    }
+
+    /**
+     * Checks if the shape of a number allows lexical comparisons.
+     * @param tmpl template
+     * @return result of check
+     */
+    private static boolean lexical(final byte[] tmpl) {
+      if(tmpl.length == 0 || tmpl.length > MAXDIGITS) return false;
+      for(final byte t : tmpl) {
+        if(t != '0' && t != '.') return false;
+      }
+      return true;
+    }
+
+    /**
+     * Indexes all values as strings.
+     * @param pre pre value of the value that could not be converted
+     */
+    private void strings(final int pre) {
+      final int[] ps = pres.add(nans.toArray()).add(pre).toArray();
+      type = STRING;
+      template = null;
+      keys.reset();
+      pres.reset();
+      for(final int p : ps) {
+        keys.add(RangeIndex.key(data.text(p, text)));
+        pres.add(p);
+      }
+    }
+
+    /**
+     * Checks if the values can be indexed.
+     * @return result of check
+     */
+    boolean valid() {
+      return type > 0 && !pres.isEmpty();
+    }
+
+    /**
+     * Writes the values.
+     * @param outD directory output
+     * @param outL entry output
+     * @param offset position of the first entry
+     * @return number of written entries
+     * @throws IOException I/O exception
+     */
+    int write(final DataOutput outD, final DataOutput outL, final int offset)
+        throws IOException {
+      final long[] ks = keys.finish();
+      pres.sort(ks, true);
+      final int[] ps = pres.finish();
+      final int size = ps.length;
+
+      final LongList sparse = new LongList();
+      for(int s = 0; s < size; s++) {
+        final long key = ks[s];
+        outL.write4((int) (key >>> 32));
+        outL.write4((int) key);
+        outL.write4(ps[s]);
+        if((s & SPARSE - 1) == 0) sparse.add(key);
+      }
+      outD.write1(type);
+      outD.writeBool(zoned);
+      outD.writeNum(zone & 0xFFFF);
+      outD.writeToken(template != null ? template : EMPTY);
+      outD.writeNum(offset);
+      outD.writeNum(size);
+      outD.writeLongs(sparse.finish());
+      return size;
+    }
+  }
+}
@@ -0,0 +1,479 @@
+package org.basex.index.range;
+
+import static org.basex.core.Text.*;
+import static org.basex.data.DataText.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.math.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.index.stats.*;
+import org.basex.index.value.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.random.*;
+import org.basex.query.*;
+import org.basex.query.util.index.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class provides access to a typed range index. For each element and attribute name
+ * whose values can all be cast to the same type (numbers, dates or dateTimes), the values are
+ * stored in their native sort order, along with the pre values of the text and attribute
+ * nodes. The values of all other names, including names whose values have mixed types or mixed
+ * timezone presence, are stored as strings and can be used for equality lookups. As the entries
+ * are grouped by names, the index serves as composite index on names and values. The index is
+ * not updatable: it is invalidated by updates and rebuilt by OPTIMIZE.</p>
+ *
+ * <p>The index files start with the prefix {@link DataText#DATARNG} and have the following
+ * format:</p>
+ * <ul>
+ * <li>File <b>d</b> contains the directory: for each indexed name, the text flag, the name,
+ *   the type of the values, timezone and lexical information, the position and number of
+ *   the entries, and every {@link #SPARSE}th key of the entries. The directory is kept in
+ *   main memory.</li>
+ * <li>File <b>l</b> contains the entries of all names, each sorted by keys:
+ *   {@code [k, p] ...}. {@code k} is the sortable key [long], and {@code p} is the pre value
+ *   of the text or attribute node [int].</li>
+ * </ul>
+ * <p>A lookup locates the relevant block of entries via the directory keys, and finds the
+ * first and last entry in this block with a binary search. The key of a string consists of its
+ * first {@link #STRKEY} bytes. Strings of this length or longer can share the same key, so the
+ * results of lookups with such strings are verified.</p>
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class RangeIndex extends ValueIndex {
+  /** Number of entries addressed by a directory key (must be 1 << n). */
+  static final int SPARSE = 1 << 8;
+  /** Size of an entry. */
+  static final int ENTRY = 12;
+  /** Value type: numbers. */
+  static final byte NUMBER = 1;
+  /** Value type: dates. */
+  static final byte DATE = 2;
+  /** Value type: dateTimes. */
+  static final byte DATETIME = 3;
+  /** Value type: strings. */
+  static final byte STRING = 4;
+  /** Number of bytes of a string that are stored in a key. */
+  static final int STRKEY = 8;
+  /** Maximum length of numbers that can be compared lexically. */
+  static final int MAXDIGITS = 15;
+
+  /** Directory entries of element names. */
+  private final TokenObjMap<Range> elems = new TokenObjMap<>();
+  /** Directory entries of attribute names. */
+  private final TokenObjMap<Range> attrs = new TokenObjMap<>();
+  /** Entries. */
+  private final DataAccess entries;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @throws IOException I/O Exception
+   */
+  public RangeIndex(final Data data) throws IOException {
+    super(data, IndexType.RANGE);
+    try(DataInput in = new DataInput(data.meta.dbFile(DATARNG + 'd'))) {
+      for(int n = in.readNum(); n > 0; n--) {
+        final boolean text = in.readBool();
+        final byte[] name = in.readToken();
+        final Range range = new Range((byte) in.read(), in.readBool());
+        range.zone = (short) in.readNum();
+        final byte[] template = in.readToken();
+        range.template = template.length == 0 ? null : template;
+        range.offset = in.readNum();
+        range.size = in.readNum();
+        range.keys = in.readLongs(in.readNum());
+        (text ? elems : attrs).put(name, range);
+      }
+    }
+    entries = new DataAccess(data.meta.dbFile(DATARNG + 'l'));
+  }
+
+  @Override
+  public synchronized byte[] info(final MainOptions options) {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(LI_STRUCTURE).add(SORTED_LIST).add(NL);
+    tb.add(LI_NAMES).add(data.meta.rangeinclude).add(NL);
+    tb.add(LI_SIZE).add(Performance.format(entries.length())).add(NL);
+    final IndexStats stats = new IndexStats(options.get(MainOptions.MAXSTAT));
+    for(final boolean text : new boolean[] { true, false }) {
+      final TokenObjMap<Range> map = text ? elems : attrs;
+      for(final byte[] name : map) {
+        final Range range = map.get(name);
+        if(stats.adding(range.size)) {
+          final TokenBuilder key = new TokenBuilder().add(text ? "" : "@").add(name);
+          stats.add(key.add(" (").add(range.typeName()).add(')').finish(), range.size);
+        }
+      }
+    }
+    stats.print(tb);
+    return tb.finish();
+  }
+
+  @Override
+  public synchronized IndexIterator iter(final IndexSearch search) {
+    final TypedRange tr = (TypedRange) search;
+    final int[] bounds = bounds(tr);
+    if(bounds == null || bounds[0] == bounds[1]) return IndexIterator.EMPTY;
+
+    // verify results if strings may share the same key
+    final Range range = (tr.text ? elems : attrs).get(tr.name);
+    final byte[] verify = range.type == STRING ? string(tr) : null;
+    final IntList pres = new IntList(bounds[1] - bounds[0]);
+    for(long e = bounds[0]; e < bounds[1]; e++) {
+      final int pre = entries.read4(e * ENTRY + 8);
+      if(verify == null || verify.length < STRKEY || eq(data.text(pre, tr.text), verify)) {
+        pres.add(pre);
+      }
+    }
+    final int[] sorted = pres.sort().finish();
+    return new IndexIterator() {
+      int p = -1;
+
+      @Override
+      public boolean more() {
+        return ++p < sorted.length;
+      }
+
+      @Override
+      public int pre() {
+        return sorted[p];
+      }
+
+      @Override
+      public int size() {
+        return sorted.length;
+      }
+    };
+  }
+
+  @Override
+  public synchronized IndexCosts costs(final IndexSearch search) {
+    final int[] bounds = bounds((TypedRange) search);
+    return bounds == null ? null : IndexCosts.get(bounds[1] - bounds[0]);
+  }
+
+  @Override
+  public synchronized EntryIterator entries(final IndexEntries ie) {
+    // count distinct values of all names
+    final TokenIntMap map = new TokenIntMap();
+    for(final boolean text : new boolean[] { true, false }) {
+      for(final Range range : (text ? elems : attrs).values()) {
+        for(long e = range.offset, end = e + range.size; e < end; e++) {
+          final byte[] value = data.text(entries.read4(e * ENTRY + 8), text);
+          map.put(value, Math.max(0, map.get(value)) + 1);
+        }
+      }
+    }
+
+    // choose values with the specified prefix, or values from the specified start token
+    final byte[] token = ie.token();
+    final TokenList list = new TokenList();
+    for(final byte[] value : map) {
+      if(token.length == 0 || (ie.prefix ? startsWith(value, token) :
+        ie.descending ? diff(value, token) < 0 : diff(value, token) >= 0)) list.add(value);
+    }
+    final byte[][] values = list.sort(true, ie.prefix || !ie.descending).finish();
+    final int size = values.length;
+
+    return new EntryIterator() {
+      int c = -1;
+
+      @Override
+      public byte[] next() {
+        return ++c < size ? values[c] : null;
+      }
+
+      @Override
+      public byte[] get(final int i) {
+        c = i;
+        return values[c];
+      }
+
+      @Override
+      public int count() {
+        return map.get(values[c]);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for(final Range range : elems.values()) size += range.size;
+    for(final Range range : attrs.values()) size += range.size;
+    return size;
+  }
+
+  @Override
+  public boolean drop() {
+    return data.meta.drop(DATARNG + '.');
+  }
+
+  @Override
+  public synchronized void close() {
+    entries.close();
+  }
+
+  @Override
+  public void add(final ValueCache values) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void delete(final ValueCache values) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void flush() { }
+
+  /**
+   * Returns the absolute positions of the first entry and the entry after the last entry that
+   * are in the specified range.
+   * @param search typed range
+   * @return positions, or {@code null} if the index cannot be used for the specified range
+   */
+  private int[] bounds(final TypedRange search) {
+    final Range range = (search.text ? elems : attrs).get(search.name);
+    if(range == null) return null;
+
+    // strings: only equality lookups are supported
+    if(range.type == STRING) {
+      final byte[] value = string(search);
+      if(value == null) return null;
+      final long key = key(value);
+      final int first = first(range, key);
+      final int last = key == Long.MAX_VALUE ? range.size : first(range, key + 1);
+      return new int[] { range.offset + first, range.offset + last };
+    }
+
+    final Long min = search.min == null ? Long.valueOf(Long.MIN_VALUE) :
+      key(search.min, range, true, search.mni);
+    final Long max = search.max == null ? Long.valueOf(Long.MAX_VALUE) :
+      key(search.max, range, false, search.mxi);
+    if(min == null || max == null) return null;
+
+    final int first = first(range, min);
+    final int last = max == Long.MAX_VALUE ? range.size : Math.max(first, first(range, max + 1));
+    return new int[] { range.offset + first, range.offset + last };
+  }
+
+  /**
+   * Returns the string of an equality lookup.
+   * @param search typed range
+   * @return string, or {@code null} if the range is no equality lookup with a string
+   */
+  private static byte[] string(final TypedRange search) {
+    final Item min = search.min, max = search.max;
+    if(min == null || max == null || !search.mni || !search.mxi ||
+      !min.type.isStringOrUntyped() || !max.type.isStringOrUntyped()) return null;
+    try {
+      final byte[] value = min.string(null);
+      return eq(value, max.string(null)) ? value : null;
+    } catch(final QueryException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  /**
+   * Returns the position of the first entry of a name that is equal to or greater than the
+   * specified key.
+   * @param range directory entry of the name
+   * @param key key
+   * @return position (relative to the first entry of the name)
+   */
+  private int first(final Range range, final long key) {
+    // find first block whose first key is not smaller than the key
+    final long[] keys = range.keys;
+    int l = 0, h = keys.length - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(keys[m] < key) l = m + 1;
+      else h = m - 1;
+    }
+    if(l == 0) return 0;
+
+    // binary search in the preceding block
+    int lo = (l - 1) * SPARSE + 1, hi = Math.min(l * SPARSE, range.size) - 1;
+    while(lo <= hi) {
+      final int m = lo + hi >>> 1;
+      if(key(range.offset + m) < key) lo = m + 1;
+      else hi = m - 1;
+    }
+    return lo;
+  }
+
+  /**
+   * Returns the key of the specified entry.
+   * @param entry absolute entry position
+   * @return key
+   */
+  private long key(final long entry) {
+    final long pos = entry * ENTRY;
+    return (long) entries.read4(pos) << 32 | entries.read4(pos + 4) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Returns the inclusive key for a range boundary.
+   * @param item boundary item
+   * @param range directory entry of the name
+   * @param min minimum or maximum boundary
+   * @param incl include boundary
+   * @return key, or {@code null} if the index cannot be used for the specified item
+   */
+  private static Long key(final Item item, final Range range, final boolean min,
+      final boolean incl) {
+    try {
+      Item it = item;
+      if(item.type.isStringOrUntyped()) {
+        // strings can only be compared if they have the same shape as all indexed values
+        final byte[] value = item.string(null);
+        if(range.template == null || !eq(template(value), range.template)) return null;
+        it = parse(value, range.type);
+        if(it == null || range.type == DATETIME && contains(value, token("T24"))) return null;
+        if(range.type != NUMBER && ((ADate) it).tz() != range.zone) return null;
+      }
+
+      final long key;
+      boolean exact = true;
+      if(range.type == NUMBER) {
+        if(!(it instanceof ANum)) return null;
+        final double d = it.dbl(null);
+        if(Double.isNaN(d)) return null;
+        key = key(d);
+      } else {
+        final Type type = range.type == DATE ? AtomType.DATE : AtomType.DATE_TIME;
+        if(!it.type.instanceOf(type) || ((ADate) it).hasTz() != range.zoned) return null;
+        final BigDecimal micros = ((ADate) it).epochSeconds().movePointRight(6);
+        BigDecimal bd = micros.setScale(0, min ? RoundingMode.CEILING : RoundingMode.FLOOR);
+        exact = bd.compareTo(micros) == 0;
+        bd = bd.max(BigDecimal.valueOf(Long.MIN_VALUE)).min(BigDecimal.valueOf(Long.MAX_VALUE));
+        key = bd.longValue();
+      }
+      // convert exclusive to inclusive boundary
+      if(incl || !exact) return key;
+      return min ? key == Long.MAX_VALUE ? key : key + 1 : key == Long.MIN_VALUE ? key : key - 1;
+    } catch(final QueryException ex) {
+      Util.debug(ex);
+      return null;
+    }
+  }
+
+  /**
+   * Returns a sortable key for the specified double.
+   * @param d double value
+   * @return key
+   */
+  static long key(final double d) {
+    // treat negative zero as positive zero
+    final long bits = Double.doubleToLongBits(d == 0 ? 0 : d);
+    return bits >= 0 ? bits : bits ^ Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns a sortable key for the specified string.
+   * @param value string
+   * @return key
+   */
+  static long key(final byte[] value) {
+    long key = 0;
+    for(int v = 0; v < STRKEY; v++) key = key << 8 | (v < value.length ? value[v] & 0xFF : 0);
+    return key ^ Long.MIN_VALUE;
+  }
+
+  /**
+   * Returns a key for the specified date.
+   * @param date date
+   * @return key, or {@code null} if the date is out of range or too precise
+   */
+  static Long key(final ADate date) {
+    try {
+      return date.epochSeconds().movePointRight(6).longValueExact();
+    } catch(final ArithmeticException ex) {
+      Util.debug(ex);
+      return null;
+    }
+  }
+
+  /**
+   * Parses a value.
+   * @param value value
+   * @param type value type
+   * @return item, or {@code null} if the value cannot be converted to the specified type
+   */
+  static Item parse(final byte[] value, final byte type) {
+    try {
+      return type == NUMBER ? Dbl.get(Dbl.parse(value, null)) :
+        type == DATE ? new Dat(value, null) : new Dtm(value, null);
+    } catch(final QueryException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the shape of a value. All digits are replaced with zeros.
+   * @param value value
+   * @return template
+   */
+  static byte[] template(final byte[] value) {
+    final byte[] template = value.clone();
+    for(int t = 0; t < template.length; t++) {
+      if(digit(template[t])) template[t] = '0';
+    }
+    return template;
+  }
+
+  /** Directory entry of an indexed name. */
+  static final class Range {
+    /** Value type. */
+    final byte type;
+    /** Indicates if the values have timezones. */
+    final boolean zoned;
+    /** Timezone of all values (only relevant if values can be compared lexically). */
+    short zone;
+    /** Shape of all values ({@code null} if values cannot be compared lexically). */
+    byte[] template;
+    /** Position of the first entry. */
+    int offset;
+    /** Number of entries. */
+    int size;
+    /** Every {@link #SPARSE}th key. */
+    long[] keys;
+
+    /**
+     * Constructor.
+     * @param type value type
+     * @param zoned values have timezones
+     */
+    Range(final byte type, final boolean zoned) {
+      this.type = type;
+      this.zoned = zoned;
+    }
+
+    /**
+     * Returns the name of the value type.
+     * @return name
+     */
+    String typeName() {
+      return (type == NUMBER ? AtomType.DOUBLE : type == DATE ? AtomType.DATE :
+        type == DATETIME ? AtomType.DATE_TIME : AtomType.STRING).toString();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package org.basex.index.trigram;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class builds a trigram index. The trigrams of all included text and attribute values
+ * are cached in main memory, along with the pre values of the nodes.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramBuilder extends IndexBuilder {
+  /** Names of elements and attributes to include. */
+  private final IndexNames names;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  public TrigramBuilder(final Data data) {
+    super(data, IndexType.TRIGRAM);
+    names = new IndexNames(IndexType.TRIGRAM, data);
+  }
+
+  @Override
+  public TrigramIndex build() throws IOException {
+    final IntObjMap<IntList> texts = new IntObjMap<>(), attrs = new IntObjMap<>();
+    for(pre = start; pre < size; ++pre) {
+      if((pre & 0x0FFF) == 0) check();
+      final int kind = data.kind(pre);
+      final boolean text = kind == Data.TEXT;
+      if(!text && kind != Data.ATTR || !names.contains(pre, text)) continue;
+
+      final IntObjMap<IntList> map = text ? texts : attrs;
+      for(final int key : TrigramIndex.keys(data.text(pre, text)).toArray()) {
+        map.computeIfAbsent(key, IntList::new).add(pre);
+      }
+      count++;
+    }
+
+    try(DataOutput outD = new DataOutput(data.meta.dbFile(DATATRI + 'd'));
+        DataOutput outL = new DataOutput(data.meta.dbFile(DATATRI + 'l'))) {
+      write(texts, outD, outL);
+      write(attrs, outD, outL);
+    }
+    finishIndex();
+    return new TrigramIndex(data);
+  }
+
+  /**
+   * Writes the directory and the pre values of text or attribute trigrams.
+   * @param map pre values of trigrams
+   * @param outD directory output
+   * @param outL pre value output
+   * @throws IOException I/O exception
+   */
+  private static void write(final IntObjMap<IntList> map, final DataOutput outD,
+      final DataOutput outL) throws IOException {
+
+    final int n = map.size();
+    final int[] keys = new int[n], sizes = new int[n];
+    final long[] offsets = new long[n];
+    for(int i = 0; i < n; i++) keys[i] = map.key(i + 1);
+    Arrays.sort(keys);
+    for(int i = 0; i < n; i++) {
+      final IntList pres = map.get(keys[i]);
+      sizes[i] = pres.size();
+      offsets[i] = outL.size();
+      int prev = 0;
+      for(final int pre : pres.finish()) {
+        outL.writeNum(pre - prev);
+        prev = pre;
+      }
+    }
+    outD.writeNums(keys);
+    outD.writeNums(sizes);
+    outD.writeLongs(offsets);
+  }
+}
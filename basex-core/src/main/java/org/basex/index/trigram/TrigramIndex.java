@@ -0,0 +1,292 @@
+package org.basex.index.trigram;
+
+import static org.basex.core.Text.*;
+import static org.basex.data.DataText.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.index.value.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.random.*;
+import org.basex.query.util.index.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class provides access to a trigram index. For each trigram (sequence of three
+ * codepoints) of the included text and attribute values, the pre values of the nodes are
+ * stored. The index is used to find candidates for substring and regular expression searches:
+ * the pre values of all trigrams of the searched literals are intersected, and the values of
+ * the remaining nodes are verified. The index is not updatable: it is invalidated by updates
+ * and rebuilt by OPTIMIZE.</p>
+ *
+ * <p>The index files start with the prefix {@link DataText#DATATRI} and have the following
+ * format:</p>
+ * <ul>
+ * <li>File <b>d</b> contains the directories of the text and attribute trigrams: the sorted
+ *   keys of the trigrams [nums], the number of pre values [nums], and the offsets to the pre
+ *   values [longs]. The directories are kept in main memory.</li>
+ * <li>File <b>l</b> contains the sorted pre values of all trigrams, stored as differences
+ *   [nums].</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramIndex extends ValueIndex {
+  /** Directory of text trigrams. */
+  private final Directory texts;
+  /** Directory of attribute trigrams. */
+  private final Directory attrs;
+  /** Pre values. */
+  private final DataAccess pres;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @throws IOException I/O Exception
+   */
+  public TrigramIndex(final Data data) throws IOException {
+    super(data, IndexType.TRIGRAM);
+    try(DataInput in = new DataInput(data.meta.dbFile(DATATRI + 'd'))) {
+      texts = new Directory(in);
+      attrs = new Directory(in);
+    }
+    pres = new DataAccess(data.meta.dbFile(DATATRI + 'l'));
+  }
+
+  @Override
+  public synchronized byte[] info(final MainOptions options) {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(LI_STRUCTURE).add(SORTED_LIST).add(NL);
+    tb.add(LI_NAMES).add(data.meta.trigraminclude).add(NL);
+    tb.add(LI_SIZE).add(Performance.format(pres.length())).add(NL);
+    tb.add(LI_ENTRIES).add(texts.keys.length + attrs.keys.length).add(NL);
+    return tb.finish();
+  }
+
+  @Override
+  public synchronized IndexIterator iter(final IndexSearch search) {
+    final TrigramSearch ts = (TrigramSearch) search;
+    final int[] entries = entries(ts);
+    if(entries == null) return IndexIterator.EMPTY;
+
+    // intersect pre values, starting with the smallest list
+    final Directory dir = ts.text ? texts : attrs;
+    int[] candidates = null;
+    for(final int e : entries) {
+      final int size = dir.sizes[e];
+      if(candidates != null) {
+        // skip large lists: verifying the remaining candidates is cheaper
+        if((long) candidates.length << 6 < size) break;
+        candidates = intersect(candidates, e, dir);
+      } else {
+        candidates = pres(e, dir);
+      }
+      if(candidates.length == 0) return IndexIterator.EMPTY;
+    }
+
+    // verify candidates
+    final IntList list = new IntList();
+    for(final int pre : candidates) {
+      if(ts.matches(data.text(pre, ts.text))) list.add(pre);
+    }
+    final int[] results = list.finish();
+    return new IndexIterator() {
+      int p = -1;
+
+      @Override
+      public boolean more() {
+        return ++p < results.length;
+      }
+
+      @Override
+      public int pre() {
+        return results[p];
+      }
+
+      @Override
+      public int size() {
+        return results.length;
+      }
+    };
+  }
+
+  @Override
+  public synchronized IndexCosts costs(final IndexSearch search) {
+    final TrigramSearch ts = (TrigramSearch) search;
+    final int[] entries = entries(ts);
+    return IndexCosts.get(entries == null ? 0 : (ts.text ? texts : attrs).sizes[entries[0]]);
+  }
+
+  @Override
+  public EntryIterator entries(final IndexEntries ie) {
+    return new EntryIterator() {
+      @Override
+      public byte[] next() {
+        return null;
+      }
+
+      @Override
+      public int count() {
+        return 0;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for(final int s : texts.sizes) size += s;
+    for(final int s : attrs.sizes) size += s;
+    return size;
+  }
+
+  @Override
+  public boolean drop() {
+    return data.meta.drop(DATATRI + '.');
+  }
+
+  @Override
+  public synchronized void close() {
+    pres.close();
+  }
+
+  @Override
+  public void add(final ValueCache values) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void delete(final ValueCache values) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void flush() { }
+
+  /**
+   * Returns the directory entries of all trigrams of a search, sorted by their sizes.
+   * @param search trigram search
+   * @return entries, or {@code null} if a trigram does not exist
+   */
+  private int[] entries(final TrigramSearch search) {
+    final IntSet keys = new IntSet();
+    for(final int[] literal : search.literals) {
+      for(final int key : keys(literal).toArray()) keys.add(key);
+    }
+
+    final Directory dir = search.text ? texts : attrs;
+    final int kl = keys.size();
+    final int[] entries = new int[kl], sizes = new int[kl];
+    for(int k = 0; k < kl; k++) {
+      final int e = Arrays.binarySearch(dir.keys, keys.key(k + 1));
+      if(e < 0) return null;
+      entries[k] = e;
+      sizes[k] = dir.sizes[e];
+    }
+    final IntList list = new IntList(entries);
+    list.sort(sizes, true);
+    return list.finish();
+  }
+
+  /**
+   * Returns the pre values of a trigram.
+   * @param entry directory entry
+   * @param dir directory
+   * @return pre values
+   */
+  private int[] pres(final int entry, final Directory dir) {
+    final int size = dir.sizes[entry];
+    final int[] list = new int[size];
+    pres.cursor(dir.offsets[entry]);
+    int pre = 0;
+    for(int s = 0; s < size; s++) {
+      pre += pres.readNum();
+      list[s] = pre;
+    }
+    return list;
+  }
+
+  /**
+   * Intersects candidates with the pre values of a trigram.
+   * @param candidates sorted pre values
+   * @param entry directory entry
+   * @param dir directory
+   * @return remaining candidates
+   */
+  private int[] intersect(final int[] candidates, final int entry, final Directory dir) {
+    final IntList list = new IntList();
+    pres.cursor(dir.offsets[entry]);
+    final int cl = candidates.length;
+    int c = 0, pre = 0;
+    for(int s = dir.sizes[entry]; s > 0 && c < cl; s--) {
+      pre += pres.readNum();
+      while(c < cl && candidates[c] < pre) c++;
+      if(c < cl && candidates[c] == pre) list.add(candidates[c++]);
+    }
+    return list.finish();
+  }
+
+  /**
+   * Returns the distinct trigram keys of a value.
+   * @param value value
+   * @return keys
+   */
+  static IntSet keys(final byte[] value) {
+    return keys(cps(value));
+  }
+
+  /**
+   * Returns the distinct trigram keys of a codepoint sequence.
+   * @param cps codepoints
+   * @return keys
+   */
+  private static IntSet keys(final int[] cps) {
+    final IntSet set = new IntSet();
+    final int cl = cps.length;
+    for(int c = 2; c < cl; c++) set.add(key(cps[c - 2], cps[c - 1], cps[c]));
+    return set;
+  }
+
+  /**
+   * Returns the key of a trigram. Codepoints smaller than 1024 are packed into a single integer,
+   * and all others are hashed. The result is scrambled to distribute the keys evenly.
+   * @param a first codepoint
+   * @param b second codepoint
+   * @param c third codepoint
+   * @return key
+   */
+  public static int key(final int a, final int b, final int c) {
+    final int k = (a | b | c) < 1024 ? a << 20 | b << 10 | c : ((a * 31 + b) * 31 + c) | 1 << 30;
+    return k * 0x9E3779B1;
+  }
+
+  /** Directory of trigrams. */
+  private static final class Directory {
+    /** Sorted keys. */
+    private final int[] keys;
+    /** Number of pre values. */
+    private final int[] sizes;
+    /** Offsets to the pre values. */
+    private final long[] offsets;
+
+    /**
+     * Constructor.
+     * @param in input stream
+     * @throws IOException I/O exception
+     */
+    Directory(final DataInput in) throws IOException {
+      keys = in.readNums();
+      sizes = in.readNums();
+      offsets = in.readLongs(in.readNum());
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * Bloom filter for the keys of a value index. If {@link #contains(byte[])} returns
+ * {@code false}, a key is definitely not indexed, and the index files need not be accessed.
+ * Keys cannot be removed from the filter: keys that have been deleted will only increase the
+ * false positive rate until the index is rebuilt.
+ *
+ * The filter is stored in a file with the suffix {@code 'b'}: the number of hash functions
+ * [num], and the bits [longs].
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+final class BloomFilter {
+  /** Number of bits per key (results in a false positive rate of about 1%). */
+  private static final int BITS = 10;
+  /** Number of hash functions. */
+  private static final int HASHES = 7;
+
+  /** Bits. */
+  private final long[] words;
+  /** Number of hash functions. */
+  private final int hashes;
+  /** Number of lookups that were rejected by the filter. */
+  private long rejected;
+  /** Dirty flag. */
+  private boolean dirty;
+
+  /**
+   * Constructor for a new filter.
+   * @param keys expected number of keys
+   */
+  BloomFilter(final int keys) {
+    final long bits = (long) Math.max(1, keys) * BITS;
+    words = new long[(int) Math.min(Integer.MAX_VALUE, bits + 63 >>> 6)];
+    hashes = HASHES;
+    dirty = true;
+  }
+
+  /**
+   * Constructor, reading a filter from disk.
+   * @param file input file
+   * @throws IOException I/O exception
+   */
+  private BloomFilter(final IO file) throws IOException {
+    try(DataInput in = new DataInput(file)) {
+      hashes = in.readNum();
+      words = in.readLongs(in.readNum());
+    }
+  }
+
+  /**
+   * Opens a filter.
+   * @param file filter file
+   * @return filter, or {@code null} if no filter exists
+   * @throws IOException I/O exception
+   */
+  static BloomFilter open(final IO file) throws IOException {
+    return file.exists() ? new BloomFilter(file) : null;
+  }
+
+  /**
+   * Adds a key.
+   * @param key key
+   */
+  synchronized void add(final byte[] key) {
+    final long h = hash(key);
+    final long bits = (long) words.length << 6;
+    for(int i = 0; i < hashes; i++) {
+      final long b = bit(h, i, bits);
+      words[(int) (b >>> 6)] |= 1L << b;
+    }
+    dirty = true;
+  }
+
+  /**
+   * Checks if the specified key may have been added.
+   * @param key key
+   * @return {@code false} if the key has definitely not been added
+   */
+  synchronized boolean contains(final byte[] key) {
+    final long h = hash(key);
+    final long bits = (long) words.length << 6;
+    for(int i = 0; i < hashes; i++) {
+      final long b = bit(h, i, bits);
+      if((words[(int) (b >>> 6)] & 1L << b) == 0) {
+        rejected++;
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the filter to disk if it has been changed.
+   * @param meta meta data
+   * @param name name of the filter file
+   * @throws IOException I/O exception
+   */
+  synchronized void write(final MetaData meta, final String name) throws IOException {
+    if(!dirty) return;
+    try(DataOutput out = meta.output(name)) {
+      out.writeNum(hashes);
+      out.writeLongs(words);
+    }
+    dirty = false;
+  }
+
+  /**
+   * Returns information on the filter.
+   * @return info string
+   */
+  synchronized String info() {
+    return Performance.format((long) words.length << 3) + ", " + rejected + " rejected lookups";
+  }
+
+  /**
+   * Returns the position of a bit.
+   * @param hash hash value
+   * @param i number of hash function
+   * @param bits number of bits
+   * @return bit position
+   */
+  private static long bit(final long hash, final int i, final long bits) {
+    // double hashing: combine lower and upper half of the hash value
+    final long h = (int) hash + (long) i * (int) (hash >>> 32 | 1);
+    return (h & Long.MAX_VALUE) % bits;
+  }
+
+  /**
+   * Computes a 64-bit hash value for the specified key.
+   * @param key key
+   * @return hash value
+   */
+  private static long hash(final byte[] key) {
+    long h = 0xCBF29CE484222325L;
+    for(final byte b : key) h = (h ^ b & 0xFF) * 0x100000001B3L;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    return h ^ h >>> 33;
+  }
+}
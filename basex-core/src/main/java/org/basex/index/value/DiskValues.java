@@ -31,11 +31,15 @@ public class DiskValues extends ValueIndex {
   /** ID lists. */
   final DataAccess idxl;
   /** Cached index entries: mapping between keys and index entries. */
-  final IndexCache cache = new IndexCache();
+  final IndexCache cache;
   /** Cached texts: mapping between key positions in the reference file, and the indexed texts. */
   final IntObjMap<byte[]> ctext = new IntObjMap<>();
   /** Number of current index entries. */
   final AtomicInteger size = new AtomicInteger();
+  /** Bloom filter for the index keys (can be {@code null}). */
+  final BloomFilter filter;
+  /** File prefix. */
+  private final String pref;
 
   /** Synchronization object. */
   private final Object monitor = new Object();
@@ -59,9 +63,12 @@ public class DiskValues extends ValueIndex {
    */
   DiskValues(final Data data, final IndexType type, final String pref) throws IOException {
     super(data, type);
-    idxl = new DataAccess(data.meta.dbFile(pref + 'l'));
-    idxr = new DataAccess(data.meta.dbFile(pref + 'r'));
+    idxl = new DataAccess(data.meta.dbFile(pref + 'l'), data.meta);
+    idxr = new DataAccess(data.meta.dbFile(pref + 'r'), data.meta);
     size.set(idxl.read4());
+    cache = new IndexCache(data.meta.indexcache);
+    filter = BloomFilter.open(data.meta.input(pref + 'b'));
+    this.pref = pref;
   }
 
   @Override
@@ -81,6 +88,8 @@ public class DiskValues extends ValueIndex {
         if(stats.adding(count)) stats.add(key(idxl.readNum()), count);
       }
     }
+    tb.add(LI_CACHE).add(cache.info()).add(NL);
+    if(filter != null) tb.add(LI_BLOOM).add(filter.info()).add(NL);
     stats.print(tb);
     return tb.finish();
   }
@@ -139,6 +148,7 @@ public class DiskValues extends ValueIndex {
   @Override
   public final void close() {
     synchronized(monitor) {
+      writeFilter();
       idxl.close();
       idxr.close();
     }
@@ -169,6 +179,7 @@ public class DiskValues extends ValueIndex {
   public final void flush() {
     idxl.flush();
     idxr.flush();
+    writeFilter();
   }
 
   /**
@@ -225,6 +236,8 @@ public class DiskValues extends ValueIndex {
     final IndexEntry entry = cache.get(token);
     if(entry != null) return entry;
 
+    // skip disk access if the key is definitely not indexed
+    if(filter != null && !filter.contains(token)) return new IndexEntry(token, 0, 0);
     final long index = get(token);
     if(index < 0) return new IndexEntry(token, 0, 0);
 
@@ -241,6 +254,19 @@ public class DiskValues extends ValueIndex {
     return cache.add(token, count, offset);
   }
 
+  /**
+   * Writes the Bloom filter to disk if it has been changed.
+   */
+  private void writeFilter() {
+    if(filter != null) {
+      try {
+        filter.write(data.meta, pref + 'b');
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+    }
+  }
+
   /**
    * Returns all index entries with the given prefix.
    * @param prefix prefix
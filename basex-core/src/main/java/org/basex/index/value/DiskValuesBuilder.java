@@ -3,9 +3,12 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.concurrent.atomic.*;
 
+import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
@@ -26,14 +29,26 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'b'}: contains an optional {@link BloomFilter} for all keys
+ *   (see {@link MainOptions#BLOOMFILTER}).</li>
  * </ul>
  *
+ * <p>Large databases are split into partitions, which are indexed in parallel. The temporary
+ * files of all partitions are merged afterwards.</p>
+ *
  * @author BaseX Team 2005-21, BSD License
  * @author Christian Gruen
  */
 public final class DiskValuesBuilder extends ValuesBuilder {
+  /** Minimum number of nodes in a partition. */
+  private static final int PARTITION = 1 << 15;
+
+  /** Number of written temporary files (shared by all partitions). */
+  private final AtomicInteger files;
   /** Temporary value tree. */
   private IndexTree index;
+  /** Bloom filter for the keys (can be {@code null}). */
+  private BloomFilter filter;
 
   /**
    * Constructor.
@@ -43,40 +58,78 @@ public final class DiskValuesBuilder extends ValuesBuilder {
   public DiskValuesBuilder(final Data data, final IndexType type) {
     super(data, type);
     index = new IndexTree(type);
+    files = new AtomicInteger();
+  }
+
+  /**
+   * Constructor for indexing a partition of the database.
+   * @param builder builder of the complete index
+   * @param start first pre value to be indexed
+   * @param end pre value after the last value to be indexed
+   */
+  private DiskValuesBuilder(final DiskValuesBuilder builder, final int start, final int end) {
+    super(builder.data, builder.type, start, end);
+    index = new IndexTree(type);
+    files = builder.files;
   }
 
   @Override
-  public DiskValues build() throws IOException {
+  public ValueIndex build() throws IOException {
+    // partition: write temporary files, which will be merged by the calling builder
+    if(partition) {
+      index();
+      writeIndex(true);
+      return null;
+    }
     Util.debug(detailedInfo());
 
     try {
-      final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
+      final boolean updindex = data.meta.updindex, lsm = updindex && data.meta.indexdelta > 0;
+      // log-structured index: discard existing runs
+      if(lsm) data.meta.drop(DiskValues.fileSuffix(type) + "[\\d-]*.");
+
+      final int parts = Math.min(threads, size / PARTITION);
+      if(parts > 1) {
+        // index partitions in parallel
+        final DiskValuesBuilder[] builders = new DiskValuesBuilder[parts];
+        for(int p = 0; p < parts; p++) {
+          builders[p] = new DiskValuesBuilder(this, (int) ((long) size * p / parts),
+            (int) ((long) size * (p + 1) / parts));
+        }
+        checkStop();
+        try {
+          pushJob(new ParallelBuilder(parts, builders)).build();
+        } finally {
+          popJob();
         }
+        for(final DiskValuesBuilder builder : builders) count += builder.count;
+        pre = size;
+        splits = files.get();
+      } else {
+        index();
+        writeIndex(splits > 0 || lsm);
       }
 
-      writeIndex(splits > 0);
-      if(splits > 1) {
+      if(lsm) {
+        // log-structured index: merge temporary files to initial run
+        index = null;
+        clean();
+        LsmDiskValues.build(data, type, splits);
+      } else if(splits > 1) {
         index = null;
         clean();
         merge();
       }
+      if(!lsm) {
+        // write Bloom filter, or delete filter of a previous index
+        final String name = DiskValues.fileSuffix(type) + 'b';
+        if(filter != null) filter.write(data.meta, name);
+        else data.meta.dbFile(name).delete();
+      }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      return lsm ? new LsmDiskValues(data, type) : updindex ? new UpdatableDiskValues(data, type) :
+        new DiskValues(data, type);
 
     } catch(final Throwable th) {
       // drop index files
@@ -85,6 +138,30 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     }
   }
 
+  /**
+   * Indexes the values of the current partition.
+   * @throws IOException I/O exception
+   */
+  private void index() throws IOException {
+    final boolean updindex = data.meta.updindex;
+    for(pre = start; pre < size; ++pre) {
+      if((pre & 0x0FFF) == 0) check();
+      if(indexEntry()) {
+        final int id = updindex ? data.id(pre) : pre;
+        if(tokenize) {
+          int pos = 0;
+          for(final byte[] token : distinctTokens(data.text(pre, text))) {
+            index.add(token, id, pos++);
+            count++;
+          }
+        } else if(data.textLen(pre, text) <= data.meta.maxlen) {
+          index.add(data.text(pre, text), id, 0);
+          count++;
+        }
+      }
+    }
+  }
+
   @Override
   protected void check() throws IOException {
     super.check();
@@ -111,7 +188,12 @@ public final class DiskValuesBuilder extends ValuesBuilder {
       final IntList ml = new IntList();
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
       final DiskValuesMerger[] vm = new DiskValuesMerger[splits];
-      for(int i = 0; i < splits; ++i) vm[i] = new DiskValuesMerger(data, type, i);
+      int keys = 0;
+      for(int i = 0; i < splits; ++i) {
+        vm[i] = new DiskValuesMerger(data, type, i);
+        keys += vm[i].size();
+      }
+      if(data.meta.bloomfilter) filter = new BloomFilter(keys);
 
       // parse through all values
       while(true) {
@@ -136,6 +218,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
         }
 
         // parse through all values, cache and sort id values
+        if(filter != null) filter.add(vm[min].key);
         final int ms = ml.size();
         for(int m = 0; m < ms; ++m) {
           final DiskValuesMerger t = vm[ml.get(m)];
@@ -169,16 +252,20 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    */
   private void writeIndex(final boolean partial) throws IOException {
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final int file = files.getAndIncrement();
+    final String name = DiskValues.fileSuffix(type) + (partial ? file : "");
     try(DataOutput outL = new DataOutput(data.meta.dbFile(name + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'))) {
       outL.write4(index.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
+      if(!partial && data.meta.bloomfilter) filter = new BloomFilter(index.size());
       index.init();
       while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+        final int i = index.next();
+        final byte[] values = index.ids.get(i);
         final int vs = Num.size(values);
+        if(filter != null) filter.add(index.keys.get(i));
 
         if(partial) {
           // write temporary structure to disk: number of entries, absolute values
@@ -9,7 +9,8 @@ import org.basex.index.*;
 import org.basex.io.in.DataInput;
 
 /**
- * This class provides data for merging temporary value indexes.
+ * This class provides data for merging temporary value indexes and the runs of
+ * {@link LsmDiskValues} instances.
  *
  * @author BaseX Team 2005-21, BSD License
  * @author Christian Gruen
@@ -23,6 +24,8 @@ final class DiskValuesMerger {
   private final String pref;
   /** Data reference. */
   private final Data data;
+  /** Drop files after parsing. */
+  private final boolean drop;
 
   /** Current key. */
   byte[] key;
@@ -37,10 +40,24 @@ final class DiskValuesMerger {
    * @throws IOException I/O exception
    */
   DiskValuesMerger(final Data data, final IndexType type, final int i) throws IOException {
-    pref = DiskValues.fileSuffix(type) + i;
+    this(data, type, DiskValues.fileSuffix(type) + i, true);
+  }
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @param type index type
+   * @param pref file prefix
+   * @param drop drop files after parsing
+   * @throws IOException I/O exception
+   */
+  DiskValuesMerger(final Data data, final IndexType type, final String pref, final boolean drop)
+      throws IOException {
+    this.pref = pref;
+    this.data = data;
+    this.drop = drop;
     dk = new DataInput(data.meta.dbFile(pref + 't'));
     dv = new DiskValues(data, type, pref);
-    this.data = data;
     next();
   }
 
@@ -51,14 +68,30 @@ final class DiskValuesMerger {
   void next() throws IOException {
     values = nextValues();
     if(values.length == 0) {
-      dv.close();
-      dk.close();
-      data.meta.drop(pref + '.');
+      close();
+      if(drop) data.meta.drop(pref + '.');
     } else {
       key = dk.readToken();
     }
   }
 
+  /**
+   * Returns the number of keys of the merged index.
+   * @return number of keys
+   */
+  int size() {
+    return dv.size();
+  }
+
+  /**
+   * Closes the input files.
+   * @throws IOException I/O exception
+   */
+  void close() throws IOException {
+    dv.close();
+    dk.close();
+  }
+
   /**
    * Returns next values. Called by the {@link DiskValuesBuilder}.
    * @return compressed values
@@ -0,0 +1,673 @@
+package org.basex.index.value;
+
+import static org.basex.core.Text.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.regex.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.index.stats.*;
+import org.basex.io.*;
+import org.basex.query.util.index.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides a log-structured, updatable index for attribute values and text contents.
+ *
+ * Updates are collected in a main-memory delta. If the number of cached updates exceeds
+ * {@link MainOptions#INDEXDELTA}, or if the index is flushed, the delta is written to disk as
+ * an immutable sorted run (see {@link ValueRun}). Lookups merge the results of all runs and the
+ * delta. Runs of similar size are merged in the background; tombstones of deleted IDs are dropped
+ * when the oldest run is included in a merge.
+ *
+ * Runs are named after the generations they cover. If the database was not properly closed,
+ * incomplete runs and runs that have already been merged will be discarded when the index
+ * is opened.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class LsmDiskValues extends ValueIndex {
+  /** Maximum number of runs that will be kept without merging them. */
+  private static final int MAXRUNS = 16;
+  /** Minimum number of runs of similar size that will be merged. */
+  private static final int MINMERGE = 4;
+
+  /** Runs, ordered by generation (oldest first). */
+  private final ArrayList<ValueRun> runs = new ArrayList<>();
+  /** Delta: updated IDs of keys (added IDs, or {@code -1 - id} for deleted IDs). */
+  private final TokenObjMap<IntList> delta = new TokenObjMap<>();
+  /** Delta: token positions of the updated IDs (token index). */
+  private final TokenObjMap<IntList> deltaPos = new TokenObjMap<>();
+  /** Token index flag. */
+  private final boolean tokens;
+
+  /** Number of cached updates. */
+  private int deltaSize;
+  /** Next generation. */
+  private int generation;
+  /** Thread for merging runs ({@code null} if no merge is running). */
+  private Thread merger;
+  /** Closed flag. */
+  private boolean closed;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @param type index type
+   * @throws IOException I/O Exception
+   */
+  public LsmDiskValues(final Data data, final IndexType type) throws IOException {
+    super(data, type);
+    tokens = type == IndexType.TOKEN;
+
+    // find runs, discard incomplete runs and runs that are covered by other runs
+    final Pattern pattern = Pattern.compile(DiskValues.fileSuffix(type) + "(\\d+)-(\\d+)l" +
+        Pattern.quote(IO.BASEXSUFFIX));
+    final LongList gens = new LongList();
+    for(final IOFile file : data.meta.dir.children()) {
+      final Matcher m = pattern.matcher(file.name());
+      if(m.matches()) gens.add(Long.parseLong(m.group(1)) << 32 | Long.parseLong(m.group(2)));
+    }
+    for(final long gen : gens.sort().toArray()) {
+      final int first = (int) (gen >>> 32), last = (int) gen;
+      final String prefix = prefix(first, last);
+      ValueRun run = null;
+      if(first >= generation && data.meta.dbFile(prefix + 't').exists()) {
+        run = new ValueRun(data, prefix, first, last);
+        if(run.size < 0) {
+          run.close();
+          run = null;
+        }
+      }
+      if(run != null) {
+        // runs are sorted by their first generation: a later run with the same first generation
+        // covers more generations and supersedes the current one
+        if(!runs.isEmpty() && runs.get(runs.size() - 1).first == first) {
+          dropRun(runs.remove(runs.size() - 1));
+        }
+        runs.add(run);
+        generation = last + 1;
+      } else {
+        data.meta.drop(prefix + '.');
+      }
+    }
+  }
+
+  /**
+   * Writes the initial run of the index from the temporary files of the index builder.
+   * @param data data reference
+   * @param type index type
+   * @param splits number of temporary files
+   * @throws IOException I/O exception
+   */
+  static void build(final Data data, final IndexType type, final int splits) throws IOException {
+    final DiskValuesMerger[] vm = new DiskValuesMerger[splits];
+    try {
+      for(int s = 0; s < splits; s++) vm[s] = new DiskValuesMerger(data, type, s);
+      merge(vm, type == IndexType.TOKEN, true,
+          new ValueRun.Writer(data, DiskValues.fileSuffix(type) + "0-0"));
+    } finally {
+      close(vm);
+    }
+  }
+
+  @Override
+  public synchronized IndexIterator iter(final IndexSearch search) {
+    final IntList ids;
+    if(search instanceof StringRange) {
+      ids = range((StringRange) search);
+    } else if(search instanceof NumericRange) {
+      ids = range((NumericRange) search);
+    } else {
+      ids = ids(search.token());
+    }
+
+    final int sz = ids.size();
+    final IntList pres = new IntList(sz);
+    for(int i = 0; i < sz; i++) pres.add(data.pre(ids.get(i)));
+    pres.sort();
+
+    return new IndexIterator() {
+      int c;
+
+      @Override
+      public boolean more() {
+        return c < sz;
+      }
+
+      @Override
+      public int pre() {
+        return pres.get(c++);
+      }
+
+      @Override
+      public int size() {
+        return sz;
+      }
+    };
+  }
+
+  @Override
+  public synchronized IndexCosts costs(final IndexSearch search) {
+    return IndexCosts.get(
+      search instanceof StringRange ? Math.max(1, data.meta.size / 10) :
+      search instanceof NumericRange ? Math.max(1, data.meta.size / 3) :
+      ids(search.token()).size());
+  }
+
+  @Override
+  public synchronized EntryIterator entries(final IndexEntries entries) {
+    final byte[] token = entries.token();
+    final boolean prefix = entries.prefix && token.length != 0;
+    final boolean descending = entries.descending && token.length != 0 && !prefix;
+
+    // collect matching keys and the number of their IDs
+    final TokenList keys = new TokenList();
+    final IntList counts = new IntList();
+    scan(descending ? EMPTY : token, (key, ids) -> {
+      if(prefix && !startsWith(key, token) || descending && diff(key, token) >= 0) return false;
+      keys.add(key);
+      counts.add(ids.size());
+      return true;
+    });
+    final int sz = keys.size();
+    final boolean reverse = entries.descending;
+
+    return new EntryIterator() {
+      int c, i;
+
+      @Override
+      public byte[] next() {
+        return c < sz ? get(c++) : null;
+      }
+
+      @Override
+      public int count() {
+        return counts.get(i);
+      }
+
+      @Override
+      public byte[] get(final int index) {
+        i = reverse ? sz - index - 1 : index;
+        return keys.get(i);
+      }
+
+      @Override
+      public int size() {
+        return sz;
+      }
+    };
+  }
+
+  @Override
+  public synchronized byte[] info(final MainOptions options) {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(LI_STRUCTURE).add(SORTED_LIST).add(NL);
+    tb.add(LI_NAMES).add(data.meta.names(type)).add(NL);
+    long length = 0;
+    for(final ValueRun run : runs) length += run.length();
+    tb.add(LI_SIZE).add(Performance.format(length)).add(NL);
+    tb.add(LI_RUNS).addInt(runs.size()).add(NL);
+    tb.add(LI_DELTA).addInt(deltaSize).add(NL);
+
+    final IndexStats stats = new IndexStats(options.get(MainOptions.MAXSTAT));
+    scan(EMPTY, (key, ids) -> {
+      final int count = ids.size();
+      if(stats.adding(count)) stats.add(key, count);
+      return true;
+    });
+    stats.print(tb);
+    return tb.finish();
+  }
+
+  @Override
+  public synchronized int size() {
+    final int[] size = { 0 };
+    scan(EMPTY, (key, ids) -> {
+      size[0]++;
+      return true;
+    });
+    return size[0];
+  }
+
+  @Override
+  public synchronized void add(final ValueCache values) {
+    cache(values, false);
+  }
+
+  @Override
+  public synchronized void delete(final ValueCache values) {
+    cache(values, true);
+  }
+
+  @Override
+  public synchronized void flush() {
+    try {
+      write();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  @Override
+  public boolean drop() {
+    return data.meta.drop(DiskValues.fileSuffix(type) + "[\\d-]*.");
+  }
+
+  @Override
+  public void close() {
+    // wait until the current merge is finished
+    final Thread thread;
+    synchronized(this) {
+      if(closed) return;
+      closed = true;
+      thread = merger;
+    }
+    if(thread != null) {
+      try {
+        thread.join();
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+    }
+    synchronized(this) {
+      flush();
+      for(final ValueRun run : runs) run.close();
+      runs.clear();
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(type).add(" INDEX, '").add(data.meta.name).add("':\n");
+    for(final ValueRun run : runs) tb.add("- ").add(run.toString()).add('\n');
+    tb.add("- Delta: ").addInt(deltaSize).add(" updates\n");
+    return tb.toString();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Caches updated IDs.
+   * @param values value cache
+   * @param delete deleted IDs
+   */
+  private void cache(final ValueCache values, final boolean delete) {
+    for(final byte[] key : values) {
+      final IntList ids = values.ids(key), pos = values.pos(key);
+      final IntList list = delta.computeIfAbsent(key, IntList::new);
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) {
+        final int id = ids.get(i);
+        list.add(delete ? -1 - id : id);
+      }
+      if(tokens) deltaPos.computeIfAbsent(key, IntList::new).add(pos.toArray());
+      deltaSize += is;
+    }
+    if(deltaSize >= data.meta.indexdelta) flush();
+  }
+
+  /**
+   * Writes the delta to disk as a new run.
+   * @throws IOException I/O exception
+   */
+  private void write() throws IOException {
+    if(delta.isEmpty()) return;
+
+    final int gen = generation++;
+    final String prefix = prefix(gen, gen);
+    try(ValueRun.Writer writer = new ValueRun.Writer(data, prefix)) {
+      final IntList ops = new IntList(), pos = tokens ? new IntList() : null;
+      for(final byte[] key : new TokenList(delta).sort()) {
+        ops.reset();
+        ops.add(delta.get(key).toArray());
+        if(pos != null) {
+          pos.reset();
+          pos.add(deltaPos.get(key).toArray());
+        }
+        final byte[] values = values(ops, pos, resolve(ops), false);
+        if(values != null) writer.write(key, values);
+      }
+    }
+    delta.clear();
+    deltaPos.clear();
+    deltaSize = 0;
+    runs.add(new ValueRun(data, prefix, gen, gen));
+    merge();
+  }
+
+  /**
+   * Starts a background merge if a minimum number of newest runs have a similar size,
+   * or if the maximum number of runs is exceeded.
+   */
+  private void merge() {
+    if(merger != null || closed) return;
+
+    // choose newest runs: the next older run must not be twice as large as the chosen runs
+    final int rs = runs.size();
+    int first = rs - 1;
+    long length = first < 0 ? 0 : runs.get(first).length();
+    while(first > 0 && runs.get(first - 1).length() <= length * 2) {
+      length += runs.get(--first).length();
+    }
+    if(rs > MAXRUNS) first = 0;
+    if(rs - first < MINMERGE) return;
+
+    final ValueRun[] merge = runs.subList(first, rs).toArray(new ValueRun[0]);
+    final boolean base = first == 0;
+    merger = new Thread(() -> {
+      ValueRun run = null;
+      try {
+        run = merge(merge, base);
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+      replace(merge, run);
+    });
+    merger.setDaemon(true);
+    merger.start();
+  }
+
+  /**
+   * Merges runs. Called by the merge thread.
+   * @param merge runs to be merged
+   * @param base the runs include the oldest run
+   * @return new run
+   * @throws IOException I/O exception
+   */
+  private ValueRun merge(final ValueRun[] merge, final boolean base) throws IOException {
+    final int ml = merge.length, first = merge[0].first, last = merge[ml - 1].last;
+    final String prefix = prefix(first, last);
+    final DiskValuesMerger[] vm = new DiskValuesMerger[ml];
+    try {
+      for(int m = 0; m < ml; m++) vm[m] = new DiskValuesMerger(data, type, merge[m].prefix, false);
+      merge(vm, tokens, base, new ValueRun.Writer(data, prefix));
+    } catch(final IOException ex) {
+      data.meta.drop(prefix + '.');
+      throw ex;
+    } finally {
+      close(vm);
+    }
+    return new ValueRun(data, prefix, first, last);
+  }
+
+  /**
+   * Replaces merged runs with a new run. Called by the merge thread.
+   * @param merge merged runs
+   * @param run new run ({@code null} if the merge failed)
+   */
+  private synchronized void replace(final ValueRun[] merge, final ValueRun run) {
+    merger = null;
+    if(run == null) return;
+
+    final int index = runs.indexOf(merge[0]);
+    for(final ValueRun mr : merge) {
+      runs.remove(mr);
+      dropRun(mr);
+    }
+    runs.add(index, run);
+    merge();
+  }
+
+  /**
+   * Closes a run and deletes its files.
+   * @param run run
+   */
+  private void dropRun(final ValueRun run) {
+    run.close();
+    data.meta.drop(run.prefix + '.');
+  }
+
+  /**
+   * Returns the file prefix of a run.
+   * @param first first generation
+   * @param last last generation
+   * @return prefix
+   */
+  private String prefix(final int first, final int last) {
+    return DiskValues.fileSuffix(type) + first + '-' + last;
+  }
+
+  /**
+   * Returns the IDs of the specified key.
+   * @param key key
+   * @return IDs
+   */
+  private IntList ids(final byte[] key) {
+    final IntList ops = new IntList();
+    int sources = 0;
+    for(final ValueRun run : runs) {
+      final byte[] values = run.values(key);
+      if(values != null) {
+        ops(values, tokens, ops, null);
+        sources++;
+      }
+    }
+    final IntList list = delta.get(key);
+    if(list != null) {
+      ops.add(list.toArray());
+      sources += 2;
+    }
+    return ids(ops, sources);
+  }
+
+  /**
+   * Returns the IDs of all keys in the specified string range.
+   * @param range range
+   * @return IDs
+   */
+  private IntList range(final StringRange range) {
+    final IntList ids = new IntList();
+    scan(range.min, (key, list) -> {
+      final int d = diff(key, range.max);
+      if(d > 0 || d == 0 && !range.mxi) return false;
+      if(range.mni || !eq(key, range.min)) ids.add(list.toArray());
+      return true;
+    });
+    return ids;
+  }
+
+  /**
+   * Returns the IDs of all keys in the specified numeric range.
+   * @param range range
+   * @return IDs
+   */
+  private IntList range(final NumericRange range) {
+    final IntList ids = new IntList();
+    scan(EMPTY, (key, list) -> {
+      final double v = toDouble(key);
+      if(v >= range.min && v <= range.max) ids.add(list.toArray());
+      return true;
+    });
+    return ids;
+  }
+
+  /**
+   * Iterates over the merged entries of all runs and the delta in ascending order.
+   * @param min key of the first entry
+   * @param consumer consumer for keys and their IDs (returns {@code false} to stop iteration)
+   */
+  private void scan(final byte[] min, final BiPredicate<byte[], IntList> consumer) {
+    final int rs = runs.size();
+    final ValueRun.Cursor[] cursors = new ValueRun.Cursor[rs];
+    for(int r = 0; r < rs; r++) cursors[r] = runs.get(r).cursor(min);
+    final TokenList keys = new TokenList();
+    for(final byte[] key : delta) {
+      if(diff(key, min) >= 0) keys.add(key);
+    }
+    keys.sort();
+
+    final IntList ops = new IntList();
+    for(int d = 0, ds = keys.size();;) {
+      // find smallest key
+      byte[] key = d < ds ? keys.get(d) : null;
+      for(final ValueRun.Cursor cursor : cursors) {
+        if(cursor.key != null && (key == null || diff(cursor.key, key) < 0)) key = cursor.key;
+      }
+      if(key == null) break;
+
+      // collect IDs of all runs and the delta
+      ops.reset();
+      int sources = 0;
+      for(final ValueRun.Cursor cursor : cursors) {
+        if(cursor.key != null && eq(cursor.key, key)) {
+          ops(cursor.values(), tokens, ops, null);
+          cursor.next();
+          sources++;
+        }
+      }
+      if(d < ds && eq(keys.get(d), key)) {
+        ops.add(delta.get(key).toArray());
+        sources += 2;
+        d++;
+      }
+      final IntList ids = ids(ops, sources);
+      if(!ids.isEmpty() && !consumer.test(key, ids)) break;
+    }
+  }
+
+  /**
+   * Returns the remaining IDs for the specified updates.
+   * @param ops added and deleted IDs, in chronological order
+   * @param sources number of sources (if only one run is involved, no IDs will be deleted)
+   * @return IDs
+   */
+  private static IntList ids(final IntList ops, final int sources) {
+    if(sources < 2) return ops;
+    final IntList ids = new IntList();
+    for(final int index : resolve(ops)) {
+      final int op = ops.get(index);
+      if(op >= 0) ids.add(op);
+    }
+    return ids;
+  }
+
+  /**
+   * Merges runs or temporary index files to a new run.
+   * @param vm merge inputs, ordered by generation (oldest first)
+   * @param tokens token index
+   * @param base the inputs include the oldest run (deleted IDs can be dropped)
+   * @param writer run writer
+   * @throws IOException I/O exception
+   */
+  private static void merge(final DiskValuesMerger[] vm, final boolean tokens, final boolean base,
+      final ValueRun.Writer writer) throws IOException {
+
+    try(ValueRun.Writer w = writer) {
+      final IntList ops = new IntList(), pos = tokens ? new IntList() : null;
+      while(true) {
+        // find smallest key
+        byte[] key = null;
+        for(final DiskValuesMerger m : vm) {
+          if(m.values.length != 0 && (key == null || diff(m.key, key) < 0)) key = m.key;
+        }
+        if(key == null) break;
+
+        // collect values in chronological order
+        ops.reset();
+        if(pos != null) pos.reset();
+        int sources = 0;
+        for(final DiskValuesMerger m : vm) {
+          if(m.values.length != 0 && eq(m.key, key)) {
+            ops(m.values, tokens, ops, pos);
+            m.next();
+            sources++;
+          }
+        }
+        final byte[] values = values(ops, pos, sources == 1 ? null : resolve(ops), base);
+        if(values != null) w.write(key, values);
+      }
+    }
+  }
+
+  /**
+   * Closes merge inputs that have not been completely parsed.
+   * @param vm merge inputs
+   * @throws IOException I/O exception
+   */
+  private static void close(final DiskValuesMerger[] vm) throws IOException {
+    for(final DiskValuesMerger m : vm) {
+      if(m != null && m.values.length != 0) m.close();
+    }
+  }
+
+  /**
+   * Adds the IDs and positions of compressed values to the specified lists.
+   * @param values compressed values
+   * @param tokens token index
+   * @param ops list for IDs
+   * @param pos list for positions (if {@code null}, positions will be skipped)
+   */
+  private static void ops(final byte[] values, final boolean tokens, final IntList ops,
+      final IntList pos) {
+    final int vs = Num.size(values);
+    for(int v = 4; v < vs; v += Num.length(values, v)) {
+      ops.add(Num.get(values, v));
+      if(tokens) {
+        v += Num.length(values, v);
+        if(pos != null) pos.add(Num.get(values, v));
+      }
+    }
+  }
+
+  /**
+   * Returns the indexes of the remaining updates, ordered by ID. As updates of the same ID
+   * alternate between additions and deletions, an even number of updates cancel each other out,
+   * and the latest update is relevant for an odd number.
+   * @param ops added and deleted IDs, in chronological order
+   * @return indexes of the remaining updates
+   */
+  private static int[] resolve(final IntList ops) {
+    final int os = ops.size();
+    final long[] order = new long[os];
+    for(int o = 0; o < os; o++) {
+      final int op = ops.get(o);
+      order[o] = (long) (op >= 0 ? op : -1 - op) << 32 | o;
+    }
+    Arrays.sort(order);
+
+    final IntList indexes = new IntList();
+    for(int o = 0; o < os;) {
+      final long id = order[o] >>> 32;
+      int e = o + 1;
+      while(e < os && order[e] >>> 32 == id) e++;
+      if((e - o & 1) == 1) indexes.add((int) order[e - 1]);
+      o = e;
+    }
+    return indexes.finish();
+  }
+
+  /**
+   * Returns compressed values.
+   * @param ops added and deleted IDs
+   * @param pos positions (can be {@code null})
+   * @param indexes indexes of the updates to be stored (if {@code null}, all updates are stored)
+   * @param base skip deleted IDs
+   * @return compressed values, or {@code null} if no IDs are left
+   */
+  private static byte[] values(final IntList ops, final IntList pos, final int[] indexes,
+      final boolean base) {
+    byte[] values = new byte[16];
+    Num.size(values, 4);
+    final int is = indexes != null ? indexes.length : ops.size();
+    boolean found = false;
+    for(int i = 0; i < is; i++) {
+      final int index = indexes != null ? indexes[i] : i, op = ops.get(index);
+      if(base && op < 0) continue;
+      values = Num.add(values, op);
+      if(pos != null) values = Num.add(values, pos.get(index));
+      found = true;
+    }
+    return found ? values : null;
+  }
+}
@@ -0,0 +1,240 @@
+package org.basex.index.value;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Immutable sorted run of an {@link LsmDiskValues} index. The files of a run have the same
+ * format as the temporary files that are generated by the {@link DiskValuesBuilder}:
+ * <ul>
+ * <li> {@code 'l'}: number of entries (4 bytes), followed by the values of all entries. The values
+ *   of an entry are stored in a {@link Num} array: IDs of added nodes are stored as positive
+ *   numbers, and IDs of deleted nodes as negative numbers ({@code -1 - id}). Token positions
+ *   follow the IDs if tokens are indexed.</li>
+ * <li> {@code 'r'}: 5-byte references to the values of all entries.</li>
+ * <li> {@code 't'}: keys of all entries, sorted in ascending order.</li>
+ * </ul>
+ * Every {@link #SPARSE}th key is kept in main memory and used as entry point for lookups.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+final class ValueRun {
+  /** Distance between keys that are kept in main memory (must be 1 << n). */
+  private static final int SPARSE = 1 << 6;
+
+  /** File prefix. */
+  final String prefix;
+  /** First generation covered by this run. */
+  final int first;
+  /** Last generation covered by this run. */
+  final int last;
+  /** Number of entries. */
+  final int size;
+
+  /** Values. */
+  private final DataAccess idxl;
+  /** References to the values. */
+  private final DataAccess idxr;
+  /** Keys. */
+  private final DataAccess idxt;
+  /** Every {@link #SPARSE}th key. */
+  private final TokenList keys = new TokenList();
+  /** Offsets of the keys in {@link #keys} in the key file. */
+  private final LongList offsets = new LongList();
+
+  /**
+   * Opens a run.
+   * @param data data reference
+   * @param prefix file prefix
+   * @param first first generation
+   * @param last last generation
+   * @throws IOException I/O exception
+   */
+  ValueRun(final Data data, final String prefix, final int first, final int last)
+      throws IOException {
+
+    this.prefix = prefix;
+    this.first = first;
+    this.last = last;
+    idxl = new DataAccess(data.meta.dbFile(prefix + 'l'));
+    idxr = new DataAccess(data.meta.dbFile(prefix + 'r'));
+    idxt = new DataAccess(data.meta.dbFile(prefix + 't'));
+    size = idxl.read4(0);
+
+    try(DataInput in = new DataInput(data.meta.dbFile(prefix + 't'))) {
+      long off = 0;
+      for(int i = 0; i < size; i++) {
+        final byte[] key = in.readToken();
+        if((i & SPARSE - 1) == 0) {
+          keys.add(key);
+          offsets.add(off);
+        }
+        off += Num.length(key.length) + key.length;
+      }
+    }
+  }
+
+  /**
+   * Returns the length of the files of this run.
+   * @return length
+   */
+  long length() {
+    return idxl.length() + idxr.length() + idxt.length();
+  }
+
+  /**
+   * Returns a cursor that points to the first entry whose key is equal to or greater than
+   * the specified key.
+   * @param key key (an empty array points to the first entry)
+   * @return cursor
+   */
+  synchronized Cursor cursor(final byte[] key) {
+    // find last block whose first key is not greater than the specified key
+    int l = 0, h = keys.size() - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(diff(keys.get(m), key) <= 0) l = m + 1;
+      else h = m - 1;
+    }
+    final Cursor cursor = new Cursor(Math.max(0, h));
+    while(cursor.key != null && diff(cursor.key, key) < 0) cursor.next();
+    return cursor;
+  }
+
+  /**
+   * Returns the values of the specified key.
+   * @param key key
+   * @return values or {@code null}
+   */
+  synchronized byte[] values(final byte[] key) {
+    final Cursor cursor = cursor(key);
+    return cursor.key != null && eq(cursor.key, key) ? cursor.values() : null;
+  }
+
+  /**
+   * Closes the run.
+   */
+  synchronized void close() {
+    idxl.close();
+    idxr.close();
+    idxt.close();
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + prefix + ", " + size + " entries]";
+  }
+
+  /**
+   * Iterates over the entries of a run.
+   */
+  final class Cursor {
+    /** Current key ({@code null} if the end of the run has been reached). */
+    byte[] key;
+    /** Index of the current entry. */
+    private int index;
+    /** Offset of the next key. */
+    private long off;
+
+    /**
+     * Constructor.
+     * @param block index of the block of keys to start from
+     */
+    private Cursor(final int block) {
+      index = block * SPARSE - 1;
+      off = block < offsets.size() ? offsets.get(block) : 0;
+      next();
+    }
+
+    /**
+     * Moves the cursor to the next entry.
+     */
+    void next() {
+      synchronized(ValueRun.this) {
+        if(++index < size) {
+          key = idxt.readToken(off);
+          off = idxt.cursor();
+        } else {
+          key = null;
+        }
+      }
+    }
+
+    /**
+     * Returns the values of the current entry.
+     * @return values
+     */
+    byte[] values() {
+      synchronized(ValueRun.this) {
+        final long pos = idxr.read5(index * 5L);
+        return idxl.readBytes(pos, idxl.read4(pos));
+      }
+    }
+  }
+
+  /**
+   * Writes a run to disk.
+   */
+  static final class Writer implements Closeable {
+    /** Data reference. */
+    private final Data data;
+    /** File prefix. */
+    private final String prefix;
+    /** Values. */
+    private final DataOutput outL;
+    /** References. */
+    private final DataOutput outR;
+    /** Keys. */
+    private final DataOutput outT;
+    /** Number of written entries. */
+    private int size;
+
+    /**
+     * Constructor.
+     * @param data data reference
+     * @param prefix file prefix
+     * @throws IOException I/O exception
+     */
+    Writer(final Data data, final String prefix) throws IOException {
+      this.data = data;
+      this.prefix = prefix;
+      outL = new DataOutput(data.meta.dbFile(prefix + 'l'));
+      outR = new DataOutput(data.meta.dbFile(prefix + 'r'));
+      outT = new DataOutput(data.meta.dbFile(prefix + 't'));
+      // the number of entries will be assigned when the run is complete
+      outL.write4(-1);
+    }
+
+    /**
+     * Writes an entry. Keys must be supplied in ascending order.
+     * @param key key
+     * @param values values in the {@link Num} format
+     * @throws IOException I/O exception
+     */
+    void write(final byte[] key, final byte[] values) throws IOException {
+      outR.write5(outL.size());
+      outL.write(values, 0, Num.size(values));
+      outT.writeToken(key);
+      size++;
+    }
+
+    @Override
+    public void close() throws IOException {
+      outL.close();
+      outR.close();
+      outT.close();
+      try(DataAccess da = new DataAccess(data.meta.dbFile(prefix + 'l'))) {
+        da.write4(0, size);
+      }
+    }
+  }
+}
@@ -15,4 +15,21 @@ final class Buffer {
   long pos = -1;
   /** Dirty flag. */
   boolean dirty;
+  /** Key of the page in the page cache (can be {@code null}). */
+  private PageCache.Key key;
+
+  /**
+   * Returns the key of the page in the page cache.
+   * The key is only recreated if the disk offset has changed.
+   * @param id id of the buffers in the page cache
+   * @return key
+   */
+  PageCache.Key key(final long id) {
+    PageCache.Key k = key;
+    if(k == null || k.pos != pos) {
+      k = PageCache.key(id, pos);
+      key = k;
+    }
+    return k;
+  }
 }
@@ -2,6 +2,7 @@ package org.basex.io.random;
 
 /**
  * This class provides a simple, clock-based buffer management.
+ * Pages that are not found in the buffers are looked up in the global {@link PageCache}.
  *
  * @author BaseX Team 2005-21, BSD License
  * @author Christian Gruen
@@ -11,9 +12,16 @@ final class Buffers {
   private static final int BUFFERS = 1 << 4;
   /** Buffers. */
   private final Buffer[] buffer = new Buffer[BUFFERS];
+  /** Id of the buffers in the page cache. */
+  private final long id = PageCache.id();
   /** Current buffer offset. */
   private int offset;
 
+  /** Number of pages found in the page cache. */
+  long hits;
+  /** Number of pages read from disk. */
+  long misses;
+
   /**
    * Constructor.
    */
@@ -61,4 +69,51 @@ final class Buffers {
     offset = o + 1 & BUFFERS - 1;
     return true;
   }
+
+  /**
+   * Fills the current buffer with the page from the page cache.
+   * @return {@code true} if the page was found in the cache
+   */
+  boolean cached() {
+    final Buffer current = current();
+    if(PageCache.get().read(current.key(id), current.data)) {
+      hits++;
+      return true;
+    }
+    misses++;
+    return false;
+  }
+
+  /**
+   * Adds the current buffer, which has been read from disk, to the page cache.
+   */
+  void cache() {
+    final Buffer current = current();
+    PageCache.get().add(current.key(id), current.data);
+  }
+
+  /**
+   * Updates the cached page of a buffer that has been written to disk.
+   * @param buf buffer
+   */
+  void written(final Buffer buf) {
+    PageCache.get().update(buf.key(id), buf.data);
+  }
+
+  /**
+   * Removes all cached pages.
+   */
+  void close() {
+    PageCache.get().remove(id);
+  }
+
+  /**
+   * Returns cache statistics.
+   * @return statistics
+   */
+  String info() {
+    final long total = hits + misses;
+    return hits + " hits, " + misses + " misses" +
+      (total == 0 ? "" : " (" + hits * 100 / total + "% hit ratio)");
+  }
 }
@@ -0,0 +1,299 @@
+package org.basex.io.random;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class stores the blocks of a database file in compressed form.
+ * Blocks are compressed with {@link LZ4} and stored in slots of variable size. The offsets and
+ * lengths of all blocks are stored in a directory file, which is named after the data file.
+ * Slots that are released when blocks grow are reused for subsequent writes, but only after the
+ * directory has been flushed: until then, the last flushed directory may still reference them.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedFile {
+  /** Size of a slot unit (must be 1 << n). */
+  private static final int SLOT = 1 << 6;
+
+  /** Data file. */
+  private final RandomAccessFile file;
+  /** Directory file. */
+  private final IOFile dir;
+  /** Free slots. */
+  private final FreeSlots free = new FreeSlots();
+  /** Sizes of released slots that will be reused after the next flush. */
+  private final IntList pendingSizes = new IntList();
+  /** Offsets of released slots that will be reused after the next flush. */
+  private final LongList pendingOffsets = new LongList();
+  /** Buffer for compressed blocks. */
+  private final byte[] packed = new byte[IO.BLOCKSIZE];
+
+  /** Slot offsets of the blocks (in slot units). */
+  private int[] offsets;
+  /** Lengths of the blocks (positive: compressed, negative: uncompressed, 0: no entry). */
+  private int[] lengths;
+  /** Number of blocks. */
+  private int blocks;
+  /** Logical file length. */
+  private long length;
+  /** End of the last slot. */
+  private long end;
+  /** Dirty flag. */
+  private boolean dirty;
+
+  /**
+   * Constructor.
+   * @param dir directory file (will be read if it exists)
+   * @param file data file
+   * @throws IOException I/O exception
+   */
+  private CompressedFile(final IOFile dir, final RandomAccessFile file) throws IOException {
+    this.dir = dir;
+    this.file = file;
+    if(dir.exists()) {
+      try(DataInput in = new DataInput(dir)) {
+        blocks = in.readNum();
+        length = blocks == 0 ? 0 : (long) (blocks - 1) * IO.BLOCKSIZE + in.readNum();
+        offsets = new int[blocks];
+        lengths = new int[blocks];
+        for(int b = 0; b < blocks; b++) {
+          offsets[b] = in.readNum();
+          lengths[b] = in.readNum();
+        }
+      }
+    } else {
+      offsets = new int[0];
+      lengths = new int[0];
+    }
+
+    // register gaps between slots as free slots
+    final LongList list = new LongList(blocks);
+    for(int b = 0; b < blocks; b++) {
+      if(lengths[b] != 0) list.add((long) offsets[b] * SLOT << 16 | capacity(lengths[b]));
+    }
+    final long[] slots = list.finish();
+    Arrays.sort(slots);
+    for(final long slot : slots) {
+      final long offset = slot >>> 16;
+      if(offset > end) free.add((int) (offset - end), end, false);
+      end = offset + (slot & 0xFFFF);
+    }
+  }
+
+  /**
+   * Opens the blocks of a compressed data file.
+   * @param file data file
+   * @param raf file access
+   * @return instance, or {@code null} if the file is not compressed
+   * @throws IOException I/O exception
+   */
+  static CompressedFile open(final IOFile file, final RandomAccessFile raf) throws IOException {
+    final IOFile dir = directory(file);
+    return dir.exists() ? new CompressedFile(dir, raf) : null;
+  }
+
+  /**
+   * Compresses the specified data file.
+   * @param file data file
+   * @throws IOException I/O exception
+   */
+  public static void compress(final IOFile file) throws IOException {
+    final IOFile tmp = new IOFile(file.parent(), file.name() + IO.TMPSUFFIX);
+    directory(file).delete();
+    try(RandomAccessFile in = new RandomAccessFile(file.file(), "r");
+        RandomAccessFile out = new RandomAccessFile(tmp.file(), "rw")) {
+      final CompressedFile cf = new CompressedFile(directory(file), out);
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      final long len = in.length();
+      for(int b = 0; (long) b * IO.BLOCKSIZE < len; b++) {
+        final int l = (int) Math.min(IO.BLOCKSIZE, len - (long) b * IO.BLOCKSIZE);
+        in.readFully(data, 0, l);
+        cf.write(b, data, l);
+      }
+      cf.flush();
+    }
+    if(!file.delete() || !tmp.rename(file)) throw new IOException("Could not compress " + file);
+  }
+
+  /**
+   * Returns the uncompressed length of a data file.
+   * @param file data file
+   * @return length
+   */
+  public static long length(final IOFile file) {
+    final IOFile dir = directory(file);
+    if(!dir.exists()) return file.length();
+    try(DataInput in = new DataInput(dir)) {
+      final int b = in.readNum();
+      return b == 0 ? 0 : (long) (b - 1) * IO.BLOCKSIZE + in.readNum();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return file.length();
+    }
+  }
+
+  /**
+   * Returns the directory of the specified data file.
+   * @param file data file
+   * @return directory file
+   */
+  public static IOFile directory(final IOFile file) {
+    return new IOFile(file.parent(), DATABLK + file.name());
+  }
+
+  /**
+   * Returns the logical file length.
+   * @return length
+   */
+  long length() {
+    return length;
+  }
+
+  /**
+   * Sets the logical file length. Blocks beyond the new length will be discarded.
+   * @param len length
+   */
+  void length(final long len) {
+    final int bl = (int) ((len + IO.BLOCKSIZE - 1) / IO.BLOCKSIZE);
+    for(int b = bl; b < blocks; b++) release(b);
+    resize(bl);
+    blocks = bl;
+    length = len;
+    dirty = true;
+  }
+
+  /**
+   * Reads and decompresses a block.
+   * @param block block index
+   * @param data target array
+   * @throws IOException I/O exception
+   */
+  void read(final int block, final byte[] data) throws IOException {
+    final int len = block < blocks ? lengths[block] : 0;
+    if(len == 0) {
+      Arrays.fill(data, (byte) 0);
+    } else {
+      file.seek((long) offsets[block] * SLOT);
+      if(len < 0) {
+        file.readFully(data, 0, -len);
+      } else {
+        file.readFully(packed, 0, len);
+        LZ4.decompress(packed, len, data);
+      }
+    }
+  }
+
+  /**
+   * Compresses and writes a block.
+   * @param block block index
+   * @param data data to write
+   * @param len number of bytes to write
+   * @throws IOException I/O exception
+   */
+  void write(final int block, final byte[] data, final int len) throws IOException {
+    resize(block + 1);
+    if(block >= blocks) blocks = block + 1;
+    length = Math.max(length, (long) block * IO.BLOCKSIZE + len);
+    dirty = true;
+
+    // store uncompressed bytes if compression does not save space
+    int l = len > 0 ? LZ4.compress(data, len, packed) : 0;
+    final byte[] bytes;
+    if(l == -1) {
+      bytes = data;
+      l = -len;
+    } else {
+      bytes = packed;
+    }
+
+    // choose slot: overwrite existing slot if it is large enough
+    final int cap = capacity(l);
+    if(capacity(lengths[block]) < cap) {
+      release(block);
+      final long offset = free.get(cap, end);
+      if(offset == end) end += cap;
+      offsets[block] = (int) (offset / SLOT);
+    } else if(capacity(lengths[block]) > cap) {
+      release(capacity(lengths[block]) - cap, (long) offsets[block] * SLOT + cap);
+    }
+    lengths[block] = l;
+    if(l != 0) {
+      file.seek((long) offsets[block] * SLOT);
+      file.write(bytes, 0, Math.abs(l));
+    }
+  }
+
+  /**
+   * Writes the directory to disk.
+   * @throws IOException I/O exception
+   */
+  void flush() throws IOException {
+    if(!dirty) return;
+    try(DataOutput out = new DataOutput(dir)) {
+      out.writeNum(blocks);
+      if(blocks != 0) out.writeNum((int) (length - (long) (blocks - 1) * IO.BLOCKSIZE));
+      for(int b = 0; b < blocks; b++) {
+        out.writeNum(offsets[b]);
+        out.writeNum(lengths[b]);
+      }
+    }
+    dirty = false;
+
+    // released slots are not referenced anymore: make them available
+    final int ps = pendingSizes.size();
+    for(int p = 0; p < ps; p++) free.add(pendingSizes.get(p), pendingOffsets.get(p), false);
+    pendingSizes.reset();
+    pendingOffsets.reset();
+  }
+
+  /**
+   * Resizes the arrays if they are too small to store the specified number of blocks.
+   * @param size number of blocks
+   */
+  private void resize(final int size) {
+    if(size > offsets.length) {
+      final int s = Math.max(size, offsets.length << 1);
+      offsets = Arrays.copyOf(offsets, s);
+      lengths = Arrays.copyOf(lengths, s);
+    }
+  }
+
+  /**
+   * Releases the slot of a block.
+   * @param block block index
+   */
+  private void release(final int block) {
+    final int cap = capacity(lengths[block]);
+    if(cap != 0) release(cap, (long) offsets[block] * SLOT);
+    lengths[block] = 0;
+  }
+
+  /**
+   * Releases a slot. It will be reused after the directory has been flushed.
+   * @param size size of the slot
+   * @param offset offset of the slot
+   */
+  private void release(final int size, final long offset) {
+    pendingSizes.add(size);
+    pendingOffsets.add(offset);
+  }
+
+  /**
+   * Returns the capacity of the slot for a block with the specified length.
+   * @param length length of the block (positive: compressed, negative: uncompressed)
+   * @return capacity
+   */
+  private static int capacity(final int length) {
+    return Math.abs(length) + SLOT - 1 & -SLOT;
+  }
+}
@@ -1,27 +1,45 @@
 package org.basex.io.random;
 
 import java.io.*;
+import java.util.concurrent.locks.*;
 
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.util.*;
 
 /**
  * This class allows positional read and write access to a database file.
  *
+ * The file handle of an uncompressed file without write-ahead log can be released if the global
+ * budget of open files is exceeded (see {@link FileHandles}). It will be reopened on the next
+ * disk access.
+ *
  * @author BaseX Team 2005-21, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess implements Closeable {
   /** Buffer manager. */
   private final Buffers buffers = new Buffers();
-  /** Reference to the data input stream. */
-  private final RandomAccessFile raf;
+  /** File. */
+  private final IOFile file;
+  /** Lock for accessing the file handle. */
+  private final ReentrantLock handle = new ReentrantLock();
+  /** Reference to the data input stream ({@code null} if the handle has been released). */
+  private RandomAccessFile raf;
+  /** Compressed blocks (can be {@code null}). */
+  private final CompressedFile blocks;
+  /** Pages managed by the write-ahead log (can be {@code null}). */
+  private final LogFile log;
   /** File size. */
   private long length;
   /** Changed flag. */
   private boolean changed;
   /** Offset. */
   private int off;
+  /** Memory mapping for lock-free read access (can be {@code null}). */
+  private volatile Mapping mapping;
+  /** Number of times the file has been reopened. */
+  private int reopened;
 
   /**
    * Constructor, initializing the file reader.
@@ -29,11 +47,28 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
+    this(file, null);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param meta meta data (can be {@code null}); if a write-ahead log is assigned, changed pages
+   *   will be written to the file at the next checkpoint. If the database is a snapshot, the
+   *   committed versions of the pages will be read
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final MetaData meta) throws IOException {
+    this.file = file;
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(file.file(), "rw");
-      length = f.length();
+      blocks = CompressedFile.open(file, f);
       raf = f;
+      log = meta != null ? LogFile.get(meta, file, f, blocks) : null;
+      final long len = blocks != null ? blocks.length() : f.length();
+      length = log != null ? log.fileLength(len) : len;
+      if(releasable()) FileHandles.get().opened(this, false);
       cursor(0);
     } catch(final IOException ex) {
       if(f != null) f.close();
@@ -50,24 +85,111 @@ public final class DataAccess implements Closeable {
         if(buffer.dirty) writeBlock(buffer);
       }
       if(changed) {
-        raf.setLength(length);
+        if(log != null) {
+          log.length(length);
+        } else if(blocks != null) {
+          blocks.length(length);
+        } else {
+          handle.lock();
+          try {
+            raf().setLength(length);
+          } finally {
+            handle.unlock();
+          }
+        }
         changed = false;
       }
+      if(blocks != null && log == null) blocks.flush();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
   }
 
+  /**
+   * Enables or disables memory-mapped read access. If enabled, all buffers will be flushed,
+   * and positional read operations will be performed without locking and without changing
+   * the file cursor. The mapping will be dropped as soon as the cursor is changed.
+   * Compressed files and files with changes that have not been checkpointed will never be
+   * mapped.
+   * @param map enable or disable mapping
+   * @throws IOException I/O exception
+   */
+  public synchronized void map(final boolean map) throws IOException {
+    mapping = null;
+    if(map && blocks == null && (log == null || log.isEmpty())) {
+      flush();
+      // the mapping remains valid if the file handle is released
+      handle.lock();
+      try {
+        mapping = new Mapping(raf().getChannel());
+      } finally {
+        handle.unlock();
+      }
+    }
+  }
+
   @Override
   public synchronized void close() {
+    mapping = null;
     flush();
+    buffers.close();
+    if(releasable()) FileHandles.get().closed(this);
+    handle.lock();
     try {
-      raf.close();
+      if(log != null) log.close();
+      if(raf != null) raf.close();
+      raf = null;
     } catch(final IOException ex) {
       Util.stack(ex);
+    } finally {
+      handle.unlock();
     }
   }
 
+  /**
+   * Releases the file handle, unless it is currently accessed by another thread.
+   * Called by {@link FileHandles}.
+   * @return {@code true} if the handle was released
+   */
+  boolean release() {
+    if(!handle.tryLock()) return false;
+    try {
+      if(raf != null) raf.close();
+      raf = null;
+      return true;
+    } catch(final IOException ex) {
+      Util.stack(ex);
+      return false;
+    } finally {
+      handle.unlock();
+    }
+  }
+
+  /**
+   * Checks if the file handle can be released.
+   * @return result of check
+   */
+  private boolean releasable() {
+    return blocks == null && log == null;
+  }
+
+  /**
+   * Returns the file handle, which will be reopened if it has been released.
+   * Must only be called if the handle lock is held.
+   * @return file handle
+   * @throws IOException I/O exception
+   */
+  private RandomAccessFile raf() throws IOException {
+    if(raf == null) {
+      raf = new RandomAccessFile(file.file(), "rw");
+      reopened++;
+      FileHandles.get().opened(this, true);
+    } else if(releasable()) {
+      FileHandles.get().used(this);
+    }
+    return raf;
+  }
+
   /**
    * Returns the current file position.
    * @return position in the file
@@ -97,9 +219,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized byte read1(final long pos) {
-    cursor(pos);
-    return read1();
+  public byte read1(final long pos) {
+    final Mapping map = mapping;
+    if(map != null) return (byte) map.read1(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read1();
+    }
   }
 
   /**
@@ -115,9 +241,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized int read4(final long pos) {
-    cursor(pos);
-    return read4();
+  public int read4(final long pos) {
+    final Mapping map = mapping;
+    if(map != null) return map.read4(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read4();
+    }
   }
 
   /**
@@ -133,9 +263,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return long value
    */
-  public synchronized long read5(final long pos) {
-    cursor(pos);
-    return read5();
+  public long read5(final long pos) {
+    final Mapping map = mapping;
+    if(map != null) return map.read5(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read5();
+    }
   }
 
   /**
@@ -151,9 +285,13 @@ public final class DataAccess implements Closeable {
    * @param pos text position
    * @return read num
    */
-  public synchronized int readNum(final long pos) {
-    cursor(pos);
-    return readNum();
+  public int readNum(final long pos) {
+    final Mapping map = mapping;
+    if(map != null) return map.readNum(pos);
+    synchronized(this) {
+      cursor(pos);
+      return readNum();
+    }
   }
 
   /**
@@ -161,9 +299,13 @@ public final class DataAccess implements Closeable {
    * @param pos text position
    * @return text as byte array
    */
-  public synchronized byte[] readToken(final long pos) {
-    cursor(pos);
-    return readToken();
+  public byte[] readToken(final long pos) {
+    final Mapping map = mapping;
+    if(map != null) return map.readToken(pos);
+    synchronized(this) {
+      cursor(pos);
+      return readToken();
+    }
   }
 
   /**
@@ -181,9 +323,13 @@ public final class DataAccess implements Closeable {
    * @param len length
    * @return byte array
    */
-  public synchronized byte[] readBytes(final long pos, final int len) {
-    cursor(pos);
-    return readBytes(len);
+  public byte[] readBytes(final long pos, final int len) {
+    final Mapping map = mapping;
+    if(map != null) return map.readBytes(pos, len);
+    synchronized(this) {
+      cursor(pos);
+      return readBytes(len);
+    }
   }
 
   /**
@@ -213,6 +359,7 @@ public final class DataAccess implements Closeable {
    * @param pos read position
    */
   public void cursor(final long pos) {
+    if(mapping != null) mapping = null;
     off = (int) (pos & IO.BLOCKSIZE - 1);
     final long b = pos - off;
     if(!buffers.cursor(b)) return;
@@ -221,9 +368,25 @@ public final class DataAccess implements Closeable {
     try {
       if(buffer.dirty) writeBlock(buffer);
       buffer.pos = b;
-      raf.seek(buffer.pos);
-      if(buffer.pos < raf.length())
-        raf.readFully(buffer.data, 0, (int) Math.min(length - buffer.pos, IO.BLOCKSIZE));
+      if(log != null && log.read(b, buffer.data)) return;
+      if(blocks != null) {
+        if(b < blocks.length() && !buffers.cached()) {
+          blocks.read((int) (b / IO.BLOCKSIZE), buffer.data);
+          buffers.cache();
+        }
+      } else {
+        handle.lock();
+        try {
+          final RandomAccessFile f = raf();
+          if(b < f.length() && !buffers.cached()) {
+            f.seek(b);
+            f.readFully(buffer.data, 0, (int) Math.min(length - b, IO.BLOCKSIZE));
+            buffers.cache();
+          }
+        } finally {
+          handle.unlock();
+        }
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -306,6 +469,7 @@ public final class DataAccess implements Closeable {
    * @param len number of bytes to be written
    */
   public void writeBytes(final byte[] data, final int offset, final int len) {
+    if(mapping != null) mapping = null;
     final int last = offset + len;
     int o = offset;
 
@@ -342,6 +506,8 @@ public final class DataAccess implements Closeable {
    * @return new offset to store text
    */
   public long free(final long pos, final int size) {
+    // drop mapping to ensure that the cursor is moved
+    mapping = null;
     // old text size (available space)
     int os = readNum(pos) + (int) (cursor() - pos);
 
@@ -372,6 +538,25 @@ public final class DataAccess implements Closeable {
     return o;
   }
 
+  /**
+   * Truncates the file. All buffered data will be flushed.
+   * @param len new file length (must not be larger than the current length)
+   */
+  public synchronized void truncate(final long len) {
+    flush();
+    length(len);
+    flush();
+  }
+
+  /**
+   * Returns page cache statistics.
+   * @return statistics
+   */
+  public String info() {
+    final int r = reopened;
+    return buffers.info() + (r == 0 ? "" : ", " + r + " reopens");
+  }
+
   /**
    * Sets the file length.
    * @param len file length
@@ -399,6 +584,7 @@ public final class DataAccess implements Closeable {
    * @param value byte to be written
    */
   private void write(final int value) {
+    if(mapping != null) mapping = null;
     final Buffer buffer = buffer();
     buffer.dirty = true;
     buffer.data[off++] = (byte) value;
@@ -413,8 +599,21 @@ public final class DataAccess implements Closeable {
    */
   private void writeBlock(final Buffer buffer) throws IOException {
     final long pos = buffer.pos, len = Math.min(IO.BLOCKSIZE, length - pos);
-    raf.seek(pos);
-    raf.write(buffer.data, 0, (int) len);
+    if(log != null) {
+      if(len > 0) log.write(pos, buffer.data, (int) len);
+    } else if(blocks != null) {
+      blocks.write((int) (pos / IO.BLOCKSIZE), buffer.data, (int) len);
+    } else {
+      handle.lock();
+      try {
+        final RandomAccessFile f = raf();
+        f.seek(pos);
+        f.write(buffer.data, 0, (int) len);
+      } finally {
+        handle.unlock();
+      }
+    }
+    buffers.written(buffer);
     buffer.dirty = false;
   }
 
@@ -0,0 +1,119 @@
+package org.basex.io.random;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * Global budget for the file handles of database files (see {@link StaticOptions#FILEHANDLES}).
+ *
+ * If the budget is exceeded, the handles of the least recently used files are released. They
+ * will be reopened on the next disk access. Handles that are currently accessed are skipped,
+ * so the budget may temporarily be exceeded. Only the handles of uncompressed files without
+ * write-ahead log are managed; database tables are kept open, as they hold the database locks.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class FileHandles {
+  /** Global instance. */
+  private static final FileHandles INSTANCE = new FileHandles();
+
+  /** Open file handles (least recently used first). */
+  private final LinkedHashMap<DataAccess, Boolean> handles = new LinkedHashMap<>(16, 0.75f, true);
+  /** Maximum number of open file handles ({@code 0}: unlimited). */
+  private int budget;
+  /** Number of reopened file handles. */
+  private long reopened;
+  /** Number of released file handles. */
+  private long released;
+
+  /**
+   * Constructor.
+   */
+  FileHandles() { }
+
+  /**
+   * Returns the global instance.
+   * @return file handles
+   */
+  public static FileHandles get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Assigns the budget. If the budget is exceeded, file handles will be released.
+   * @param max maximum number of open file handles ({@code 0}: unlimited)
+   */
+  public synchronized void budget(final int max) {
+    budget = Math.max(0, max);
+    if(budget == 0) handles.clear();
+    else release(null);
+  }
+
+  /**
+   * Returns the budget.
+   * @return maximum number of open file handles ({@code 0}: unlimited)
+   */
+  public synchronized int budget() {
+    return budget;
+  }
+
+  /**
+   * Registers a file handle that has been opened or reopened.
+   * @param da file access
+   * @param reopen reopened flag
+   */
+  synchronized void opened(final DataAccess da, final boolean reopen) {
+    if(budget == 0) return;
+    if(reopen) reopened++;
+    handles.put(da, Boolean.TRUE);
+    release(da);
+  }
+
+  /**
+   * Marks a file handle as recently used.
+   * @param da file access
+   */
+  synchronized void used(final DataAccess da) {
+    if(budget != 0) handles.get(da);
+  }
+
+  /**
+   * Unregisters a file handle that has been closed.
+   * @param da file access
+   */
+  synchronized void closed(final DataAccess da) {
+    handles.remove(da);
+  }
+
+  /**
+   * Returns statistics on the file handles.
+   * @return statistics
+   */
+  public synchronized String info() {
+    return handles.size() + " open (budget: " + budget + "), " + reopened + " reopened, " +
+      released + " released";
+  }
+
+  /**
+   * Releases least recently used file handles until the budget is not exceeded anymore.
+   * @param current file access that will be accessed next (can be {@code null})
+   */
+  private void release(final DataAccess current) {
+    final Iterator<DataAccess> iter = handles.keySet().iterator();
+    while(handles.size() > budget && iter.hasNext()) {
+      final DataAccess da = iter.next();
+      if(da != current && da.release()) {
+        iter.remove();
+        released++;
+      }
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return Util.className(this) + '[' + info() + ']';
+  }
+}
@@ -0,0 +1,358 @@
+package org.basex.io.random;
+
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * First pre values of the pages of a table, in ascending order.
+ *
+ * The values are stored as differences to their predecessors in an implicit treap: the nodes
+ * are ordered by their page indexes, which are not stored, but derived from the sizes of the
+ * subtrees. Each node additionally stores the sum of the differences of its subtree. Single
+ * values can be looked up, assigned and shifted, the page containing a pre value can be found,
+ * and pages can be inserted and removed, in logarithmic time. The priorities of the nodes are
+ * derived from their ids.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+final class FirstPres {
+  /** Left children ({@code 0}: no child). */
+  private int[] left;
+  /** Right children ({@code 0}: no child). Free nodes are linked via this array. */
+  private int[] right;
+  /** Number of nodes of the subtrees. */
+  private int[] sizes;
+  /** Differences between first pre values and their predecessors. */
+  private int[] diffs;
+  /** Sums of the differences of the subtrees. */
+  private int[] sums;
+  /** Number of allocated node ids (id {@code 0} is reserved for missing children). */
+  private int ids;
+  /** Id of the first free node ({@code 0}: none). */
+  private int free;
+  /** Root node ({@code 0}: empty tree). */
+  private int root;
+  /** Number of pages. */
+  private int size;
+
+  /** Left tree, resulting from the last split. */
+  private int splitLeft;
+  /** Right tree, resulting from the last split. */
+  private int splitRight;
+
+  /**
+   * Constructor for a regular page mapping: all pages are completely filled.
+   * @param size number of pages
+   */
+  FirstPres(final int size) {
+    final int[] values = new int[size];
+    for(int i = 1; i < size; i++) values[i] = IO.ENTRIES;
+    init(values, size);
+  }
+
+  /**
+   * Constructor.
+   * @param fpres first pre values (ascending order, additional entries will be ignored)
+   * @param size number of pages
+   */
+  FirstPres(final int[] fpres, final int size) {
+    final int[] values = new int[size];
+    for(int i = Math.min(fpres.length, size) - 1; i > 0; i--) values[i] = fpres[i] - fpres[i - 1];
+    if(size > 0 && fpres.length > 0) values[0] = fpres[0];
+    init(values, size);
+  }
+
+  /**
+   * Returns the first pre value of the specified page.
+   * @param page page index
+   * @return pre value (sum of all values if the page does not exist)
+   */
+  int get(final int page) {
+    int sum = 0;
+    for(int n = root, k = page; n != 0;) {
+      final int l = left[n], ls = sizes[l];
+      if(k < ls) {
+        n = l;
+      } else {
+        sum += sums[l] + diffs[n];
+        if(k == ls) break;
+        k -= ls + 1;
+        n = right[n];
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Assigns the first pre value of the specified page.
+   * The values of all other pages remain unchanged.
+   * @param page page index
+   * @param pre pre value
+   */
+  void set(final int page, final int pre) {
+    final int diff = pre - get(page);
+    add(page, diff);
+    if(page + 1 < size) add(page + 1, -diff);
+  }
+
+  /**
+   * Shifts the first pre values of the specified page and all subsequent pages.
+   * @param page index of first page
+   * @param count number of entries to add (can be negative)
+   */
+  void shift(final int page, final int count) {
+    if(page < size) add(page, count);
+  }
+
+  /**
+   * Returns the index of the last page with a first pre value smaller than or equal to the
+   * specified value. As no values are changed, this function can be called concurrently.
+   * @param pre pre value
+   * @return page index
+   */
+  int find(final int pre) {
+    int page = 0, rem = pre;
+    for(int n = root; n != 0;) {
+      final int l = left[n], sum = sums[l] + diffs[n];
+      if(sum <= rem) {
+        rem -= sum;
+        page += sizes[l] + 1;
+        n = right[n];
+      } else {
+        n = l;
+      }
+    }
+    return Math.max(0, page - 1);
+  }
+
+  /**
+   * Inserts pages. The first pre values of the new pages are identical to the value
+   * of the preceding page until they are assigned.
+   * @param page index of first page to insert
+   * @param count number of pages
+   */
+  void insert(final int page, final int count) {
+    split(root, page);
+    final int l = splitLeft, r = splitRight;
+    root = merge(merge(l, build(new int[count], count)), r);
+    size += count;
+  }
+
+  /**
+   * Removes pages. The first pre values of the subsequent pages remain unchanged.
+   * @param page index of first page to remove
+   * @param count number of pages
+   */
+  void remove(final int page, final int count) {
+    split(root, page);
+    final int l = splitLeft;
+    split(splitRight, count);
+    final int m = splitLeft, r = splitRight, sum = sums[m];
+    release(m);
+    root = merge(l, r);
+    size -= count;
+    // assign the differences of the removed pages to the next page
+    if(page < size) add(page, sum);
+  }
+
+  /**
+   * Returns the first pre values.
+   * @param length length of the resulting array (must be equal to or larger than the size)
+   * @return first pre values
+   */
+  int[] toArray(final int length) {
+    final int[] fpres = new int[length];
+    // in-order traversal
+    final IntList stack = new IntList();
+    int n = root, i = 0, pre = 0;
+    while(n != 0 || !stack.isEmpty()) {
+      while(n != 0) {
+        stack.add(n);
+        n = left[n];
+      }
+      n = stack.pop();
+      pre += diffs[n];
+      fpres[i++] = pre;
+      n = right[n];
+    }
+    return fpres;
+  }
+
+  /**
+   * Initializes the tree.
+   * @param values differences
+   * @param count number of differences
+   */
+  private void init(final int[] values, final int count) {
+    final int cap = count + 1;
+    left = new int[cap];
+    right = new int[cap];
+    sizes = new int[cap];
+    diffs = new int[cap];
+    sums = new int[cap];
+    root = build(values, count);
+    size = count;
+  }
+
+  /**
+   * Adds a value to the specified difference.
+   * @param page page index
+   * @param value value to add
+   */
+  private void add(final int page, final int value) {
+    for(int n = root, k = page; n != 0;) {
+      sums[n] += value;
+      final int l = left[n], ls = sizes[l];
+      if(k < ls) {
+        n = l;
+      } else if(k == ls) {
+        diffs[n] += value;
+        break;
+      } else {
+        k -= ls + 1;
+        n = right[n];
+      }
+    }
+  }
+
+  /**
+   * Builds a tree from the specified differences in linear time.
+   * @param values differences
+   * @param count number of differences
+   * @return root node
+   */
+  private int build(final int[] values, final int count) {
+    final int[] stack = new int[count];
+    int sp = 0;
+    for(int i = 0; i < count; i++) {
+      final int n = node(values[i]), prio = priority(n);
+      int last = 0;
+      while(sp > 0 && priority(stack[sp - 1]) < prio) {
+        last = stack[--sp];
+        update(last);
+      }
+      left[n] = last;
+      if(sp > 0) right[stack[sp - 1]] = n;
+      stack[sp++] = n;
+    }
+    while(sp > 1) update(stack[--sp]);
+    if(sp == 0) return 0;
+    update(stack[0]);
+    return stack[0];
+  }
+
+  /**
+   * Splits a tree. The resulting trees are assigned to {@link #splitLeft} and
+   * {@link #splitRight}.
+   * @param n root node
+   * @param count number of nodes of the left tree
+   */
+  private void split(final int n, final int count) {
+    if(n == 0) {
+      splitLeft = 0;
+      splitRight = 0;
+    } else {
+      final int ls = sizes[left[n]];
+      if(count <= ls) {
+        split(left[n], count);
+        left[n] = splitRight;
+        splitRight = n;
+      } else {
+        split(right[n], count - ls - 1);
+        right[n] = splitLeft;
+        splitLeft = n;
+      }
+      update(n);
+    }
+  }
+
+  /**
+   * Merges two trees.
+   * @param l root of the left tree
+   * @param r root of the right tree
+   * @return root of the merged tree
+   */
+  private int merge(final int l, final int r) {
+    if(l == 0) return r;
+    if(r == 0) return l;
+    if(priority(l) > priority(r)) {
+      right[l] = merge(right[l], r);
+      update(l);
+      return l;
+    }
+    left[r] = merge(l, left[r]);
+    update(r);
+    return r;
+  }
+
+  /**
+   * Returns a new node.
+   * @param diff difference
+   * @return node
+   */
+  private int node(final int diff) {
+    int n = free;
+    if(n != 0) {
+      free = right[n];
+    } else {
+      n = ++ids;
+      if(n == left.length) {
+        final int cap = Array.newCapacity(n);
+        left = Arrays.copyOf(left, cap);
+        right = Arrays.copyOf(right, cap);
+        sizes = Arrays.copyOf(sizes, cap);
+        diffs = Arrays.copyOf(diffs, cap);
+        sums = Arrays.copyOf(sums, cap);
+      }
+    }
+    left[n] = 0;
+    right[n] = 0;
+    sizes[n] = 1;
+    diffs[n] = diff;
+    sums[n] = diff;
+    return n;
+  }
+
+  /**
+   * Adds the nodes of a tree to the free nodes.
+   * @param n root node
+   */
+  private void release(final int n) {
+    if(n == 0) return;
+    release(left[n]);
+    release(right[n]);
+    right[n] = free;
+    free = n;
+  }
+
+  /**
+   * Updates the size and sum of a node.
+   * @param n node
+   */
+  private void update(final int n) {
+    final int l = left[n], r = right[n];
+    sizes[n] = sizes[l] + sizes[r] + 1;
+    sums[n] = sums[l] + sums[r] + diffs[n];
+  }
+
+  /**
+   * Returns the pseudo-random priority of a node.
+   * @param n node
+   * @return priority
+   */
+  private static int priority(final int n) {
+    int h = n * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    return h ^ h >>> 13;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray(size));
+  }
+}
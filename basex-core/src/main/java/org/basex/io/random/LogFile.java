@@ -0,0 +1,329 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.util.*;
+import java.util.Map.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * Pages of a database file that are managed by a {@link WriteAheadLog}. Pages that are written
+ * by the buffer managers are kept in main memory until the next checkpoint. Pages that have not
+ * been logged yet will be added to the next committed log record.
+ *
+ * If snapshots are enabled, the committed versions of all pages are additionally stored with the
+ * epoch of their commit. Pages are never changed in place: a new array is created whenever a page
+ * is written, so versions share their arrays with the pending pages. Versions that are not visible
+ * to any snapshot anymore are discarded.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+class LogFile {
+  /** Name of the file. */
+  final String name;
+  /** Write-ahead log. */
+  private final WriteAheadLog wal;
+  /** Data file. */
+  private final IOFile file;
+  /** File access. */
+  private final RandomAccessFile raf;
+  /** Compressed blocks (can be {@code null}). */
+  private final CompressedFile blocks;
+
+  /** Pages that have not been written to the file yet, indexed by their file positions. */
+  private final TreeMap<Long, byte[]> pages = new TreeMap<>();
+  /** Positions of the pages that have not been logged yet. */
+  private final TreeSet<Long> unlogged = new TreeSet<>();
+  /** New file length ({@code -1}: unchanged). */
+  private long length = -1;
+  /** Indicates if the file length has been logged. */
+  private boolean logged = true;
+
+  /** Committed versions of pages, indexed by file positions and epochs (used by snapshots). */
+  private final HashMap<Long, TreeMap<Long, byte[]>> versions = new HashMap<>();
+  /** Committed file lengths, indexed by epochs (used by snapshots). */
+  private final TreeMap<Long, Long> lengths = new TreeMap<>();
+
+  /**
+   * Constructor.
+   * @param wal write-ahead log
+   * @param file data file
+   * @param raf file access
+   * @param blocks compressed blocks (can be {@code null})
+   */
+  LogFile(final WriteAheadLog wal, final IOFile file, final RandomAccessFile raf,
+      final CompressedFile blocks) {
+    this.wal = wal;
+    this.file = file;
+    this.raf = raf;
+    this.blocks = blocks;
+    name = file.name();
+  }
+
+  /**
+   * Returns the pages of a database file that are managed by the write-ahead log, or a view on
+   * the committed pages if the database is a snapshot.
+   * @param meta meta data
+   * @param file data file
+   * @param raf file access
+   * @param blocks compressed blocks (can be {@code null})
+   * @return pages, or {@code null} if the file is not logged
+   */
+  static LogFile get(final MetaData meta, final IOFile file, final RandomAccessFile raf,
+      final CompressedFile blocks) {
+    return meta.snapshot != null ? meta.snapshot.view(file) :
+      meta.wal != null ? meta.wal.register(file, raf, blocks) : null;
+  }
+
+  /**
+   * Adds a page that has been changed.
+   * @param pos file position
+   * @param data page data
+   * @param len number of bytes to write
+   */
+  synchronized void write(final long pos, final byte[] data, final int len) {
+    pages.put(pos, Arrays.copyOf(data, len));
+    unlogged.add(pos);
+  }
+
+  /**
+   * Reads a page that has not been written to the file yet.
+   * @param pos file position
+   * @param data target array
+   * @return {@code true} if the page was found
+   */
+  synchronized boolean read(final long pos, final byte[] data) {
+    final byte[] page = pages.get(pos);
+    if(page == null) return false;
+    System.arraycopy(page, 0, data, 0, page.length);
+    return true;
+  }
+
+  /**
+   * Assigns a new file length.
+   * @param len file length
+   */
+  synchronized void length(final long len) {
+    // discard pages beyond the new file length
+    final long first = (len + IO.BLOCKSIZE - 1) / IO.BLOCKSIZE * IO.BLOCKSIZE;
+    pages.tailMap(first).clear();
+    unlogged.tailSet(first).clear();
+    length = len;
+    logged = false;
+  }
+
+  /**
+   * Returns the length of the file.
+   * @param len length of the file on disk
+   * @return file length
+   */
+  synchronized long fileLength(final long len) {
+    return length != -1 ? length : len;
+  }
+
+  /**
+   * Checks if all changes have been written to the file.
+   * @return result of check
+   */
+  synchronized boolean isEmpty() {
+    return pages.isEmpty() && length == -1;
+  }
+
+  /**
+   * Writes all pages and the file length that have not been logged yet.
+   * @param out log output
+   * @param epoch epoch of the commit ({@code -1}: do not store versions)
+   * @param oldest oldest epoch that is visible to snapshots
+   * @throws IOException I/O exception
+   */
+  synchronized void log(final DataOutputStream out, final long epoch, final long oldest)
+      throws IOException {
+    for(final long pos : unlogged) {
+      final byte[] page = pages.get(pos);
+      WriteAheadLog.page(out, name, pos, page);
+      if(epoch != -1) {
+        final TreeMap<Long, byte[]> chain = versions.computeIfAbsent(pos, p -> new TreeMap<>());
+        chain.put(epoch, page);
+        discard(chain, oldest);
+      }
+    }
+    unlogged.clear();
+    if(!logged) {
+      WriteAheadLog.length(out, name, length);
+      if(epoch != -1) {
+        lengths.put(epoch, length);
+        discard(lengths, oldest);
+      }
+      logged = true;
+    }
+  }
+
+  /**
+   * Reads a page in the version that was committed up to the specified epoch.
+   * @param pos file position
+   * @param data target array
+   * @param epoch epoch
+   * @return {@code true} if the page was found
+   */
+  synchronized boolean read(final long pos, final byte[] data, final long epoch) {
+    final TreeMap<Long, byte[]> chain = versions.get(pos);
+    final Entry<Long, byte[]> entry = chain != null ? chain.floorEntry(epoch) : null;
+    if(entry == null) return false;
+    final byte[] page = entry.getValue();
+    System.arraycopy(page, 0, data, 0, page.length);
+    return true;
+  }
+
+  /**
+   * Returns the file length that was committed up to the specified epoch.
+   * @param epoch epoch
+   * @return file length, or {@code -1} if the length has not been changed
+   */
+  synchronized long committedLength(final long epoch) {
+    final Entry<Long, Long> entry = lengths.floorEntry(epoch);
+    return entry != null ? entry.getValue() : -1;
+  }
+
+  /**
+   * Discards all versions that are not visible to snapshots anymore.
+   * @param oldest oldest epoch that is visible to snapshots
+   */
+  synchronized void discard(final long oldest) {
+    for(final TreeMap<Long, byte[]> chain : versions.values()) discard(chain, oldest);
+    discard(lengths, oldest);
+  }
+
+  /**
+   * Returns a read-only view on the pages that were committed up to the specified epoch.
+   * @param epoch epoch
+   * @return view
+   */
+  LogFile view(final long epoch) {
+    return new LogFile(wal, file, raf, blocks) {
+      @Override
+      synchronized void write(final long pos, final byte[] data, final int len) {
+        throw Util.notExpected("Snapshot of % cannot be updated.", name);
+      }
+
+      @Override
+      synchronized void length(final long len) {
+        throw Util.notExpected("Snapshot of % cannot be updated.", name);
+      }
+
+      @Override
+      synchronized boolean read(final long pos, final byte[] data) {
+        return LogFile.this.read(pos, data, epoch);
+      }
+
+      @Override
+      synchronized boolean isEmpty() {
+        return false;
+      }
+
+      @Override
+      synchronized long fileLength(final long len) {
+        final long l = LogFile.this.committedLength(epoch);
+        return l != -1 ? l : len;
+      }
+
+      @Override
+      void close() { }
+    };
+  }
+
+  /**
+   * Writes all pages to the file and synchronizes it with the storage device.
+   * @throws IOException I/O exception
+   */
+  synchronized void checkpoint() throws IOException {
+    if(isEmpty()) return;
+    for(final Entry<Long, byte[]> page : pages.entrySet()) {
+      write(page.getKey(), page.getValue(), raf, blocks);
+    }
+    if(length != -1) length(length, raf, blocks);
+    sync(raf, blocks, file);
+    pages.clear();
+    unlogged.clear();
+    versions.clear();
+    lengths.clear();
+    length = -1;
+    logged = true;
+  }
+
+  /**
+   * Logs and writes all pages to the file and unregisters it.
+   * @throws IOException I/O exception
+   */
+  void close() throws IOException {
+    wal.commit();
+    checkpoint();
+    wal.unregister(this);
+  }
+
+  /**
+   * Discards all versions of a chain that are older than the newest version that is visible
+   * to the oldest snapshot.
+   * @param chain versions, indexed by epochs
+   * @param oldest oldest epoch that is visible to snapshots
+   */
+  static void discard(final TreeMap<Long, ?> chain, final long oldest) {
+    final Long epoch = chain.floorKey(oldest);
+    if(epoch != null) chain.headMap(epoch).clear();
+  }
+
+  /**
+   * Writes a page to the specified file.
+   * @param pos file position
+   * @param page page data
+   * @param raf file access
+   * @param blocks compressed blocks (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void write(final long pos, final byte[] page, final RandomAccessFile raf,
+      final CompressedFile blocks) throws IOException {
+    if(blocks != null) {
+      blocks.write((int) (pos / IO.BLOCKSIZE), page, page.length);
+    } else {
+      raf.seek(pos);
+      raf.write(page);
+    }
+  }
+
+  /**
+   * Assigns the length of the specified file.
+   * @param len file length
+   * @param raf file access
+   * @param blocks compressed blocks (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void length(final long len, final RandomAccessFile raf, final CompressedFile blocks)
+      throws IOException {
+    if(blocks != null) blocks.length(len);
+    else raf.setLength(len);
+  }
+
+  /**
+   * Synchronizes the specified file and its directory of compressed blocks with the storage
+   * device.
+   * @param raf file access
+   * @param blocks compressed blocks (can be {@code null})
+   * @param file data file
+   * @throws IOException I/O exception
+   */
+  static void sync(final RandomAccessFile raf, final CompressedFile blocks, final IOFile file)
+      throws IOException {
+    raf.getFD().sync();
+    if(blocks != null) {
+      blocks.flush();
+      WriteAheadLog.sync(CompressedFile.directory(file));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return name + "[pages: " + pages.size() + ", unlogged: " + unlogged.size() + ']';
+  }
+}
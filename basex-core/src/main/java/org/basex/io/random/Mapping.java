@@ -0,0 +1,138 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+
+import org.basex.util.*;
+
+/**
+ * Read-only memory mapping of a database file.
+ * The file is split into segments, which are mapped separately. As only absolute reads are
+ * performed, an instance of this class can be accessed by multiple threads without locking.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+final class Mapping {
+  /** Segment size power (must be a multiple of the block size). */
+  private static final int POWER = 30;
+  /** Segment size. */
+  private static final int SIZE = 1 << POWER;
+
+  /** Mapped segments. */
+  private final ByteBuffer[] segments;
+  /** Length of the mapped file. */
+  final long length;
+
+  /**
+   * Constructor.
+   * @param channel file channel
+   * @throws IOException I/O exception
+   */
+  Mapping(final FileChannel channel) throws IOException {
+    length = channel.size();
+    final int sl = (int) (length + SIZE - 1 >>> POWER);
+    segments = new ByteBuffer[sl];
+    for(int s = 0; s < sl; s++) {
+      final long pos = (long) s << POWER;
+      segments[s] = channel.map(MapMode.READ_ONLY, pos, Math.min(SIZE, length - pos));
+    }
+  }
+
+  /**
+   * Reads a byte value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read1(final long pos) {
+    return segments[(int) (pos >>> POWER)].get((int) pos & SIZE - 1) & 0xFF;
+  }
+
+  /**
+   * Reads a short value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read2(final long pos) {
+    final ByteBuffer bb = segments[(int) (pos >>> POWER)];
+    final int o = (int) pos & SIZE - 1;
+    if(o > SIZE - 2) return (read1(pos) << 8) + read1(pos + 1);
+    return ((bb.get(o) & 0xFF) << 8) + (bb.get(o + 1) & 0xFF);
+  }
+
+  /**
+   * Reads an integer value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read4(final long pos) {
+    final ByteBuffer bb = segments[(int) (pos >>> POWER)];
+    final int o = (int) pos & SIZE - 1;
+    if(o > SIZE - 4) return (read2(pos) << 16) + read2(pos + 2);
+    return ((bb.get(o) & 0xFF) << 24) + ((bb.get(o + 1) & 0xFF) << 16) +
+      ((bb.get(o + 2) & 0xFF) << 8) + (bb.get(o + 3) & 0xFF);
+  }
+
+  /**
+   * Reads a 5-byte value.
+   * @param pos file position
+   * @return long value
+   */
+  long read5(final long pos) {
+    final ByteBuffer bb = segments[(int) (pos >>> POWER)];
+    final int o = (int) pos & SIZE - 1;
+    if(o > SIZE - 5) return ((long) read1(pos) << 32) + (read4(pos + 1) & 0xFFFFFFFFL);
+    return ((long) (bb.get(o) & 0xFF) << 32) + ((long) (bb.get(o + 1) & 0xFF) << 24) +
+      ((bb.get(o + 2) & 0xFF) << 16) + ((bb.get(o + 3) & 0xFF) << 8) + (bb.get(o + 4) & 0xFF);
+  }
+
+  /**
+   * Reads a compressed number (see {@link Num}).
+   * @param pos file position
+   * @return integer value
+   */
+  int readNum(final long pos) {
+    final int value = read1(pos);
+    switch(value & 0xC0) {
+      case 0:
+        return value;
+      case 0x40:
+        return (value - 0x40 << 8) + read1(pos + 1);
+      case 0x80:
+        return (value - 0x80 << 24) + (read1(pos + 1) << 16) + read2(pos + 2);
+      default:
+        return read4(pos + 1);
+    }
+  }
+
+  /**
+   * Reads a number of bytes.
+   * @param pos file position
+   * @param len number of bytes
+   * @return byte array
+   */
+  byte[] readBytes(final long pos, final int len) {
+    final byte[] array = new byte[len];
+    int s = (int) (pos >>> POWER), o = (int) pos & SIZE - 1;
+    for(int a = 0; a < len; a++) {
+      if(o == SIZE) {
+        s++;
+        o = 0;
+      }
+      array[a] = segments[s].get(o++);
+    }
+    return array;
+  }
+
+  /**
+   * Reads a token, represented by its compressed length and its bytes.
+   * @param pos file position
+   * @return byte array
+   */
+  byte[] readToken(final long pos) {
+    final int len = readNum(pos);
+    return readBytes(pos + Num.length(len), len);
+  }
+}
@@ -0,0 +1,294 @@
+package org.basex.io.random;
+
+import java.util.*;
+import java.util.Map.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * Global page cache, which is shared by all database files.
+ *
+ * Pages are evicted with a simplified 2Q strategy: pages that are requested for the first time
+ * are added to a FIFO queue. If a page is requested again after it has been evicted from this
+ * queue, it is added to a LRU queue. As a result, pages that are accessed only once
+ * (e.g. when a database is scanned) will not evict frequently accessed pages.
+ *
+ * The cache is split into segments, which are chosen by the hash of the page key and locked
+ * separately. Concurrent accesses to different pages will thus rarely block each other.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class PageCache {
+  /** Global instance. */
+  private static final PageCache INSTANCE = new PageCache();
+  /** Counter for owner ids. */
+  private static final AtomicLong ID = new AtomicLong();
+  /** Maximum number of segments (must be 1 << n). */
+  private static final int SEGMENTS = 1 << 4;
+  /** Minimum number of pages per segment. */
+  private static final int PAGES = 1 << 8;
+
+  /** Segments (the number of segments is a power of two). */
+  private volatile Segment[] segments = { new Segment(0) };
+
+  /**
+   * Constructor.
+   */
+  PageCache() { }
+
+  /**
+   * Returns the global instance.
+   * @return page cache
+   */
+  public static PageCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Assigns the memory budget. If the budget changes, cached pages will be discarded.
+   * @param bytes maximum number of bytes ({@code 0}: disable caching)
+   */
+  public synchronized void budget(final long bytes) {
+    final int cap = (int) Math.min(Integer.MAX_VALUE, Math.max(0, bytes) / IO.BLOCKSIZE);
+    final Segment[] segs = segments;
+    int capacity = 0;
+    for(final Segment segment : segs) capacity += segment.capacity;
+    if(cap == capacity) return;
+
+    final int sl = Math.max(1, Math.min(SEGMENTS, Integer.highestOneBit(cap / PAGES)));
+    final Segment[] tmp = new Segment[sl];
+    for(int s = 0; s < sl; s++) tmp[s] = new Segment(cap / sl + (s < cap % sl ? 1 : 0));
+    segments = tmp;
+  }
+
+  /**
+   * Returns a new owner id.
+   * @return id
+   */
+  static long id() {
+    return ID.incrementAndGet();
+  }
+
+  /**
+   * Returns the cache key for the specified owner and page position.
+   * @param id owner id
+   * @param pos page position
+   * @return key
+   */
+  static Key key(final long id, final long pos) {
+    return new Key(id, pos);
+  }
+
+  /**
+   * Copies a cached page to the specified array.
+   * @param key cache key
+   * @param data target array
+   * @return {@code true} if the page was cached
+   */
+  boolean read(final Key key, final byte[] data) {
+    return segment(key).read(key, data);
+  }
+
+  /**
+   * Adds a page that has been read from disk.
+   * @param key cache key
+   * @param data page data
+   */
+  void add(final Key key, final byte[] data) {
+    segment(key).add(key, data);
+  }
+
+  /**
+   * Updates a page that has been written to disk, if it exists in the cache.
+   * @param key cache key
+   * @param data page data
+   */
+  void update(final Key key, final byte[] data) {
+    segment(key).update(key, data);
+  }
+
+  /**
+   * Removes all pages of the specified owner.
+   * @param id owner id
+   */
+  void remove(final long id) {
+    for(final Segment segment : segments) segment.remove(id);
+  }
+
+  /**
+   * Returns the segment for the specified key.
+   * @param key cache key
+   * @return segment
+   */
+  private Segment segment(final Key key) {
+    final Segment[] segs = segments;
+    // use other bits than the hash maps of the segments
+    return segs[key.hash * 0x9E3779B9 >>> 24 & segs.length - 1];
+  }
+
+  @Override
+  public String toString() {
+    int capacity = 0, in = 0, main = 0, out = 0;
+    final Segment[] segs = segments;
+    for(final Segment segment : segs) {
+      synchronized(segment) {
+        capacity += segment.capacity;
+        in += segment.in.size();
+        main += segment.main.size();
+        out += segment.out.size();
+      }
+    }
+    return Util.className(this) + "[capacity: " + capacity + ", segments: " + segs.length +
+        ", in: " + in + ", main: " + main + ", out: " + out + ']';
+  }
+
+  /**
+   * Segment of the cache.
+   */
+  private static final class Segment {
+    /** Pages that have been accessed once (FIFO). */
+    private final LinkedHashMap<Key, byte[]> in = new LinkedHashMap<>();
+    /** Pages that have been accessed repeatedly (LRU). */
+    private final LinkedHashMap<Key, byte[]> main = new LinkedHashMap<>(16, 0.75f, true);
+    /** Keys of pages that have recently been evicted from the FIFO queue. */
+    private final LinkedHashMap<Key, Boolean> out = new LinkedHashMap<>();
+    /** Maximum number of cached pages. */
+    private final int capacity;
+    /** Array of an evicted page, which will be reused for the next page (can be {@code null}). */
+    private byte[] spare;
+
+    /**
+     * Constructor.
+     * @param capacity maximum number of cached pages
+     */
+    Segment(final int capacity) {
+      this.capacity = capacity;
+    }
+
+    /**
+     * Copies a cached page to the specified array.
+     * @param key cache key
+     * @param data target array
+     * @return {@code true} if the page was cached
+     */
+    synchronized boolean read(final Key key, final byte[] data) {
+      byte[] page = main.get(key);
+      if(page == null) page = in.get(key);
+      if(page == null) return false;
+      Array.copyFromStart(page, page.length, data, 0);
+      return true;
+    }
+
+    /**
+     * Adds a page that has been read from disk.
+     * @param key cache key
+     * @param data page data
+     */
+    synchronized void add(final Key key, final byte[] data) {
+      if(capacity == 0) return;
+
+      byte[] page = spare;
+      if(page != null && page.length == data.length) {
+        Array.copyFromStart(data, data.length, page, 0);
+        spare = null;
+      } else {
+        page = data.clone();
+      }
+      if(out.remove(key) != null) main.put(key, page);
+      else in.put(key, page);
+
+      // evict pages from the FIFO queue, or from the LRU queue if the FIFO queue is small enough
+      while(in.size() + main.size() > capacity) {
+        if(in.size() > capacity >>> 2 || main.isEmpty()) {
+          final Iterator<Entry<Key, byte[]>> iter = in.entrySet().iterator();
+          final Entry<Key, byte[]> entry = iter.next();
+          out.put(entry.getKey(), Boolean.TRUE);
+          spare = entry.getValue();
+          iter.remove();
+          if(out.size() > capacity >>> 1) remove(out);
+        } else {
+          spare = remove(main);
+        }
+      }
+    }
+
+    /**
+     * Updates a page that has been written to disk, if it exists in the cache.
+     * @param key cache key
+     * @param data page data
+     */
+    synchronized void update(final Key key, final byte[] data) {
+      byte[] page = main.get(key);
+      if(page == null) page = in.get(key);
+      if(page != null) Array.copyFromStart(data, page.length, page, 0);
+    }
+
+    /**
+     * Removes all pages of the specified owner.
+     * @param id owner id
+     */
+    synchronized void remove(final long id) {
+      for(final Map<Key, ?> map : Arrays.asList(in, main, out)) {
+        map.keySet().removeIf(key -> key.id == id);
+      }
+    }
+
+    /**
+     * Removes the eldest entry from the specified map.
+     * @param <V> value type
+     * @param map map
+     * @return value of the removed entry
+     */
+    private static <V> V remove(final LinkedHashMap<Key, V> map) {
+      final Iterator<Entry<Key, V>> iter = map.entrySet().iterator();
+      final V value = iter.next().getValue();
+      iter.remove();
+      return value;
+    }
+  }
+
+  /**
+   * Cache key, consisting of the owner id and the page position.
+   */
+  static final class Key {
+    /** Owner id. */
+    final long id;
+    /** Page position. */
+    final long pos;
+    /** Hash code. */
+    private final int hash;
+
+    /**
+     * Constructor.
+     * @param id owner id
+     * @param pos page position
+     */
+    Key(final long id, final long pos) {
+      this.id = id;
+      this.pos = pos;
+      final int h = Long.hashCode(id * 31 + pos);
+      hash = h ^ h >>> 16;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if(this == obj) return true;
+      if(!(obj instanceof Key)) return false;
+      final Key key = (Key) obj;
+      return id == key.id && pos == key.pos;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return id + ":" + pos;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.basex.io.random;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+
+/**
+ * Snapshot of a database that is opened with a write-ahead log (see {@link StaticOptions#MVCC}).
+ * A snapshot pins the epoch of the last commit. Pages and files are read in the version that was
+ * committed up to this epoch; all other pages are read from disk.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class Snapshot {
+  /** Database instance that is updated. */
+  public final Data data;
+  /** Write-ahead log. */
+  private final WriteAheadLog wal;
+  /** Pinned epoch. */
+  private final long epoch;
+
+  /**
+   * Constructor.
+   * @param data database instance that is updated
+   * @param wal write-ahead log
+   * @param epoch pinned epoch
+   */
+  private Snapshot(final Data data, final WriteAheadLog wal, final long epoch) {
+    this.data = data;
+    this.wal = wal;
+    this.epoch = epoch;
+  }
+
+  /**
+   * Pins the epoch of the last commit and returns a snapshot.
+   * @param data database instance that is updated
+   * @return snapshot, or {@code null} if snapshots are currently blocked
+   */
+  public static Snapshot pin(final Data data) {
+    final WriteAheadLog wal = data.meta.wal;
+    final long epoch = wal.pin();
+    return epoch != -1 ? new Snapshot(data, wal, epoch) : null;
+  }
+
+  /**
+   * Returns the input for a file that is written at once.
+   * @param file file
+   * @return input
+   */
+  public IO input(final IOFile file) {
+    return wal.input(file, epoch);
+  }
+
+  /**
+   * Releases the snapshot.
+   */
+  public void release() {
+    wal.unpin(epoch);
+  }
+
+  /**
+   * Returns a read-only view on the committed pages of a database file.
+   * @param file data file
+   * @return view, or {@code null} if the file has not been changed
+   */
+  LogFile view(final IOFile file) {
+    return wal.view(file, epoch);
+  }
+
+  @Override
+  public String toString() {
+    return data.meta.name + '@' + epoch;
+  }
+}
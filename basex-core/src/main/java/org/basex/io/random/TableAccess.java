@@ -5,6 +5,7 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.util.*;
 
 /**
  * This abstract class defines the methods for accessing the
@@ -40,6 +41,12 @@ public abstract class TableAccess {
    */
   public abstract void close() throws IOException;
 
+  /**
+   * Adds information on the table storage.
+   * @param tb token builder
+   */
+  public abstract void info(TokenBuilder tb);
+
   /**
    * Tries to acquires a lock on the table. If a lock exists, it is first released.
    * @param write write/read lock
@@ -1,5 +1,6 @@
 package org.basex.io.random;
 
+import static org.basex.core.Text.*;
 import static org.basex.data.DataText.*;
 
 import java.io.*;
@@ -25,13 +26,19 @@ public final class TableDiskAccess extends TableAccess {
   private final Buffers buffers = new Buffers();
   /** File storing all pages. */
   private final RandomAccessFile file;
+  /** Compressed pages (can be {@code null}). */
+  private final CompressedFile blocks;
+  /** Pages managed by the write-ahead log (can be {@code null}). */
+  private final LogFile log;
   /** Bitmap storing free (=0) and used (=1) pages. */
   private BitArray usedPages;
   /** File lock. */
   private FileLock lock;
+  /** Memory mapping for lock-free read access (can be {@code null}). */
+  private volatile Mapping mapping;
 
-  /** First pre values (ascending order); will be initialized with the first update. */
-  private int[] fPreIndex;
+  /** First pre values of the pages; will be initialized with the first update. */
+  private FirstPres fPreIndex;
   /** Page index; will be initialized with the first update. */
   private int[] pageIndex;
   /** Total number of pages. */
@@ -56,7 +63,7 @@ public final class TableDiskAccess extends TableAccess {
     super(meta);
 
     // read meta and index data
-    try(DataInput in = new DataInput(meta.dbFile(DATATBL + 'i'))) {
+    try(DataInput in = new DataInput(meta.input(DATATBL + 'i'))) {
       // total number of pages
       pages = in.readNum();
       // number of used pages (0: empty table; MAX: no mapping)
@@ -66,7 +73,7 @@ public final class TableDiskAccess extends TableAccess {
         used = pages;
       } else if(used != 0) {
         // read page index and first pre values from disk
-        fPreIndex = in.readNums();
+        fPreIndex = new FirstPres(in.readNums(), used);
         pageIndex = in.readNums();
         // read block bitmap
         final int s = in.readNum();
@@ -76,7 +83,10 @@ public final class TableDiskAccess extends TableAccess {
 
     // initialize data file
     file = new RandomAccessFile(meta.dbFile(DATATBL).file(), "rw");
-    if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, meta.name);
+    blocks = CompressedFile.open(meta.dbFile(DATATBL), file);
+    log = LogFile.get(meta, meta.dbFile(DATATBL), file, blocks);
+    // snapshots are read without file locks, as the table is locked by the updated instance
+    if(meta.snapshot == null && !lock(write)) throw new BaseXException(Text.DB_PINNED_X, meta.name);
   }
 
   /**
@@ -102,16 +112,18 @@ public final class TableDiskAccess extends TableAccess {
     for(final Buffer buffer : buffers.all()) {
       write(buffer);
     }
+    if(blocks != null && log == null) blocks.flush();
     if(!dirty || !all) return;
 
-    try(DataOutput out = new DataOutput(meta.dbFile(DATATBL + 'i'))) {
+    try(DataOutput out = meta.output(DATATBL + 'i')) {
       final int p = pages;
       boolean regular = true;
 
       // check if page mapping is regular (are all pages used and in ascending order?)
-      if(fPreIndex != null) {
+      final int[] fpres = fPreIndex != null ? fPreIndex.toArray(p) : null;
+      if(fpres != null) {
         regular = p == used;
-        for(int i = 0; i < p && regular; i++) regular = fPreIndex[i] == i * IO.ENTRIES;
+        for(int i = 0; i < p && regular; i++) regular = fpres[i] == i * IO.ENTRIES;
         for(int i = 0; i < p && regular; i++) regular = pageIndex[i] == i;
         if(regular) removeMapping();
       }
@@ -124,7 +136,7 @@ public final class TableDiskAccess extends TableAccess {
         out.writeNum(p);
         out.writeNum(used);
         out.writeNum(p);
-        for(int s = 0; s < p; s++) out.writeNum(fPreIndex[s]);
+        for(int s = 0; s < p; s++) out.writeNum(fpres[s]);
         out.writeNum(p);
         for(int s = 0; s < p; s++) out.writeNum(pageIndex[s]);
         out.writeLongs(usedPages.toArray());
@@ -135,10 +147,22 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void close() throws IOException {
+    mapping = null;
     flush(true);
+    buffers.close();
+    if(log != null) log.close();
     file.close();
   }
 
+  @Override
+  public synchronized void info(final TokenBuilder tb) {
+    // fragmentation: percentage of unused entries in all pages
+    final long entries = (long) pages * IO.ENTRIES, unused = entries - meta.size;
+    tb.add(LI_TABLE).addInt(pages).add(' ').add(PAGES).add(", ").add(FRAGMENTATION).add(COLS);
+    tb.addLong(entries == 0 ? 0 : unused * 100 / entries).add("%, ");
+    tb.add(PAGE_CACHE).add(COLS).add(buffers.info()).add(NL);
+  }
+
   @Override
   public boolean lock(final boolean write) {
     try {
@@ -146,45 +170,66 @@ public final class TableDiskAccess extends TableAccess {
         if(write != lock.isShared()) return true;
         lock.release();
       }
+      // updates will be performed on the buffers: invalidate memory mapping
+      if(write) mapping = null;
       lock = file.getChannel().tryLock(0, Long.MAX_VALUE, !write);
-      return lock != null;
+      if(lock == null) return false;
+      if(!write && meta.mmap && blocks == null && (log == null || log.isEmpty())) map();
+      return true;
     } catch(final IOException ex) {
       throw Util.notExpected(ex);
     }
   }
 
   @Override
-  public synchronized int read1(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return data[o] & 0xFF;
+  public int read1(final int pre, final int offset) {
+    final Mapping map = mapping;
+    if(map != null) return map.read1(position(map, pre) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return data[o] & 0xFF;
+    }
   }
 
   @Override
-  public synchronized int read2(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+  public int read2(final int pre, final int offset) {
+    final Mapping map = mapping;
+    if(map != null) return map.read2(position(map, pre) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized int read4(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
-      ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+  public int read4(final int pre, final int offset) {
+    final Mapping map = mapping;
+    if(map != null) return map.read4(position(map, pre) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
+        ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized long read5(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
-      ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+  public long read5(final int pre, final int offset) {
+    final Mapping map = mapping;
+    if(map != null) return map.read5(position(map, pre) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
+        ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+    }
   }
 
   @Override
   public void write1(final int pre, final int offset, final int value) {
+    mapping = null;
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     buffer.data[o] = (byte) value;
@@ -193,6 +238,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write2(final int pre, final int offset, final int value) {
+    mapping = null;
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -203,6 +249,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write4(final int pre, final int offset, final int value) {
+    mapping = null;
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -215,6 +262,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write5(final int pre, final int offset, final long value) {
+    mapping = null;
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -258,8 +306,9 @@ public final class TableDiskAccess extends TableAccess {
       if(firstPre == nextPre) {
         // mark the page as empty
         usedPages.clear(pageIndex[page]);
-        deletePages(1);
-        readPage(page);
+        deletePages(page, 1);
+        // if the last page was deleted, switch to the preceding page
+        if(used > 0) readPage(Math.min(page, used - 1));
       }
     } else {
       // handle pages whose entries are to be deleted entirely
@@ -293,11 +342,11 @@ public final class TableDiskAccess extends TableAccess {
       // now remove them from the index
       if(unused > 0) {
         page -= unused;
-        deletePages(unused);
+        deletePages(page, unused);
       }
 
-      // update index entry for this page
-      fPreIndex[page] = pre;
+      // update index entry for this page (if it has not been deleted)
+      if(page < used) fPreIndex.set(page, pre);
       firstPre = pre;
       decreasePre(count);
     }
@@ -305,6 +354,10 @@ public final class TableDiskAccess extends TableAccess {
       buffers.init();
       removeMapping();
       pages = 1;
+    } else {
+      // merge underfilled pages around the deleted entries
+      final int p = fPreIndex.find(Math.min(pre, meta.size - 1));
+      if(!merge(p)) merge(p - 1);
     }
   }
 
@@ -320,6 +373,7 @@ public final class TableDiskAccess extends TableAccess {
     int split = 0;
     if(used == 0) {
       // special case: insert new data into first page if database is empty
+      fPreIndex.insert(0, 1);
       readPage(0);
       usedPages.set(0);
       ++used;
@@ -340,7 +394,7 @@ public final class TableDiskAccess extends TableAccess {
       buffer.dirty = true;
 
       // increment first pre-values of pages after the last modified page
-      for(int i = page + 1; i < used; ++i) fPreIndex[i] += nr;
+      fPreIndex.shift(page + 1, nr);
       // update cached variables (fpre is not changed)
       nextPre += nr;
       meta.size += nr;
@@ -353,17 +407,20 @@ public final class TableDiskAccess extends TableAccess {
     Array.copy(buffer.data, split, moved, all, nnew);
 
     // fill in the current page with new entries
-    // number of bytes which fit in the first page
-    int nrem = IO.BLOCKSIZE - split;
+    // number of bytes which fit in the first page (leave headroom, as specified by fill factor)
+    final int limit = limit();
+    int nrem = Math.max(0, limit - split);
     if(nrem > 0) {
       Array.copyFromStart(all, nrem, buffer.data, split);
       buffer.dirty = true;
     }
+    // number of entries in the current page
+    int filled = split + nrem >>> IO.NODEPOWER;
 
     // number of new required pages and remaining bytes
     final int req = all.length - nrem;
-    int needed = req / IO.BLOCKSIZE;
-    final int remain = req % IO.BLOCKSIZE;
+    int needed = req / limit;
+    final int remain = req % limit;
 
     if(remain > 0) {
       // check if the last entries can fit in the page after the current one
@@ -377,7 +434,7 @@ public final class TableDiskAccess extends TableAccess {
           Array.copyToStart(all, all.length - remain, remain, buffer.data);
           buffer.dirty = true;
           // reduce the pre value, since it will be later incremented with nr
-          fPreIndex[page] -= remain >>> IO.NODEPOWER;
+          fPreIndex.set(page, fPreIndex.get(page) - (remain >>> IO.NODEPOWER));
           // go back to the previous page
           readPage(page - 1);
         } else {
@@ -392,15 +449,13 @@ public final class TableDiskAccess extends TableAccess {
 
     // number of expected pages: existing pages + needed page - empty pages
     final int exp = pages + needed - (pages - used);
-    if(exp > fPreIndex.length) {
-      // resize directory arrays if existing ones are too small
-      final int ns = Math.max(fPreIndex.length << 1, exp);
-      fPreIndex = Arrays.copyOf(fPreIndex, ns);
-      pageIndex = Arrays.copyOf(pageIndex, ns);
+    if(exp > pageIndex.length) {
+      // resize page index if existing one is too small
+      pageIndex = Arrays.copyOf(pageIndex, Math.max(pageIndex.length << 1, exp));
     }
 
     // make place for the pages where the new entries will be written
-    Array.insert(fPreIndex, page + 1, needed, used, null);
+    fPreIndex.insert(page + 1, needed);
     Array.insert(pageIndex, page + 1, needed, used, null);
 
     // write the all remaining entries
@@ -410,27 +465,30 @@ public final class TableDiskAccess extends TableAccess {
       read(p);
       ++used;
       ++page;
-      nrem += write(all, nrem);
-      fPreIndex[page] = fPreIndex[page - 1] + IO.ENTRIES;
+      final int len = write(all, nrem, limit);
+      nrem += len;
+      fPreIndex.set(page, fPreIndex.get(page - 1) + filled);
+      filled = len >>> IO.NODEPOWER;
       pageIndex[page] = (int) buffers.current().pos;
     }
 
     // increment all fpre values after the last modified page
-    for(int i = page + 1; i < used; ++i) fPreIndex[i] += nr;
+    fPreIndex.shift(page + 1, nr);
 
     meta.size += nr;
 
     // update cached variables
-    firstPre = fPreIndex[page];
-    nextPre = page + 1 < used && fPreIndex[page + 1] < meta.size ? fPreIndex[page + 1] : meta.size;
+    firstPre = fPreIndex.get(page);
+    final int np = page + 1 < used ? fPreIndex.get(page + 1) : meta.size;
+    nextPre = np < meta.size ? np : meta.size;
   }
 
   @Override
   protected void dirty() {
+    mapping = null;
     // initialize data structures required for performing updates
     if(fPreIndex == null) {
-      fPreIndex = new int[pages];
-      for(int i = 0; i < pages; i++) fPreIndex[i] = i * IO.ENTRIES;
+      fPreIndex = new FirstPres(used);
       pageIndex = new int[pages];
       for(int i = 0; i < pages; i++) pageIndex[i] = i;
       usedPages = new BitArray(used, true);
@@ -444,7 +502,7 @@ public final class TableDiskAccess extends TableAccess {
     sb.append(Util.className(this)).append(" (").append("pages: ").append(pages);
     sb.append(", used: ").append(used).append(", page: ").append(page);
     sb.append(", firstPre: ").append(firstPre).append(", nextPre: ").append(nextPre).append(")");
-    if(fPreIndex != null) sb.append("\n- FPres: ").append(Arrays.toString(fPreIndex));
+    if(fPreIndex != null) sb.append("\n- FPres: ").append(fPreIndex);
     if(pageIndex != null) sb.append("\n- Pages: ").append(Arrays.toString(pageIndex));
     if(usedPages != null) sb.append("\n- Used Pages: ").append(usedPages);
     return sb.toString();
@@ -452,6 +510,41 @@ public final class TableDiskAccess extends TableAccess {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Writes all buffers to disk and maps the table file into memory.
+   * @throws IOException I/O exception
+   */
+  private synchronized void map() throws IOException {
+    for(final Buffer buffer : buffers.all()) write(buffer);
+    mapping = new Mapping(file.getChannel());
+  }
+
+  /**
+   * Returns the file position of the entry with the specified pre value.
+   * This method does not change the cursor and can be called by concurrent readers.
+   * @param map memory mapping
+   * @param pre pre value
+   * @return file position
+   */
+  private long position(final Mapping map, final int pre) {
+    final long pos;
+    final FirstPres fpres = fPreIndex;
+    if(fpres == null) {
+      // no page mapping: entries are stored in ascending order
+      pos = (long) pre << IO.NODEPOWER;
+    } else {
+      // find last page with a first pre value smaller than or equal to the specified pre value
+      final int p = fpres.find(pre);
+      pos = (long) pageIndex[p] * IO.BLOCKSIZE + (pre - fpres.get(p) << IO.NODEPOWER);
+    }
+    if(pos >= map.length) throw Util.notExpected(
+        "Data Access out of bounds:" +
+        "\n- pre value: " + pre +
+        "\n- table size: " + meta.size +
+        "\n- file position/length: " + pos + '/' + map.length);
+    return pos;
+  }
+
   /**
    * Searches for the page containing the entry for the specified pre value.
    * Reads the page and returns its offset inside the page.
@@ -459,26 +552,16 @@ public final class TableDiskAccess extends TableAccess {
    * @return offset of the entry in the page
    */
   private int cursor(final int pre) {
-    int fp = firstPre, np = nextPre;
-    if(pre < fp || pre >= np) {
-      final int last = used - 1;
-      int l = 0, h = last, m = page;
-      while(l <= h) {
-        if(pre < fp) h = m - 1;
-        else if(pre >= np) l = m + 1;
-        else break;
-        m = h + l >>> 1;
-        fp = fpre(m);
-        np = m == last ? meta.size : fpre(m + 1);
-      }
-      if(l > h) throw Util.notExpected(
+    if(pre < firstPre || pre >= nextPre) {
+      if(pre < 0 || pre >= meta.size || used == 0) throw Util.notExpected(
           "Data Access out of bounds:" +
           "\n- pre value: " + pre +
           "\n- table size: " + meta.size +
-          "\n- first/next pre value: " + fp + '/' + np +
+          "\n- first/next pre value: " + firstPre + '/' + nextPre +
           "\n- #total/used pages: " + pages + '/' + used +
-          "\n- accessed page: " + m + " (" + l + " > " + h + ']');
-      readPage(m);
+          "\n- accessed page: " + page);
+      // find last page with a first pre value smaller than or equal to the specified pre value
+      readPage(fPreIndex == null ? pre / IO.ENTRIES : fPreIndex.find(pre));
     }
     return pre - firstPre << IO.NODEPOWER;
   }
@@ -508,7 +591,7 @@ public final class TableDiskAccess extends TableAccess {
    * @return pre value
    */
   private int fpre(final int pre) {
-    return fPreIndex == null ? pre * IO.ENTRIES : fPreIndex[pre];
+    return fPreIndex == null ? pre * IO.ENTRIES : fPreIndex.get(pre);
   }
 
   /**
@@ -524,9 +607,15 @@ public final class TableDiskAccess extends TableAccess {
       buffer.pos = pre;
       if(pre >= pages) {
         pages = pre + 1;
-      } else {
-        file.seek(buffer.pos * IO.BLOCKSIZE);
-        file.readFully(buffer.data);
+      } else if((log == null || !log.read((long) pre * IO.BLOCKSIZE, buffer.data)) &&
+          !buffers.cached()) {
+        if(blocks != null) {
+          blocks.read(pre, buffer.data);
+        } else {
+          file.seek(buffer.pos * IO.BLOCKSIZE);
+          file.readFully(buffer.data);
+        }
+        buffers.cache();
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -541,30 +630,75 @@ public final class TableDiskAccess extends TableAccess {
   private void write(final Buffer buffer) throws IOException {
     if(!buffer.dirty) return;
 
-    file.seek(buffer.pos * IO.BLOCKSIZE);
-    file.write(buffer.data);
+    if(log != null) {
+      log.write(buffer.pos * IO.BLOCKSIZE, buffer.data, IO.BLOCKSIZE);
+    } else if(blocks != null) {
+      blocks.write((int) buffer.pos, buffer.data, IO.BLOCKSIZE);
+    } else {
+      file.seek(buffer.pos * IO.BLOCKSIZE);
+      file.write(buffer.data);
+    }
+    buffers.written(buffer);
     buffer.dirty = false;
   }
 
   /**
    * Deletes pages in the page mapping.
+   * @param first index of the first page to delete
    * @param count number of pages to delete
    */
-  private void deletePages(final int count) {
-    Array.remove(fPreIndex, page, count, used);
-    Array.remove(pageIndex, page, count, used);
+  private void deletePages(final int first, final int count) {
+    fPreIndex.remove(first, count);
+    Array.remove(pageIndex, first, count, used);
     used -= count;
   }
 
+  /**
+   * Merges the specified page and its successor if at least one of them is less than half
+   * filled, and if the entries of both pages fit into a single page.
+   * @param index index of the first page
+   * @return {@code true} if the pages were merged
+   */
+  private boolean merge(final int index) {
+    if(index < 0 || index + 1 >= used) return false;
+    final int max = limit() >>> IO.NODEPOWER, min = max >>> 1;
+    final int first = occSpace(index), second = occSpace(index + 1);
+    if(first + second > max || first >= min && second >= min) return false;
+
+    // append entries of second page to first page
+    readPage(index + 1);
+    final byte[] data = Arrays.copyOf(buffers.current().data, second << IO.NODEPOWER);
+    usedPages.clear(pageIndex[index + 1]);
+    readPage(index);
+    final Buffer buffer = buffers.current();
+    Array.copyFromStart(data, data.length, buffer.data, first << IO.NODEPOWER);
+    buffer.dirty = true;
+
+    // remove second page from the index; first pre values of subsequent pages are not changed
+    deletePages(index + 1, 1);
+    setPage(index);
+    return true;
+  }
+
+  /**
+   * Returns the maximum number of bytes that will be written to pages when pages are split.
+   * @return number of bytes
+   */
+  private int limit() {
+    final int ff = Math.max(1, Math.min(100, meta.fillfactor));
+    return Math.max(IO.NODESIZE, IO.BLOCKSIZE * ff / 100 & -IO.NODESIZE);
+  }
+
   /**
    * Decreases pointers to pre value.
    * @param count number of entries to move
    */
   private void decreasePre(final int count) {
     final int nextPage = page + 1;
-    for(int i = nextPage; i < used; ++i) fPreIndex[i] -= count;
+    fPreIndex.shift(nextPage, -count);
     meta.size -= count;
-    nextPre = nextPage < used && fPreIndex[nextPage] < meta.size ? fPreIndex[nextPage] : meta.size;
+    final int np = nextPage < used ? fPreIndex.get(nextPage) : meta.size;
+    nextPre = np < meta.size ? np : meta.size;
   }
 
   /**
@@ -584,11 +718,12 @@ public final class TableDiskAccess extends TableAccess {
    * Fills the current buffer with bytes from the specified array and offset.
    * @param array source array
    * @param offset array offset
+   * @param limit maximum number of bytes to write
    * @return number of written bytes
    */
-  private int write(final byte[] array, final int offset) {
+  private int write(final byte[] array, final int offset, final int limit) {
     final Buffer buffer = buffers.current();
-    final int len = Math.min(IO.BLOCKSIZE, array.length - offset);
+    final int len = Math.min(limit, array.length - offset);
     Array.copyToStart(array, offset, len, buffer.data);
     buffer.dirty = true;
     return len;
@@ -600,7 +735,7 @@ public final class TableDiskAccess extends TableAccess {
    * @return occupied space in number of records
    */
   private int occSpace(final int index) {
-    return (index + 1 < used ? fPreIndex[index + 1] : meta.size) - fPreIndex[index];
+    return (index + 1 < used ? fPreIndex.get(index + 1) : meta.size) - fPreIndex.get(index);
   }
 
   /**
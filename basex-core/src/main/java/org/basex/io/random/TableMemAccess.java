@@ -35,6 +35,9 @@ public final class TableMemAccess extends TableAccess {
   @Override
   public void close() { }
 
+  @Override
+  public void info(final TokenBuilder tb) { }
+
   @Override
   public boolean lock(final boolean lock) {
     return true;
@@ -0,0 +1,509 @@
+package org.basex.io.random;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.Map.*;
+import java.util.zip.*;
+
+import org.basex.core.*;
+import org.basex.core.jobs.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * <p>Write-ahead log of a database (see {@link StaticOptions#WALSIZE}).</p>
+ *
+ * <p>If the log is enabled, database files will not be changed by updates. Instead, changed pages
+ * are kept in main memory, and files that are written at once (such as the meta data) are
+ * cached. When updates are committed, all pages and files that have not been logged yet are
+ * appended to the log as a single record, and the log is synchronized with the storage device.
+ * If the log exceeds its size limit, or if the database is closed, a checkpoint is performed:
+ * all changes are written to the database files, and the log is truncated. When a database is
+ * opened, the records of a remaining log are replayed. Incomplete records are ignored.</p>
+ *
+ * <p>If snapshots are enabled (see {@link StaticOptions#MVCC}), the committed versions of all pages
+ * and files are additionally stored with the epoch of their commit, which is published after the
+ * record has been synchronized. A {@link Snapshot} pins the current epoch, and reads the pages and
+ * files that were committed up to this epoch. Versions that are not visible to any snapshot
+ * anymore are discarded. Checkpoints and changes of index structures, which are written outside
+ * the log, wait until all snapshots have been released. No new snapshots are pinned in the
+ * meantime; jobs will read the database with locks instead.</p>
+ *
+ * <p>Each log record contains a header (magic number, length of the payload), the payload and
+ * a CRC32 checksum. The payload consists of entries for changed pages (file name, position,
+ * page data), new file lengths (file name, length) and complete files (file name, contents).</p>
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class WriteAheadLog {
+  /** Magic number of a log record. */
+  private static final int MAGIC = 0x5741_4C31;
+  /** Entry type: page. */
+  private static final int PAGE = 0;
+  /** Entry type: file length. */
+  private static final int LENGTH = 1;
+  /** Entry type: complete file. */
+  private static final int FILE = 2;
+
+  /** Database meta data. */
+  private final MetaData meta;
+  /** Log channel. */
+  private final FileChannel channel;
+  /** Size limit of the log. */
+  private final long limit;
+  /** Database files with changed pages. */
+  private final ArrayList<LogFile> files = new ArrayList<>();
+  /** Files that have been written at once and that have not been checkpointed yet. */
+  private final LinkedHashMap<String, byte[]> outputs = new LinkedHashMap<>();
+  /** Names of the files that have not been logged yet. */
+  private final LinkedHashSet<String> unlogged = new LinkedHashSet<>();
+  /** Synchronization object for forcing the log to the storage device. */
+  private final Object sync = new Object();
+  /** Indicates if versions are stored for snapshots. */
+  private final boolean mvcc;
+  /** Committed versions of files, indexed by file names and epochs (used by snapshots). */
+  private final HashMap<String, TreeMap<Long, byte[]>> committed = new HashMap<>();
+  /** Pinned epochs of snapshots, and the number of snapshots per epoch. */
+  private final TreeMap<Long, Integer> snapshots = new TreeMap<>();
+
+  /** End of the last record that has been appended. */
+  private long written;
+  /** End of the last record that has been synchronized. */
+  private long synced;
+  /** Number of committed records. */
+  private long commits;
+  /** Number of synchronizations. */
+  private long syncs;
+  /** Number of checkpoints. */
+  private long checkpoints;
+  /** Epoch of the last commit that is visible to new snapshots. */
+  private long epoch;
+  /** Number of operations that block new snapshots. */
+  private int blocked;
+  /** Indicates if new snapshots are blocked until the next commit of the meta data. */
+  private boolean stale;
+
+  /**
+   * Constructor.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  public WriteAheadLog(final MetaData meta) throws IOException {
+    this.meta = meta;
+    limit = (long) meta.walsize << 20;
+    mvcc = meta.mvcc;
+    channel = FileChannel.open(meta.dbFile(DATAWAL).file().toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+    channel.truncate(0);
+  }
+
+  /**
+   * Replays the records of a log, which may remain if a database has not been closed.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  public static void recover(final MetaData meta) throws IOException {
+    final IOFile log = meta.dbFile(DATAWAL);
+    if(!log.exists()) return;
+
+    // parse all complete records
+    final LinkedHashMap<String, TreeMap<Long, byte[]>> pages = new LinkedHashMap<>();
+    final LinkedHashMap<String, Long> lengths = new LinkedHashMap<>();
+    final LinkedHashMap<String, byte[]> outputs = new LinkedHashMap<>();
+    final ByteBuffer bb = ByteBuffer.wrap(log.read());
+    while(bb.remaining() >= 8 && bb.getInt() == MAGIC) {
+      final int size = bb.getInt();
+      if(size < 0 || bb.remaining() < size + 8L) break;
+      final byte[] payload = new byte[size];
+      bb.get(payload);
+      final CRC32 crc = new CRC32();
+      crc.update(payload);
+      if(bb.getLong() != crc.getValue()) break;
+
+      try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+        while(in.available() > 0) {
+          final int type = in.read();
+          final String name = in.readUTF();
+          if(type == PAGE) {
+            final long pos = in.readLong();
+            final byte[] page = new byte[in.readInt()];
+            in.readFully(page);
+            pages.computeIfAbsent(name, n -> new TreeMap<>()).put(pos, page);
+          } else if(type == LENGTH) {
+            lengths.put(name, in.readLong());
+          } else {
+            final byte[] contents = new byte[in.readInt()];
+            in.readFully(contents);
+            outputs.put(name, contents);
+          }
+        }
+      }
+    }
+
+    // write pages and files
+    final LinkedHashSet<String> names = new LinkedHashSet<>(pages.keySet());
+    names.addAll(lengths.keySet());
+    for(final String name : names) {
+      final IOFile file = new IOFile(meta.dir, name);
+      try(RandomAccessFile raf = new RandomAccessFile(file.file(), "rw")) {
+        final CompressedFile blocks = CompressedFile.open(file, raf);
+        final TreeMap<Long, byte[]> map = pages.get(name);
+        if(map != null) {
+          for(final Entry<Long, byte[]> page : map.entrySet()) {
+            LogFile.write(page.getKey(), page.getValue(), raf, blocks);
+          }
+        }
+        final Long length = lengths.get(name);
+        if(length != null) LogFile.length(length, raf, blocks);
+        LogFile.sync(raf, blocks, file);
+      }
+    }
+    for(final Entry<String, byte[]> output : outputs.entrySet()) {
+      write(new IOFile(meta.dir, output.getKey()), output.getValue());
+    }
+    Util.debug("%: % pages and % files recovered.", meta.name, pages.size(), outputs.size());
+    if(!log.delete()) throw new IOException("Log could not be deleted: " + log);
+  }
+
+  /**
+   * Returns an output stream for a file that is written at once. The contents will be written
+   * to the file at the next checkpoint.
+   * @param file file
+   * @return output stream
+   */
+  public DataOutput output(final IOFile file) {
+    return new DataOutput(new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        synchronized(WriteAheadLog.this) {
+          outputs.put(file.name(), toByteArray());
+          unlogged.add(file.name());
+        }
+      }
+    });
+  }
+
+  /**
+   * Appends all changes that have not been logged yet to the log, and synchronizes the log with
+   * the storage device. If concurrent commits are waiting for a synchronization, they will be
+   * covered by a single synchronization.
+   * @throws IOException I/O exception
+   */
+  public void commit() throws IOException {
+    final long end, next;
+    final boolean meta;
+    synchronized(this) {
+      next = commits + 1;
+      meta = !unlogged.isEmpty();
+      final long ep = mvcc ? next : -1, oldest = oldest();
+      final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+      try(DataOutputStream out = new DataOutputStream(payload)) {
+        for(final LogFile file : files) file.log(out, ep, oldest);
+        for(final String name : unlogged) {
+          final byte[] contents = outputs.get(name);
+          out.write(FILE);
+          out.writeUTF(name);
+          out.writeInt(contents.length);
+          out.write(contents);
+          if(mvcc) {
+            final TreeMap<Long, byte[]> chain = committed.computeIfAbsent(name,
+                n -> new TreeMap<>());
+            chain.put(ep, contents);
+            LogFile.discard(chain, oldest);
+          }
+        }
+        unlogged.clear();
+      }
+      if(payload.size() == 0) return;
+
+      final byte[] bytes = payload.toByteArray();
+      final CRC32 crc = new CRC32();
+      crc.update(bytes);
+      final ByteBuffer bb = ByteBuffer.allocate(bytes.length + 16);
+      bb.putInt(MAGIC).putInt(bytes.length).put(bytes).putLong(crc.getValue()).flip();
+      channel.position(written);
+      while(bb.hasRemaining()) channel.write(bb);
+      written = channel.position();
+      end = written;
+      commits++;
+    }
+
+    // group commit: one thread synchronizes the records of all waiting threads
+    synchronized(sync) {
+      if(synced < end) {
+        final long w;
+        synchronized(this) {
+          w = written;
+        }
+        channel.force(false);
+        synced = w;
+        synchronized(this) {
+          syncs++;
+        }
+      }
+    }
+    // publish the commit to new snapshots
+    synchronized(this) {
+      if(next > epoch) epoch = next;
+      if(meta) stale = false;
+    }
+  }
+
+  /**
+   * Performs a checkpoint if the size limit of the log has been exceeded. If snapshots are
+   * pinned, the checkpoint is performed as soon as they have been released.
+   * @throws IOException I/O exception
+   */
+  public void checkpointIfFull() throws IOException {
+    final boolean full;
+    synchronized(this) {
+      full = written > limit;
+    }
+    if(full) checkpoint();
+  }
+
+  /**
+   * Writes all changes to the database files and truncates the log. Changes that have not been
+   * logged yet are committed first: files are only changed if a crash can be recovered from.
+   * Waits until all snapshots have been released. No new snapshots are pinned in the meantime.
+   * @throws IOException I/O exception
+   */
+  public void checkpoint() throws IOException {
+    synchronized(sync) {
+      synchronized(this) {
+        blocked++;
+        try {
+          drain();
+        } finally {
+          blocked--;
+        }
+        commit();
+        for(final LogFile file : files) file.checkpoint();
+        for(final Entry<String, byte[]> output : outputs.entrySet()) {
+          write(new IOFile(meta.dir, output.getKey()), output.getValue());
+        }
+        outputs.clear();
+        unlogged.clear();
+        committed.clear();
+        channel.truncate(0);
+        channel.force(true);
+        written = 0;
+        synced = 0;
+        checkpoints++;
+      }
+    }
+  }
+
+  /**
+   * Performs a checkpoint, closes and deletes the log.
+   * @throws IOException I/O exception
+   */
+  public void close() throws IOException {
+    checkpoint();
+    channel.close();
+    meta.dbFile(DATAWAL).delete();
+  }
+
+  /**
+   * Returns information on the log.
+   * @return info string
+   */
+  public synchronized String info() {
+    final StringBuilder sb = new StringBuilder().append(Performance.format(written)).append(", ");
+    sb.append(commits).append(" commits, ").append(syncs).append(" syncs, ");
+    sb.append(checkpoints).append(" checkpoints");
+    if(mvcc) {
+      int s = 0;
+      for(final int pins : snapshots.values()) s += pins;
+      sb.append(", ").append(s).append(" snapshots");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the input for a file that is written at once. If the file has been changed, the
+   * contents will be returned that have not been written to disk yet.
+   * @param file file
+   * @return input
+   */
+  public synchronized IO input(final IOFile file) {
+    final byte[] contents = outputs.get(file.name());
+    return contents != null ? new IOContent(contents, file.path()) : file;
+  }
+
+  /**
+   * Blocks or unblocks new snapshots. Must be called before and after index structures are
+   * changed, as they are written outside the log. When blocking, waits until all snapshots have
+   * been released. After unblocking, new snapshots remain blocked until the changed meta data has
+   * been committed.
+   * @param block block or unblock snapshots
+   */
+  public synchronized void block(final boolean block) {
+    if(block) {
+      blocked++;
+      try {
+        drain();
+      } catch(final JobException ex) {
+        blocked--;
+        throw ex;
+      }
+    } else {
+      blocked--;
+      stale = true;
+    }
+  }
+
+  /**
+   * Pins the current epoch for a snapshot.
+   * @return epoch, or {@code -1} if snapshots are currently blocked
+   */
+  synchronized long pin() {
+    if(blocked > 0 || stale) return -1;
+    snapshots.merge(epoch, 1, Integer::sum);
+    return epoch;
+  }
+
+  /**
+   * Releases the epoch of a snapshot and discards versions that are not visible anymore.
+   * @param ep epoch
+   */
+  synchronized void unpin(final long ep) {
+    if(snapshots.merge(ep, -1, Integer::sum) == 0) snapshots.remove(ep);
+    final long oldest = oldest();
+    for(final LogFile file : files) file.discard(oldest);
+    for(final TreeMap<Long, byte[]> chain : committed.values()) LogFile.discard(chain, oldest);
+    notifyAll();
+  }
+
+  /**
+   * Returns the input for a file in the version that was committed up to the specified epoch.
+   * @param file file
+   * @param ep epoch
+   * @return input
+   */
+  synchronized IO input(final IOFile file, final long ep) {
+    final TreeMap<Long, byte[]> chain = committed.get(file.name());
+    final Entry<Long, byte[]> entry = chain != null ? chain.floorEntry(ep) : null;
+    return entry != null ? new IOContent(entry.getValue(), file.path()) : file;
+  }
+
+  /**
+   * Returns a read-only view on the pages of a file that were committed up to the specified
+   * epoch.
+   * @param file data file
+   * @param ep epoch
+   * @return view, or {@code null} if the file has not been registered
+   */
+  synchronized LogFile view(final IOFile file, final long ep) {
+    final String name = file.name();
+    for(final LogFile lf : files) {
+      if(lf.name.equals(name)) return lf.view(ep);
+    }
+    return null;
+  }
+
+  /**
+   * Waits until all snapshots have been released.
+   */
+  private void drain() {
+    try {
+      while(!snapshots.isEmpty()) wait();
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+      throw new JobException(Text.INTERRUPTED);
+    }
+  }
+
+  /**
+   * Returns the oldest epoch that is visible to snapshots.
+   * @return epoch
+   */
+  private long oldest() {
+    return snapshots.isEmpty() ? epoch : snapshots.firstKey();
+  }
+
+  /**
+   * Registers a database file.
+   * @param file data file
+   * @param raf file access
+   * @param blocks compressed blocks (can be {@code null})
+   * @return registered file
+   */
+  synchronized LogFile register(final IOFile file, final RandomAccessFile raf,
+      final CompressedFile blocks) {
+    final LogFile lf = new LogFile(this, file, raf, blocks);
+    files.add(lf);
+    return lf;
+  }
+
+  /**
+   * Unregisters a database file.
+   * @param file registered file
+   */
+  synchronized void unregister(final LogFile file) {
+    files.remove(file);
+  }
+
+  /**
+   * Writes a page entry.
+   * @param out log output
+   * @param name file name
+   * @param pos file position
+   * @param page page data
+   * @throws IOException I/O exception
+   */
+  static void page(final DataOutputStream out, final String name, final long pos,
+      final byte[] page) throws IOException {
+    out.write(PAGE);
+    out.writeUTF(name);
+    out.writeLong(pos);
+    out.writeInt(page.length);
+    out.write(page);
+  }
+
+  /**
+   * Writes a file length entry.
+   * @param out log output
+   * @param name file name
+   * @param length file length
+   * @throws IOException I/O exception
+   */
+  static void length(final DataOutputStream out, final String name, final long length)
+      throws IOException {
+    out.write(LENGTH);
+    out.writeUTF(name);
+    out.writeLong(length);
+  }
+
+  /**
+   * Writes a file and synchronizes it with the storage device.
+   * @param file file
+   * @param contents contents
+   * @throws IOException I/O exception
+   */
+  private static void write(final IOFile file, final byte[] contents) throws IOException {
+    try(FileOutputStream fos = file.outputStream()) {
+      fos.write(contents);
+      fos.getFD().sync();
+    }
+  }
+
+  /**
+   * Synchronizes a file with the storage device.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  static void sync(final IOFile file) throws IOException {
+    try(FileChannel fc = FileChannel.open(file.file().toPath(), StandardOpenOption.WRITE)) {
+      fc.force(true);
+    }
+  }
+}
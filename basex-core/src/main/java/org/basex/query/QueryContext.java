@@ -674,6 +674,12 @@ public final class QueryContext extends Job implements Closeable {
         vb.add(materialize.apply(item));
       }
 
+      // lock databases of updated documents: databases may have been closed in the meantime
+      if(context.locking.upgrade()) {
+        for(final Data data : datas) {
+          if(data.closed()) throw UPDBERROR_X.get(null, Util.info(DB_CLOSED_X, data.meta.name));
+        }
+      }
       // invalidate current node set in context, apply updates
       if(context.data() != null) context.invalidate();
       updates.apply(this);
@@ -35,6 +35,10 @@ public final class QueryInfo {
   public long evaluating;
   /** Serialization time (nano seconds). */
   public long serializing;
+  /** Time for opening databases (nano seconds, included in compilation and evaluation). */
+  public long opening;
+  /** Time for closing databases (nano seconds). */
+  public long closing;
 
   /** Query. */
   String query;
@@ -111,6 +115,8 @@ public final class QueryInfo {
       tb.add(COMPILING_CC).add(Performance.getTime(compiling, runs)).add(NL);
       tb.add(EVALUATING_CC).add(Performance.getTime(evaluating, runs)).add(NL);
       tb.add(PRINTING_CC).add(Performance.getTime(serializing, runs)).add(NL);
+      tb.add(OPENING_CC).add(Performance.getTime(opening, runs)).add(NL);
+      tb.add(CLOSING_CC).add(Performance.getTime(closing, runs)).add(NL);
       tb.add(TOTAL_TIME_CC).add(Performance.getTime(total, runs)).add(NL).add(NL);
       tb.add(HITS_X_CC + hits).add(' ').add(hits == 1 ? ITEM : ITEMS).add(NL);
       tb.add(UPDATED_CC + up).add(' ').add(up == 1 ? ITEM : ITEMS).add(NL);
@@ -11,6 +11,7 @@ import org.basex.core.cmd.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.query.util.list.*;
 import org.basex.query.util.pkg.*;
 import org.basex.query.value.*;
@@ -89,8 +90,10 @@ public final class QueryResources {
    * Closes all opened data references that have not been added by the global context.
    */
   void close() {
+    final Performance perf = new Performance();
     for(final Data data : datas) Close.close(data, qc.context);
     datas.clear();
+    qc.info.closing += perf.ns();
     // close dynamically loaded JAR files
     if(modules != null) modules.close();
     modules = null;
@@ -176,12 +179,30 @@ public final class QueryResources {
     // open and register database
     if(!ctx.perm(Perm.READ, name)) throw BASEX_PERMISSION_X_X.get(ii, Perm.READ, name);
     try {
-      return addData(Open.open(name, ctx, ctx.options));
+      return addData(open(name));
     } catch(final IOException ex) {
       throw DB_OPEN2_X.get(ii, ex);
     }
   }
 
+  /**
+   * Opens a database, or a snapshot of a database that is updated by another job.
+   * @param name name of database
+   * @return database instance
+   * @throws IOException I/O exception
+   */
+  private Data open(final String name) throws IOException {
+    final Context ctx = qc.context;
+    final Performance perf = new Performance();
+    final Snapshot snapshot = qc.jc().locks.snapshot(name);
+    try {
+      return snapshot != null ? Open.open(snapshot, ctx, ctx.options) :
+        Open.open(name, ctx, ctx.options);
+    } finally {
+      qc.info.opening += perf.ns();
+    }
+  }
+
   /**
    * Evaluates {@code fn:doc()}: opens an existing database document, or creates a new
    * database and node.
@@ -402,7 +423,7 @@ public final class QueryResources {
     // try to open existing database
     if(withdb && dbName != null) {
       try {
-        return addData(Open.open(dbName, ctx, ctx.options));
+        return addData(open(dbName));
       } catch(final IOException ex) {
         Util.debug(ex);
       }
@@ -429,6 +429,7 @@ public interface QueryText {
   /** Optimization info. */ String OPTPATH_X = "remove path without results: %";
   /** Optimization info. */ String OPTINDEX_X_X = "apply % index for %";
   /** Optimization info. */ String OPTNORESULTS_X = "no index results: %";
+  /** Optimization info. */ String OPTTOPK_X_X = "only return % results with highest scores: %";
   /** Optimization info. */ String OPTCHILD_X = "convert to child steps: %";
   /** Optimization info. */ String OPTUNROLL_X = "unroll: %";
   /** Optimization info. */ String OPTOPEN_X = "open database \"%\"";
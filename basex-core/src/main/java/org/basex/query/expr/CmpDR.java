@@ -0,0 +1,216 @@
+package org.basex.query.expr;
+
+import static org.basex.query.QueryError.*;
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.CmpG.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.util.index.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Date range expression (xs:date, xs:dateTime).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class CmpDR extends Single {
+  /** Minimum (can be {@code null} if {@link #max} is assigned). */
+  private final ADate min;
+  /** Include minimum value. */
+  private final boolean mni;
+  /** Maximum (can be {@code null} if {@link #min} is assigned). */
+  private final ADate max;
+  /** Include maximum value. */
+  private final boolean mxi;
+  /** Type of the bounds. */
+  private final Type type;
+
+  /** Flag for atomic evaluation. */
+  private boolean single;
+
+  /**
+   * Constructor.
+   * @param expr (compiled) expression
+   * @param min minimum value (can be {@code null} if {@code max} is assigned)
+   * @param mni include minimum value
+   * @param max maximum value (can be {@code null} if {@code min} is assigned)
+   * @param mxi include maximum value
+   * @param info input info
+   */
+  private CmpDR(final Expr expr, final ADate min, final boolean mni, final ADate max,
+      final boolean mxi, final InputInfo info) {
+
+    super(info, expr, SeqType.BOOLEAN_O);
+    this.min = min;
+    this.mni = mni;
+    this.max = max;
+    this.mxi = mxi;
+    type = (min != null ? min : max).type;
+  }
+
+  @Override
+  public Expr compile(final CompileContext cc) throws QueryException {
+    return super.compile(cc).optimize(cc);
+  }
+
+  @Override
+  public Expr optimize(final CompileContext cc) throws QueryException {
+    final SeqType st = expr.seqType();
+    single = st.zeroOrOne() && !st.mayBeArray();
+
+    return expr instanceof Value ? cc.preEval(this) : this;
+  }
+
+  /**
+   * Tries to convert the specified expression into a range expression.
+   * @param cmp expression to be converted
+   * @param cc compilation context
+   * @return new or original expression
+   * @throws QueryException query exception
+   */
+  static Expr get(final CmpG cmp, final CompileContext cc) throws QueryException {
+    final Expr cmp1 = cmp.exprs[0], cmp2 = cmp.exprs[1];
+    if(cmp1.has(Flag.NDT) || !(cmp2 instanceof ADate)) return cmp;
+
+    // only consider dates and dateTimes, and untyped input or input of the same type
+    final ADate d = (ADate) cmp2;
+    final Type t1 = cmp1.seqType().type;
+    if(d.type != AtomType.DATE && d.type != AtomType.DATE_TIME ||
+      !t1.isUntyped() && t1 != d.type) return cmp;
+
+    ParseExpr expr = null;
+    switch(cmp.op.opV) {
+      case GE: expr = new CmpDR(cmp1, d,    true,  null, true,  cmp.info); break;
+      case GT: expr = new CmpDR(cmp1, d,    false, null, true,  cmp.info); break;
+      case LE: expr = new CmpDR(cmp1, null, true,  d,    true,  cmp.info); break;
+      case LT: expr = new CmpDR(cmp1, null, true,  d,    false, cmp.info); break;
+      default:
+    }
+    return expr != null ? expr.optimize(cc) : cmp;
+  }
+
+  @Override
+  public Bln item(final QueryContext qc, final InputInfo ii) throws QueryException {
+    // atomic evaluation of arguments (faster)
+    if(single) {
+      final Item item = expr.atomItem(qc, info);
+      return Bln.get(item != Empty.VALUE && eval(item));
+    }
+
+    // iterative evaluation
+    final Iter iter = expr.atomIter(qc, info);
+    for(Item item; (item = qc.next(iter)) != null;) {
+      if(eval(item)) return Bln.TRUE;
+    }
+    return Bln.FALSE;
+  }
+
+  /**
+   * Evaluates the range for the specified item.
+   * @param item item to be evaluated
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean eval(final Item item) throws QueryException {
+    if(!item.type.isUntyped() && !item.type.instanceOf(type)) {
+      throw diffError(item, min != null ? min : max, info);
+    }
+    // untyped items will be cast to the type of the bounds
+    final int mn = min == null ?  1 : -min.diff(item, null, info);
+    final int mx = max == null ? -1 : -max.diff(item, null, info);
+    return (mni ? mn >= 0 : mn > 0) && (mxi ? mx <= 0 : mx < 0);
+  }
+
+  @Override
+  public Expr mergeEbv(final Expr ex, final boolean or, final CompileContext cc)
+      throws QueryException {
+    if(or || !(ex instanceof CmpDR)) return null;
+
+    // skip intersection if expressions to be compared are different
+    final CmpDR cmp = (CmpDR) ex;
+    if(type != cmp.type || !expr.equals(cmp.expr)) return null;
+
+    // find common minimum and maximum value
+    ADate mn = min;
+    boolean mnin = mni;
+    if(mn == null) {
+      mn = cmp.min;
+      mnin = cmp.mni;
+    } else if(cmp.min != null) {
+      final int d = mn.diff(cmp.min, null, info);
+      if(d < 0) mn = cmp.min;
+      mnin = d < 0 ? cmp.mni : d > 0 ? mni : mni && cmp.mni;
+    }
+    ADate mx = max;
+    boolean mxin = mxi;
+    if(mx == null) {
+      mx = cmp.max;
+      mxin = cmp.mxi;
+    } else if(cmp.max != null) {
+      final int d = mx.diff(cmp.max, null, info);
+      if(d > 0) mx = cmp.max;
+      mxin = d > 0 ? cmp.mxi : d < 0 ? mxi : mxi && cmp.mxi;
+    }
+
+    if(mn != null && mx != null) {
+      final int d = mn.diff(mx, null, info);
+      // remove comparisons that will never yield results
+      if(d > 0) return Bln.FALSE;
+      if(d == 0) {
+        // return simplified comparison for exact hit, or false if value is not included
+        return mnin && mxin ? new CmpG(expr, mn, OpG.EQ, null, null, info) : Bln.FALSE;
+      }
+    }
+    return new CmpDR(expr, mn, mnin, mx, mxin, info).optimize(cc);
+  }
+
+  @Override
+  public boolean indexAccessible(final IndexInfo ii) throws QueryException {
+    return ii.create(expr, min, mni, max, mxi, info);
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    final CmpDR cmp = new CmpDR(expr.copy(cc, vm), min, mni, max, mxi, info);
+    cmp.single = single;
+    return copyType(cmp);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if(this == obj) return true;
+    if(!(obj instanceof CmpDR)) return false;
+    final CmpDR c = (CmpDR) obj;
+    return Objects.equals(min, c.min) && mni == c.mni && Objects.equals(max, c.max) &&
+        mxi == c.mxi && super.equals(obj);
+  }
+
+  @Override
+  public String description() {
+    return "date range comparison";
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    plan.add(plan.create(this, MIN, min, MAX, max, INCLUDE_MIN, mni, INCLUDE_MAX, mxi,
+        SINGLE, single), expr);
+  }
+
+  @Override
+  public void plan(final QueryString qs) {
+    if(min != null) qs.token(expr).token(mni ? ">=" : ">").token(min);
+    if(min != null && max != null) qs.token(AND);
+    if(max != null) qs.token(expr).token(mxi ? "<=" : "<").token(max);
+  }
+}
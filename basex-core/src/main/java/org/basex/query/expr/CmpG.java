@@ -177,6 +177,7 @@ public class CmpG extends Cmp {
     if(expr == this) expr = CmpIR.get(this, false, cc);
     if(expr == this) expr = CmpR.get(this, cc);
     if(expr == this) expr = CmpSR.get(this, cc);
+    if(expr == this) expr = CmpDR.get(this, cc);
 
     if(expr == this) {
       // determine types, choose best implementation
@@ -405,7 +406,10 @@ public class CmpG extends Cmp {
       expr1 = expr1.arg(0);
       type = IndexType.TOKEN;
     }
-    return ii.create(exprs[1], ii.type(expr1, type), false, info);
+    final IndexType it = ii.type(expr1, type);
+    // no value index: try composite index
+    if(it == null && type == null) return ii.create(expr1, exprs[1], info);
+    return ii.create(exprs[1], it, false, info);
   }
 
   @Override
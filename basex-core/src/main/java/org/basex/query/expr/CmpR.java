@@ -181,6 +181,10 @@ public final class CmpR extends Single {
     // sequential main memory scan is usually faster than range index access
     if(data == null ? !ii.enforce() : data.inMemory()) return false;
 
+    // typed range index: numbers can have arbitrary lexical representations
+    if(ii.create(expr, min == NEGATIVE_INFINITY ? null : Dbl.get(min), true,
+        max == POSITIVE_INFINITY ? null : Dbl.get(max), true, info)) return true;
+
     final IndexType type = ii.type(expr, null);
     if(type == null) return false;
 
@@ -18,6 +18,7 @@ import org.basex.query.util.collation.*;
 import org.basex.query.util.index.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.query.var.*;
@@ -41,6 +42,10 @@ public final class CmpSR extends Single {
   private final byte[] max;
   /** Include maximum value. */
   private final boolean mxi;
+  /** Key of minimum date (see {@link Inline#dateKey(long)}). */
+  private final long minKey;
+  /** Key of maximum date (see {@link Inline#dateKey(long)}). */
+  private final long maxKey;
 
   /** Flag for atomic evaluation. */
   private boolean single;
@@ -64,6 +69,8 @@ public final class CmpSR extends Single {
     this.mni = mni;
     this.max = max;
     this.mxi = mxi;
+    minKey = coll != null || min == null ? -1 : Inline.dateKey(Inline.pack(min));
+    maxKey = coll != null || max == null ? -1 : Inline.dateKey(Inline.pack(max));
   }
 
   @Override
@@ -128,6 +135,16 @@ public final class CmpSR extends Single {
    */
   private boolean eval(final Item item) throws QueryException {
     if(!item.type.isStringOrUntyped()) throw diffError(item, Str.EMPTY, info);
+    // compare inlined dates of database nodes without creating strings
+    if((minKey != -1 || maxKey != -1) && item instanceof DBNode) {
+      final long key = Inline.dateKey(((DBNode) item).inlined());
+      if((min == null || Inline.comparable(key, minKey)) &&
+         (max == null || Inline.comparable(key, maxKey))) {
+        final int mn = min == null ? 1 : Long.compare(key, minKey);
+        final int mx = max == null ? -1 : Long.compare(key, maxKey);
+        return (mni ? mn >= 0 : mn > 0) && (mxi ? mx <= 0 : mx < 0);
+      }
+    }
     final byte[] s = item.string(info);
     final int mn = min == null ?  1 :
       coll == null ? Token.diff(s, min) : coll.compare(s, min);
@@ -162,8 +179,15 @@ public final class CmpSR extends Single {
 
   @Override
   public boolean indexAccessible(final IndexInfo ii) throws QueryException {
-    // only default collation is supported, and min/max values are required
-    if(coll != null || min == null || max == null) return false;
+    // only default collation is supported
+    if(coll != null) return false;
+
+    // typed range index: values will be compared lexically
+    if(ii.create(expr, min == null ? null : Str.get(min), mni, max == null ? null : Str.get(max),
+        mxi, info)) return true;
+
+    // min/max values are required
+    if(min == null || max == null) return false;
 
     // accept only location path, string and equality expressions
     final Data data = ii.db.data();
@@ -381,7 +381,7 @@ public abstract class Expr extends ExprInfo {
   /**
    * Tries to merge two expressions that are part of an EBV test.
    * Called by {@link And}, {@link Or}), {@link Step} and {@link Filter}.
-   * Overwritten by {@link CmpG}, {@link CmpIR}, {@link CmpR}, {@link CmpSR},
+   * Overwritten by {@link CmpG}, {@link CmpIR}, {@link CmpR}, {@link CmpSR}, {@link CmpDR},
    * {@link ItrPos}, {@link Pos} and others.
    * @param expr second expression
    * @param or union or intersection
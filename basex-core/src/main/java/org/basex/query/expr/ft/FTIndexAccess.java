@@ -6,6 +6,7 @@ import org.basex.query.expr.index.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
+import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
@@ -58,6 +59,39 @@ public final class FTIndexAccess extends Simple {
     };
   }
 
+  /**
+   * Returns the {@code k} results with the highest scores in document order.
+   * Results with equal scores are ranked by their document order. Index entries whose scores
+   * cannot exceed the smallest score of the current results are skipped.
+   * @param qc query context
+   * @param k maximum number of results
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public NodeIter iter(final QueryContext qc, final long k) throws QueryException {
+    // full-text positions of all results are requested: return all results
+    if(qc.ftPosData != null) return iter(qc);
+
+    final MinHeap<FTNode, FTNode> heap = new MinHeap<>((node1, node2) -> {
+      final int c = Double.compare(node1.score(), node2.score());
+      return c != 0 ? c : Integer.compare(node2.pre(), node1.pre());
+    });
+    final FTIter iter = ftexpr.iter(qc);
+    double min = -1;
+    for(FTNode item; (item = iter.nextAbove(min)) != null;) {
+      qc.checkStop();
+      item.score();
+      item.matches(null);
+      heap.insert(item, item);
+      if(heap.size() > k) heap.removeMin();
+      if(heap.size() == k) min = heap.minValue().score();
+    }
+
+    final ANodeList list = new ANodeList(heap.size());
+    while(!heap.isEmpty()) list.add(heap.removeMin());
+    return list.sort(ANode::diff, true).iter();
+  }
+
   @Override
   public Value value(final QueryContext qc) throws QueryException {
     return iter(qc).value(qc, this);
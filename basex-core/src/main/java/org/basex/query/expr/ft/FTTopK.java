@@ -0,0 +1,77 @@
+package org.basex.query.expr.ft;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.ft.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Full-text search that only returns the results with the highest scores.
+ * Created if the results of a search are ordered by their scores, and if only the first
+ * results will be requested.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class FTTopK extends Single {
+  /** Maximum number of results. */
+  private final long k;
+
+  /**
+   * Constructor.
+   * @param info input info
+   * @param expr full-text search
+   * @param k maximum number of results
+   */
+  public FTTopK(final InputInfo info, final Expr expr, final long k) {
+    super(info, expr, expr.seqType());
+    this.k = k;
+  }
+
+  @Override
+  public Iter iter(final QueryContext qc) throws QueryException {
+    return expr instanceof FtSearch ? ((FtSearch) expr).iter(qc, k) : expr.iter(qc);
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    return iter(qc).value(qc, this);
+  }
+
+  @Override
+  public Expr optimize(final CompileContext cc) throws QueryException {
+    return expr instanceof FtSearch ? adoptType(expr) : expr;
+  }
+
+  @Override
+  public boolean ddo() {
+    return true;
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    return copyType(new FTTopK(info, expr.copy(cc, vm), k));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return this == obj || obj instanceof FTTopK && k == ((FTTopK) obj).k && super.equals(obj);
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    plan.add(plan.create(this, COUNT, k), expr);
+  }
+
+  @Override
+  public void plan(final QueryString qs) {
+    qs.token(expr).token("(: top " + k + " :)");
+  }
+}
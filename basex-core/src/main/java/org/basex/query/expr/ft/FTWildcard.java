@@ -2,6 +2,8 @@ package org.basex.query.expr.ft;
 
 import static org.basex.util.Token.*;
 
+import java.util.*;
+
 import org.basex.util.*;
 
 /**
@@ -135,6 +137,21 @@ public final class FTWildcard {
     return tb.finish();
   }
 
+  /**
+   * Returns all sequences of literal characters with the specified minimum length.
+   * @param length minimum number of codepoints
+   * @return codepoints of the sequences
+   */
+  public int[][] literals(final int length) {
+    final ArrayList<int[]> list = new ArrayList<>();
+    for(int s = 0; s < size; s++) {
+      final int start = s;
+      while(s < size && cps[s] != DOT) s++;
+      if(s - start >= length) list.add(Arrays.copyOfRange(cps, start, s));
+    }
+    return list.toArray(new int[0][]);
+  }
+
   /**
    * Checks if the wildcard can match a sub-string in a string.
    * @param tok token to search for match
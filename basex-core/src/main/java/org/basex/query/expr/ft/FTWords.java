@@ -153,10 +153,44 @@ public final class FTWords extends FTExpr {
     final Data data = db.data(qc, IndexType.FULLTEXT);
     return new FTIter() {
       FTIndexIterator ftiter;
-      int length;
+      int length, terms;
 
       @Override
       public FTNode next() throws QueryException {
+        return next(0);
+      }
+
+      @Override
+      public FTNode next(final int pre) throws QueryException {
+        return init() && ftiter.more(pre) ? node() : null;
+      }
+
+      @Override
+      public FTNode nextAbove(final double min) throws QueryException {
+        if(!init()) return null;
+        return (terms == 0 ? ftiter.more() : ftiter.moreAbove(min * terms)) ? node() : null;
+      }
+
+      /**
+       * Creates a node for the current index entry.
+       * @return node
+       */
+      private FTNode node() {
+        if(terms == 0) {
+          return new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+        }
+        final DoubleList weights = new DoubleList(terms << 1);
+        ftiter.weights(weights);
+        return new FTNode(ftiter.matches(), data, ftiter.pre(), weights.finish(), terms,
+            ftiter.avg());
+      }
+
+      /**
+       * Initializes the index iterator.
+       * @return {@code true} if the iterator may return results
+       * @throws QueryException query exception
+       */
+      private boolean init() throws QueryException {
         if(ftiter == null) {
           final FTTokenizer ftt = FTWords.this.get(qc);
           final FTLexer lexer = new FTLexer(ftOpt).
@@ -167,7 +201,7 @@ public final class FTWords extends FTExpr {
           // loop through unique tokens
           for(final byte[] input : unique(inputs != null ? inputs : inputs(qc))) {
             lexer.init(input);
-            if(!lexer.hasNext()) return null;
+            if(!lexer.hasNext()) return false;
 
             int d = 0;
             FTIndexIterator ii = null;
@@ -196,7 +230,7 @@ public final class FTWords extends FTExpr {
                 length = len;
                 ftiter = ii;
               } else if(mode == FTMode.ALL || mode == FTMode.ALL_WORDS) {
-                if(ii.size() == 0) return null;
+                if(ii.size() == 0) return false;
                 length += len;
                 ftiter = FTIndexIterator.intersect(ftiter, ii, 0);
               } else {
@@ -206,9 +240,10 @@ public final class FTWords extends FTExpr {
               }
             }
           }
+          // BM25 scoring: include term statistics
+          if(ftiter != null && qc.context.options.get(MainOptions.BM25)) terms = ftiter.terms();
         }
-        return ftiter == null || !ftiter.more() ? null :
-          new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+        return ftiter != null;
       }
     };
   }
@@ -6,6 +6,7 @@ import java.util.function.*;
 import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.ft.*;
 import org.basex.query.expr.path.*;
 import org.basex.query.func.Function;
 import org.basex.query.iter.*;
@@ -191,6 +192,35 @@ public final class GFLWOR extends ParseExpr {
     return rtrn == Empty.VALUE && !ndt.any(clauses) ? rtrn : null;
   }
 
+  /**
+   * Limits the number of results of a full-text search whose results are ordered by their
+   * scores. Called if only the first results of this expression will be requested.
+   * <pre>for $n in ft:search(...) order by ft:score($n) descending return $n</pre>
+   * @param k number of requested results
+   * @param cc compilation context
+   * @return {@code true} if the expression was rewritten
+   * @throws QueryException query exception
+   */
+  public boolean limit(final long k, final CompileContext cc) throws QueryException {
+    if(clauses.size() != 2 || !(clauses.getFirst() instanceof For) ||
+        !(clauses.getLast() instanceof OrderBy) || !rtrn.seqType().one()) return false;
+
+    final For fr = (For) clauses.getFirst();
+    final OrderKey[] keys = ((OrderBy) clauses.getLast()).keys;
+    if(fr.pos != null || !Function._FT_SEARCH.is(fr.expr) || keys.length != 1 ||
+        !keys[0].desc) return false;
+
+    // order key: score variable or score of iterated node
+    final Expr key = keys[0].expr;
+    if(!(fr.score != null && key instanceof VarRef && ((VarRef) key).var.is(fr.score) ||
+        Function._FT_SCORE.is(key) && key.arg(0) instanceof VarRef &&
+        ((VarRef) key.arg(0)).var.is(fr.var))) return false;
+
+    fr.expr = new FTTopK(info, fr.expr, k).optimize(cc);
+    cc.info(QueryText.OPTTOPK_X_X, k, fr.expr);
+    return true;
+  }
+
   /**
    * Computes the number of results of this FLWOR expression.
    * @param ret include return clause
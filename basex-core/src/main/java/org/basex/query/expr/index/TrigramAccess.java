@@ -0,0 +1,96 @@
+package org.basex.query.expr.index;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This index class retrieves the results of substring and regular expression searches from the
+ * trigram index.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramAccess extends IndexAccess {
+  /** Index search. */
+  private final TrigramSearch index;
+
+  /**
+   * Constructor.
+   * @param info input info
+   * @param index index search
+   * @param db index database
+   */
+  public TrigramAccess(final InputInfo info, final TrigramSearch index, final IndexDb db) {
+    super(db, info, index.text ? NodeType.TEXT : NodeType.ATTRIBUTE);
+    this.index = index;
+  }
+
+  @Override
+  public Iter iter(final QueryContext qc) throws QueryException {
+    final Data data = db.data(qc, IndexType.TRIGRAM);
+
+    return new DBNodeIter(data) {
+      final byte kind = index.text ? Data.TEXT : Data.ATTR;
+      final IndexIterator ii = data.iter(index);
+
+      @Override
+      public DBNode next() {
+        return ii.more() ? new DBNode(data, ii.pre(), kind) : null;
+      }
+    };
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    final Data data = db.data(qc, IndexType.TRIGRAM);
+
+    final IndexIterator ii = data.iter(index);
+    final IntList list = new IntList();
+    while(ii.more()) list.add(ii.pre());
+    return DBNodeSeq.get(list.finish(), data, this);
+  }
+
+  @Override
+  public Expr inline(final InlineContext ic) throws QueryException {
+    return inlineDb(ic) ? optimize(ic.cc) : null;
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    return copyType(new TrigramAccess(info, index, db.copy(cc, vm)));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof TrigramAccess && index.equals(((TrigramAccess) obj).index) &&
+        super.equals(obj);
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    plan.add(plan.create(this, INDEX, IndexType.TRIGRAM), db, Str.get(index.token()));
+  }
+
+  @Override
+  public void plan(final QueryString qs) {
+    final Function function = index.regex() ? Function.MATCHES : Function.CONTAINS;
+    qs.function(Function._DB_OPEN, db).token(index.text ? "//text()" : "//@*");
+    qs.bracket(function.args(".", Str.get(index.token())).trim());
+  }
+}
@@ -6,6 +6,7 @@ import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.up.primitives.*;
 import org.basex.query.up.primitives.db.*;
+import org.basex.query.util.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
@@ -32,4 +33,9 @@ public final class DbAdd extends DbNew {
     qc.updates().add(new DBAdd(data, input, opts, false, qc, info), qc);
     return Empty.VALUE;
   }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return documentLock(visitor, 2) && visitAll(visitor, exprs);
+  }
 }
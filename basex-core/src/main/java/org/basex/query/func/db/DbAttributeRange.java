@@ -1,6 +1,18 @@
 package org.basex.query.func.db;
 
+import static org.basex.util.Token.*;
+
+import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.*;
+import org.basex.query.expr.index.*;
+import org.basex.query.expr.path.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
 
 /**
  * Function implementation.
@@ -9,6 +21,46 @@ import org.basex.index.*;
  * @author Christian Gruen
  */
 public final class DbAttributeRange extends DbTextRange {
+  @Override
+  public Iter iter(final QueryContext qc) throws QueryException {
+    // no attribute specified: return iterator
+    if(exprs.length <= 3) return super.iter(qc);
+
+    // parse and compile the name test
+    final Data data = checkData(qc);
+    final QNm qName = new QNm(toToken(exprs[3], qc), sc);
+    if(!qName.hasPrefix()) qName.uri(sc.ns.uri(EMPTY));
+
+    // return empty sequence if test will yield no results
+    final NameTest nt = new NameTest(qName, NamePart.FULL, NodeType.ATTRIBUTE, sc.elemNS);
+    if(nt.noMatches(data)) return Empty.ITER;
+
+    // typed range index: values of the specified attribute will be compared lexically
+    if(data.meta.rangeindex && data.nspaces.isEmpty() && qName.uri().length == 0) {
+      final TypedRange tr = new TypedRange(false, qName.local(), Str.get(toToken(exprs[1], qc)),
+          true, Str.get(toToken(exprs[2], qc)), true);
+      if(data.costs(tr) != null) {
+        return new TypedRangeAccess(info, tr, new IndexStaticDb(data, info)).iter(qc);
+      }
+    }
+
+    // wrap iterator with name test
+    final Iter iter = super.iter(qc);
+    return new Iter() {
+      @Override
+      public Item next() throws QueryException {
+        Item item;
+        while((item = iter.next()) != null && !nt.matches(item)) qc.checkStop();
+        return item;
+      }
+    };
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    return iter(qc).value(qc, this);
+  }
+
   @Override
   IndexType type() {
     return IndexType.ATTRIBUTE;
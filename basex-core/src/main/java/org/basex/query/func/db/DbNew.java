@@ -7,6 +7,7 @@ import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.up.primitives.*;
+import org.basex.query.util.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
@@ -81,4 +82,18 @@ abstract class DbNew extends DbAccess {
     ni.path = target;
     return ni;
   }
+
+  /**
+   * Tries to mark the documents addressed by the specified path argument for locking.
+   * The database will be locked if its name or the path is not known statically.
+   * @param visitor visitor
+   * @param i index of path argument
+   * @return result of check
+   */
+  final boolean documentLock(final ASTVisitor visitor, final int i) {
+    final String path = exprs.length > i && exprs[i] instanceof Str ?
+      MetaData.normPath(string(((Str) exprs[i]).string())) : null;
+    return path != null && exprs[0] instanceof Str ?
+      visitor.lock(string(((Str) exprs[0]).string()), path) : dataLock(visitor, 0);
+  }
 }
@@ -10,6 +10,7 @@ import org.basex.query.up.*;
 import org.basex.query.up.primitives.*;
 import org.basex.query.up.primitives.db.*;
 import org.basex.query.up.primitives.node.*;
+import org.basex.query.util.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
@@ -32,7 +33,12 @@ public final class DbReplace extends DbNew {
 
     final Updates updates = qc.updates();
     final IntList docs = data.resources.docs(path);
-    int d = 0;
+    // documents are locked: existing documents will be deleted when the updates are applied
+    int d = 0, ds = docs.size();
+    if(ds != 0 && qc.jc().locks.documents(data.meta.name)) {
+      updates.add(new DBReplace(data, path, info), qc);
+      ds = 0;
+    }
 
     // delete binary resources
     final IOFile bin = data.meta.binary(path);
@@ -44,15 +50,19 @@ public final class DbReplace extends DbNew {
     } else {
       if(disk && bin.exists()) updates.add(new DBDelete(data, path, info), qc);
       final NewInput input = checkInput(item, token(path));
-      final Update update = docs.isEmpty() ?
+      final Update update = ds == 0 ?
         new DBAdd(data, input, opts, true, qc, info) :
         new ReplaceDoc(docs.get(d++), data, input, opts, qc, info);
       updates.add(update, qc);
     }
 
     // delete old documents
-    final int ds = docs.size();
     for(; d < ds; d++) updates.add(new DeleteNode(docs.get(d), data, info), qc);
     return Empty.VALUE;
   }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return documentLock(visitor, 1) && visitAll(visitor, exprs);
+  }
 }
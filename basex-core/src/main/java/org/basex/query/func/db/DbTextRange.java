@@ -17,12 +17,12 @@ import org.basex.query.value.*;
  */
 public class DbTextRange extends DbAccess {
   @Override
-  public final Iter iter(final QueryContext qc) throws QueryException {
+  public Iter iter(final QueryContext qc) throws QueryException {
     return rangeAccess(qc).iter(qc);
   }
 
   @Override
-  public final Value value(final QueryContext qc) throws QueryException {
+  public Value value(final QueryContext qc) throws QueryException {
     return rangeAccess(qc).value(qc);
   }
 
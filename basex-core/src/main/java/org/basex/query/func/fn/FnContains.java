@@ -5,6 +5,7 @@ import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
+import org.basex.query.util.index.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
@@ -32,4 +33,14 @@ public final class FnContains extends StandardFunc {
     }
     return this;
   }
+
+  @Override
+  public boolean indexAccessible(final IndexInfo ii) throws QueryException {
+    // support limited to default collation and static substrings
+    final Expr expr2 = exprs[1];
+    if(exprs.length > 2 || sc.collation != null || !(expr2 instanceof Item) ||
+        !((Item) expr2).type.isStringOrUntyped()) return false;
+    final byte[] token = ((Item) expr2).string(info);
+    return ii.create(exprs[0], token, null, new int[][] { Token.cps(token) }, info);
+  }
 }
@@ -6,6 +6,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.value.item.*;
@@ -32,6 +33,9 @@ public final class FnHead extends StandardFunc {
     final SeqType st = expr.seqType();
     if(st.zeroOrOne()) return expr;
 
+    // only compute first full-text result with highest score
+    if(expr instanceof GFLWOR) ((GFLWOR) expr).limit(1, cc);
+
     // rewrite nested function calls
     final long size = expr.size();
     if(_UTIL_INIT.is(expr) && size > 1)
@@ -5,6 +5,8 @@ import static org.basex.util.Token.*;
 import java.util.regex.*;
 
 import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.util.index.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
 
@@ -21,4 +23,16 @@ public final class FnMatches extends RegEx {
     final Pattern pattern = pattern(exprs[1], exprs.length == 3 ? exprs[2] : null, qc, false);
     return Bln.get(pattern.matcher(string(value)).find());
   }
+
+  @Override
+  public boolean indexAccessible(final IndexInfo ii) throws QueryException {
+    // support limited to static patterns and modifiers
+    final Expr expr2 = exprs[1], expr3 = exprs.length == 3 ? exprs[2] : Str.EMPTY;
+    if(!(expr2 instanceof Item && expr3 instanceof Item)) return false;
+
+    final byte[] regex = toToken(expr2, ii.cc.qc), modifiers = toToken(expr3, ii.cc.qc);
+    final int[][] literals = literals(regex, modifiers);
+    return literals != null && ii.create(exprs[0], regex,
+        pattern(expr2, exprs.length == 3 ? expr3 : null, ii.cc.qc, false), literals, info);
+  }
 }
@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -202,6 +203,11 @@ public class FnSubsequence extends StandardFunc {
         return sr.start == 0 ? expr : Empty.VALUE;
       }
 
+      // only compute first full-text results with highest scores
+      if(sr.start == 0 && sr.length != Long.MAX_VALUE && expr instanceof GFLWOR) {
+        ((GFLWOR) expr).limit(sr.end, cc);
+      }
+
       // rewrite nested function calls
       if(sr.length == 1) {
         return sr.start == 0 ? cc.function(HEAD, info, expr) :
@@ -74,6 +74,31 @@ abstract class RegEx extends StandardFunc {
     }
   }
 
+  /**
+   * Returns sequences of codepoints that occur in all matches of a regular expression.
+   * @param regex regular expression
+   * @param modifiers modifiers
+   * @return codepoint sequences, or {@code null} if they cannot be determined
+   */
+  protected static int[][] literals(final byte[] regex, final byte[] modifiers) {
+    boolean strip = false, all = false, multi = false, literal = false;
+    for(final byte mod : modifiers) {
+      if(mod == 'x') strip = true;
+      else if(mod == 's') all = true;
+      else if(mod == 'm') multi = true;
+      else if(mod == 'q') literal = true;
+      // no literals for case-insensitive searches and Java syntax
+      else if(mod != ';') return null;
+    }
+    if(literal) return new int[][] { cps(regex) };
+    try {
+      return new RegExParser(regex, strip, all, multi).parse().literals();
+    } catch(final ParseException | TokenMgrError ex) {
+      Util.debug(ex);
+      return null;
+    }
+  }
+
   /**
    * Compiles this regular expression to a {@link Pattern}.
    * @param regex regular expression to parse
@@ -20,6 +20,27 @@ import org.basex.util.ft.*;
 public final class FtSearch extends FtAccess {
   @Override
   public NodeIter iter(final QueryContext qc) throws QueryException {
+    return access(qc).iter(qc);
+  }
+
+  /**
+   * Returns the {@code k} results with the highest scores in document order.
+   * @param qc query context
+   * @param k maximum number of results
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public NodeIter iter(final QueryContext qc, final long k) throws QueryException {
+    return access(qc).iter(qc, k);
+  }
+
+  /**
+   * Returns an index access expression for the search.
+   * @param qc query context
+   * @return index access
+   * @throws QueryException query exception
+   */
+  private FTIndexAccess access(final QueryContext qc) throws QueryException {
     final Data data = checkData(qc);
     final Value query = exprs[1].value(qc);
     final FtIndexOptions opts = toOptions(2, new FtIndexOptions(), qc);
@@ -29,7 +50,7 @@ public final class FtSearch extends FtAccess {
     final FTOpt opt = ftOpt(opts, qc).assign(data.meta);
 
     final FTWords ftw = new FTWords(info, db, query, mode).ftOpt(opt).optimize(qc);
-    return new FTIndexAccess(info, ftExpr(ftw, opts), db).iter(qc);
+    return new FTIndexAccess(info, ftExpr(ftw, opts), db);
   }
 
   @Override
@@ -12,4 +12,29 @@ import org.basex.query.value.node.*;
 public abstract class FTIter extends Iter {
   @Override
   public abstract FTNode next() throws QueryException;
+
+  /**
+   * Returns the next node with a pre value that is equal to or greater than the specified value.
+   * Overwritten by iterators that can skip nodes without evaluating them.
+   * @param pre pre value
+   * @return node or {@code null}
+   * @throws QueryException query exception
+   */
+  public FTNode next(final int pre) throws QueryException {
+    for(FTNode node; (node = next()) != null;) {
+      if(node.pre() >= pre) return node;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the next node whose score may exceed the specified value.
+   * Overwritten by iterators that can skip nodes with lower scores.
+   * @param min minimum score
+   * @return node or {@code null}
+   * @throws QueryException query exception
+   */
+  public FTNode nextAbove(@SuppressWarnings("unused") final double min) throws QueryException {
+    return next();
+  }
 }
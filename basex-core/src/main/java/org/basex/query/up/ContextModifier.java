@@ -132,6 +132,9 @@ abstract class ContextModifier {
     for(final NameUpdates up : nameUpdates.values()) {
       up.apply(false);
     }
+
+    // compact heaps in batches; other jobs can access the databases between two batches
+    for(final DataUpdates up : dbUpdates.values()) up.compact(qc);
   }
 
   /**
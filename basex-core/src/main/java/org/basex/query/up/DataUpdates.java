@@ -50,6 +50,8 @@ final class DataUpdates {
   private AtomicUpdateCache auc;
   /** Number of updates. */
   private int size;
+  /** Indicates if the heaps will be compacted after all updates have been applied. */
+  private boolean compact;
 
   /**
    * Constructor.
@@ -152,6 +154,32 @@ final class DataUpdates {
     return data;
   }
 
+  /**
+   * Compacts the heaps of the database in batches if an optimization was requested.
+   * Other jobs can access the database between two batches.
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  void compact(final QueryContext qc) throws QueryException {
+    if(!compact) return;
+    final Context ctx = qc.context;
+    try {
+      while(true) {
+        final long reclaimed;
+        data.startUpdate(ctx.options);
+        try {
+          reclaimed = data.compact(Data.COMPACT);
+        } finally {
+          data.finishUpdate(ctx.options);
+        }
+        if(reclaimed != -1) break;
+        ctx.locking.pause();
+      }
+    } catch(final IOException ex) {
+      throw UPDBERROR_X.get(null, ex);
+    }
+  }
+
   /**
    * Applies all updates for this specific database.
    * @param qc query context
@@ -166,7 +194,9 @@ final class DataUpdates {
     Collections.sort(dbUpdates);
     final int sz = dbUpdates.size();
     for(int i = 0; i < sz; i++) {
-      dbUpdates.get(i).apply();
+      final DBUpdate up = dbUpdates.get(i);
+      up.apply();
+      if(up instanceof DBOptimize && ((DBOptimize) up).compact()) compact = true;
       dbUpdates.set(i, null);
     }
 
@@ -25,10 +25,15 @@ public final class DBOptions {
     MainOptions.DTD, MainOptions.CATFILE, MainOptions.XINCLUDE };
   /** Indexing options. */
   public static final Option<?>[] INDEXING = { MainOptions.MAXCATS, MainOptions.MAXLEN,
-    MainOptions.SPLITSIZE, MainOptions.LANGUAGE, MainOptions.STOPWORDS, MainOptions.TEXTINDEX,
-    MainOptions.ATTRINDEX, MainOptions.TOKENINDEX, MainOptions.FTINDEX, MainOptions.TEXTINCLUDE,
-    MainOptions.ATTRINCLUDE, MainOptions.TOKENINCLUDE, MainOptions.FTINCLUDE, MainOptions.STEMMING,
-    MainOptions.CASESENS, MainOptions.DIACRITICS, MainOptions.UPDINDEX, MainOptions.AUTOOPTIMIZE };
+    MainOptions.SPLITSIZE, MainOptions.INDEXTHREADS, MainOptions.LANGUAGE, MainOptions.STOPWORDS,
+    MainOptions.TEXTINDEX, MainOptions.ATTRINDEX, MainOptions.TOKENINDEX, MainOptions.FTINDEX,
+    MainOptions.RANGEINDEX, MainOptions.TRIGRAMINDEX, MainOptions.TEXTINCLUDE,
+    MainOptions.ATTRINCLUDE, MainOptions.TOKENINCLUDE, MainOptions.FTINCLUDE,
+    MainOptions.RANGEINCLUDE, MainOptions.TRIGRAMINCLUDE, MainOptions.STEMMING,
+    MainOptions.CASESENS, MainOptions.DIACRITICS,
+    MainOptions.UPDINDEX, MainOptions.INDEXDELTA, MainOptions.BLOOMFILTER, MainOptions.AUTOOPTIMIZE,
+    MainOptions.FILLFACTOR, MainOptions.COMPRESSION, MainOptions.DICTIONARY,
+    MainOptions.DICTMAXLEN };
 
   /** Runtime options. */
   private final HashMap<Option<?>, Object> map = new HashMap<>();
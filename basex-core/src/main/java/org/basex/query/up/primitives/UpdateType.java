@@ -44,6 +44,7 @@ public enum UpdateType {
 
   // Operations on resources of existing databases
 
+  /** Replace documents.    */ DBREPLACE,
   /** Add document.         */ DBADD,
   /** Add binary resource.  */ DBSTORE,
   /** Rename resource.      */ DBRENAME,
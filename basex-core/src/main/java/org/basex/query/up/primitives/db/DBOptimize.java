@@ -46,7 +46,11 @@ public final class DBOptimize extends DBUpdate {
 
     final ArrayList<Option<?>> supported = new ArrayList<>();
     for(final Option<?> option : DBOptions.INDEXING) {
-      if(all || option != MainOptions.UPDINDEX) supported.add(option);
+      if(all || option != MainOptions.UPDINDEX && option != MainOptions.INDEXDELTA &&
+          option != MainOptions.COMPRESSION && option != MainOptions.DICTIONARY &&
+          option != MainOptions.DICTMAXLEN) {
+        supported.add(option);
+      }
     }
     options = new DBOptions(opts, supported, info);
   }
@@ -64,33 +68,49 @@ public final class DBOptimize extends DBUpdate {
     options.assignIfAbsent(MainOptions.ATTRINDEX, meta.createattr);
     options.assignIfAbsent(MainOptions.TOKENINDEX, meta.createtoken);
     options.assignIfAbsent(MainOptions.FTINDEX, meta.createft);
+    options.assignIfAbsent(MainOptions.RANGEINDEX, meta.createrange);
+    options.assignIfAbsent(MainOptions.TRIGRAMINDEX, meta.createtrigram);
     options.assignIfAbsent(MainOptions.TEXTINCLUDE, meta.textinclude);
     options.assignIfAbsent(MainOptions.ATTRINCLUDE, meta.attrinclude);
     options.assignIfAbsent(MainOptions.TOKENINCLUDE, meta.tokeninclude);
     options.assignIfAbsent(MainOptions.FTINCLUDE, meta.ftinclude);
+    options.assignIfAbsent(MainOptions.RANGEINCLUDE, meta.rangeinclude);
+    options.assignIfAbsent(MainOptions.TRIGRAMINCLUDE, meta.trigraminclude);
     options.assignIfAbsent(MainOptions.UPDINDEX, meta.updindex);
+    options.assignIfAbsent(MainOptions.INDEXDELTA, meta.indexdelta);
+    options.assignIfAbsent(MainOptions.BLOOMFILTER, meta.bloomfilter);
     options.assignIfAbsent(MainOptions.AUTOOPTIMIZE, meta.autooptimize);
     options.assignIfAbsent(MainOptions.SPLITSIZE, meta.splitsize);
+    options.assignIfAbsent(MainOptions.INDEXTHREADS, meta.indexthreads);
+    options.assignIfAbsent(MainOptions.FILLFACTOR, meta.fillfactor);
+    options.assignIfAbsent(MainOptions.COMPRESSION, meta.compression);
+    options.assignIfAbsent(MainOptions.DICTIONARY, meta.dictionary);
+    options.assignIfAbsent(MainOptions.DICTMAXLEN, meta.dictmaxlen);
     options.assignIfAbsent(MainOptions.MAXCATS, meta.maxcats);
     options.assignIfAbsent(MainOptions.MAXLEN, meta.maxlen);
     options.assignTo(opts);
 
     // check which options have changed
     final int maxlen = opts.get(MainOptions.MAXLEN);
+    final boolean bloomfilter = opts.get(MainOptions.BLOOMFILTER);
     final String textinclude = opts.get(MainOptions.TEXTINCLUDE);
     final String attrinclude = opts.get(MainOptions.ATTRINCLUDE);
     final String tokeninclude = opts.get(MainOptions.TOKENINCLUDE);
     final String ftinclude = opts.get(MainOptions.FTINCLUDE);
+    final String rangeinclude = opts.get(MainOptions.RANGEINCLUDE);
+    final String trigraminclude = opts.get(MainOptions.TRIGRAMINCLUDE);
     final boolean stemming = opts.get(MainOptions.STEMMING);
     final boolean casesens = opts.get(MainOptions.CASESENS);
     final boolean diacritics = opts.get(MainOptions.DIACRITICS);
     final Language language = Language.get(opts);
     final String stopwords = opts.get(MainOptions.STOPWORDS);
 
-    final boolean rebuild = maxlen != meta.maxlen;
-    final boolean rebuildText = !meta.textinclude.equals(textinclude) || rebuild;
-    final boolean rebuildAttr = !meta.attrinclude.equals(attrinclude) || rebuild;
-    final boolean rebuildToken = !meta.tokeninclude.equals(tokeninclude);
+    final boolean rebuild = maxlen != meta.maxlen, bloom = bloomfilter != meta.bloomfilter;
+    final boolean rebuildText = !meta.textinclude.equals(textinclude) || rebuild || bloom;
+    final boolean rebuildAttr = !meta.attrinclude.equals(attrinclude) || rebuild || bloom;
+    final boolean rebuildToken = !meta.tokeninclude.equals(tokeninclude) || bloom;
+    final boolean rebuildRange = !meta.rangeinclude.equals(rangeinclude);
+    final boolean rebuildTrigram = !meta.trigraminclude.equals(trigraminclude);
     final boolean rebuildFt = !meta.ftinclude.equals(ftinclude) || rebuild ||
         stemming != meta.stemming || casesens != meta.casesens || diacritics != meta.diacritics ||
         !language.equals(meta.language) || !stopwords.equals(meta.stopwords);
@@ -100,15 +120,23 @@ public final class DBOptimize extends DBUpdate {
     meta.createattr = opts.get(MainOptions.ATTRINDEX);
     meta.createtoken = opts.get(MainOptions.TOKENINDEX);
     meta.createft = opts.get(MainOptions.FTINDEX);
+    meta.createrange = opts.get(MainOptions.RANGEINDEX);
+    meta.createtrigram = opts.get(MainOptions.TRIGRAMINDEX);
     meta.maxcats = opts.get(MainOptions.MAXCATS);
     meta.updindex = opts.get(MainOptions.UPDINDEX);
+    meta.indexdelta = opts.get(MainOptions.INDEXDELTA);
+    meta.bloomfilter = bloomfilter;
     meta.autooptimize = opts.get(MainOptions.AUTOOPTIMIZE);
     meta.splitsize = opts.get(MainOptions.SPLITSIZE);
+    meta.indexthreads = opts.get(MainOptions.INDEXTHREADS);
+    meta.fillfactor = opts.get(MainOptions.FILLFACTOR);
     meta.textinclude = textinclude;
     meta.attrinclude = attrinclude;
     meta.tokeninclude = tokeninclude;
     meta.maxlen = maxlen;
     meta.ftinclude = ftinclude;
+    meta.rangeinclude = rangeinclude;
+    meta.trigraminclude = trigraminclude;
     meta.stemming   = stemming;
     meta.casesens   = casesens;
     meta.diacritics = diacritics;
@@ -116,8 +144,12 @@ public final class DBOptimize extends DBUpdate {
     meta.stopwords  = stopwords;
 
     try {
-      if(all) OptimizeAll.optimizeAll(data, qc.context, opts, null);
-      else Optimize.optimize(data, rebuildText, rebuildAttr, rebuildToken, rebuildFt, null);
+      if(all) {
+        OptimizeAll.optimizeAll(data, qc.context, opts, null);
+      } else {
+        Optimize.optimize(data, rebuildText, rebuildAttr, rebuildToken, rebuildFt, rebuildRange,
+            rebuildTrigram, null);
+      }
     } catch(final IOException ex) {
       throw UPDBERROR_X.get(info, ex);
     }
@@ -126,6 +158,14 @@ public final class DBOptimize extends DBUpdate {
     if(all) qc.resources.remove(meta.name);
   }
 
+  /**
+   * Indicates if the heaps of the database will be compacted after all updates have been applied.
+   * @return result of check
+   */
+  public boolean compact() {
+    return !all;
+  }
+
   @Override
   public void merge(final Update update) {
     all |= ((DBOptimize) update).all;
@@ -0,0 +1,60 @@
+package org.basex.query.up.primitives.db;
+
+import org.basex.data.*;
+import org.basex.query.func.*;
+import org.basex.query.up.atomic.*;
+import org.basex.query.up.primitives.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Update primitive for the {@link Function#_DB_REPLACE} function, which deletes the existing
+ * documents of the replaced paths. It is used if documents are locked instead of the database
+ * (see {@link org.basex.core.locks.Locks#documents}): as the database may be updated by other
+ * jobs before the updates are applied, the documents are resolved when the updates are applied.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class DBReplace extends DBUpdate {
+  /** Paths of the replaced documents. */
+  private final StringList paths = new StringList(1);
+  /** Number of replaced documents. */
+  private int size;
+
+  /**
+   * Constructor.
+   * @param data data
+   * @param path target path
+   * @param info input info
+   */
+  public DBReplace(final Data data, final String path, final InputInfo info) {
+    super(UpdateType.DBREPLACE, data, info);
+    paths.add(path);
+    size = data.resources.docs(path).size();
+  }
+
+  @Override
+  public void prepare() {
+  }
+
+  @Override
+  public void apply() {
+    final IntList docs = new IntList();
+    for(final String path : paths) docs.add(data.resources.docs(path).toArray());
+    final AtomicUpdateCache auc = new AtomicUpdateCache(data);
+    for(final int pre : docs.ddo().finish()) auc.addDelete(pre);
+    auc.execute(false);
+  }
+
+  @Override
+  public void merge(final Update update) {
+    for(final String path : ((DBReplace) update).paths) paths.add(path);
+    size += update.size();
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
@@ -96,6 +96,17 @@ public abstract class ASTVisitor {
     return true;
   }
 
+  /**
+   * Notifies the visitor of an update of single documents. Overwritten by {@link MainModule}.
+   * @param db name of database
+   * @param path normalized path to the documents
+   * @return if more expressions should be visited ({@code true} by default)
+   */
+  @SuppressWarnings("unused")
+  public boolean lock(final String db, final String path) {
+    return true;
+  }
+
   /**
    * Notifies the visitor of an expression entering a focus. Overwritten by {@link MainModule}.
    */
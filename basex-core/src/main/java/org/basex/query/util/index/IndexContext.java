@@ -49,7 +49,9 @@ public class IndexContext extends IndexPred {
   @Override
   Expr invert(final Expr root) throws QueryException {
     final Step st = ii.step;
-    if(ii.text || !(st.test instanceof NameTest || st.test instanceof UnionTest)) return root;
+    if(ii.text || ii.named || !(st.test instanceof NameTest || st.test instanceof UnionTest)) {
+      return root;
+    }
 
     // attribute index request: add attribute step
     final InputInfo info = root instanceof ParseExpr ? ((ParseExpr) root).info : null;
@@ -2,6 +2,9 @@ package org.basex.query.util.index;
 
 import static org.basex.query.QueryText.*;
 
+import java.util.*;
+import java.util.regex.*;
+
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
@@ -37,12 +40,16 @@ public final class IndexInfo {
   public String optInfo;
   /** Name test of parent element. */
   public NameTest test;
+  /** Local name of the element or attribute whose values are compared (can be {@code null}). */
+  public byte[] name;
   /** Index expression. */
   public Expr expr;
   /** Costs of index access ({@code null}) if no index access is possible). */
   public IndexCosts costs;
   /** Indicates if the last step addresses a text node. */
   boolean text;
+  /** Indicates if the index only returns nodes with the addressed name. */
+  boolean named;
 
   /** Predicate expression. */
   private IndexPred pred;
@@ -65,9 +72,11 @@ public final class IndexInfo {
    * @param input input (if {@code null}, no optimization will be possible)
    * @param type index type, predefined by the called expression (can be {@code null})
    * @return supplied type, {@link IndexType#TEXT}, {@link IndexType#ATTRIBUTE}, or
-   *   {@code null} if index access is not possible
+   *   {@code null} if index access is not possible. The {@link IndexType#RANGE} and
+   *   {@link IndexType#TRIGRAM} types are returned for both text and attribute values
    */
   public IndexType type(final Expr input, final IndexType type) {
+    name = null;
     pred = IndexPred.get(input, this);
     if(pred == null) return null;
 
@@ -97,8 +106,9 @@ public final class IndexInfo {
 
     // check if the index contains result for the specified elements or attributes
     final IndexType it = type != null ? type : text ? IndexType.TEXT : IndexType.ATTRIBUTE;
-    if(text ? (it != IndexType.TEXT && it != IndexType.FULLTEXT) :
-      (it != IndexType.TOKEN && it != IndexType.ATTRIBUTE)) return null;
+    if(it != IndexType.RANGE && it != IndexType.TRIGRAM && (text ?
+      it != IndexType.TEXT && it != IndexType.FULLTEXT :
+      it != IndexType.TOKEN && it != IndexType.ATTRIBUTE)) return null;
 
     // database is known at compile time: perform additional checks
     if(data != null) {
@@ -110,6 +120,8 @@ public final class IndexInfo {
       if(st.test instanceof NameTest) {
         final NameTest nt = (NameTest) st.test;
         qname = new byte[][] { nt.local, nt.qname == null ? null : nt.qname.uri() };
+        if(nt.part() == NamePart.LOCAL || nt.part() == NamePart.FULL &&
+            nt.qname.uri().length == 0) name = nt.local;
       }
       if(!new IndexNames(it, data).contains(qname)) return null;
     }
@@ -167,6 +179,11 @@ public final class IndexInfo {
         if(counts >= 0) counts = count >= 0 ? counts + count : -1;
       }
 
+      // composite index: single lookup in the values of the addressed name
+      if(tokens.size() == 1 && type != IndexType.TOKEN && composite(tokens.key(1), ii)) {
+        return true;
+      }
+
       // create expression for index access
       final ValueAccess va = new ValueAccess(ii, tokens, type, test, db);
       va.size(counts);
@@ -191,6 +208,106 @@ public final class IndexInfo {
     return true;
   }
 
+  /**
+   * Tries to rewrite the specified input for typed range index access.
+   * @param input input
+   * @param min minimum value (can be {@code null})
+   * @param mni include minimum value
+   * @param max maximum value (can be {@code null})
+   * @param mxi include maximum value
+   * @param ii input info
+   * @return success flag
+   * @throws QueryException query exception
+   */
+  public boolean create(final Expr input, final Item min, final boolean mni, final Item max,
+      final boolean mxi, final InputInfo ii) throws QueryException {
+
+    // range index access requires a known database without namespaces
+    final Data data = db.data();
+    if(data == null || data.inMemory() || !data.nspaces.isEmpty() ||
+        type(input, IndexType.RANGE) == null || name == null) return false;
+
+    final TypedRange tr = new TypedRange(text, name, min, mni, max, mxi);
+    costs = data.costs(tr);
+    if(costs == null) return false;
+
+    named = true;
+    create(new TypedRangeAccess(ii, tr, db), true, Util.info(OPTINDEX_X_X, "typed range", tr),
+        ii);
+    return true;
+  }
+
+  /**
+   * Tries to rewrite a substring or regular expression search for trigram index access.
+   * @param input input
+   * @param token substring or regular expression
+   * @param pattern regular expression pattern ({@code null} for substring searches)
+   * @param literals codepoint sequences that occur in all results
+   * @param ii input info
+   * @return success flag
+   * @throws QueryException query exception
+   */
+  public boolean create(final Expr input, final byte[] token, final Pattern pattern,
+      final int[][] literals, final InputInfo ii) throws QueryException {
+
+    // only consider sequences that consist of at least one trigram
+    final ArrayList<int[]> trigrams = new ArrayList<>();
+    for(final int[] literal : literals) {
+      if(literal.length >= 3) trigrams.add(literal);
+    }
+    final Data data = db.data();
+    if(trigrams.isEmpty() || data == null || data.inMemory() ||
+        type(input, IndexType.TRIGRAM) == null) return false;
+
+    final TrigramSearch ts = new TrigramSearch(text, token, pattern,
+        trigrams.toArray(new int[0][]));
+    costs = data.costs(ts);
+    create(new TrigramAccess(ii, ts, db), true, Util.info(OPTINDEX_X_X, "trigram", ts), ii);
+    return true;
+  }
+
+  /**
+   * Tries to rewrite an equality comparison for composite index access. Called if no value
+   * index exists for the specified input.
+   * @param input input
+   * @param search expression to find
+   * @param ii input info
+   * @return success flag
+   * @throws QueryException query exception
+   */
+  public boolean create(final Expr input, final Expr search, final InputInfo ii)
+      throws QueryException {
+    if(!(search instanceof Item) || !((Item) search).type.isStringOrUntyped() ||
+        type(input, IndexType.RANGE) == null) return false;
+    final byte[] token = ((Item) search).string(ii);
+    return token.length != 0 && composite(token, ii);
+  }
+
+  /**
+   * Tries to rewrite an equality comparison for composite index access. The range index is
+   * chosen if it exists for the addressed name and if it returns not more results than the
+   * value index (no name tests are required for its results).
+   * @param token token to find
+   * @param ii input info
+   * @return success flag
+   * @throws QueryException query exception
+   */
+  private boolean composite(final byte[] token, final InputInfo ii) throws QueryException {
+    final Data data = db.data();
+    if(name == null || data == null || data.inMemory() || !data.meta.rangeindex ||
+        !data.nspaces.isEmpty()) return false;
+
+    final Str item = Str.get(token);
+    final TypedRange tr = new TypedRange(text, name, item, true, item, true);
+    final IndexCosts ic = data.costs(tr);
+    if(ic == null || costs != null && ic.compareTo(costs) > 0) return false;
+
+    costs = ic;
+    named = true;
+    create(new TypedRangeAccess(ii, tr, db), true, Util.info(OPTINDEX_X_X, "composite", tr), ii);
+    return true;
+  }
+
   /**
    * Creates an index expression with an inverted axis path.
    * @param root new root expression
@@ -74,8 +74,9 @@ public class IndexPath extends IndexPred {
     final Step last = step(s);
     final Expr rt = last.exprs.length == 0 ? root : Filter.get(cc, path.info, root, last.exprs);
 
-    // attribute index request: start inverted path with attribute step
-    if(!ii.text && (last.test instanceof NameTest || last.test instanceof UnionTest)) {
+    // attribute index request: start inverted path with attribute step (unless the index
+    // only returns attributes with the addressed name)
+    if(!ii.text && !ii.named && (last.test instanceof NameTest || last.test instanceof UnionTest)) {
       steps.add(Step.get(cc, rt, last.info, last.test));
     }
     // add inverted steps in reverse order
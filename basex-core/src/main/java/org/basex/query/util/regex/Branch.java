@@ -1,5 +1,9 @@
 package org.basex.query.util.regex;
 
+import java.util.*;
+
+import org.basex.util.list.*;
+
 /**
  * A branch of a regular expression.
  *
@@ -22,4 +26,9 @@ public final class Branch extends RegExp {
   void toRegEx(final StringBuilder sb) {
     for(final RegExp piece : pieces) piece.toRegEx(sb);
   }
+
+  @Override
+  void literals(final IntList current, final ArrayList<int[]> list) {
+    for(final RegExp piece : pieces) piece.literals(current, list);
+  }
 }
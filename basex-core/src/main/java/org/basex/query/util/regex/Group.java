@@ -1,5 +1,9 @@
 package org.basex.query.util.regex;
 
+import java.util.*;
+
+import org.basex.util.list.*;
+
 /**
  * A parenthesized group.
  *
@@ -28,4 +32,9 @@ public final class Group extends RegExp {
     encl.toRegEx(sb);
     sb.append(')');
   }
+
+  @Override
+  void literals(final IntList current, final ArrayList<int[]> list) {
+    encl.literals(current, list);
+  }
 }
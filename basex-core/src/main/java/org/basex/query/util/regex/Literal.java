@@ -1,5 +1,9 @@
 package org.basex.query.util.regex;
 
+import java.util.*;
+
+import org.basex.util.list.*;
+
 /**
  * A character literal.
  *
@@ -23,6 +27,11 @@ public final class Literal extends RegExp {
     sb.append(escape(codepoint));
   }
 
+  @Override
+  void literals(final IntList current, final ArrayList<int[]> list) {
+    current.add(codepoint);
+  }
+
   /**
    * Escapes the given code point for a regular expression.
    * @param cp code point
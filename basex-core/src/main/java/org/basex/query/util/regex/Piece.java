@@ -1,5 +1,9 @@
 package org.basex.query.util.regex;
 
+import java.util.*;
+
+import org.basex.util.list.*;
+
 /**
  * An atom together with a quantifier.
  *
@@ -27,4 +31,9 @@ public final class Piece extends RegExp {
     atom.toRegEx(sb);
     quant.toRegEx(sb);
   }
+
+  @Override
+  void literals(final IntList current, final ArrayList<int[]> list) {
+    quant.literals(atom, current, list);
+  }
 }
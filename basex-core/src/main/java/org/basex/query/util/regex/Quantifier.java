@@ -1,5 +1,9 @@
 package org.basex.query.util.regex;
 
+import java.util.*;
+
+import org.basex.util.list.*;
+
 /**
  * A quantifier, like {@code ?}, {@code *} or {@code &#x7b;17,123&#x7d;}.
  *
@@ -31,6 +35,27 @@ public final class Quantifier extends RegExp {
     sb.append(string()).append(lazy ? "?" : "");
   }
 
+  /**
+   * Collects the literals of a quantified atom. The first occurrences of the atom are appended
+   * to the current sequence. If the number of occurrences is variable, a new sequence is
+   * started with the last occurrences.
+   * @param atom atom
+   * @param current current sequence
+   * @param list completed sequences
+   */
+  void literals(final RegExp atom, final IntList current, final ArrayList<int[]> list) {
+    if(min == 0) {
+      finish(current, list);
+    } else {
+      final int n = atom instanceof Literal ? min : 1;
+      for(int i = 0; i < n; i++) atom.literals(current, list);
+      if(max != n) {
+        finish(current, list);
+        for(int i = 0; i < n; i++) atom.literals(current, list);
+      }
+    }
+  }
+
   /**
    * Translates the occurrence bounds to a regex string.
    * @return regex representation
@@ -1,5 +1,9 @@
 package org.basex.query.util.regex;
 
+import java.util.*;
+
+import org.basex.util.list.*;
+
 /**
  * A node of the regular expression AST.
  * @author Leo Woerteler
@@ -17,4 +21,38 @@ public abstract class RegExp {
    * @param sb string builder
    */
   abstract void toRegEx(StringBuilder sb);
+
+  /**
+   * Returns sequences of literal codepoints that occur in all matches of this expression.
+   * @return codepoint sequences
+   */
+  public final int[][] literals() {
+    final ArrayList<int[]> list = new ArrayList<>();
+    final IntList current = new IntList();
+    literals(current, list);
+    finish(current, list);
+    return list.toArray(new int[0][]);
+  }
+
+  /**
+   * Recursive {@link RegExp#literals()} helper. Appends the codepoints of this expression to
+   * the current sequence. By default, the current sequence is completed.
+   * @param current current sequence
+   * @param list completed sequences
+   */
+  void literals(final IntList current, final ArrayList<int[]> list) {
+    finish(current, list);
+  }
+
+  /**
+   * Completes the current sequence.
+   * @param current current sequence
+   * @param list completed sequences
+   */
+  static void finish(final IntList current, final ArrayList<int[]> list) {
+    if(!current.isEmpty()) {
+      list.add(current.toArray());
+      current.reset();
+    }
+  }
 }
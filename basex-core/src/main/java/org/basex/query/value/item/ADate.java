@@ -27,6 +27,8 @@ public abstract class ADate extends ADateDur {
   static final long MIN_YEAR = -MAX_YEAR;
   /** Constant for counting negative years (divisible by 400). */
   private static final long ADD_NEG = (MAX_YEAR / 400 + 1) * 400;
+  /** Day count of 1970-01-01. */
+  private static final BigDecimal EPOCH = days(1970 + ADD_NEG, 0, 0);
 
   /** Pattern for two digits. */
   static final String DD = "(\\d{2})";
@@ -433,6 +435,16 @@ public abstract class ADate extends ADateDur {
         BigDecimal.valueOf(Math.max(0, hou) * 3600L + Math.max(0, min) * 60L - z * 60L));
   }
 
+  /**
+   * Returns the seconds since 1970-01-01T00:00:00Z. Dates without timezone are treated as UTC
+   * dates; the implicit timezone is ignored.
+   * @return seconds (including fractional seconds)
+   */
+  public final BigDecimal epochSeconds() {
+    return days().subtract(EPOCH).multiply(BD_864000).add(sec()).add(BigDecimal.valueOf(
+        Math.max(0, hou) * 3600L + Math.max(0, min) * 60L - (hasTz() ? tz * 60L : 0)));
+  }
+
   /**
    * Returns a day count.
    * @return days
@@ -166,6 +166,23 @@ public class DBNode extends ANode {
     return Double.isNaN(d) ? Dbl.parse(string(), ii) : d;
   }
 
+  /**
+   * Returns the inlined representation of the string value of a text, attribute, or an element
+   * with a single text node.
+   * @return inlined value, or {@code 0} if the value is not inlined
+   */
+  public final long inlined() {
+    if(type == NodeType.ELEMENT) {
+      final int as = data.attSize(pre, Data.ELEM);
+      if(data.size(pre, Data.ELEM) - as == 1 && data.kind(pre + as) == Data.TEXT) {
+        return data.inlined(pre + as, true);
+      }
+    } else if(type == NodeType.TEXT || type == NodeType.ATTRIBUTE) {
+      return data.inlined(pre, type == NodeType.TEXT);
+    }
+    return 0;
+  }
+
   @Override
   public final byte[] name() {
     return type == NodeType.ELEMENT || type == NodeType.ATTRIBUTE ||
@@ -17,6 +17,12 @@ public final class FTNode extends DBNode {
   private final int tl;
   /** Total number of indexed results. */
   private final int is;
+  /** Inverse document frequencies and frequencies of the matching terms (can be {@code null}). */
+  private double[] weights;
+  /** Number of query terms (only assigned if term weights are available). */
+  private int terms;
+  /** Average text length (only assigned if term weights are available). */
+  private double avg;
   /** Full-text matches. */
   private FTMatches matches;
   /** Score value. */
@@ -49,6 +55,23 @@ public final class FTNode extends DBNode {
     this.is = is;
   }
 
+  /**
+   * Constructor, called by the index variant if term statistics are available.
+   * @param matches full-text matches
+   * @param data data reference
+   * @param pre pre value
+   * @param weights inverse document frequencies and frequencies of the matching terms
+   * @param terms number of query terms
+   * @param avg average text length
+   */
+  public FTNode(final FTMatches matches, final Data data, final int pre, final double[] weights,
+      final int terms, final double avg) {
+    this(matches, data, pre, 0, 0);
+    this.weights = weights;
+    this.terms = terms;
+    this.avg = avg;
+  }
+
   /**
    * Assigns full-text matches.
    * @param match full-text matches
@@ -68,8 +91,12 @@ public final class FTNode extends DBNode {
   @Override
   public double score() {
     if(score == null) {
-      if(matches == null) return 0;
-      score = Scoring.textNode(matches.size(), is, tl, data().textLen(pre(), true));
+      if(weights != null) {
+        score = Scoring.bm25(weights, terms, data().textLen(pre(), true), avg);
+      } else {
+        if(matches == null) return 0;
+        score = Scoring.textNode(matches.size(), is, tl, data().textLen(pre(), true));
+      }
     }
     return score;
   }
@@ -58,9 +58,9 @@ public final class FreeSlots {
    * Adds a value for the specified slot size.
    * @param size byte size
    * @param offset file offset
-   * @param opt optimize
+   * @param opt optimize (merge adjacent slots)
    */
-  private void add(final int size, final long offset, final boolean opt) {
+  public void add(final int size, final long offset, final boolean opt) {
     free.computeIfAbsent(size, k -> new LongList()).add(offset);
     slots++;
     if(opt) optimize();
@@ -14,6 +14,18 @@ import org.basex.data.*;
  * - Byte 4: integer value or inlined whitespace token
  * </pre>
  *
+ * Decimals, dates and dateTimes are represented by a type (2 bits) and a payload (36 bits):
+ *
+ * <pre>
+ * - 00 (decimal): sign (1 bit), number of fractional digits minus 1 (3 bits), unscaled value
+ * - 01 (date): days since 0001-01-01 (24 bits), timezone (12 bits: 0 = none, 1 = Z,
+ *   otherwise offset in minutes plus 2048)
+ * - 10 (dateTime): seconds since 1900-01-01T00:00:00
+ * - 11 (dateTime with Z timezone): seconds since 1900-01-01T00:00:00
+ * </pre>
+ *
+ * Values are only inlined if their string representation can be restored without changes.
+ *
  * XML 1.0 whitespaces will be represented as follows:
  *
  * <pre>
@@ -31,6 +43,30 @@ public final class Inline {
   private static final long INLINE = 0x8000000000L;
   /** Offset for inlining strings (see {@link DiskData}). */
   private static final long STRING = 0x2000000000L;
+  /** Offset for dictionary ids (see {@link DiskData}). */
+  private static final long ID = INLINE | Compress.COMPRESS;
+  /** Offset for typed values (see {@link DiskData}). */
+  private static final long TYPED = 0x1000000000L;
+  /** Type: decimal. */
+  private static final long DECIMAL = INLINE | TYPED;
+  /** Type: date. */
+  private static final long DATE = DECIMAL | STRING;
+  /** Type: dateTime. */
+  private static final long DATETIME = DECIMAL | Compress.COMPRESS;
+  /** Type: dateTime with Z timezone. */
+  private static final long DATETIMEZ = DATETIME | STRING;
+  /** Type mask. */
+  private static final long TYPES = DATETIMEZ;
+  /** Unscaled decimal value mask. */
+  private static final long UNSCALED = 0xFFFFFFFFL;
+  /** Decimal sign. */
+  private static final long NEGATIVE = 0x800000000L;
+  /** Timezone offset. */
+  private static final int TZ = 2048;
+  /** Days between 0001-01-01 and 1900-01-01. */
+  private static final long DAYS1900 = days(1900, 1, 1);
+  /** Powers of ten. */
+  private static final double[] TENS = { 1, 10, 100, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8 };
   /** Whitespace mapping. */
   private static final byte[] WS = { 0x0A, 0x09, 0x20, 0x0d };
 
@@ -47,6 +83,10 @@ public final class Inline {
     long value = packInt(token);
     if(value != -1) return value;
 
+    // decimal, date or dateTime
+    value = packTyped(token);
+    if(value != 0) return value;
+
     // short token
     final long tl = token.length;
     if(tl <= 4) {
@@ -92,13 +132,64 @@ public final class Inline {
     return INLINE | value;
   }
 
+  /**
+   * Creates a numeric representation of the specified dictionary id.
+   * @param id id of a dictionary value
+   * @return inlined value
+   */
+  public static long packId(final int id) {
+    return ID | id;
+  }
+
+  /**
+   * Returns the dictionary id of an inlined value.
+   * @param value inlined value
+   * @return id
+   */
+  public static int unpackId(final long value) {
+    return (int) value;
+  }
+
+  /**
+   * Indicates if the specified value references a dictionary value.
+   * @param value value
+   * @return result of check
+   */
+  public static boolean id(final long value) {
+    return (value & (ID | STRING | TYPED)) == ID;
+  }
+
+  /**
+   * Returns a key for comparing the string representations of inlined dates and dateTimes
+   * without timezone, or with Z timezone. The keys of two values can be compared if
+   * {@link #comparable(long, long)} returns {@code true}.
+   * @param value inlined value
+   * @return key, or {@code -1} if the value is no date or dateTime that can be compared
+   */
+  public static long dateKey(final long value) {
+    final long type = value & TYPES;
+    return type == DATETIME || type == DATETIMEZ || type == DATE && (value & TZ * 2 - 1) == 0 ?
+      value & (TYPES | TYPED - 1) : -1;
+  }
+
+  /**
+   * Checks if two date keys can be compared.
+   * @param key1 first key (see {@link #dateKey(long)})
+   * @param key2 second key
+   * @return result of check
+   */
+  public static boolean comparable(final long key1, final long key2) {
+    return key1 != -1 && key2 != -1 && (key1 & TYPES) == (key2 & TYPES);
+  }
+
   /**
    * Converts an inlined value to a token.
    * @param value inlined value
    * @return unpacked token
    */
   public static byte[] unpack(final long value) {
-    return (value & STRING) == 0 ? token((int) value) : unpackString(value);
+    return (value & TYPED) != 0 ? unpackTyped(value) :
+      (value & STRING) == 0 ? token((int) value) : unpackString(value);
   }
 
   /**
@@ -107,7 +198,8 @@ public final class Inline {
    * @return unpacked integer
    */
   public static long unpackLong(final long value) {
-    return (value & STRING) == 0 ? (value & INLINE - 1) : toLong(unpackString(value));
+    return (value & TYPED) != 0 ? toLong(unpackTyped(value)) :
+      (value & STRING) == 0 ? (value & INLINE - 1) : toLong(unpackString(value));
   }
 
   /**
@@ -116,6 +208,11 @@ public final class Inline {
    * @return unpacked double
    */
   public static double unpackDouble(final long value) {
+    if((value & TYPED) != 0) {
+      if((value & TYPES) != DECIMAL) return Double.NaN;
+      final double d = (value & UNSCALED) / TENS[scale(value)];
+      return (value & NEGATIVE) != 0 ? -d : d;
+    }
     return (value & STRING) == 0 ? (value & INLINE - 1) : toDouble(unpackString(value));
   }
 
@@ -125,7 +222,17 @@ public final class Inline {
    * @return length of unpacked token
    */
   public static int unpackLength(final long value) {
-    return (value & STRING) == 0 ? numDigits((int) value) : (int) (value >> 32) & 0x0F;
+    return (value & TYPED) != 0 ? unpackTyped(value).length :
+      (value & STRING) == 0 ? numDigits((int) value) : (int) (value >> 32) & 0x0F;
+  }
+
+  /**
+   * Indicates if the specified value is an inlined decimal, date or dateTime.
+   * @param value value
+   * @return result of check
+   */
+  public static boolean typed(final long value) {
+    return (value & DECIMAL) == DECIMAL;
   }
 
   /**
@@ -137,6 +244,223 @@ public final class Inline {
     return (value & INLINE) != 0;
   }
 
+  /**
+   * Creates a numeric representation of a decimal, date or dateTime token.
+   * @param token token to be inlined
+   * @return inlined value, or {@code 0} if inlining is not possible
+   */
+  private static long packTyped(final byte[] token) {
+    return token.length >= 10 && token[4] == '-' ? packDate(token) : packDecimal(token);
+  }
+
+  /**
+   * Creates a numeric representation of a decimal token.
+   * @param token token to be inlined
+   * @return inlined value, or {@code 0} if inlining is not possible
+   */
+  private static long packDecimal(final byte[] token) {
+    final int tl = token.length;
+    final boolean neg = tl > 0 && token[0] == '-';
+    int t = neg ? 1 : 0;
+    // integer digits: single zero, or no leading zero
+    final int s = t;
+    long value = 0;
+    for(; t < tl && digit(token[t]); t++) {
+      value = value * 10 + token[t] - '0';
+      if(value > UNSCALED) return 0;
+    }
+    if(t == s || t - s > 1 && token[s] == '0' || t == tl || token[t] != '.') return 0;
+    // fractional digits
+    final int scale = tl - ++t;
+    if(scale < 1 || scale >= TENS.length) return 0;
+    for(; t < tl; t++) {
+      if(!digit(token[t])) return 0;
+      value = value * 10 + token[t] - '0';
+      if(value > UNSCALED) return 0;
+    }
+    return DECIMAL | (neg ? NEGATIVE : 0) | (long) (scale - 1) << 32 | value;
+  }
+
+  /**
+   * Creates a numeric representation of a date or dateTime token.
+   * @param token token to be inlined
+   * @return inlined value, or {@code 0} if inlining is not possible
+   */
+  private static long packDate(final byte[] token) {
+    final int tl = token.length;
+    final int yr = digits(token, 0, 4), mn = digits(token, 5, 2), dy = digits(token, 8, 2);
+    if(token[7] != '-' || yr < 1 || mn < 1 || mn > 12 || dy < 1 || dy > days(yr, mn)) return 0;
+    final long days = days(yr, mn, dy);
+
+    if(tl > 10 && token[10] == 'T') {
+      // dateTime: no fractional seconds, no timezone or Z timezone
+      if(tl != 19 && (tl != 20 || token[19] != 'Z')) return 0;
+      final int hr = digits(token, 11, 2), mi = digits(token, 14, 2), sc = digits(token, 17, 2);
+      if(token[13] != ':' || token[16] != ':' || hr < 0 || hr > 23 || mi < 0 || mi > 59 ||
+        sc < 0 || sc > 59) return 0;
+      final long secs = (days - DAYS1900) * 86400 + hr * 3600 + mi * 60 + sc;
+      return secs < 0 || secs >= TYPED ? 0 : (tl == 20 ? DATETIMEZ : DATETIME) | secs;
+    }
+
+    // date: optional timezone
+    final int tz;
+    if(tl == 10) {
+      tz = 0;
+    } else if(tl == 11 && token[10] == 'Z') {
+      tz = 1;
+    } else if(tl == 16 && (token[10] == '+' || token[10] == '-') && token[13] == ':') {
+      final int hr = digits(token, 11, 2), mi = digits(token, 14, 2), off = hr * 60 + mi;
+      // -00:00 is not inlined, as it would be restored as +00:00
+      if(hr < 0 || mi < 0 || mi > 59 || off > 840 || token[10] == '-' && off == 0) return 0;
+      tz = token[10] == '-' ? TZ - off : TZ + off;
+    } else {
+      return 0;
+    }
+    return DATE | days << 12 | tz;
+  }
+
+  /**
+   * Converts an inlined decimal, date or dateTime to a token.
+   * @param value inlined value
+   * @return token
+   */
+  private static byte[] unpackTyped(final long value) {
+    final long type = value & TYPES;
+    if(type == DECIMAL) {
+      final byte[] num = token(value & UNSCALED);
+      final int scale = scale(value), nl = num.length, il = Math.max(1, nl - scale);
+      final int s = (value & NEGATIVE) != 0 ? 1 : 0;
+      final byte[] token = new byte[s + il + 1 + scale];
+      if(s == 1) token[0] = '-';
+      for(int t = token.length - 1, n = nl - 1; t >= s; t--) {
+        token[t] = t == s + il ? (byte) '.' : n >= 0 ? num[n--] : (byte) '0';
+      }
+      return token;
+    }
+
+    final long days, secs;
+    if(type == DATE) {
+      days = value >>> 12 & 0xFFFFFF;
+      secs = -1;
+    } else {
+      final long payload = value & TYPED - 1;
+      days = payload / 86400 + DAYS1900;
+      secs = payload % 86400;
+    }
+    final int tz = type == DATE ? (int) value & TZ * 2 - 1 : type == DATETIMEZ ? 1 : 0;
+    final byte[] token = new byte[(secs == -1 ? 10 : 19) + (tz == 0 ? 0 : tz == 1 ? 1 : 6)];
+
+    // date
+    final int[] ymd = date(days);
+    digits(token, 0, 4, ymd[0]);
+    token[4] = '-';
+    digits(token, 5, 2, ymd[1]);
+    token[7] = '-';
+    digits(token, 8, 2, ymd[2]);
+    int t = 10;
+    // time
+    if(secs != -1) {
+      token[t++] = 'T';
+      digits(token, t, 2, (int) (secs / 3600));
+      token[t + 2] = ':';
+      digits(token, t + 3, 2, (int) (secs / 60 % 60));
+      token[t + 5] = ':';
+      digits(token, t + 6, 2, (int) (secs % 60));
+      t += 8;
+    }
+    // timezone
+    if(tz == 1) {
+      token[t] = 'Z';
+    } else if(tz != 0) {
+      final int off = Math.abs(tz - TZ);
+      token[t] = (byte) (tz < TZ ? '-' : '+');
+      digits(token, t + 1, 2, off / 60);
+      token[t + 3] = ':';
+      digits(token, t + 4, 2, off % 60);
+    }
+    return token;
+  }
+
+  /**
+   * Returns the number of fractional digits of an inlined decimal.
+   * @param value inlined value
+   * @return number of digits
+   */
+  private static int scale(final long value) {
+    return (int) (value >>> 32 & 7) + 1;
+  }
+
+  /**
+   * Parses a fixed number of digits.
+   * @param token token
+   * @param start start position
+   * @param length number of digits
+   * @return integer value, or {@code -1} if a byte is no digit
+   */
+  private static int digits(final byte[] token, final int start, final int length) {
+    int value = 0;
+    for(int t = start; t < start + length; t++) {
+      final byte b = token[t];
+      if(!digit(b)) return -1;
+      value = value * 10 + b - '0';
+    }
+    return value;
+  }
+
+  /**
+   * Writes a fixed number of digits.
+   * @param token token
+   * @param start start position
+   * @param length number of digits
+   * @param value value
+   */
+  private static void digits(final byte[] token, final int start, final int length,
+      final int value) {
+    for(int t = start + length - 1, v = value; t >= start; t--, v /= 10) {
+      token[t] = (byte) ('0' + v % 10);
+    }
+  }
+
+  /**
+   * Returns the number of days of a month.
+   * @param year year
+   * @param month month
+   * @return number of days
+   */
+  private static int days(final int year, final int month) {
+    return month == 2 ? year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28 :
+      month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Returns the number of days since 0001-01-01 for a date of the proleptic Gregorian calendar.
+   * @param year year (1-9999)
+   * @param month month (1-12)
+   * @param day day (1-31)
+   * @return number of days
+   */
+  private static long days(final int year, final int month, final int day) {
+    // years start in March
+    final int y = month > 2 ? year : year - 1, m = month > 2 ? month - 3 : month + 9;
+    final int era = y / 400, yoe = y - era * 400;
+    final int doe = yoe * 365 + yoe / 4 - yoe / 100 + (153 * m + 2) / 5 + day - 1;
+    return era * 146097L + doe - 306;
+  }
+
+  /**
+   * Returns year, month and day of the specified number of days since 0001-01-01.
+   * @param days number of days
+   * @return year, month and day
+   */
+  private static int[] date(final long days) {
+    final long z = days + 306;
+    final int era = (int) (z / 146097), doe = (int) (z - era * 146097L);
+    final int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+    final int doy = doe - (365 * yoe + yoe / 4 - yoe / 100), mp = (5 * doy + 2) / 153;
+    final int day = doy - (153 * mp + 2) / 5 + 1, month = mp < 10 ? mp + 3 : mp - 9;
+    return new int[] { yoe + era * 400 + (month <= 2 ? 1 : 0), month, day };
+  }
+
   /**
    * Extracts an inlined string.
    * @param value inlined value
@@ -0,0 +1,171 @@
+package org.basex.util;
+
+/**
+ * This class compresses and decompresses blocks of bytes. The output conforms to the
+ * LZ4 block format: Repeated sequences are replaced by references to previous occurrences,
+ * which are found via a small hash table. Compression is fast, and decompression requires
+ * little more than copying bytes.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class LZ4 {
+  /** Minimum length of a match. */
+  private static final int MINMATCH = 4;
+  /** Number of bytes at the end of a block that will always be stored as literals. */
+  private static final int LASTLITERALS = 5;
+  /** Minimum distance between the start of the last match and the end of a block. */
+  private static final int MFLIMIT = 12;
+  /** Maximum offset of a match. */
+  private static final int MAXOFFSET = 0xFFFF;
+  /** Number of bits of the hash table. */
+  private static final int HASHBITS = 12;
+
+  /** Private constructor. */
+  private LZ4() { }
+
+  /**
+   * Compresses the specified bytes. Compression is skipped if the result is not shorter
+   * than the input.
+   * @param src source bytes
+   * @param len number of bytes to compress
+   * @param dst target array (must have at least the size of the input)
+   * @return length of the compressed bytes, or {@code -1} if the bytes were not compressed
+   */
+  public static int compress(final byte[] src, final int len, final byte[] dst) {
+    final int[] table = new int[1 << HASHBITS];
+    final int mflimit = len - MFLIMIT, matchlimit = len - LASTLITERALS;
+
+    int ip = 0, anchor = 0, op = 0;
+    while(ip < mflimit) {
+      final int seq = int4(src, ip), hash = seq * -1640531535 >>> 32 - HASHBITS;
+      final int ref = table[hash];
+      table[hash] = ip;
+      if(ref < ip && ip - ref <= MAXOFFSET && int4(src, ref) == seq) {
+        int ml = MINMATCH;
+        while(ip + ml < matchlimit && src[ref + ml] == src[ip + ml]) ml++;
+        op = sequence(src, anchor, ip - anchor, ip - ref, ml, dst, op, len);
+        if(op == -1) return -1;
+        ip += ml;
+        anchor = ip;
+      } else {
+        ip++;
+      }
+    }
+    return sequence(src, anchor, len - anchor, 0, 0, dst, op, len);
+  }
+
+  /**
+   * Decompresses the specified bytes.
+   * @param src compressed bytes
+   * @param len number of compressed bytes
+   * @param dst target array (must be large enough to hold the decompressed bytes)
+   * @return number of decompressed bytes
+   */
+  public static int decompress(final byte[] src, final int len, final byte[] dst) {
+    int ip = 0, op = 0;
+    while(true) {
+      final int token = src[ip++] & 0xFF;
+      // copy literals
+      int lit = token >>> 4;
+      if(lit == 15) {
+        int b;
+        do {
+          b = src[ip++] & 0xFF;
+          lit += b;
+        } while(b == 0xFF);
+      }
+      System.arraycopy(src, ip, dst, op, lit);
+      ip += lit;
+      op += lit;
+      if(ip >= len) return op;
+
+      // copy match (the source and target ranges may overlap)
+      final int offset = src[ip++] & 0xFF | (src[ip++] & 0xFF) << 8;
+      int ml = token & 0x0F;
+      if(ml == 15) {
+        int b;
+        do {
+          b = src[ip++] & 0xFF;
+          ml += b;
+        } while(b == 0xFF);
+      }
+      ml += MINMATCH;
+      int ref = op - offset;
+      if(offset >= ml) {
+        System.arraycopy(dst, ref, dst, op, ml);
+        op += ml;
+      } else {
+        for(final int end = op + ml; op < end;) dst[op++] = dst[ref++];
+      }
+    }
+  }
+
+  /**
+   * Writes a sequence of literals and an optional match.
+   * @param src source bytes
+   * @param anchor offset of the literals
+   * @param lit number of literals
+   * @param offset offset of the match ({@code 0}: no match)
+   * @param ml length of the match
+   * @param dst target array
+   * @param op current target offset
+   * @param max maximum target offset
+   * @return new target offset, or {@code -1} if the maximum size is exceeded
+   */
+  private static int sequence(final byte[] src, final int anchor, final int lit, final int offset,
+      final int ml, final byte[] dst, final int op, final int max) {
+
+    if(op + lit + lit / 0xFF + (ml - MINMATCH) / 0xFF + 6 >= max) return -1;
+
+    final int t = op;
+    int o = op + 1, token;
+    if(lit >= 15) {
+      token = 0xF0;
+      o = length(lit - 15, dst, o);
+    } else {
+      token = lit << 4;
+    }
+    System.arraycopy(src, anchor, dst, o, lit);
+    o += lit;
+
+    if(offset != 0) {
+      dst[o++] = (byte) offset;
+      dst[o++] = (byte) (offset >>> 8);
+      final int m = ml - MINMATCH;
+      if(m >= 15) {
+        token |= 0x0F;
+        o = length(m - 15, dst, o);
+      } else {
+        token |= m;
+      }
+    }
+    dst[t] = (byte) token;
+    return o;
+  }
+
+  /**
+   * Writes an extended length.
+   * @param length remaining length
+   * @param dst target array
+   * @param op target offset
+   * @return new target offset
+   */
+  private static int length(final int length, final byte[] dst, final int op) {
+    int l = length, o = op;
+    for(; l >= 0xFF; l -= 0xFF) dst[o++] = (byte) 0xFF;
+    dst[o++] = (byte) l;
+    return o;
+  }
+
+  /**
+   * Returns four bytes as integer.
+   * @param array array
+   * @param o offset
+   * @return integer
+   */
+  private static int int4(final byte[] array, final int o) {
+    return (array[o] & 0xFF) << 24 | (array[o + 1] & 0xFF) << 16 | (array[o + 2] & 0xFF) << 8 |
+        array[o + 3] & 0xFF;
+  }
+}
@@ -11,6 +11,10 @@ import static java.lang.StrictMath.*;
 public final class Scoring {
   /** Logarithmic base for calculating the score value. */
   private static final double LOG = Math.E - 1;
+  /** BM25: saturation of term frequencies. */
+  private static final double K1 = 1.2;
+  /** BM25: influence of text lengths. */
+  private static final double B = 0.75;
 
   /** Private constructor. */
   private Scoring() { }
@@ -58,4 +62,37 @@ public final class Scoring {
       final int length) {
     return max((double) number / size, log(token * number + 1) / log(length + 1));
   }
+
+  /**
+   * Calculates the inverse document frequency of an index term (BM25).
+   * The value is normalized to the range {@code [0, 1]}.
+   * @param df number of texts containing the term
+   * @param texts total number of indexed texts
+   * @return score
+   */
+  public static double idf(final int df, final int texts) {
+    return log(1 + (texts - df + 0.5) / (df + 0.5)) / log(1 + (texts + 0.5) / 0.5);
+  }
+
+  /**
+   * Calculates the BM25 score for a text node. The result is smaller than {@code 1}.
+   * Used if the full-text index provides term statistics.
+   * @param weights pairs with the inverse document frequency and the frequency of each
+   *   matching term (see {@link #idf(int, int)})
+   * @param terms number of query terms
+   * @param length text length
+   * @param avg average text length
+   * @return score
+   */
+  public static double bm25(final double[] weights, final int terms, final int length,
+      final double avg) {
+    final double k = K1 * (1 - B + (avg > 0 ? B * length / avg : B));
+    double score = 0;
+    final int wl = weights.length;
+    for(int w = 0; w < wl; w += 2) {
+      final double tf = weights[w + 1];
+      score += weights[w] * tf / (tf + k);
+    }
+    return score / terms;
+  }
 }
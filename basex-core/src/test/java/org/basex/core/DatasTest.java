@@ -0,0 +1,140 @@
+package org.basex.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for opened and cached databases ({@link StaticOptions#DBCACHE}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class DatasTest extends SandboxTest {
+  /** Name of the second database. */
+  private static final String NAME2 = NAME + '2';
+  /** Database context with a cache for closed databases. */
+  private Context ctx;
+
+  /** Creates the test databases and a context that caches up to one closed database. */
+  @BeforeEach public void init() {
+    execute(new CreateDB(NAME, "<x><a>text</a></x>"));
+    execute(new CreateDB(NAME2, "<y/>"));
+    execute(new Close());
+
+    final StaticOptions soptions = new StaticOptions(false);
+    soptions.set(StaticOptions.DBCACHE, 1);
+    ctx = new Context(soptions);
+  }
+
+  /** Closes the context and drops the test databases. */
+  @AfterEach public void drop() {
+    ctx.close();
+    execute(new DropDB(NAME));
+    execute(new DropDB(NAME2));
+  }
+
+  /**
+   * Keeps closed databases open and reuses them.
+   * @throws BaseXException database exception
+   */
+  @Test public void cache() throws BaseXException {
+    new Open(NAME).execute(ctx);
+    final Data data = ctx.data();
+    new Close().execute(ctx);
+    assertEquals(1, ctx.datas.cached());
+    assertEquals(0, ctx.datas.pins(NAME));
+    assertFalse(data.closed());
+
+    new Open(NAME).execute(ctx);
+    assertSame(data, ctx.data());
+    assertEquals(0, ctx.datas.cached());
+    assertEquals("1", new XQuery("count(//a)").execute(ctx));
+
+    // least recently used database is closed
+    new Close().execute(ctx);
+    new Open(NAME2).execute(ctx);
+    new Close().execute(ctx);
+    assertEquals(1, ctx.datas.cached());
+    assertTrue(data.closed());
+  }
+
+  /**
+   * Closes cached databases before they are dropped or renamed.
+   * @throws BaseXException database exception
+   */
+  @Test public void dropCached() throws BaseXException {
+    new Open(NAME).execute(ctx);
+    final Data data = ctx.data();
+    new Close().execute(ctx);
+    new AlterDB(NAME, NAME + "new").execute(ctx);
+    assertTrue(data.closed());
+    assertEquals(0, ctx.datas.cached());
+    new AlterDB(NAME + "new", NAME).execute(ctx);
+
+    new Open(NAME2).execute(ctx);
+    new Close().execute(ctx);
+    new DropDB(NAME2).execute(ctx);
+    assertFalse(ctx.soptions.dbExists(NAME2));
+  }
+
+  /**
+   * Opens indexes on first access.
+   * @throws BaseXException database exception
+   */
+  @Test public void lazyIndexes() throws BaseXException {
+    new Open(NAME).execute(ctx);
+    final Data data = ctx.data();
+    assertTrue(data.meta.textindex);
+    assertNull(data.textIndex);
+    assertEquals("1", new XQuery("count(//a[text() = 'text'])").execute(ctx));
+    assertNotNull(data.textIndex);
+    assertNull(data.attrIndex);
+    assertNotNull(data.index(IndexType.ATTRIBUTE));
+  }
+
+  /**
+   * Evaluates queries without indexes that cannot be opened.
+   * @throws BaseXException database exception
+   */
+  @Test public void unavailableIndex() throws BaseXException {
+    final IOFile file = MetaData.file(ctx.soptions.dbPath(NAME), DataText.DATATXT + 'l');
+    assertTrue(file.delete());
+    assertTrue(file.md());
+
+    new Open(NAME).execute(ctx);
+    final Data data = ctx.data();
+    assertNull(data.index(IndexType.TEXT));
+    assertEquals("1", new XQuery("count(//a[text() = 'text'])").execute(ctx));
+    assertThrows(BaseXException.class, () -> new XQuery("db:text('" + NAME + "', 'text')").
+      execute(ctx));
+    // indexes are reported as out-dated
+    assertTrue(data.meta.oldindex());
+    assertTrue(new InfoDB().execute(ctx).contains(Text.H_INDEX_FORMAT));
+    new Close().execute(ctx);
+    final Open open = new Open(NAME);
+    open.execute(ctx);
+    assertTrue(open.info().contains(Text.H_INDEX_FORMAT), open.info());
+    new Close().execute(ctx);
+    assertTrue(file.delete());
+  }
+
+  /**
+   * Reports the time for opening and closing databases.
+   * @throws BaseXException database exception
+   */
+  @Test public void queryInfo() throws BaseXException {
+    new Set(MainOptions.QUERYINFO, true).execute(ctx);
+    final XQuery query = new XQuery("count(db:open('" + NAME + "'))");
+    query.execute(ctx);
+    final String info = query.info();
+    assertTrue(info.contains(Text.OPENING_CC), info);
+    assertTrue(info.contains(Text.CLOSING_CC), info);
+  }
+}
@@ -287,6 +287,38 @@ public final class CommandLockingTest extends SandboxTest {
     ckDBs(new XQuery(_UPDATE_OUTPUT.args("foo")), true, NONE);
   }
 
+  /** Document locks. */
+  @Test public void documents() {
+    final String doc = Locking.document(NAME, FILE), doc2 = Locking.document(NAME, FILE + '2');
+    // database is locked if document locking is disabled
+    ckDocs(_DB_REPLACE.args(NAME, FILE, " <a/>"));
+
+    DUMMY_CONTEXT.soptions.set(StaticOptions.DOCLOCK, true);
+    try {
+      ckDocs(_DB_REPLACE.args(NAME, FILE, " <a/>"), doc);
+      ckDocs(_DB_REPLACE.args(NAME, FILE, " <a/>") + ',' +
+          _DB_ADD.args(NAME, " <a/>", FILE + '2'), doc, doc2);
+      ckDocs(_DB_REPLACE.args(NAME, "/" + FILE, " <a/>"), doc);
+
+      // database is locked: path is not known statically, or database is updated
+      ckDocs(_DB_ADD.args(NAME, " <a/>"));
+      ckDocs("let $p := <_>" + FILE + "</_> return " + _DB_REPLACE.args(NAME, " $p", " <a/>"));
+      ckDocs(_DB_REPLACE.args(NAME, FILE, " <a/>") + ',' + _DB_DELETE.args(NAME, FILE + '2'));
+      ckDocs(_DB_REPLACE.args(NAME, FILE, " <a/>") + ',' + _DB_CREATE.args(NAME2));
+
+      // overlapping paths
+      assertTrue(Locking.overlaps(doc, doc));
+      assertTrue(Locking.overlaps(Locking.document(NAME, "a"), Locking.document(NAME, "a/b")));
+      assertTrue(Locking.overlaps(Locking.document(NAME, "a/"), Locking.document(NAME, "a")));
+      assertTrue(Locking.overlaps(Locking.document(NAME, ""), doc));
+      assertFalse(Locking.overlaps(doc, doc2));
+      assertFalse(Locking.overlaps(Locking.document(NAME, "a"), Locking.document(NAME, "ab")));
+      assertFalse(Locking.overlaps(doc, Locking.document(NAME2, FILE)));
+    } finally {
+      DUMMY_CONTEXT.soptions.set(StaticOptions.DOCLOCK, false);
+    }
+  }
+
   /** Test repository module. */
   @Test public void repository() {
     ckDBs(new XQuery(_REPO_LIST.args()), false, REPO_LIST);
@@ -389,6 +421,26 @@ public final class CommandLockingTest extends SandboxTest {
     }
   }
 
+  /**
+   * Checks the document locks of a query.
+   * @param query query
+   * @param documents expected document locks (if empty, the database must be locked for writing)
+   */
+  private static void ckDocs(final String query, final String... documents) {
+    final XQuery cmd = new XQuery(query);
+    cmd.updating(DUMMY_CONTEXT);
+    cmd.addLocks();
+    final Locks locks = cmd.jc().locks;
+    locks.finish(context);
+
+    final LockList expected = new LockList();
+    for(final String document : documents) expected.add(document);
+    expected.finish(null);
+    assertEquals(expected.toString(), locks.documents.toString());
+    assertEquals(documents.length == 0, locks.writes.contains(NAME), locks.toString());
+    assertEquals(documents.length != 0, locks.reads.contains(NAME), locks.toString());
+  }
+
   /**
    * Check if all elements of the second list are contained in the first.
    * @param list1 first list
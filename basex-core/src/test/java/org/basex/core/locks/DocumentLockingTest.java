@@ -0,0 +1,102 @@
+package org.basex.core.locks;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the parallel update of documents in the same database.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class DocumentLockingTest extends SandboxTest {
+  /** Milliseconds spent for evaluating a single update. */
+  private static final int SLEEP = 1000;
+
+  /** Enables document locking. */
+  @BeforeAll public static void enable() {
+    context.soptions.set(StaticOptions.DOCLOCK, true);
+  }
+
+  /** Disables document locking. */
+  @AfterAll public static void disable() {
+    context.soptions.set(StaticOptions.DOCLOCK, false);
+  }
+
+  /** Creates the test database. */
+  @BeforeEach public void init() {
+    execute(new CreateDB(NAME));
+    query(_DB_ADD.args(NAME, " <a/>", "a.xml"));
+    query(_DB_ADD.args(NAME, " <b/>", "b.xml"));
+  }
+
+  /** Drops the test database. */
+  @AfterEach public void drop() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Replaces different documents in parallel.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test public void disjoint() throws InterruptedException {
+    final long time = replace("a.xml", "b.xml", "c.xml");
+    assertTrue(time < SLEEP * 2, "Updates were not run in parallel: " + time + " ms");
+
+    query("sort(" + _DB_OPEN.args(NAME) + "/*/name())", "A\nB\nC");
+    query(_DB_LIST.args(NAME) + " => sort()", "a.xml\nb.xml\nc.xml");
+  }
+
+  /**
+   * Replaces the same document twice, one update after another.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test public void overlapping() throws InterruptedException {
+    final long time = replace("x/a.xml", "x/a.xml");
+    assertTrue(time >= SLEEP * 2, "Updates were run in parallel: " + time + " ms");
+    query(_DB_LIST.args(NAME) + " => sort()", "a.xml\nb.xml\nx/a.xml");
+  }
+
+  /**
+   * Replaces different documents one after another if document locking is disabled.
+   * Documents are replaced in place.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test public void disabled() throws InterruptedException {
+    disable();
+    try {
+      final long time = replace("a.xml", "b.xml");
+      assertTrue(time >= SLEEP * 2, "Updates were run in parallel: " + time + " ms");
+      query(_DB_OPEN.args(NAME) + "/*/name()", "A\nB");
+    } finally {
+      enable();
+    }
+  }
+
+  /**
+   * Replaces documents in parallel, each with a slow update.
+   * @param paths paths of the documents to be replaced
+   * @return time required for all updates
+   * @throws InterruptedException interrupted exception
+   */
+  private static long replace(final String... paths) throws InterruptedException {
+    final int pl = paths.length;
+    final Thread[] threads = new Thread[pl];
+    for(int p = 0; p < pl; p++) {
+      final String path = paths[p];
+      final String name = path.replaceAll(".*/|\\..*", "").toUpperCase();
+      threads[p] = new Thread(() -> query(_DB_REPLACE.args(NAME, path,
+          " (" + _PROF_SLEEP.args(SLEEP) + ", <" + name + "/>)")));
+    }
+    final long start = System.currentTimeMillis();
+    for(final Thread thread : threads) thread.start();
+    for(final Thread thread : threads) thread.join();
+    return System.currentTimeMillis() - start;
+  }
+}
@@ -0,0 +1,74 @@
+package org.basex.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.basex.build.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the throughput of table updates for growing table sizes. The time spent for
+ * inserting and deleting single entries should remain roughly constant.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class DiskTablePerformanceTest extends SandboxTest {
+  /** Table sizes (number of entries; use larger sizes for benchmarking). */
+  private static final int[] SIZES = { 1 << 12, 1 << 14, 1 << 16 };
+  /** Number of operations per table size (use larger numbers for benchmarking). */
+  private static final int OPS = 2000;
+  /** Random number generator. */
+  private static final Random RANDOM = new Random(0);
+
+  /** Drops the test database. */
+  @AfterEach public void drop() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Inserts and deletes single entries at random positions.
+   * @throws Exception exception
+   */
+  @Test public void insertDelete() throws Exception {
+    final StringBuilder sb = new StringBuilder();
+    for(final int size : SIZES) {
+      final Data data = new DiskBuilder(NAME, Parser.emptyParser(context.options),
+          context.soptions, context.options).build();
+      data.close();
+
+      final TableDiskAccess tda = new TableDiskAccess(data.meta, true);
+      try {
+        // create table
+        final byte[] entries = new byte[IO.ENTRIES << IO.NODEPOWER];
+        while(data.meta.size < size) tda.insert(data.meta.size, entries);
+
+        // insert and delete entries at the beginning of the table: pages will be buffered,
+        // and the pre values of all subsequent pages need to be shifted
+        final byte[] entry = new byte[IO.NODESIZE];
+        final Performance perf = new Performance();
+        for(int o = 0; o < OPS; o++) {
+          final int pre = RANDOM.nextInt(IO.ENTRIES);
+          entry[0] = (byte) o;
+          tda.insert(pre, entry);
+          assertEquals((byte) o, (byte) tda.read1(pre, 0));
+          tda.delete(RANDOM.nextInt(IO.ENTRIES), 1);
+        }
+        tda.flush(true);
+        sb.append("\n- ").append(size).append(" entries: ").append(perf);
+        assertEquals(size, data.meta.size);
+      } finally {
+        tda.close();
+      }
+      DropDB.drop(NAME, context.soptions);
+    }
+    Util.debug(Util.className(this) + ": " + OPS + " insert/delete operations" + sb);
+  }
+}
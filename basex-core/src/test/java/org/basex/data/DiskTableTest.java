@@ -313,6 +313,40 @@ public final class DiskTableTest extends SandboxTest {
     assertEntrysEqual(nodes, 2 * nodes, size - nodes);
   }
 
+  /**
+   * Tests inserting entries with a fill factor.
+   */
+  @Test public void insertFillFactor() {
+    data.meta.fillfactor = 50;
+    tda.insert(nodes, getTestEntries(nodes));
+    assertEquals(size + nodes, tdaSize());
+    assertEquals(blocks + 2, tdaBlocks());
+    assertEntrysEqual(0, 0, nodes);
+    assertAreInserted(nodes, nodes);
+    assertEntrysEqual(nodes, 2 * nodes, size - nodes);
+    closeAndReload();
+    assertEquals(size + nodes, tdaSize());
+    assertEquals(blocks + 2, tdaBlocks());
+    assertAreInserted(nodes, nodes);
+    assertEntrysEqual(nodes, 2 * nodes, size - nodes);
+  }
+
+  /**
+   * Tests merging underfilled pages.
+   */
+  @Test public void deleteMerge() {
+    final int first = nodes / 4;
+    tda.delete(first, nodes);
+    assertEquals(size - nodes, tdaSize());
+    assertEquals(blocks - 1, tdaBlocks());
+    assertEntrysEqual(0, 0, first);
+    assertEntrysEqual(first + nodes, first, size - first - nodes);
+    closeAndReload();
+    assertEquals(blocks - 1, tdaBlocks());
+    assertEntrysEqual(0, 0, first);
+    assertEntrysEqual(first + nodes, first, size - first - nodes);
+  }
+
   /**
    * Asserts that the chosen entries are inserted by a test case.
    * @param startNum first entry
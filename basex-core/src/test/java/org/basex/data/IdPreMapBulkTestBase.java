@@ -126,11 +126,7 @@ public abstract class IdPreMapBulkTestBase {
       return idlist.size();
     }
 
-    /**
-     * ID of the record with a given PRE.
-     * @param pre record PRE
-     * @return record ID
-     */
+    @Override
     public int id(final int pre) {
       return idlist.get(pre);
     }
@@ -0,0 +1,87 @@
+package org.basex.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.index.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Compares the performance of the ID-PRE mapping with the array-based implementation
+ * ({@link ArrayIdPreMap}). The workload is taken from {@link IdPreMapBulkTest}:
+ * records are inserted and deleted in bulks at random positions.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class IdPreMapPerformanceTest {
+  /** Numbers of update operations. */
+  private static final int[] OPS = { 1000, 10000, 40000 };
+  /** Initial number of records. */
+  private static final int BASEID = 200000;
+  /** Maximal number of bulk inserted/deleted records. */
+  private static final int BULK = 50;
+
+  /** Inserts and deletes records at random positions, and looks up the remaining IDs. */
+  @Test public void insertDelete() {
+    final StringBuilder sb = new StringBuilder();
+    for(final int ops : OPS) {
+      // create operations: pre value, id of first record, number of inserted/deleted records
+      final Random rnd = new Random(ops);
+      final IdPreMap ref = new IdPreMap(BASEID);
+      final int[][] updates = new int[ops][];
+      int n = BASEID + 1, id = BASEID + 1;
+      for(int o = 0; o < ops; o++) {
+        final int pre = rnd.nextInt(n + 1);
+        final int c;
+        if(rnd.nextBoolean() || n == pre) {
+          c = rnd.nextInt(BULK) + 1;
+          updates[o] = new int[] { pre, id, c };
+          ref.insert(pre, id, c);
+          id += c;
+        } else {
+          c = -Math.min(n - pre, rnd.nextInt(BULK) + 1);
+          updates[o] = new int[] { pre, ref.id(pre), c };
+          ref.delete(pre, ref.id(pre), c);
+        }
+        n += c;
+      }
+
+      // ids of remaining records
+      final int[] ids = new int[n];
+      for(int pre = 0; pre < n; pre++) ids[pre] = ref.id(pre);
+
+      final IdPreMap map = new IdPreMap(BASEID), array = new ArrayIdPreMap(BASEID);
+      sb.append("\n- ").append(ops).append(" updates: ");
+      sb.append(run(map, updates, ids)).append(" (IdPreMap, ");
+      sb.append(map.size()).append(" runs), ");
+      sb.append(run(array, updates, ids)).append(" (ArrayIdPreMap)");
+
+      // compare results
+      for(int pre = 0; pre < n; pre++) {
+        assertEquals(pre, map.pre(ids[pre]));
+        assertEquals(pre, array.pre(ids[pre]));
+      }
+    }
+    Util.debug(Util.className(this) + ": " + BULK + " records per update" + sb);
+  }
+
+  /**
+   * Performs updates and lookups.
+   * @param map map
+   * @param updates updates
+   * @param ids ids to look up
+   * @return performance info
+   */
+  private static Performance run(final IdPreMap map, final int[][] updates, final int[] ids) {
+    final Performance perf = new Performance();
+    for(final int[] update : updates) {
+      if(update[2] > 0) map.insert(update[0], update[1], update[2]);
+      else map.delete(update[0], update[1], update[2]);
+    }
+    for(final int id : ids) map.pre(id);
+    return perf;
+  }
+}
@@ -244,12 +244,8 @@ public final class IdPreMapTest {
       return ids.size();
     }
 
-    /**
-     * ID of the record with a given PRE.
-     * @param pre record PRE
-     * @return record ID
-     */
-    int id(final int pre) {
+    @Override
+    public int id(final int pre) {
       return ids.get(pre);
     }
 
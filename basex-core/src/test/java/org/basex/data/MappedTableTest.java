@@ -0,0 +1,109 @@
+package org.basex.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for memory-mapped read access to the database table and heap files
+ * ({@link StaticOptions#MMAP}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class MappedTableTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Test query. */
+  private static final String QUERY = "string-join(//*/name() ! string-length(), ',')";
+
+  /** Enables memory mapping. */
+  @BeforeAll public static void enable() {
+    context.soptions.set(StaticOptions.MMAP, true);
+  }
+
+  /** Disables memory mapping. */
+  @AfterAll public static void disable() {
+    context.soptions.set(StaticOptions.MMAP, false);
+  }
+
+  /** Drops the test database. */
+  @AfterEach public void drop() {
+    execute(new DropDB(NAME));
+  }
+
+  /** Compares the results of mapped and buffered read access. */
+  @Test public void read() {
+    execute(new CreateDB(NAME, FILE));
+    final String mapped = query(QUERY);
+    context.soptions.set(StaticOptions.MMAP, false);
+    execute(new Close());
+    execute(new Open(NAME));
+    final String buffered = query(QUERY);
+    context.soptions.set(StaticOptions.MMAP, true);
+    assertEquals(buffered, mapped);
+  }
+
+  /** Reads updated table entries. */
+  @Test public void update() {
+    execute(new CreateDB(NAME, FILE));
+    final int size = context.data().meta.size;
+    for(int i = 0; i < 10; i++) {
+      query("insert node <a>" + i + "</a> into /*");
+      query("count(//a)", i + 1);
+    }
+    query("delete node //a[. = 0]");
+    query("string-join(//a, ',')", "1,2,3,4,5,6,7,8,9");
+    assertEquals(size + 18, context.data().meta.size);
+
+    execute(new Close());
+    execute(new Open(NAME));
+    query("string-join(//a, ',')", "1,2,3,4,5,6,7,8,9");
+  }
+
+  /** Reads updated texts and attribute values. */
+  @Test public void heaps() {
+    execute(new CreateDB(NAME, "<x/>"));
+    query("insert node (1 to 1000) ! <y b='value {.}'>text {.}</y> into /x");
+    query("sum(//y ! string-length())", 7893);
+    query("replace value of node //y[1]/text() with 'new text'");
+    query("(//y)[1] || (//y)[2]", "new texttext 2");
+    query("for $y in //y[position() > 500] return replace value of node $y/@b with 'VALUE'");
+    query("count(//@b[. = 'VALUE'])", 500);
+    query("string-length(string-join(//@b))", 6892);
+    query("insert node <z>{ string-join((1 to 100) ! 'compressed text ') }</z> into /x");
+    query("string-length(//z)", 1600);
+  }
+
+  /**
+   * Reads the table from concurrent threads.
+   * @throws Exception exception
+   */
+  @Test public void concurrent() throws Exception {
+    execute(new CreateDB(NAME, FILE));
+    final String query = "db:open('" + NAME + "')/" + QUERY;
+    final String expected = query(query);
+
+    final Thread[] threads = new Thread[8];
+    final String[] results = new String[threads.length];
+    for(int t = 0; t < threads.length; t++) {
+      final int n = t;
+      threads[t] = new Thread(() -> {
+        final Context ctx = new Context(context);
+        ctx.user(context.user());
+        try {
+          results[n] = new XQuery(query).execute(ctx);
+        } catch(final BaseXException ex) {
+          results[n] = ex.getMessage();
+        }
+      });
+      threads[t].start();
+    }
+    for(final Thread thread : threads) thread.join();
+    for(final String result : results) assertEquals(expected, result);
+  }
+}
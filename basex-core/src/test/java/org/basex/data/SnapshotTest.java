@@ -0,0 +1,190 @@
+package org.basex.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.io.random.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for snapshot reads of updated databases ({@link StaticOptions#MVCC}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class SnapshotTest extends SandboxTest {
+  /** Number of elements added by a single update. */
+  private static final int BATCH = 100;
+
+  /** Enables snapshots. */
+  @BeforeAll public static void enable() {
+    context.soptions.set(StaticOptions.WALSIZE, 64);
+    context.soptions.set(StaticOptions.MVCC, true);
+  }
+
+  /** Disables snapshots. */
+  @AfterAll public static void disable() {
+    context.soptions.set(StaticOptions.WALSIZE, 0);
+    context.soptions.set(StaticOptions.MVCC, false);
+  }
+
+  /** Creates the test database, which remains opened in the main context. */
+  @BeforeEach public void init() {
+    execute(new CreateDB(NAME, "<x v='0'/>"));
+  }
+
+  /** Drops the test database. */
+  @AfterEach public void drop() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Reads the last committed state without waiting for a running update.
+   * @throws Exception exception
+   */
+  @Test public void noBlocking() throws Exception {
+    final Context writer = client();
+    final Thread thread = new Thread(() -> {
+      try {
+        new XQuery("insert node <a/> into db:open('" + NAME + "')/x, prof:sleep(2000)").
+          execute(writer);
+      } catch(final BaseXException ex) {
+        throw new AssertionError(ex);
+      }
+    });
+    thread.start();
+    Thread.sleep(500);
+
+    final long start = System.nanoTime();
+    assertEquals("0", new XQuery("count(db:open('" + NAME + "')//a)").execute(client()));
+    assertTrue(System.nanoTime() - start < 1_000_000_000L, "Reader was blocked by writer.");
+
+    thread.join();
+    assertEquals("1", new XQuery("count(db:open('" + NAME + "')//a)").execute(client()));
+  }
+
+  /**
+   * Reads consistent states while the database is updated.
+   * @throws Exception exception
+   */
+  @Test public void consistent() throws Exception {
+    final Context writer = client();
+    final int updates = 20;
+    final Thread thread = new Thread(() -> {
+      try {
+        for(int u = 0; u < updates; u++) {
+          new XQuery("let $x := db:open('" + NAME + "')/x return (" +
+            "insert node (1 to " + BATCH + ") ! <a n='{ . }'>{ 'text ' || . }</a> into $x, " +
+            "replace value of node $x/@v with count($x/a) + " + BATCH + ")").execute(writer);
+        }
+      } catch(final BaseXException ex) {
+        throw new AssertionError(ex);
+      }
+    });
+    thread.start();
+
+    // each committed state contains complete batches, and the attribute matches the count
+    final String query = "let $x := db:open('" + NAME + "')/x let $a := $x/a " +
+      "return count($a) mod " + BATCH + " = 0 and $x/@v = count($a) and " +
+      "count($a[text() = 'text 2']) = count($a) div " + BATCH;
+    final Context reader = client();
+    while(thread.isAlive()) assertEquals("true", new XQuery(query).execute(reader));
+    thread.join();
+
+    assertEquals(String.valueOf(updates * BATCH),
+        new XQuery("count(db:open('" + NAME + "')//a)").execute(reader));
+    final String info = new String(context.data().info());
+    assertTrue(info.contains(" 0 snapshots"), info);
+  }
+
+  /**
+   * Performs an overdue checkpoint after pinned snapshots have been released.
+   * @throws Exception exception
+   */
+  @Test public void checkpoint() throws Exception {
+    context.soptions.set(StaticOptions.WALSIZE, 1);
+    try {
+      execute(new CreateDB(NAME, "<x/>"));
+    } finally {
+      context.soptions.set(StaticOptions.WALSIZE, 64);
+    }
+    final Snapshot snapshot = context.datas.snapshot(NAME);
+    final Context writer = client();
+    final Thread thread = new Thread(() -> {
+      try {
+        for(int i = 0; i < 10; i++) {
+          new XQuery("insert node (1 to 1000) ! <y>{ string-join((1 to 100) ! 'text') }</y> " +
+            "into db:open('" + NAME + "')/x").execute(writer);
+        }
+      } catch(final BaseXException ex) {
+        throw new AssertionError(ex);
+      }
+    });
+    thread.start();
+
+    // writer waits for the pinned snapshot and rejects new snapshots
+    try {
+      for(Snapshot s; thread.isAlive() && (s = context.datas.snapshot(NAME)) != null;) {
+        context.datas.release(s);
+        Thread.sleep(10);
+      }
+      assertTrue(thread.isAlive(), "Checkpoint was skipped.");
+    } finally {
+      context.datas.release(snapshot);
+    }
+    thread.join();
+
+    final String info = new String(context.data().info());
+    assertFalse(info.contains(" 0 checkpoints"), info);
+    assertEquals("10000", new XQuery("count(db:open('" + NAME + "')//y)").execute(client()));
+  }
+
+  /**
+   * Blocks new snapshots while index structures are created or dropped.
+   * @throws Exception exception
+   */
+  @Test public void indexes() throws Exception {
+    final Context writer = client();
+    new Open(NAME).execute(writer);
+    for(final Command cmd : new Command[] {
+      new CreateIndex(CmdIndex.TEXT), new DropIndex(CmdIndex.TEXT) }) {
+      final Snapshot snapshot = context.datas.snapshot(NAME);
+      assertNotNull(snapshot);
+      final Thread thread = new Thread(() -> {
+        try {
+          cmd.execute(writer);
+        } catch(final BaseXException ex) {
+          throw new AssertionError(ex);
+        }
+      });
+      thread.start();
+      Thread.sleep(500);
+
+      // index change waits for the pinned snapshot, new snapshots are rejected
+      assertTrue(thread.isAlive(), cmd + " did not wait for snapshot.");
+      assertNull(context.datas.snapshot(NAME));
+      context.datas.release(snapshot);
+      thread.join();
+
+      final Snapshot next = context.datas.snapshot(NAME);
+      assertNotNull(next);
+      context.datas.release(next);
+    }
+    assertFalse(context.data().meta.textindex);
+    writer.close();
+  }
+
+  /**
+   * Returns a new client context.
+   * @return client context
+   */
+  private static Context client() {
+    final Context ctx = new Context(context);
+    ctx.user(context.user());
+    return ctx;
+  }
+}
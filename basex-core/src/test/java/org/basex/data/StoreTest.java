@@ -3,9 +3,13 @@ package org.basex.data;
 import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.*;
+
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.io.in.DataInput;
+import org.basex.util.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.Test;
 
@@ -73,6 +77,210 @@ public final class StoreTest extends SandboxTest {
     assertEquals(size, context.data().meta.dbFile(DataText.DATATXT).length());
   }
 
+  /**
+   * Compacts texts and attribute values.
+   * @throws IOException I/O exception
+   */
+  @Test public void compact() throws IOException {
+    execute(new CreateDB(NAME, "<X/>"));
+    query("insert node (1 to 1000) ! <A a='value { . }'>{ 'text ' || . }</A> into /X");
+    query("for $a in //A[position() mod 2 = 0] return delete node $a");
+    query("for $a in //A[position() mod 3 = 0] return replace value of node $a with $a || '-x'");
+    final String result = query("/X");
+
+    execute(new Flush());
+    final long texts = context.data().meta.dbFile(DataText.DATATXT).length();
+    final long values = context.data().meta.dbFile(DataText.DATAATV).length();
+    execute(new Optimize());
+    assertTrue(context.data().meta.dbFile(DataText.DATATXT).length() < texts);
+    assertTrue(context.data().meta.dbFile(DataText.DATAATV).length() < values);
+    assertEquals(result, query("/X"));
+
+    // compacted heaps will not shrink any further
+    assertEquals(0, context.data().compact());
+    execute(new Close());
+    assertEquals(result, query(_DB_OPEN.args(NAME) + "/X"));
+  }
+
+  /**
+   * Compacts texts and attribute values via XQuery.
+   * @throws IOException I/O exception
+   */
+  @Test public void compactQuery() throws IOException {
+    execute(new CreateDB(NAME, "<X/>"));
+    query("insert node (1 to 1000) ! <A a='value { . }'>{ 'text ' || . }</A> into /X");
+    query("for $a in //A[position() mod 2 = 0] return delete node $a");
+    final String result = query("/X");
+
+    execute(new Flush());
+    final long texts = context.data().meta.dbFile(DataText.DATATXT).length();
+    query(_DB_OPTIMIZE.args(NAME));
+    assertTrue(context.data().meta.dbFile(DataText.DATATXT).length() < texts);
+    assertEquals(result, query("/X"));
+    assertEquals(0, context.data().compact());
+    execute(new Close());
+    assertEquals(result, query(_DB_OPEN.args(NAME) + "/X"));
+  }
+
+  /**
+   * Compacts texts and attribute values in batches, interrupted by other updates.
+   * @throws IOException I/O exception
+   */
+  @Test public void compactBatches() throws IOException {
+    execute(new CreateDB(NAME, "<X/>"));
+    query("insert node (1 to 1000) ! <A a='value { . }'>{ 'text ' || . }</A> into /X");
+    query("for $a in //A[position() mod 2 = 0] return delete node $a");
+    String result = query("/X");
+
+    final Data data = context.data();
+    final MainOptions options = context.options;
+    long reclaimed = -1;
+    for(int b = 0; reclaimed == -1; b++) {
+      data.startUpdate(options);
+      reclaimed = data.compact(64);
+      data.finishUpdate(options);
+      // each batch leaves the database in a consistent state
+      assertEquals(result, query("/X"));
+      // concurrent update: compaction will be restarted
+      if(b == 10) {
+        query("insert node <B>new</B> into /X");
+        result = query("/X");
+      }
+    }
+    assertTrue(reclaimed > 0);
+    assertEquals(0, data.compact());
+    execute(new Close());
+    assertEquals(result, query(_DB_OPEN.args(NAME) + "/X"));
+  }
+
+  /**
+   * Stores values with few distinct occurrences in a dictionary.
+   */
+  @Test public void dictionary() throws IOException {
+    final StringBuilder xml = new StringBuilder("<X>");
+    for(int i = 1; i <= 1000; i++) {
+      xml.append("<A a='status").append(i % 3).append("'>text").append(i % 5).append("</A>");
+    }
+    final String input = xml.append("</X>").toString();
+
+    // no dictionary by default
+    execute(new CreateDB(NAME, input));
+    assertTrue(context.data().meta.dbFile(DataText.DATAATV).length() > 0);
+    assertFalse(execute(new InfoStorage()).contains(Text.LI_DICTIONARY));
+    assertEquals(DataText.STORAGE, storage());
+
+    // values exceeding the maximum length are not added to the dictionary
+    set(MainOptions.DICTIONARY, true);
+    set(MainOptions.DICTMAXLEN, 6);
+    try {
+      execute(new CreateDB(NAME, input));
+      assertTrue(context.data().meta.dbFile(DataText.DATAATV).length() > 0);
+      set(MainOptions.DICTMAXLEN, MainOptions.DICTMAXLEN.value());
+      execute(new CreateDB(NAME, input));
+    } finally {
+      set(MainOptions.DICTIONARY, false);
+      set(MainOptions.DICTMAXLEN, MainOptions.DICTMAXLEN.value());
+    }
+    assertEquals(0, context.data().meta.dbFile(DataText.DATAATV).length());
+    // text heap only contains the document path
+    assertTrue(context.data().meta.dbFile(DataText.DATATXT).length() < 100);
+    assertTrue(execute(new InfoStorage()).contains(Text.LI_DICTIONARY));
+    assertEquals(DataText.DICTSTORAGE, storage());
+    query("string-join(//@a)", query("string-join((1 to 1000) ! ('status' || . mod 3))"));
+    query("//A[@a = 'status2'][1]/string()", "text2");
+
+    // updated values: reference existing dictionary entries, or store new values
+    query("replace value of node //A[1]/@a with 'status0'");
+    query("replace value of node //A[2]/@a with 'status3'");
+    query("insert node attribute b { 'status1' } into //A[3]");
+    query("string-join(//A[position() <= 3]/@*, ' ')", "status0 status3 status1 status0");
+    execute(new Close());
+    query(_DB_OPEN.args(NAME) + "//A[1]/@a/string()", "status0");
+    query("count(" + _DB_OPEN.args(NAME) + "//A[. = 'text4'])", 200);
+  }
+
+  /**
+   * Inlines dates, dateTimes and decimals.
+   */
+  @Test public void inlineTyped() throws IOException {
+    final StringBuilder xml = new StringBuilder("<X>");
+    for(int i = 1; i <= 500; i++) {
+      xml.append("<A d='20").append(10 + i % 20).append("-0").append(1 + i % 9).append("-15' ");
+      xml.append("t='2021-07-15T12:").append(10 + i % 50).append(":00Z'>");
+      xml.append(i).append('.').append(i % 10).append("5</A>");
+    }
+    execute(new CreateDB(NAME, xml.append("</X>").toString()));
+    assertEquals(0, context.data().meta.dbFile(DataText.DATAATV).length());
+    assertTrue(context.data().meta.dbFile(DataText.DATATXT).length() < 100);
+    // older versions cannot read inlined typed values
+    assertEquals(DataText.TYPEDSTORAGE, storage());
+
+    // compare results of database and main-memory nodes
+    final String db = "let $x := " + _DB_OPEN.args(NAME) + " return ";
+    final String mem = "let $x := " + _DB_OPEN.args(NAME) + " update { } return ";
+    for(final String query : new String[] {
+      "count($x//A[@d >= '2015-03-15'])", "count($x//A[@d < '2020-01-01'])",
+      "count($x//A[@t > '2021-07-15T12:30:00Z'])", "count($x//A[@t <= '2021-07-15T12:30:00'])",
+      "count($x//A[@d > '2015'])", "count($x//A[. > 250.5])", "sum($x//A)"
+    }) {
+      assertEquals(query(mem + query), query(db + query), query);
+    }
+
+    // storage version is raised when the first typed value is inserted
+    execute(new CreateDB(NAME, "<X>text</X>"));
+    assertEquals(DataText.STORAGE, storage());
+    query("insert node <A>2021-07-15</A> into /X");
+    execute(new Flush());
+    assertEquals(DataText.TYPEDSTORAGE, storage());
+  }
+
+  /**
+   * Compresses the node table, texts and attribute values.
+   */
+  @Test public void compression() throws IOException {
+    final StringBuilder xml = new StringBuilder("<X>");
+    for(int i = 1; i <= 2000; i++) {
+      xml.append("<A a=\"value ").append(i).append("\">text number ").append(i).append("</A>");
+    }
+    final String input = xml.append("</X>").toString();
+    set(MainOptions.COMPRESSION, true);
+    try {
+      execute(new CreateDB(NAME, input));
+    } finally {
+      set(MainOptions.COMPRESSION, false);
+    }
+    final MetaData meta = context.data().meta;
+    assertTrue(meta.dbFile(DataText.DATABLK + DataText.DATATBL).exists());
+    assertTrue(meta.compressionRatio() < 50);
+    assertTrue(execute(new InfoDB()).contains(MetaProp.COMPRESSIONRATIO.name()));
+    // older versions cannot read compressed databases
+    assertEquals(DataText.COMPRSTORAGE, storage());
+
+    // update compressed database, compare results with main-memory copy
+    final String[] updates = {
+      "for $a in //A[position() mod 2 = 0] return delete node $a",
+      "insert node (1 to 500) ! <B b='{ . }'>{ 'new text ' || . }</B> into /X",
+      "for $a in //A[position() mod 3 = 0] return replace value of node $a with $a || '-x'"
+    };
+    final StringBuilder mem = new StringBuilder("parse-xml('" + input + "')");
+    for(final String update : updates) {
+      query(update);
+      mem.append(" update { ").append(update).append(" }");
+    }
+    final String expected = query("(" + mem + ")/X");
+    assertEquals(expected, query("/X"));
+    execute(new Close());
+    assertEquals(expected, query(_DB_OPEN.args(NAME) + "/X"));
+
+    // decompress database
+    execute(new Open(NAME));
+    execute(new OptimizeAll());
+    assertFalse(context.data().meta.dbFile(DataText.DATABLK + DataText.DATATBL).exists());
+    assertEquals(100, context.data().meta.compressionRatio());
+    assertEquals(expected, query("/X"));
+    assertEquals(DataText.STORAGE, storage());
+  }
+
   /**
    * Tests the {@link MainOptions#UPDINDEX} and {@link MainOptions#AUTOFLUSH} flags in combination.
    * Reaction on a bug (incremental value index was not correctly closed)
@@ -133,4 +341,16 @@ public final class StoreTest extends SandboxTest {
     query(_DB_REPLACE.args(NAME, "/", GH1711));
     query(_DB_OPEN.args(NAME));
   }
+
+  /**
+   * Returns the storage version of the opened database.
+   * @return version
+   * @throws IOException I/O exception
+   */
+  private static String storage() throws IOException {
+    try(DataInput in = new DataInput(context.data().meta.dbFile(DataText.DATAINF))) {
+      assertEquals(DataText.DBSTR, Token.string(in.readToken()));
+      return Token.string(in.readToken());
+    }
+  }
 }
@@ -0,0 +1,173 @@
+package org.basex.data;
+
+import static org.basex.data.DataText.*;
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the write-ahead log of databases ({@link StaticOptions#WALSIZE}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class WriteAheadLogTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Name of the copied database. */
+  private static final String COPY = NAME + "copy";
+
+  /** Enables the log. */
+  @BeforeAll public static void enable() {
+    context.soptions.set(StaticOptions.WALSIZE, 64);
+  }
+
+  /** Disables the log. */
+  @AfterAll public static void disable() {
+    context.soptions.set(StaticOptions.WALSIZE, 0);
+  }
+
+  /** Drops the test databases. */
+  @AfterEach public void drop() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(COPY));
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /** Reads updated nodes, texts and attribute values before and after a checkpoint. */
+  @Test public void updates() {
+    execute(new CreateDB(NAME, FILE));
+    final int size = context.data().meta.size;
+    insert();
+    assertEquals(size + 3000, context.data().meta.size);
+    assertTrue(execute(new InfoStorage()).contains(Text.LI_WAL));
+    assertTrue(context.data().meta.dbFile(DATAWAL).exists());
+
+    // the log is deleted when the database is closed
+    execute(new Close());
+    assertFalse(MetaData.file(context.soptions.dbPath(NAME), DATAWAL).exists());
+    execute(new Open(NAME));
+    check();
+  }
+
+  /**
+   * Replays the log of a database that has not been closed.
+   * @throws IOException I/O exception
+   */
+  @Test public void recover() throws IOException {
+    set(MainOptions.UPDINDEX, true);
+    execute(new CreateDB(NAME, FILE));
+    insert();
+
+    // simulate a crash: copy database files, including the log, while the database is opened
+    final IOFile source = context.soptions.dbPath(NAME), target = context.soptions.dbPath(COPY);
+    assertTrue(MetaData.file(source, DATAWAL).length() > 0);
+    for(final IOFile file : source.children()) file.copyTo(new IOFile(target, file.name()));
+
+    execute(new Open(COPY));
+    assertEquals(0, MetaData.file(target, DATAWAL).length());
+    check();
+    query("count(" + _DB_TEXT.args(COPY, "text 500") + ")", 1);
+    query("count(" + _DB_ATTRIBUTE.args(COPY, "value 500") + ")", 1);
+  }
+
+  /** Performs a checkpoint when the size limit of the log is exceeded. */
+  @Test public void checkpoint() {
+    context.soptions.set(StaticOptions.WALSIZE, 1);
+    try {
+      execute(new CreateDB(NAME, "<x/>"));
+      for(int i = 0; i < 10; i++) {
+        query("insert node (1 to 100) ! <y>{ string-join((1 to 100) ! 'text') }</y> into /x");
+      }
+      query("count(//y)", 1000);
+      assertFalse(execute(new InfoStorage()).contains(" 0 checkpoints"));
+      execute(new Close());
+      execute(new Open(NAME));
+      query("count(//y)", 1000);
+    } finally {
+      context.soptions.set(StaticOptions.WALSIZE, 64);
+    }
+  }
+
+  /**
+   * Kills a process during a checkpoint, with {@link MainOptions#AUTOFLUSH} disabled.
+   * The database must contain either all or none of the updates.
+   * @throws Exception exception
+   */
+  @Test public void kill() throws Exception {
+    final IOFile dbpath = new IOFile(context.soptions.get(StaticOptions.DBPATH));
+    final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    for(int k = 0; k < 3; k++) {
+      execute(new CreateDB(NAME, "<x/>"));
+      query("insert node (1 to 50000) ! <y>old</y> into /x");
+      execute(new Close());
+
+      // the table file is only changed by the checkpoint
+      final Path table = MetaData.file(dbpath.resolve(NAME), DATATBL).file().toPath();
+      final FileTime time = Files.getLastModifiedTime(table);
+      final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+          Crash.class.getName(), dbpath.path()).redirectErrorStream(true).start();
+      try {
+        final long end = System.currentTimeMillis() + 60000;
+        while(process.isAlive() && System.currentTimeMillis() < end &&
+            Files.getLastModifiedTime(table).equals(time)) Thread.yield();
+      } finally {
+        process.destroyForcibly().waitFor();
+      }
+
+      execute(new Open(NAME));
+      query("count(//y)", 50000);
+      query("count(distinct-values(//y ! substring-before(., ' ')))", 1);
+      execute(new Close());
+    }
+  }
+
+  /** Updates a database with {@link MainOptions#AUTOFLUSH} disabled, and closes it. */
+  public static final class Crash {
+    /** Private constructor. */
+    private Crash() { }
+
+    /**
+     * Main method.
+     * @param args database path
+     * @throws IOException I/O exception
+     */
+    public static void main(final String... args) throws IOException {
+      Prop.put(StaticOptions.DBPATH, args[0]);
+      Prop.put(StaticOptions.WALSIZE, "64");
+      final Context ctx = new Context();
+      ctx.options.set(MainOptions.AUTOFLUSH, false);
+      new Open(NAME).execute(ctx);
+      new XQuery("for $y at $p in //y return replace value of node $y with $y || ' ' || $p").
+        execute(ctx);
+      new Close().execute(ctx);
+    }
+  }
+
+  /** Updates the database. */
+  private static void insert() {
+    query("insert node (1 to 1000) ! <y b='value {.}'>text {.}</y> into /*");
+    query("replace value of node (//y)[1]/text() with 'new text'");
+    query("for $y in //y[position() > 500] return replace value of node $y/@b with 'VALUE'");
+    check();
+  }
+
+  /** Checks the updated database. */
+  private static void check() {
+    query("count(//y)", 1000);
+    query("(//y)[1] || (//y)[2]", "new texttext 2");
+    query("count(//@b[. = 'VALUE'])", 500);
+    query("string-length(string-join(//@b))", 6892);
+  }
+}
@@ -0,0 +1,96 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the Bloom filters of value indexes ({@link MainOptions#BLOOMFILTER}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class BloomFilterTest extends SandboxTest {
+  /** Document with 2000 distinct text and attribute values. */
+  private static final String DOC = "<X>{ (1 to 2000) ! <A a='a{ . }'>t{ . }</A> }</X>";
+
+  /** Initializes a test. */
+  @BeforeEach public void init() {
+    set(MainOptions.BLOOMFILTER, true);
+  }
+
+  /** Finishes a test. */
+  @AfterEach public void finish() {
+    set(MainOptions.BLOOMFILTER, false);
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.SPLITSIZE, 0);
+  }
+
+  /**
+   * Looks up existing and missing keys.
+   */
+  @Test public void lookup() {
+    execute(new CreateDB(NAME));
+    query(_DB_ADD.args(NAME, " " + DOC, "doc.xml"));
+    execute(new Optimize());
+    check();
+
+    // missing keys are rejected by the filter
+    final String info = execute(new InfoIndex(CmdIndexInfo.TEXT));
+    assertTrue(info.contains(Text.LI_BLOOM), info);
+    assertFalse(info.contains(" 0 rejected lookups"), info);
+
+    // drop filter
+    query(_DB_OPTIMIZE.args(NAME, false, " map { 'bloomfilter': false() }"));
+    assertFalse(execute(new InfoIndex()).contains(Text.LI_BLOOM));
+    check();
+  }
+
+  /**
+   * Merges temporary index files.
+   */
+  @Test public void merge() {
+    set(MainOptions.SPLITSIZE, 500);
+    execute(new CreateDB(NAME));
+    query(_DB_ADD.args(NAME, " " + DOC, "doc.xml"));
+    execute(new Optimize());
+    assertTrue(execute(new InfoIndex()).contains(Text.LI_BLOOM));
+    check();
+  }
+
+  /**
+   * Adds keys to incremental indexes.
+   */
+  @Test public void updates() {
+    set(MainOptions.UPDINDEX, true);
+    execute(new CreateDB(NAME, "<X><A a='a0'>t0</A></X>"));
+    query("insert node " + DOC + "/* into /X");
+    check();
+
+    // new keys must be found after the database has been reopened
+    execute(new Close());
+    execute(new Open(NAME));
+    assertTrue(execute(new InfoIndex()).contains(Text.LI_BLOOM));
+    check();
+    query("delete node //A[position() mod 2 = 0]");
+    check();
+  }
+
+  /**
+   * Compares the results of index and non-index queries.
+   */
+  private static void check() {
+    for(final String value : new String[] { "1", "999", "1999", "2000", "2001", "x" }) {
+      assertEquals(query("count(//text()[. = 't" + value + "'])"),
+          query("count(" + _DB_TEXT.args(NAME, "t" + value) + ")"), value);
+      assertEquals(query("count(//@a[. = 'a" + value + "'])"),
+          query("count(" + _DB_ATTRIBUTE.args(NAME, "a" + value) + ")"), value);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package org.basex.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the block-compressed postings of the full-text index.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class FTPostingsTest extends SandboxTest {
+  /** Queries that access frequent and rare terms. */
+  private static final String[] QUERIES = {
+    "count(//A[text() contains text 'x'])",
+    "count(//A[text() contains text 'x' ftand 'y3'])",
+    "count(//A[text() contains text 'y3' ftand 'z5' ftand 'x'])",
+    "count(//A[text() contains text 'r99' ftand 'x'])",
+    "count(//A[text() contains text 'x y3' phrase])",
+    "count(//A[text() contains text 'z5 x' ordered distance at most 3 words])",
+    "count(//A[text() contains text 'y.*' using wildcards ftand 'r1.*' using wildcards])",
+    "count(//A[text() contains text 'x' ftor 'r7'])",
+  };
+
+  /** Finishes a test. */
+  @AfterEach public void finish() {
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.SPLITSIZE, 0);
+  }
+
+  /** Compares the results of queries with and without index. */
+  @Test public void compare() {
+    final StringBuilder xml = new StringBuilder("<X>");
+    for(int i = 0; i < 5000; i++) {
+      xml.append("<A>").append(i % 2 == 0 ? "x y" + i % 4 : "z" + i % 6 + " w x");
+      xml.append(" r").append(i % 100).append(" y").append(i % 4).append("</A>");
+    }
+    final String input = xml.append("</X>").toString();
+
+    execute(new CreateDB(NAME, input));
+    final String[] expected = results();
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, input));
+    assertArrayEquals(expected, results());
+    set(MainOptions.SPLITSIZE, 1);
+    execute(new CreateDB(NAME, input));
+    assertArrayEquals(expected, results());
+  }
+
+  /**
+   * Opens a database with a full-text index in the old storage format.
+   * @throws IOException I/O exception
+   */
+  @Test public void oldFormat() throws IOException {
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, "<X><A>x y</A></X>"));
+    final IOFile inf = context.data().meta.dbFile(DataText.DATAINF);
+    execute(new Close());
+
+    // replace index version with the version of the old format
+    final byte[] current = token(DataText.IDBSTR, DataText.ISTORAGE);
+    final byte[] old = token(DataText.IDBSTR, "8.6"), bytes = inf.read();
+    final int i = Token.indexOf(bytes, current);
+    assertTrue(i != -1);
+    inf.write(Token.concat(Arrays.copyOf(bytes, i), old,
+        Arrays.copyOfRange(bytes, i + current.length, bytes.length)));
+
+    // full-text index is marked as outdated and ignored by queries
+    execute(new Open(NAME));
+    assertTrue(context.data().meta.oldindex());
+    assertFalse(context.data().meta.ftindex);
+    assertTrue(execute(new InfoDB()).contains(Text.H_INDEX_FORMAT));
+    query(QUERIES[0], 1);
+    execute(new CreateIndex(CmdIndex.FULLTEXT));
+    query(QUERIES[0], 1);
+  }
+
+  /**
+   * Returns a key and value pair as it is stored in the meta data.
+   * @param key key
+   * @param value value
+   * @return token
+   */
+  private static byte[] token(final String key, final String value) {
+    final ArrayOutput ao = new ArrayOutput();
+    try(DataOutput out = new DataOutput(ao)) {
+      out.writeToken(Token.token(key));
+      out.writeToken(Token.token(value));
+    } catch(final IOException ex) {
+      throw new AssertionError(ex);
+    }
+    return ao.finish();
+  }
+
+  /**
+   * Returns the results of all queries.
+   * @return results
+   */
+  private static String[] results() {
+    final int ql = QUERIES.length;
+    final String[] results = new String[ql];
+    for(int q = 0; q < ql; q++) results[q] = query(QUERIES[q]);
+    return results;
+  }
+}
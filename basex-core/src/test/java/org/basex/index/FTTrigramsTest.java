@@ -0,0 +1,93 @@
+package org.basex.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the trigram index of the full-text index, which is used for wildcard and fuzzy
+ * searches.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class FTTrigramsTest extends SandboxTest {
+  /** Tokens. */
+  private static final String[] TOKENS = {
+    "indexing", "index", "indexes", "indices", "station", "nation", "notation", "rotation",
+    "helo", "hello", "yellow", "fellow", "café", "cafe", "caffe", "Über", "uber", "ubers",
+    "abc", "abcd", "xyzabc", "database", "databases", "datenbank", "rotor", "motor"
+  };
+  /** Queries. */
+  private static final String[] QUERIES = {
+    "count(//A[text() contains text '.*ing' using wildcards])",
+    "count(//A[text() contains text '.*tion' using wildcards])",
+    "count(//A[text() contains text '.+at.*on' using wildcards])",
+    "count(//A[text() contains text '.?ndex.*' using wildcards])",
+    "count(//A[text() contains text '.*abc' using wildcards])",
+    "count(//A[text() contains text '.{1,3}tor' using wildcards])",
+    "count(//A[text() contains text 'indexng' using fuzzy])",
+    "count(//A[text() contains text 'helloo' using fuzzy])",
+    "count(//A[text() contains text 'databsae' using fuzzy])",
+    "count(//A[text() contains text 'rotaton' using fuzzy])",
+    "count(//A[text() contains text 'cafe' using fuzzy])",
+    "count(//A[text() contains text 'ubers' using fuzzy])",
+    "count(//A[text() contains text 'xyz' using fuzzy])",
+  };
+
+  /** Finishes a test. */
+  @AfterEach public void finish() {
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.CASESENS, false);
+    set(MainOptions.DIACRITICS, false);
+  }
+
+  /** Compares the results of queries with and without index. */
+  @Test public void compare() {
+    compare(false);
+  }
+
+  /** Compares the results of queries with and without case- and diacritics-sensitive index. */
+  @Test public void sensitive() {
+    set(MainOptions.CASESENS, true);
+    set(MainOptions.DIACRITICS, true);
+    compare(true);
+  }
+
+  /**
+   * Compares the results of queries with and without index.
+   * @param sensitive sensitive flag
+   */
+  private static void compare(final boolean sensitive) {
+    final StringBuilder xml = new StringBuilder("<X>");
+    final int tl = TOKENS.length;
+    for(int i = 0; i < 500; i++) {
+      xml.append("<A>").append(TOKENS[i % tl]).append(' ').append(TOKENS[i * 7 % tl]);
+      xml.append("</A>");
+    }
+    final String input = xml.append("</X>").toString();
+
+    execute(new CreateDB(NAME, input));
+    final String[] expected = results(sensitive);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, input));
+    assertArrayEquals(expected, results(sensitive));
+  }
+
+  /**
+   * Returns the results of all queries.
+   * @param sensitive sensitive flag
+   * @return results
+   */
+  private static String[] results(final boolean sensitive) {
+    final int ql = QUERIES.length;
+    final String[] results = new String[ql];
+    final String options = sensitive ? " using case sensitive using diacritics sensitive]" : "]";
+    for(int q = 0; q < ql; q++) results[q] = query(QUERIES[q].replace("])", options + ')'));
+    return results;
+  }
+}
@@ -19,7 +19,7 @@ public final class IndexCacheTest {
 
   /** Set up method. */
   @BeforeEach public void setUp() {
-    cache = new IndexCache();
+    cache = new IndexCache(10000);
   }
 
   /** Test for method {@link IndexCache#get(byte[])}. */
@@ -69,6 +69,30 @@ public final class IndexCacheTest {
     assertNull(cache.get(key));
   }
 
+  /** Tests the eviction of entries and the counters. */
+  @Test public void testEviction() {
+    final IndexCache small = new IndexCache(160);
+    final byte[] first = token("key0");
+    small.add(first, 0, 0L);
+    for(int i = 1; i < 4000; ++i) {
+      // keep first entry alive
+      assertNotNull(small.get(first));
+      small.add(token("key" + i), i, i);
+    }
+    assertNotNull(small.get(first));
+    assertNull(small.get(token("key1")));
+
+    final String info = small.info();
+    assertTrue(info.contains("4000 hits"), info);
+    assertTrue(info.contains("1 misses"), info);
+    assertFalse(info.contains(" 0 evictions"), info);
+
+    // disabled cache
+    final IndexCache none = new IndexCache(0);
+    assertNotNull(none.add(first, 1, 2L));
+    assertNull(none.get(first));
+  }
+
   /**
    * Test that new records can be continuously added without hitting
    * {@link OutOfMemoryError}.
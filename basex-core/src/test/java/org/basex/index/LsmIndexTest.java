@@ -0,0 +1,120 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.index.value.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for log-structured incremental value indexes ({@link MainOptions#INDEXDELTA}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class LsmIndexTest extends SandboxTest {
+  /** Queries that access the indexes, and queries that return the same results without indexes. */
+  private static final String[][] QUERIES = {
+    { "count(" + _DB_TEXT.args(NAME, "a") + ")", "count(//text()[string() = 'a'])" },
+    { "count(" + _DB_TEXT.args(NAME, "b") + ")", "count(//text()[string() = 'b'])" },
+    { "count(" + _DB_ATTRIBUTE.args(NAME, "x") + ")", "count(//@*[string() = 'x'])" },
+    { "count(" + _DB_TOKEN.args(NAME, "y") + ")", "count(//@*[tokenize(string()) = 'y'])" },
+    { "count(" + _DB_TEXT_RANGE.args(NAME, "b", "c") + ")",
+      "count(//text()[string() >= 'b' and string() <= 'c'])" },
+    { "string-join(" + _INDEX_TEXTS.args(NAME) + ", ',')",
+      "string-join(sort(distinct-values(//text() ! string())), ',')" },
+    { "string-join(" + _INDEX_TEXTS.args(NAME, "c", false) + ", ',')",
+      "string-join(reverse(sort(distinct-values(//text()[string() < 'c'] ! string()))), ',')" }
+  };
+
+  /** Initializes a test. */
+  @BeforeEach public void init() {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.INDEXDELTA, 8);
+    set(MainOptions.TOKENINDEX, true);
+  }
+
+  /** Finishes a test. */
+  @AfterEach public void finish() {
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.INDEXDELTA, 0);
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.AUTOFLUSH, true);
+  }
+
+  /**
+   * Inserts, replaces and deletes nodes.
+   */
+  @Test public void updates() {
+    execute(new CreateDB(NAME, "<X><A a='x'>a</A><A a='x y'>b</A></X>"));
+    assertTrue(context.data().textIndex instanceof LsmDiskValues);
+    compare();
+
+    for(int i = 0; i < 20; i++) {
+      query("insert node (for $i in 1 to 10 return <A a='{ ('x', 'y', 'x y z')[$i mod 3 + 1] }'>" +
+          "{ ('a', 'b', 'c', 'd')[$i mod 4 + 1] }</A>) into /X");
+      query("for $a in //A[position() mod 5 = 0] return replace value of node $a/text() with " +
+          "('c', 'a')[" + i + " mod 2 + 1]");
+      query("for $a in //A[position() mod 7 = 0] return replace value of node $a/@a with 'y x'");
+      query("for $a in //A[position() mod 6 = 1] return delete node $a");
+      compare();
+    }
+
+    // results must be identical after the database has been reopened
+    execute(new Close());
+    execute(new Open(NAME));
+    compare();
+    assertTrue(execute(new Inspect()).contains("No inconsistencies found."));
+  }
+
+  /**
+   * Caches updates in main memory.
+   */
+  @Test public void delta() {
+    set(MainOptions.AUTOFLUSH, false);
+    set(MainOptions.INDEXDELTA, 1000);
+    execute(new CreateDB(NAME, "<X/>"));
+    query("insert node (1 to 100) ! <A a='x'>a</A> into /X");
+    query("delete node //A[position() <= 50]");
+    query("replace value of node //A[1] with 'b'");
+    compare();
+    assertTrue(execute(new InfoIndex()).contains(Text.LI_DELTA + "152"));
+
+    execute(new Close());
+    execute(new Open(NAME));
+    compare();
+    assertTrue(execute(new InfoIndex()).contains(Text.LI_DELTA + '0'));
+  }
+
+  /**
+   * Merges runs.
+   */
+  @Test public void merge() {
+    execute(new CreateDB(NAME, "<X/>"));
+    for(int i = 0; i < 200; i++) query("insert node <A a='x'>{ " + i + " mod 3 }</A> into /X");
+    execute(new Close());
+    execute(new Open(NAME));
+    final String info = execute(new InfoIndex());
+    final int runs = Integer.parseInt(info.replaceAll("(?s).*?" + Text.LI_RUNS + "(\\d+).*", "$1"));
+    assertTrue(runs < 16, "Runs: " + runs);
+    query("count(" + _DB_TEXT.args(NAME, "1") + ")", 67);
+
+    // rebuild index
+    execute(new OptimizeAll());
+    query("count(" + _DB_TEXT.args(NAME, "1") + ")", 67);
+    assertTrue(execute(new InfoIndex()).contains(Text.LI_RUNS + '1'));
+  }
+
+  /**
+   * Compares the results of index and non-index queries.
+   */
+  private static void compare() {
+    for(final String[] queries : QUERIES) {
+      assertEquals(query(queries[1]), query(queries[0]), queries[0]);
+    }
+  }
+}
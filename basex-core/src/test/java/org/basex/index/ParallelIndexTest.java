@@ -0,0 +1,102 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for building indexes in parallel ({@link MainOptions#INDEXTHREADS}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelIndexTest extends SandboxTest {
+  /** Queries that access the indexes. */
+  private static final String[] QUERIES = {
+    "count(" + _DB_TEXT.args(NAME, "text 7") + ")",
+    "count(" + _DB_ATTRIBUTE.args(NAME, "a1") + ")",
+    "count(" + _DB_TOKEN.args(NAME, "b3") + ")",
+    "count(" + _DB_TEXT_RANGE.args(NAME, "text 1", "text 3") + ")",
+    "count(//A[text() contains text 'text'])",
+    "string-join(" + _INDEX_TEXTS.args(NAME) + ", ',')",
+    "string-join(" + _INDEX_TOKENS.args(NAME) + ", ',')",
+    "sum(" + _DB_TEXT.args(NAME, "text 2") + "/../@n)"
+  };
+  /** Input document (more than two partitions). */
+  private static String input;
+
+  /** Creates the input document. */
+  @BeforeAll public static void input() {
+    final StringBuilder xml = new StringBuilder("<X>");
+    for(int i = 1; i <= 40000; i++) {
+      xml.append("<A n='").append(i).append("' a='a").append(i % 7).append("' b='b");
+      xml.append(i % 5).append(" b").append(i % 3).append("'>text ").append(i % 11).append("</A>");
+    }
+    input = xml.append("</X>").toString();
+  }
+
+  /** Initializes a test. */
+  @BeforeEach public void init() {
+    set(MainOptions.TOKENINDEX, true);
+    set(MainOptions.FTINDEX, true);
+  }
+
+  /** Finishes a test. */
+  @AfterEach public void finish() {
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.INDEXDELTA, 0);
+    set(MainOptions.SPLITSIZE, 0);
+    set(MainOptions.INDEXTHREADS, 0);
+  }
+
+  /** Builds static indexes. */
+  @Test public void indexes() {
+    compare();
+  }
+
+  /** Builds updatable indexes. */
+  @Test public void updindex() {
+    set(MainOptions.UPDINDEX, true);
+    compare();
+    set(MainOptions.INDEXDELTA, 100);
+    compare();
+  }
+
+  /** Writes temporary files in each partition. */
+  @Test public void splitSize() {
+    set(MainOptions.SPLITSIZE, 1);
+    compare();
+  }
+
+  /**
+   * Compares the results of sequentially and concurrently built indexes.
+   */
+  private static void compare() {
+    set(MainOptions.INDEXTHREADS, 1);
+    final String[] expected = results();
+    set(MainOptions.INDEXTHREADS, 8);
+    assertArrayEquals(expected, results());
+    execute(new OptimizeAll());
+    assertArrayEquals(expected, results());
+    assertTrue(execute(new Inspect()).contains("No inconsistencies found."));
+  }
+
+  /**
+   * Creates a database and returns the results of all queries.
+   * @return results
+   */
+  private static String[] results() {
+    execute(new CreateDB(NAME, input));
+    final int ql = QUERIES.length;
+    final String[] results = new String[ql];
+    for(int q = 0; q < ql; q++) results[q] = query(QUERIES[q]);
+    return results;
+  }
+}
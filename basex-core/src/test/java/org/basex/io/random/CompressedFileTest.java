@@ -0,0 +1,52 @@
+package org.basex.io.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for class {@link CompressedFile}.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedFileTest extends SandboxTest {
+  /**
+   * Reuses released slots only after the directory has been flushed.
+   * @throws IOException I/O exception
+   */
+  @Test public void reuse() throws IOException {
+    final IOFile file = new IOFile(sandbox(), NAME);
+    final byte[] empty = new byte[IO.BLOCKSIZE], filled = new byte[IO.BLOCKSIZE];
+    final byte[] random = new byte[IO.BLOCKSIZE];
+    Arrays.fill(filled, (byte) 1);
+    new Random(0).nextBytes(random);
+    file.write(empty);
+    CompressedFile.compress(file);
+
+    try(RandomAccessFile raf = new RandomAccessFile(file.file(), "rw")) {
+      final CompressedFile cf = CompressedFile.open(file, raf);
+      // grow first block (slot is released), add second block
+      cf.write(0, random, random.length);
+      cf.write(1, filled, filled.length);
+
+      // flushed directory still references the old slot of the first block
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      CompressedFile.open(file, raf).read(0, data);
+      assertArrayEquals(empty, data);
+
+      // released slot is reused after flush
+      cf.flush();
+      final long length = raf.length();
+      cf.write(2, filled, filled.length);
+      assertEquals(length, raf.length());
+      cf.read(0, data);
+      assertArrayEquals(random, data);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package org.basex.io.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for class {@link FileHandles}.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class FileHandlesTest extends SandboxTest {
+  /** Number of files. */
+  private static final int FILES = 8;
+  /** Number of values per file. */
+  private static final int VALUES = 10000;
+
+  /** Assigns a small budget. */
+  @BeforeEach public void init() {
+    FileHandles.get().budget(2);
+  }
+
+  /** Resets the budget. */
+  @AfterEach public void reset() {
+    FileHandles.get().budget(0);
+  }
+
+  /**
+   * Reads and writes more files than file handles are available.
+   * @throws Exception exception
+   */
+  @Test public void reopen() throws Exception {
+    final DataAccess[] das = open();
+    try {
+      for(int f = 0; f < FILES; f++) {
+        for(int v = 0; v < VALUES; v++) das[f].write4(v * 4L, f * VALUES + v);
+        das[f].flush();
+      }
+      for(int f = 0; f < FILES; f++) {
+        for(int v = 0; v < VALUES; v += 97) assertEquals(f * VALUES + v, das[f].read4(v * 4L));
+      }
+      assertTrue(das[0].info().contains("reopens"), das[0].info());
+      assertTrue(FileHandles.get().info().startsWith("2 open"), FileHandles.get().info());
+    } finally {
+      for(final DataAccess da : das) da.close();
+    }
+    assertTrue(FileHandles.get().info().startsWith("0 open"), FileHandles.get().info());
+  }
+
+  /**
+   * Reads files concurrently.
+   * @throws Exception exception
+   */
+  @Test public void concurrent() throws Exception {
+    final DataAccess[] das = open();
+    try {
+      for(int f = 0; f < FILES; f++) {
+        for(int v = 0; v < VALUES; v++) das[f].write4(v * 4L, f * VALUES + v);
+        das[f].flush();
+      }
+      final ArrayList<Thread> threads = new ArrayList<>();
+      final ArrayList<Throwable> errors = new ArrayList<>();
+      for(int t = 0; t < FILES; t++) {
+        final int o = t;
+        threads.add(new Thread(() -> {
+          try {
+            final Random rnd = new Random(o);
+            for(int i = 0; i < VALUES; i++) {
+              final int f = rnd.nextInt(FILES), v = rnd.nextInt(VALUES);
+              assertEquals(f * VALUES + v, das[f].read4(v * 4L));
+            }
+          } catch(final Throwable ex) {
+            synchronized(errors) { errors.add(ex); }
+          }
+        }));
+      }
+      for(final Thread thread : threads) thread.start();
+      for(final Thread thread : threads) thread.join();
+      assertTrue(errors.isEmpty(), errors.toString());
+    } finally {
+      for(final DataAccess da : das) da.close();
+    }
+  }
+
+  /** Queries more databases than file handles are available. */
+  @Test public void databases() {
+    for(int d = 0; d < FILES; d++) {
+      execute(new CreateDB(NAME + d, "<x>" + d + "</x>"));
+      execute(new Close());
+    }
+    try {
+      final StringBuilder query = new StringBuilder();
+      for(int d = 0; d < FILES; d++) {
+        query.append(d == 0 ? "" : " + ").append("db:open('" + NAME + d + "')/x");
+      }
+      query(query.toString(), FILES * (FILES - 1) / 2);
+      query(query.toString(), FILES * (FILES - 1) / 2);
+    } finally {
+      for(int d = 0; d < FILES; d++) execute(new DropDB(NAME + d));
+    }
+  }
+
+  /**
+   * Opens the test files.
+   * @return file accesses
+   * @throws Exception exception
+   */
+  private static DataAccess[] open() throws Exception {
+    final DataAccess[] das = new DataAccess[FILES];
+    for(int f = 0; f < FILES; f++) {
+      das[f] = new DataAccess(new IOFile(sandbox(), NAME + f));
+    }
+    return das;
+  }
+}
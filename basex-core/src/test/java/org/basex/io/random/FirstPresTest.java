@@ -0,0 +1,76 @@
+package org.basex.io.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.list.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for class {@link FirstPres}.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class FirstPresTest {
+  /** Creates regular and irregular mappings. */
+  @Test public void init() {
+    assertArrayEquals(new int[] { 0, IO.ENTRIES, IO.ENTRIES * 2 },
+        new FirstPres(3).toArray(3));
+    assertArrayEquals(new int[] { 0, 5, 7 }, new FirstPres(new int[] { 0, 5, 7, 9 }, 3).toArray(3));
+    assertArrayEquals(new int[0], new FirstPres(0).toArray(0));
+  }
+
+  /** Compares random operations with a simple list of first pre values. */
+  @Test public void random() {
+    final Random rnd = new Random(0);
+    final FirstPres fpres = new FirstPres(16);
+    final IntList list = new IntList();
+    for(int i = 0; i < 16; i++) list.add(i * IO.ENTRIES);
+
+    for(int o = 0; o < 20000; o++) {
+      final int size = list.size(), page = size == 0 ? 0 : rnd.nextInt(size);
+      switch(size == 0 ? 0 : rnd.nextInt(4)) {
+        case 0:
+          // insert pages
+          final int count = rnd.nextInt(3) + 1, pre = page == 0 ? 0 : list.get(page - 1);
+          fpres.insert(page, count);
+          for(int c = 0; c < count; c++) list.insert(page, pre);
+          break;
+        case 1:
+          // remove pages
+          final int rem = Math.min(size - page, rnd.nextInt(3) + 1);
+          fpres.remove(page, rem);
+          for(int c = 0; c < rem; c++) list.remove(page);
+          break;
+        case 2:
+          // shift pages
+          final int shift = rnd.nextInt(IO.ENTRIES);
+          fpres.shift(page, shift);
+          for(int p = page; p < size; p++) list.set(p, list.get(p) + shift);
+          break;
+        default:
+          // assign value within the bounds of the neighbors
+          final int min = page == 0 ? 0 : list.get(page - 1);
+          final int max = page + 1 < size ? list.get(page + 1) : min + IO.ENTRIES;
+          final int value = min + rnd.nextInt(max - min + 1);
+          fpres.set(page, value);
+          list.set(page, value);
+      }
+
+      final int sz = list.size();
+      if(sz == 0) continue;
+      final int p = rnd.nextInt(sz);
+      assertEquals(list.get(p), fpres.get(p));
+      final int pre = list.get(p) + rnd.nextInt(IO.ENTRIES);
+      int exp = 0;
+      for(int i = 0; i < sz; i++) {
+        if(list.get(i) <= pre) exp = i;
+      }
+      assertEquals(exp, fpres.find(pre));
+    }
+    assertArrayEquals(list.finish(), fpres.toArray(list.size()));
+  }
+}
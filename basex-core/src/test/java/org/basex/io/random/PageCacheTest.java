@@ -0,0 +1,135 @@
+package org.basex.io.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for class {@link PageCache}.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class PageCacheTest {
+  /** Number of cached pages. */
+  private static final int PAGES = 64;
+  /** Page cache. */
+  private final PageCache cache = new PageCache();
+  /** Owner id. */
+  private final long id = PageCache.id();
+
+  /** Initializes the cache. */
+  @BeforeEach public void init() {
+    cache.budget((long) PAGES * IO.BLOCKSIZE);
+  }
+
+  /** Reads and updates pages. */
+  @Test public void readUpdate() {
+    final byte[] page = page(1), data = new byte[IO.BLOCKSIZE];
+    assertFalse(cache.read(key(1), data));
+    cache.add(key(1), page);
+    assertTrue(cache.read(key(1), data));
+    assertArrayEquals(page, data);
+
+    // pages are copied when being added and updated
+    page[0] = 2;
+    cache.update(key(1), page);
+    page[0] = 3;
+    assertTrue(cache.read(key(1), data));
+    assertEquals(2, data[0]);
+
+    // pages that are not cached are not added by updates
+    cache.update(key(2), page);
+    assertFalse(cache.read(key(2), data));
+
+    // pages of other owners are not affected
+    cache.add(PageCache.key(PageCache.id(), 3), page);
+    cache.remove(id);
+    assertFalse(cache.read(key(1), data));
+  }
+
+  /** Checks that frequently accessed pages survive a scan. */
+  @Test public void scan() {
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    // request pages, and evict them from the FIFO queue by requesting other pages
+    for(int p = 0; p < PAGES / 2; p++) cache.add(key(p), page(p));
+    for(int p = PAGES; p < PAGES * 2; p++) cache.add(key(p), page(p));
+    // request pages again: they are added to the LRU queue
+    for(int p = 0; p < PAGES / 2; p++) {
+      assertFalse(cache.read(key(p), data));
+      cache.add(key(p), page(p));
+    }
+    // scan a large number of pages
+    for(int p = PAGES * 2; p < PAGES * 100; p++) cache.add(key(p), page(p));
+    // frequently accessed pages are still available
+    for(int p = 0; p < PAGES / 2; p++) {
+      assertTrue(cache.read(key(p), data), "Page " + p + " was evicted.");
+      assertEquals((byte) p, data[0]);
+    }
+  }
+
+  /** Keeps the pages of owners with large ids apart. */
+  @Test public void ids() {
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    cache.add(PageCache.key(1, 0), page(1));
+    assertFalse(cache.read(PageCache.key(1 + (1L << 23), 0), data));
+    assertFalse(cache.read(PageCache.key(1 + (1L << 40), 0), data));
+    assertTrue(cache.read(PageCache.key(1, 0), data));
+  }
+
+  /** Splits large caches into segments. */
+  @Test public void segments() {
+    final int pages = PAGES << 8;
+    cache.budget((long) pages * IO.BLOCKSIZE);
+    assertTrue(cache.toString().contains("segments: 16"), cache.toString());
+
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    for(int p = 0; p < pages / 2; p++) cache.add(key(p), page(p));
+    for(int p = 0; p < pages / 2; p++) {
+      assertTrue(cache.read(key(p), data), "Page " + p + " was evicted.");
+      assertEquals((byte) p, data[0]);
+    }
+  }
+
+  /** Does not change the budget of the global cache when options are created. */
+  @Test public void options() {
+    final PageCache global = PageCache.get();
+    global.budget((long) PAGES * IO.BLOCKSIZE);
+    try {
+      final String info = global.toString();
+      new StaticOptions(false);
+      assertEquals(info, global.toString());
+    } finally {
+      global.budget(0);
+    }
+  }
+
+  /** Disables the cache. */
+  @Test public void disable() {
+    cache.budget(0);
+    cache.add(key(1), page(1));
+    assertFalse(cache.read(key(1), new byte[IO.BLOCKSIZE]));
+  }
+
+  /**
+   * Returns the cache key for the specified page.
+   * @param pos page position
+   * @return key
+   */
+  private PageCache.Key key(final long pos) {
+    return PageCache.key(id, pos);
+  }
+
+  /**
+   * Creates a page.
+   * @param pos page position, which will be stored in the first byte
+   * @return page
+   */
+  private static byte[] page(final int pos) {
+    final byte[] page = new byte[IO.BLOCKSIZE];
+    page[0] = (byte) pos;
+    return page;
+  }
+}
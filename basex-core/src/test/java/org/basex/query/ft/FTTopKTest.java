@@ -0,0 +1,76 @@
+package org.basex.query.ft;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.ft.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for BM25 scoring and top-k full-text searches.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class FTTopKTest extends QueryPlanTest {
+  /** Creates a test database. */
+  @BeforeAll public static void init() {
+    final StringBuilder xml = new StringBuilder("<X>");
+    for(int i = 0; i < 2000; i++) {
+      xml.append("<A>common");
+      if(i % 3 == 0) xml.append(" medium");
+      if(i % 97 == 0) xml.append(" rare rare");
+      if(i % 5 == 0) xml.append(" padding padding padding padding");
+      xml.append("</A>");
+    }
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, xml.append("</X>").toString()));
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.BM25, true);
+  }
+
+  /** Drops the test database. */
+  @AfterAll public static void finish() {
+    set(MainOptions.BM25, false);
+    execute(new DropDB(NAME));
+  }
+
+  /** BM25 scores. */
+  @Test public void scores() {
+    // rare terms are weighted higher than frequent terms
+    final double rare = Double.parseDouble(query("max(" + _FT_SEARCH.args(NAME, "rare") +
+        "! " + _FT_SCORE.args(" .") + ')'));
+    final double common = Double.parseDouble(query("max(" + _FT_SEARCH.args(NAME, "common") +
+        "! " + _FT_SCORE.args(" .") + ')'));
+    assertTrue(rare > common, rare + " <= " + common);
+    assertTrue(rare < 1, "Score too large: " + rare);
+
+    // shorter texts are weighted higher than longer texts
+    query("let $s := " + _FT_SEARCH.args(NAME, "medium") + "! " + _FT_SCORE.args(" .") +
+        " return $s[1] < $s[2]", true);
+  }
+
+  /** Top-k searches. */
+  @Test public void topK() {
+    for(final String terms : new String[] { "rare", "'common', 'rare'", "'medium', 'rare'",
+        "'common', 'medium', 'padding', 'rare'", "unknown" }) {
+      final String search = _FT_SEARCH.args(NAME, " (" + terms + ')');
+      final String flwor = "for $t in " + search + " order by " + _FT_SCORE.args(" $t") +
+          " descending return $t";
+      final String scored = "for $t score $s in " + search + " order by $s descending return $t";
+      final String expected = query("let $k := " + _RANDOM_INTEGER.args(1) + " + 10 " +
+          "return (" + flwor + ")[position() <= $k] ! (db:node-pre(.) || ':' || ft:score(.))");
+      final String result = "(" + flwor + ")[position() <= 10] ! (db:node-pre(.) || ':' || " +
+          "ft:score(.))";
+      check(result, expected, exists(FTTopK.class));
+      check("subsequence(" + scored + ", 1, 10) ! (db:node-pre(.) || ':' || ft:score(.))",
+          expected, exists(FTTopK.class));
+      check(_DB_NODE_PRE.args(" head(" + flwor + ')'), query(_DB_NODE_PRE.args(
+          " head(" + flwor + "[" + _RANDOM_INTEGER.args(1) + " + 1])")), exists(FTTopK.class));
+    }
+  }
+}
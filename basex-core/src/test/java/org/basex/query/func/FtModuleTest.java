@@ -146,6 +146,16 @@ public final class FtModuleTest extends SandboxTest {
     final Function func = _FT_SCORE;
     query(func.args(_FT_SEARCH.args(NAME, "2")), 1);
     query(func.args(_FT_SEARCH.args(NAME, "XML")), "1\n0.5");
+
+    // BM25 scores: values are smaller than 1, shorter texts are ranked higher
+    set(MainOptions.BM25, true);
+    try {
+      query(func.args(_FT_SEARCH.args(NAME, "2")) + " ! (. > 0 and . < 1)", true);
+      query("let $s := " + func.args(_FT_SEARCH.args(NAME, "XML")) + " return $s[1] > $s[2]",
+          true);
+    } finally {
+      set(MainOptions.BM25, false);
+    }
   }
 
   /** Test method. */
@@ -0,0 +1,136 @@
+package org.basex.query.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.index.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests if substring and regular expression searches are correctly evaluated
+ * with(out) the trigram index ({@link MainOptions#TRIGRAMINDEX}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class TrigramIndexTest extends QueryPlanTest {
+  /** Log levels. */
+  private static final String[] LEVELS = { "INFO", "WARN", "ERROR", "DEBUG" };
+
+  /**
+   * Initializes the tests.
+   */
+  @BeforeAll public static void start() {
+    final Random rnd = new Random(1);
+
+    final TokenBuilder tb = new TokenBuilder().add("<log>");
+    for(int i = 0; i < 2000; i++) {
+      final String level = LEVELS[rnd.nextInt(LEVELS.length)];
+      tb.add("<entry level='").add(level).add("' host='srv-").addInt(rnd.nextInt(40)).add("'>");
+      tb.add("<msg>").add(level).add(": request ").addInt(rnd.nextInt(100000));
+      tb.add(rnd.nextInt(10) == 0 ? " failed with timeout" : " completed in ");
+      tb.addInt(rnd.nextInt(1000)).add("ms");
+      tb.add(i % 97 == 0 ? " Übergröße €" : "").add("</msg>");
+      tb.add("</entry>");
+    }
+    execute(new CreateDB(NAME, tb.add("</log>").toString()));
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterAll public static void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.TRIGRAMINCLUDE, "");
+  }
+
+  /**
+   * Substring searches.
+   */
+  @Test public void contains() {
+    test("count(//msg[contains(., 'timeout')])");
+    test("count(//msg[contains(text(), 'request 123')])");
+    test("count(//entry[contains(@host, 'srv-1')])");
+    test("count(//msg[contains(., 'Übergröße')])");
+    // unknown trigram: expression is replaced with empty sequence
+    test("count(//msg[contains(., 'unknown')])", false);
+    // substrings without trigrams, non-literal substrings, collations: no index access
+    test("count(//msg[contains(., 'ms')])", false);
+    test("for $s in ('timeout', 'failed') return count(//msg[contains(., $s)])", false);
+    test("count(//msg[contains(., 'TIMEOUT', '" +
+        "http://www.w3.org/2005/xpath-functions/collation/html-ascii-case-insensitive')])", false);
+  }
+
+  /**
+   * Regular expression searches.
+   */
+  @Test public void matches() {
+    test("count(//msg[matches(., 'fail.*timeout')])");
+    test("count(//msg[matches(., '^ERROR: request \\d+ completed in 9\\d\\dms$')])");
+    test("count(//msg[matches(., 'req(uest)+ 4')])");
+    test("count(//msg[matches(., 'tim(e)?out')])");
+    test("count(//msg[matches(., 'qu{1}e{1,}st', 's')])");
+    test("count(//msg[matches(., 'a{1}b{2}c{3,}', 's')])", false);
+    test("count(//msg[matches(., 'in 1', 'q')])");
+    test("count(//entry[matches(@level, 'WAR')])");
+    // no required literals, case-insensitive search: no index access
+    test("count(//msg[matches(., 'timeout|completed')])", false);
+    test("count(//msg[matches(., '\\d+ms')])", false);
+    test("count(//msg[matches(., 'TIMEOUT', 'i')])", false);
+  }
+
+  /**
+   * Updates and included names.
+   */
+  @Test public void update() {
+    final String query = "count(//msg[contains(., 'timeout')])";
+    execute(new CreateIndex(CmdIndex.TRIGRAM));
+    check(query, null, exists(TrigramAccess.class));
+    assertTrue(execute(new InfoIndex(CmdIndexInfo.TRIGRAM)).contains(Text.SORTED_LIST));
+
+    // index is invalidated by updates, and rebuilt by OPTIMIZE
+    query("replace value of node (//msg)[1] with 'timeout'");
+    check(query, null, empty(TrigramAccess.class));
+    execute(new Optimize());
+    final String result = query(query);
+    check(query, result, exists(TrigramAccess.class));
+
+    // included names
+    set(MainOptions.TRIGRAMINCLUDE, "host");
+    execute(new CreateIndex(CmdIndex.TRIGRAM));
+    check(query, result, empty(TrigramAccess.class));
+    set(MainOptions.TRIGRAMINCLUDE, "");
+    execute(new DropIndex(CmdIndex.TRIGRAM));
+  }
+
+  /**
+   * Compares the results of a query with and without index, and checks if the index is used.
+   * @param query query
+   */
+  private static void test(final String query) {
+    test(query, true);
+  }
+
+  /**
+   * Compares the results of a query with and without index.
+   * @param query query
+   * @param index index access expected
+   */
+  private static void test(final String query, final boolean index) {
+    execute(new DropIndex(CmdIndex.TRIGRAM));
+    final String result = query(query);
+    final String test = Util.className(TrigramAccess.class);
+    check(query, null, empty(test));
+
+    execute(new CreateIndex(CmdIndex.TRIGRAM));
+    check(query, result, index ? exists(test) : empty(test));
+    execute(new DropIndex(CmdIndex.TRIGRAM));
+  }
+}
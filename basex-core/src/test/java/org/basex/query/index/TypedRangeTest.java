@@ -0,0 +1,215 @@
+package org.basex.query.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.index.*;
+import org.basex.query.func.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests if numeric and date range queries are correctly evaluated with(out) the
+ * typed range index ({@link MainOptions#RANGEINDEX}).
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class TypedRangeTest extends QueryPlanTest {
+  /**
+   * Initializes the tests.
+   */
+  @BeforeAll public static void start() {
+    final Random rnd = new Random(1);
+
+    final TokenBuilder tb = new TokenBuilder().add("<xml>");
+    for(int i = 0; i < 2000; i++) {
+      // timestamps, numbers with different lexical representations, dates
+      final int day = rnd.nextInt(28) + 1, hour = rnd.nextInt(24), min = rnd.nextInt(60);
+      tb.add("<event ts='2021-03-").add(String.format("%02d", day)).add('T');
+      tb.add(String.format("%02d:%02d:00Z", hour, min)).add("' n='");
+      tb.add(rnd.nextBoolean() ? Integer.toString(rnd.nextInt(2000) - 1000) :
+        rnd.nextInt(1000) + "." + rnd.nextInt(10));
+      tb.add("' m='").add(i % 7 == 0 ? "x" : Integer.toString(i)).add("' c='");
+      tb.add(i % 3 == 0 ? "0777" : String.format("%04d", rnd.nextInt(10000))).add("'>");
+      tb.add("<d>2020-").add(String.format("%02d-%02d", rnd.nextInt(12) + 1, day)).add("</d>");
+      // identical strings with different names, long strings with the same prefix
+      tb.add("<code>K").addInt(i % 100).add("</code><alt>K").addInt(i % 50).add("</alt>");
+      tb.add("<long>shared-prefix-").addInt(i % 10).add("</long>");
+      tb.add("</event>");
+    }
+    execute(new CreateDB(NAME, tb.add("</xml>").toString()));
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterAll public static void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.RANGEINDEX, false);
+    set(MainOptions.RANGEINCLUDE, "");
+  }
+
+  /**
+   * Numeric ranges.
+   */
+  @Test public void numeric() {
+    test("count(//event[@n >= 100 and @n <= 200])");
+    test("count(//event[@n > -500.5 and @n < 10])");
+    test("count(//event[@n > 999])");
+    test("sum(//event[@n < -990]/@n)");
+    test("count(//event[@n = 1e10 or @n > 1e10])", false);
+  }
+
+  /**
+   * Time windows.
+   */
+  @Test public void dateTime() {
+    test("count(//event[@ts >= xs:dateTime('2021-03-10T00:00:00Z') and " +
+        "@ts < xs:dateTime('2021-03-11T00:00:00Z')])");
+    test("count(//event[@ts > xs:dateTime('2021-03-10T12:00:00+02:00')])");
+    test("count(//event[@ts <= xs:dateTime('2021-03-02T00:00:00Z')])");
+    test("let $from := xs:dateTime('2021-03-20T10:00:00Z') " +
+        "let $to := xs:dateTime('2021-03-21T10:00:00Z') " +
+        "return //event[@ts >= $from and @ts < $to]/@n ! string()");
+    // timezone mismatch: no index access
+    test("count(//event[@ts > xs:dateTime('2021-03-10T12:00:00')])", false);
+  }
+
+  /**
+   * Dates.
+   */
+  @Test public void date() {
+    test("count(//d[text() >= xs:date('2020-05-01') and text() < xs:date('2020-06-01')])");
+    test("count(//event[d > xs:date('2020-11-15')])");
+  }
+
+  /**
+   * String ranges on values with the same shape.
+   */
+  @Test public void string() {
+    test("count(//event[@c >= '0100' and @c <= '0200'])");
+    test("count(//event[@ts >= '2021-03-10T00:00:00Z' and @ts < '2021-03-12T00:00:00Z'])");
+    test("count(" + Function._DB_ATTRIBUTE_RANGE.args(NAME, "0100", "0200", "c") + ')', false);
+    test("count(" + Function._DB_ATTRIBUTE_RANGE.args(NAME, "9000", "9999", "m") + ')', false);
+    // different shape
+    test("count(//event[@c >= '100' and @c <= '200'])", false);
+  }
+
+  /**
+   * Equality comparisons (composite index on names and values).
+   */
+  @Test public void composite() {
+    test("count(//event[code = 'K42'])");
+    test("count(//event[alt = 'K42' or alt = 'K43'])", false);
+    // long strings: more candidates in the composite index
+    test("//event[long = 'shared-prefix-3']/@n/string()", false);
+    test("count(//event[@c = '0777'])");
+
+    // no value index
+    execute(new DropIndex(CmdIndex.TEXT));
+    test("count(//event[code = 'K42'])");
+    test("count(//long[text() = 'shared-prefix-9'])");
+    execute(new CreateIndex(CmdIndex.TEXT));
+  }
+
+  /**
+   * Names with values of different types, updates and included names.
+   */
+  @Test public void fallback() {
+    // mixed values
+    test("count(//event[@m >= '100' and @m <= '200'])", false);
+
+    // index is invalidated by updates, and rebuilt by OPTIMIZE
+    execute(new CreateIndex(CmdIndex.RANGE));
+    query("replace value of node (//event)[1]/@n with '1'");
+    final String query = "count(//event[@n >= 100 and @n <= 200])";
+    check(query, null, empty(TypedRangeAccess.class));
+    execute(new Optimize());
+    check(query, null, exists(TypedRangeAccess.class));
+    assertTrue(execute(new InfoIndex(CmdIndexInfo.RANGE)).contains("@ts (xs:dateTime)"));
+
+    // included names
+    set(MainOptions.RANGEINCLUDE, "ts");
+    execute(new CreateIndex(CmdIndex.RANGE));
+    check(query, null, empty(TypedRangeAccess.class));
+    set(MainOptions.RANGEINCLUDE, "");
+    execute(new DropIndex(CmdIndex.RANGE));
+  }
+
+  /**
+   * Index entries.
+   */
+  @Test public void entries() {
+    execute(new CreateIndex(CmdIndex.RANGE));
+    try {
+      final Index index = context.data().index(IndexType.RANGE);
+      // identical strings with different names are merged
+      EntryIterator ei = index.entries(new IndexEntries(Token.token("K4"), IndexType.RANGE));
+      assertEquals(11, ei.size());
+      assertEquals("K4", Token.string(ei.next()));
+      assertEquals(60, ei.count());
+      assertEquals("K40", Token.string(ei.next()));
+      assertEquals(60, ei.count());
+
+      // mixed values are indexed as strings
+      ei = index.entries(new IndexEntries(Token.token("x"), IndexType.RANGE));
+      assertEquals("x", Token.string(ei.next()));
+      assertEquals(286, ei.count());
+      assertNull(ei.next());
+
+      // traversal
+      ei = index.entries(new IndexEntries(Token.token("shared-prefix-8"), true, IndexType.RANGE));
+      assertEquals("shared-prefix-8", Token.string(ei.next()));
+      assertEquals("shared-prefix-9", Token.string(ei.next()));
+      assertEquals("x", Token.string(ei.next()));
+      assertNull(ei.next());
+    } finally {
+      execute(new DropIndex(CmdIndex.RANGE));
+    }
+  }
+
+  /**
+   * Computation of epoch seconds.
+   * @throws Exception exception
+   */
+  @Test public void epochSeconds() throws Exception {
+    assertEquals(0, new Dtm(Token.token("1970-01-01T00:00:00Z"), null).epochSeconds().signum());
+    assertEquals(86400, new Dat(Token.token("1970-01-02"), null).epochSeconds().intValue());
+    assertEquals(-3600, new Dtm(Token.token("1970-01-01T00:00:00+01:00"), null).
+        epochSeconds().intValue());
+  }
+
+  /**
+   * Compares the results of a query with and without index, and checks if the index is used.
+   * @param query query
+   */
+  private static void test(final String query) {
+    test(query, true);
+  }
+
+  /**
+   * Compares the results of a query with and without index.
+   * @param query query
+   * @param index index access expected
+   */
+  private static void test(final String query, final boolean index) {
+    execute(new DropIndex(CmdIndex.RANGE));
+    final String result = query(query);
+    final String test = Util.className(TypedRangeAccess.class);
+    check(query, null, empty(test));
+
+    execute(new CreateIndex(CmdIndex.RANGE));
+    check(query, result, index ? exists(test) : empty(test));
+    execute(new DropIndex(CmdIndex.RANGE));
+  }
+}
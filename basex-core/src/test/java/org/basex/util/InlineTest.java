@@ -63,6 +63,55 @@ public final class InlineTest extends SandboxTest {
     run("\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t");
   }
 
+  /** Test. */
+  @Test public void inlineDecimal() {
+    run("0.0");
+    run("-0.0");
+    run("0.05");
+    run("1.5");
+    run("-12.50");
+    run("4294967.295");
+    run("0.12345678");
+    assertEquals(-12.5, Inline.unpackDouble(Inline.pack(token("-12.50"))));
+    assertEquals(1.1, Inline.unpackDouble(Inline.pack(token("1.10"))));
+    assertEquals(Long.MIN_VALUE, Inline.unpackLong(Inline.pack(token("1.5"))));
+  }
+
+  /** Test. */
+  @Test public void inlineDate() {
+    run("0001-01-01");
+    run("1969-12-31");
+    run("2000-02-29");
+    run("2021-07-15Z");
+    run("2021-07-15+02:00");
+    run("2021-07-15-05:30");
+    run("2021-07-15+14:00");
+    run("9999-12-31-14:00");
+    run("1900-01-01T00:00:00");
+    run("2021-07-15T23:59:59");
+    run("2021-07-15T12:34:56Z");
+    run("4000-12-31T23:59:59Z");
+    assertTrue(Double.isNaN(Inline.unpackDouble(Inline.pack(token("2021-07-15")))));
+  }
+
+  /** Test. */
+  @Test public void dateKeys() {
+    final String[] dates = {
+      "0001-01-01", "1999-12-31", "2000-01-01", "2000-02-29", "2021-07-15"
+    };
+    for(int d = 1; d < dates.length; d++) {
+      final long key1 = Inline.dateKey(Inline.pack(token(dates[d - 1])));
+      final long key2 = Inline.dateKey(Inline.pack(token(dates[d])));
+      assertTrue(Inline.comparable(key1, key2));
+      assertTrue(key1 < key2);
+    }
+    final long date = Inline.dateKey(Inline.pack(token("2021-07-15")));
+    final long dateTime = Inline.dateKey(Inline.pack(token("2021-07-15T00:00:00")));
+    assertFalse(Inline.comparable(date, dateTime));
+    assertEquals(-1, Inline.dateKey(Inline.pack(token("2021-07-15Z"))));
+    assertEquals(-1, Inline.dateKey(Inline.pack(token("1.5"))));
+  }
+
   /** Test. */
   @Test public void reject() {
     // too long string
@@ -74,6 +123,25 @@ public final class InlineTest extends SandboxTest {
     reject("1    ");
     // too many whitespaces
     reject("                ");
+
+    // decimals that cannot be restored, or that are too large
+    reject("00.55");
+    reject(".5555");
+    reject("+1.55");
+    reject("1.5e10");
+    reject("4294967.296");
+    reject("0.123456789");
+    // invalid or unsupported dates
+    reject("2021-02-29");
+    reject("2021-13-01");
+    reject("0000-01-01");
+    reject("12021-01-01");
+    reject("2021-07-15-00:00");
+    reject("2021-07-15+14:01");
+    reject("2021-07-15T24:00:00");
+    reject("2021-07-15T12:00:00.5");
+    reject("2021-07-15T12:00:00+01:00");
+    reject("1899-12-31T23:59:59");
   }
 
   /**
@@ -0,0 +1,66 @@
+package org.basex.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Class for testing the {@link LZ4} methods.
+ *
+ * @author BaseX Team 2005-21, BSD License
+ * @author Christian Gruen
+ */
+public final class LZ4Test {
+  /** Test. */
+  @Test public void repeated() {
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    run(data, true);
+    for(int d = 0; d < data.length; d++) data[d] = (byte) (d % 7);
+    run(data, true);
+    for(int d = 0; d < data.length; d++) data[d] = (byte) (d / 300);
+    run(data, true);
+    run(Token.token("abcabcabcabcabcabcabcabcabcabcabcabc"), true);
+  }
+
+  /** Test. */
+  @Test public void random() {
+    final Random rnd = new Random(0);
+    for(int r = 0; r < 1000; r++) {
+      final byte[] data = new byte[rnd.nextInt(IO.BLOCKSIZE)];
+      // mixture of random bytes and repeated sequences
+      for(int d = 0; d < data.length; d++) {
+        data[d] = d > 8 && rnd.nextInt(4) != 0 ? data[d - 1 - rnd.nextInt(8)] :
+          (byte) rnd.nextInt();
+      }
+      run(data, false);
+    }
+  }
+
+  /** Test. */
+  @Test public void incompressible() {
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    new Random(0).nextBytes(data);
+    assertEquals(-1, LZ4.compress(data, data.length, new byte[data.length]));
+    assertEquals(-1, LZ4.compress(data, 0, new byte[0]));
+  }
+
+  /**
+   * Compresses and decompresses the specified bytes.
+   * @param data bytes
+   * @param compress bytes must be compressible
+   */
+  private static void run(final byte[] data, final boolean compress) {
+    final byte[] packed = new byte[data.length];
+    final int len = LZ4.compress(data, data.length, packed);
+    if(len == -1) {
+      assertFalse(compress, "Bytes were not compressed.");
+    } else {
+      final byte[] unpacked = new byte[data.length];
+      assertEquals(data.length, LZ4.decompress(packed, len, unpacked));
+      assertArrayEquals(data, unpacked);
+    }
+  }
+}